@@ -0,0 +1,60 @@
+package p2p.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkRunner class runs the benchmarks of the application with the
+ * allocation profiler attached, so every result reports the allocation rate
+ * and the bytes allocated per operation next to the throughput. The results
+ * are written to <i>benchmark_results.json</i> in the working directory.
+ * <p>
+ * The benchmarks are a project of their own that depends on the application,
+ * so neither JMH nor the benchmarks are part of the application's classpath.
+ * The JMH libraries are expected in the <i>lib</i> directory of the
+ * application, next to the SQLite driver, and the annotation processor of JMH
+ * has to run when the benchmarks are compiled, so it can generate the
+ * benchmark harness.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * The file that the results are written to.
+	 */
+	public static final String results_file = "benchmark_results.json";
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args
+	 *            Regular expressions selecting the benchmarks to be run. All the
+	 *            benchmarks of this package are run if none is specified.
+	 * @throws RunnerException
+	 *             If a benchmark fails.
+	 */
+	public static void main(final String[] args) throws RunnerException {
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class)
+		        .resultFormat(ResultFormatType.JSON).result(BenchmarkRunner.results_file);
+
+		if (args.length == 0) {
+			options.include(String.format("%s\\..*", BenchmarkRunner.class.getPackage().getName()));
+		}
+
+		for (final String include : args) {
+			options.include(include);
+		}
+
+		new Runner(options.build()).run();
+
+	}
+
+	private BenchmarkRunner() {}
+
+}
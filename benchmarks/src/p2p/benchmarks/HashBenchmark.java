@@ -0,0 +1,55 @@
+package p2p.benchmarks;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import p2p.components.Hash;
+
+/**
+ * Measures {@link Hash#getSHA1(String)}, which the tracker calls for every
+ * registration and login, including the hexadecimal conversion that the login
+ * compares against the database.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+	@Param({ "password", "a-considerably-longer-passphrase-of-sixty-four-characters-long!" })
+	private String password;
+
+	/**
+	 * @return The hash of the password.
+	 */
+	@Benchmark
+	public BigInteger getSHA1() {
+
+		return Hash.getSHA1(this.password);
+	}
+
+	/**
+	 * @return The hash of the password as the login compares it.
+	 */
+	@Benchmark
+	public String getSHA1Hex() {
+
+		return Hash.getSHA1(this.password).toString(16);
+	}
+
+}
@@ -0,0 +1,176 @@
+package p2p.benchmarks;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.messages.Message;
+import p2p.components.communication.messages.Reply;
+
+/**
+ * Measures the encoding and the decoding of the two payloads that grow with
+ * the size of the network, the list of peers in the reply of a search and the
+ * set of shared files that a peer sends after logging in.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadSerializationBenchmark {
+
+	/**
+	 * The second message of a login, the socket address of the peer and the
+	 * descriptions of its shared files.
+	 */
+	@State(Scope.Thread)
+	public static class LoginPayload {
+
+		@Param({ "10", "1000", "100000" })
+		private int login_files;
+
+		private Message<Pair<InetSocketAddress, HashSet<FileDescription>>>	message;
+		private byte[]														encoded;
+
+		/**
+		 * Prepares the message.
+		 */
+		@Setup
+		public void setup() {
+
+			final HashSet<FileDescription> files = new HashSet<>();
+
+			/*
+			 * The files do not exist, so their sizes are zero, which does not
+			 * change the encoded size of a long.
+			 */
+			for (int i = 0; i < this.login_files; i++) {
+				files.add(new FileDescription(new File(String.format("shared-file-%06d.bin", new Integer(i)))));
+			}
+
+			this.message = new Message<>(new Pair<>(new InetSocketAddress("127.0.0.1", 45000), files));
+			this.encoded = Serialization.encode(this.message);
+
+		}
+
+	}
+
+	/**
+	 * The reply of a search, the usernames and the socket addresses of the
+	 * peers that share the file.
+	 */
+	@State(Scope.Thread)
+	public static class SearchReply {
+
+		@Param({ "1", "16", "256" })
+		private int search_peers;
+
+		private Reply<LinkedList<Pair<String, InetSocketAddress>>>	reply;
+		private byte[]												encoded;
+
+		/**
+		 * Prepares the reply.
+		 */
+		@Setup
+		public void setup() {
+
+			final LinkedList<Pair<String, InetSocketAddress>> peers = new LinkedList<>();
+
+			for (int i = 0; i < this.search_peers; i++) {
+				peers.add(new Pair<>(String.format("peer_%04d", new Integer(i)),
+				        new InetSocketAddress(String.format("10.0.%d.%d", new Integer(i / 256), new Integer(i % 256)),
+				                45000 + i)));
+			}
+
+			this.reply = new Reply<>(Reply.Type.SUCCESS, peers);
+			this.encoded = Serialization.encode(this.reply);
+
+		}
+
+	}
+
+	/**
+	 * @param payload
+	 *            The login payload.
+	 * @param payload_size
+	 *            Reports the size of the encoded payload.
+	 * @return The decoded payload.
+	 */
+	@Benchmark
+	public Object decodeLoginPayload(final LoginPayload payload, final Serialization.PayloadSize payload_size) {
+
+		payload_size.payload_bytes = payload.encoded.length;
+
+		return Serialization.decode(payload.encoded);
+	}
+
+	/**
+	 * @param reply
+	 *            The search reply.
+	 * @param payload_size
+	 *            Reports the size of the encoded reply.
+	 * @return The decoded reply.
+	 */
+	@Benchmark
+	public Object decodeSearchReply(final SearchReply reply, final Serialization.PayloadSize payload_size) {
+
+		payload_size.payload_bytes = reply.encoded.length;
+
+		return Serialization.decode(reply.encoded);
+	}
+
+	/**
+	 * @param payload
+	 *            The login payload.
+	 * @param payload_size
+	 *            Reports the size of the encoded payload.
+	 * @return The encoded payload.
+	 */
+	@Benchmark
+	public byte[] encodeLoginPayload(final LoginPayload payload, final Serialization.PayloadSize payload_size) {
+
+		final byte[] bytes = Serialization.encode(payload.message);
+
+		payload_size.payload_bytes = bytes.length;
+
+		return bytes;
+
+	}
+
+	/**
+	 * @param reply
+	 *            The search reply.
+	 * @param payload_size
+	 *            Reports the size of the encoded reply.
+	 * @return The encoded reply.
+	 */
+	@Benchmark
+	public byte[] encodeSearchReply(final SearchReply reply, final Serialization.PayloadSize payload_size) {
+
+		final byte[] bytes = Serialization.encode(reply.reply);
+
+		payload_size.payload_bytes = bytes.length;
+
+		return bytes;
+
+	}
+
+}
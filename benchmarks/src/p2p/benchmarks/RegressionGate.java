@@ -0,0 +1,669 @@
+package p2p.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import p2p.components.Configuration;
+import p2p.utilities.LoggerManager;
+import p2p.utilities.testing.PeerTester;
+
+/**
+ * The RegressionGate class runs the load scenarios of the {@link PeerTester}
+ * and the benchmarks of the application, stores their measurements as JSON and
+ * compares them with a baseline. Every measurement is either a
+ * throughput, a latency or an allocation rate, and fails the gate if it got
+ * worse than the baseline by more than the tolerance of its kind. The outcome
+ * is printed as a table of the changes and reported by the exit status, 0 if
+ * nothing regressed, 1 if something did and 2 if the gate could not run.
+ * <p>
+ * The gate is configured by the <i>regression_</i> keys of the test
+ * configuration. Every scenario is a test configuration in <i>load</i> mode
+ * and runs in a JVM of its own, so the scenarios do not share their heap, the
+ * compiled code or the state of the transport. The following arguments are
+ * accepted:
+ * <ul>
+ * <li><i>--update-baseline</i> replaces the baseline with the new
+ * measurements instead of comparing them.</li>
+ * <li><i>--skip-scenarios</i> and <i>--skip-benchmarks</i> leave out the
+ * scenarios or the benchmarks.</li>
+ * <li>Any other argument is a regular expression selecting the benchmarks to
+ * be run, all the benchmarks of this package are run if none is
+ * specified.</li>
+ * </ul>
+ * The measurements are written one per line, so the baseline can be reviewed
+ * as a diff and read back without a JSON library. The gate belongs to the
+ * benchmarks project but runs from the directory of the application, where
+ * the configuration files and the scenarios are.
+ * <p>
+ * No baseline ships with the sources, since the measurements only compare on
+ * the machine that recorded them. Before the first comparison run the gate
+ * once with <i>--update-baseline</i> on the reference machine and commit the
+ * resulting <i>benchmarks/baseline.json</i>. Until then every run exits with
+ * 2.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class RegressionGate {
+
+	/**
+	 * The kind of a measurement, which decides the direction of a regression
+	 * and its tolerance.
+	 */
+	enum Kind {
+
+		/**
+		 * Operations per unit of time, a regression is a decrease.
+		 */
+		THROUGHPUT("throughput", true, 10),
+
+		/**
+		 * Time per operation, a regression is an increase.
+		 */
+		LATENCY("latency", false, 20),
+
+		/**
+		 * Bytes allocated per operation, a regression is an increase.
+		 */
+		ALLOCATION("allocation", false, 5);
+
+		/**
+		 * @param text
+		 *            The name of the kind.
+		 * @return The kind with the specified name.
+		 * @throws NoSuchElementException
+		 *             If there is no such kind.
+		 */
+		static Kind find(final String text) throws NoSuchElementException {
+
+			for (final Kind kind : Kind.values()) {
+				if (kind.text.equalsIgnoreCase(text)) return kind;
+			}
+
+			throw new NoSuchElementException(String.format("Unknown measurement kind <%s>.", text));
+
+		}
+
+		private final String  text;
+		private final boolean higher_is_better;
+		private final int	  default_tolerance;
+
+		private Kind(final String text, final boolean higher_is_better, final int default_tolerance) {
+
+			this.text = text;
+			this.higher_is_better = higher_is_better;
+			this.default_tolerance = default_tolerance;
+
+		}
+
+		/**
+		 * @return The name of the kind.
+		 */
+		String getText() {
+
+			return this.text;
+		}
+
+	}
+
+	/**
+	 * A single measured value.
+	 */
+	static final class Measurement {
+
+		private final Kind	 kind;
+		private final double value;
+		private final String unit;
+
+		Measurement(final Kind kind, final double value, final String unit) {
+
+			this.kind = kind;
+			this.value = value;
+			this.unit = unit;
+
+		}
+
+	}
+
+	/**
+	 * The file that the measurements of a run are written to by default.
+	 */
+	public static final String default_results_file = "regression_results.json";
+
+	/**
+	 * The baseline file that the measurements are compared with by default.
+	 */
+	public static final String default_baseline_file = "benchmarks/baseline.json";
+
+	private static final int passed	   = 0;
+	private static final int regressed = 1;
+	private static final int failed	   = 2;
+
+	private static final String row_format = "%-72s %14s %14s %10s %8s  %s%n";
+
+	private static final Pattern measurement_pattern = Pattern.compile("^\\s*\"(.+)\": \\{\"kind\": \"(\\w+)\", "
+	        + "\"value\": ([-+0-9.eE]+|NaN|-?Infinity), \"unit\": \"(.*)\"\\},?\\s*$");
+
+	private static final Pattern operation_pattern = Pattern.compile("\"(\\w+)\": \\{\"count\": (\\d+), "
+	        + "\"failures\": (\\d+), \"throughput\": ([0-9.]+), \"latency_us\": \\{\"mean\": ([0-9.]+), "
+	        + "\"p50\": (\\d+), \"p95\": (\\d+), \"p99\": (\\d+), \"p999\": (\\d+), \"max\": (\\d+)\\}\\}");
+
+	/**
+	 * Runs the gate.
+	 *
+	 * @param args
+	 *            The console arguments.
+	 */
+	public static void main(final String[] args) {
+
+		Configuration.setAsDefault(new Configuration("configuration.properties"));
+
+		System.exit(RegressionGate.run(args));
+
+	}
+
+	/**
+	 * Runs the gate.
+	 *
+	 * @param args
+	 *            The console arguments.
+	 * @return The exit status of the gate.
+	 */
+	public static int run(final String[] args) {
+
+		boolean update_baseline = false;
+		boolean skip_scenarios = false;
+		boolean skip_benchmarks = false;
+		final List<String> includes = new ArrayList<>();
+
+		for (final String arg : args) {
+
+			switch (arg) {
+			case "--update-baseline":
+				update_baseline = true;
+				break;
+			case "--skip-scenarios":
+				skip_scenarios = true;
+				break;
+			case "--skip-benchmarks":
+				skip_benchmarks = true;
+				break;
+			default:
+				includes.add(arg);
+				break;
+			}
+
+		}
+
+		final Configuration configuration = new Configuration(
+		        Configuration.getDefault().getString("test_configuration", "test_configuration.properties"));
+
+		final Path results_path = Paths
+		        .get(configuration.getString("regression_results", RegressionGate.default_results_file));
+		final Path baseline_path = Paths
+		        .get(configuration.getString("regression_baseline", RegressionGate.default_baseline_file));
+
+		final Map<String, Measurement> results = new TreeMap<>();
+
+		try {
+
+			if (!skip_scenarios) {
+				RegressionGate.runScenarios(configuration, results);
+			}
+
+			if (!skip_benchmarks) {
+				RegressionGate.runBenchmarks(includes, results);
+			}
+
+		} catch (IOException | RunnerException ex) {
+
+			LoggerManager.tracedLog(Level.SEVERE, "The measurements could not be completed.", ex);
+			return RegressionGate.failed;
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING, "The measurements were interrupted.");
+			return RegressionGate.failed;
+
+		}
+
+		if (results.isEmpty()) {
+
+			LoggerManager.tracedLog(Level.SEVERE, "Nothing was measured.");
+			return RegressionGate.failed;
+
+		}
+
+		try {
+
+			RegressionGate.write(results_path, results);
+
+			if (update_baseline) {
+
+				RegressionGate.write(baseline_path, results);
+
+				LoggerManager.tracedLog(Level.INFO,
+				        String.format("The baseline <%s> was updated with %d measurements.", baseline_path,
+				                new Integer(results.size())));
+
+				return RegressionGate.passed;
+
+			}
+
+			if (!Files.isRegularFile(baseline_path)) {
+
+				LoggerManager.tracedLog(Level.SEVERE, String.format(
+				        "The baseline <%s> does not exist, run the gate with --update-baseline to create it.",
+				        baseline_path));
+
+				return RegressionGate.failed;
+
+			}
+
+			final boolean partial = skip_scenarios || skip_benchmarks || !includes.isEmpty();
+
+			return RegressionGate.compare(configuration, RegressionGate.read(baseline_path), results, partial,
+			        new PrintWriter(System.out, true));
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.SEVERE, "The measurements could not be stored.", ex);
+			return RegressionGate.failed;
+
+		}
+
+	}
+
+	/**
+	 * Prints the table of the changes between the baseline and the new
+	 * measurements.
+	 *
+	 * @param partial
+	 *            Indicates if only a part of the measurements was run, so the
+	 *            missing ones do not fail the gate.
+	 * @return The exit status of the gate.
+	 */
+	static int compare(final Configuration configuration, final Map<String, Measurement> baseline,
+	        final Map<String, Measurement> results, final boolean partial, final PrintWriter out) {
+
+		final Map<Kind, Double> tolerances = new EnumMap<>(Kind.class);
+
+		for (final Kind kind : Kind.values()) {
+			tolerances.put(kind, new Double(configuration.getInteger(
+			        String.format("regression_%s_tolerance", kind.getText()), kind.default_tolerance)));
+		}
+
+		final List<String[]> rows = new ArrayList<>();
+		final List<Integer> severities = new ArrayList<>();
+		int regressions = 0;
+		int missing = 0;
+
+		final TreeSet<String> names = new TreeSet<>(baseline.keySet());
+		names.addAll(results.keySet());
+
+		for (final String name : names) {
+
+			final Measurement before = baseline.get(name);
+			final Measurement after = results.get(name);
+
+			final Measurement reference = before != null ? before : after;
+			final double tolerance = tolerances.get(reference.kind).doubleValue();
+
+			String change = "";
+			String status;
+			int severity;
+
+			if (after == null) {
+
+				status = partial ? "not run" : "MISSING";
+				severity = partial ? 4 : 1;
+				missing += partial ? 0 : 1;
+
+			}
+			else if (before == null) {
+
+				status = "new";
+				severity = 3;
+
+			}
+			else {
+
+				/*
+				 * The change is signed so that a positive value is always an
+				 * improvement, whatever the direction of the kind.
+				 */
+				final double relative_change = before.value == 0 ? (after.value == 0 ? 0 : Double.POSITIVE_INFINITY)
+				        : ((after.value - before.value) / Math.abs(before.value)) * 100;
+				final double improvement = before.kind.higher_is_better ? relative_change : -relative_change;
+
+				change = String.format(Locale.ROOT, "%+.1f%%", new Double(relative_change));
+
+				if (improvement < -tolerance) {
+
+					status = String.format(Locale.ROOT, "REGRESSED, %.1f%% worse", new Double(-improvement));
+					severity = 0;
+					regressions++;
+
+				}
+				else if (improvement > tolerance) {
+
+					status = "improved";
+					severity = 2;
+
+				}
+				else {
+
+					status = "ok";
+					severity = 5;
+
+				}
+
+			}
+
+			rows.add(new String[] { name, RegressionGate.format(before), RegressionGate.format(after), change,
+			        String.format(Locale.ROOT, "%.0f%%", new Double(tolerance)), status });
+			severities.add(new Integer(severity));
+
+		}
+
+		final List<Integer> order = new ArrayList<>();
+
+		for (int i = 0; i < rows.size(); i++) {
+			order.add(new Integer(i));
+		}
+
+		order.sort(Comparator.comparing((final Integer x) -> severities.get(x.intValue())));
+
+		out.print(String.format(RegressionGate.row_format, "Measurement", "Baseline", "Current", "Change", "Limit",
+		        "Status"));
+
+		for (final Integer i : order) {
+			out.print(String.format(RegressionGate.row_format, (Object[]) rows.get(i.intValue())));
+		}
+
+		out.println();
+		out.println(String.format("%d of %d measurements regressed beyond their tolerance, %d are missing.",
+		        new Integer(regressions), new Integer(names.size()), new Integer(missing)));
+		out.flush();
+
+		return (regressions > 0) || (missing > 0) ? RegressionGate.regressed : RegressionGate.passed;
+
+	}
+
+	/**
+	 * Reads the measurements written by {@link #write(Path, Map)}.
+	 */
+	static Map<String, Measurement> read(final Path path) throws IOException {
+
+		final Map<String, Measurement> measurements = new TreeMap<>();
+
+		for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+
+			final Matcher matcher = RegressionGate.measurement_pattern.matcher(line);
+
+			if (!matcher.matches()) {
+				continue;
+			}
+
+			try {
+				measurements.put(RegressionGate.unescape(matcher.group(1)), new Measurement(
+				        Kind.find(matcher.group(2)), Double.parseDouble(matcher.group(3)), matcher.group(4)));
+			} catch (final NoSuchElementException ex) {
+				LoggerManager.tracedLog(Level.WARNING, String.format("The measurement <%s> was ignored.", line), ex);
+			}
+
+		}
+
+		return measurements;
+
+	}
+
+	/**
+	 * Writes the measurements as JSON, one per line.
+	 */
+	static void write(final Path path, final Map<String, Measurement> measurements) throws IOException {
+
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append(String.format("{%n"));
+		builder.append(String.format(Locale.ROOT, "  \"timestamp\": %d,%n", new Long(System.currentTimeMillis())));
+		builder.append(String.format("  \"measurements\": {%n"));
+
+		String separator = "";
+
+		for (final Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+
+			final Measurement measurement = entry.getValue();
+
+			builder.append(separator);
+			builder.append(String.format(Locale.ROOT, "    \"%s\": {\"kind\": \"%s\", \"value\": %s, \"unit\": \"%s\"}",
+			        RegressionGate.escape(entry.getKey()), measurement.kind.getText(),
+			        Double.toString(measurement.value), RegressionGate.escape(measurement.unit)));
+			separator = String.format(",%n");
+
+		}
+
+		builder.append(String.format("%n  }%n}%n"));
+
+		final Path parent = path.toAbsolutePath().getParent();
+
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		Files.write(path, builder.toString().getBytes(StandardCharsets.UTF_8));
+
+	}
+
+	/**
+	 * @return The text with the backslashes and the quotes escaped.
+	 */
+	private static String escape(final String text) {
+
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * @return The value and the unit of the measurement or an empty text if
+	 *         there is no measurement.
+	 */
+	private static String format(final Measurement measurement) {
+
+		if (measurement == null) return "";
+
+		return String.format(Locale.ROOT, "%.4g %s", new Double(measurement.value), measurement.unit);
+	}
+
+	/**
+	 * @return The name of a benchmark followed by its parameters, such as
+	 *         <i>p2p.benchmarks.HashBenchmark.getSHA1{size=1024}</i>.
+	 */
+	private static String getName(final BenchmarkParams params) {
+
+		final Collection<String> keys = params.getParamsKeys();
+
+		if (keys.isEmpty()) return params.getBenchmark();
+
+		final StringBuilder builder = new StringBuilder(params.getBenchmark()).append('{');
+		String separator = "";
+
+		for (final String key : keys) {
+
+			builder.append(separator).append(key).append('=').append(params.getParam(key));
+			separator = ",";
+
+		}
+
+		return builder.append('}').toString();
+
+	}
+
+	/**
+	 * Runs the benchmarks with the allocation profiler attached and adds the
+	 * score of every benchmark and its bytes allocated per operation to the
+	 * results.
+	 */
+	@SuppressWarnings("rawtypes")
+	private static void runBenchmarks(final List<String> includes, final Map<String, Measurement> results)
+	        throws RunnerException {
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class)
+		        .shouldFailOnError(true);
+
+		if (includes.isEmpty()) {
+			options.include(String.format("%s\\..*", RegressionGate.class.getPackage().getName()));
+		}
+
+		for (final String include : includes) {
+			options.include(include);
+		}
+
+		for (final RunResult run_result : new Runner(options.build()).run()) {
+
+			final BenchmarkParams params = run_result.getParams();
+			final String name = String.format("benchmark.%s", RegressionGate.getName(params));
+			final Result primary = run_result.getPrimaryResult();
+
+			results.put(name, new Measurement(params.getMode() == Mode.Throughput ? Kind.THROUGHPUT : Kind.LATENCY,
+			        primary.getScore(), primary.getScoreUnit()));
+
+			/*
+			 * Older versions of JMH prefix the names of the profiler results
+			 * with a middle dot.
+			 */
+			for (final Map.Entry<String, Result> entry : run_result.getSecondaryResults().entrySet()) {
+
+				if (entry.getKey().replace("\u00B7", "").equals("gc.alloc.rate.norm")) {
+					results.put(String.format("%s.allocation", name), new Measurement(Kind.ALLOCATION,
+					        entry.getValue().getScore(), entry.getValue().getScoreUnit()));
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Runs every scenario in a new JVM and adds the throughput and the latency
+	 * percentiles of its operations to the results. The throughput only counts
+	 * the successful requests, so a scenario whose requests fail regresses
+	 * instead of getting faster.
+	 */
+	private static void runScenarios(final Configuration configuration, final Map<String, Measurement> results)
+	        throws IOException, InterruptedException {
+
+		final String scenarios = configuration.getString("regression_scenarios", "");
+		final long timeout = configuration.getInteger("regression_scenario_timeout", 600);
+
+		for (final String entry : scenarios.split(",")) {
+
+			final String scenario_path = entry.trim();
+
+			if (scenario_path.isEmpty()) {
+				continue;
+			}
+
+			final Configuration scenario = new Configuration(scenario_path);
+			final Path report_path = Paths.get(scenario.getString("load_report_path", "load_report.json"));
+			final String scenario_name = Paths.get(scenario_path).getFileName().toString().replaceFirst("\\.[^.]*$",
+			        "");
+
+			if (!scenario.getString("test_mode", "peers").equalsIgnoreCase("load")) {
+
+				LoggerManager.tracedLog(Level.WARNING,
+				        String.format("The scenario <%s> was skipped, it is not in load mode.", scenario_path));
+				continue;
+
+			}
+
+			Files.deleteIfExists(report_path);
+
+			LoggerManager.tracedLog(Level.INFO, String.format("Running the scenario <%s>.", scenario_path));
+
+			final Process process = new ProcessBuilder(
+			        Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-cp",
+			        System.getProperty("java.class.path"), PeerTester.class.getName(), scenario_path).inheritIO()
+			                .start();
+
+			if (!process.waitFor(timeout, TimeUnit.SECONDS)) {
+
+				process.destroyForcibly();
+
+				LoggerManager.tracedLog(Level.WARNING,
+				        String.format("The scenario <%s> did not exit within %d seconds.", scenario_path,
+				                new Long(timeout)));
+
+			}
+
+			if (!Files.isRegularFile(report_path))
+			    throw new IOException(String.format("The scenario <%s> did not write the report <%s>.",
+			            scenario_path, report_path));
+
+			final Matcher matcher = RegressionGate.operation_pattern
+			        .matcher(new String(Files.readAllBytes(report_path), StandardCharsets.UTF_8));
+
+			while (matcher.find()) {
+
+				final long count = Long.parseLong(matcher.group(2));
+				final long failures = Long.parseLong(matcher.group(3));
+
+				if (count == 0) {
+					continue;
+				}
+
+				final String name = String.format("scenario.%s.%s", scenario_name, matcher.group(1));
+
+				results.put(String.format("%s.throughput", name), new Measurement(Kind.THROUGHPUT,
+				        (Double.parseDouble(matcher.group(4)) * (count - failures)) / count, "ops/s"));
+				results.put(String.format("%s.p50", name),
+				        new Measurement(Kind.LATENCY, Double.parseDouble(matcher.group(6)), "us"));
+				results.put(String.format("%s.p95", name),
+				        new Measurement(Kind.LATENCY, Double.parseDouble(matcher.group(7)), "us"));
+				results.put(String.format("%s.p99", name),
+				        new Measurement(Kind.LATENCY, Double.parseDouble(matcher.group(8)), "us"));
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * @return The text with the escaped backslashes and quotes restored.
+	 */
+	private static String unescape(final String text) {
+
+		return text.replace("\\\"", "\"").replace("\\\\", "\\");
+	}
+
+	private RegressionGate() {}
+
+}
@@ -0,0 +1,181 @@
+package p2p.benchmarks;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import p2p.components.common.Credentials;
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+
+/**
+ * Measures the encoding and the decoding of every {@link Request.Type} with
+ * the data that the clients actually send, and of the simple replies.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestSerializationBenchmark {
+
+	/**
+	 * @return The descriptions of the specified number of shared files.
+	 */
+	private static HashSet<FileDescription> newFileDescriptions(final int count) {
+
+		final HashSet<FileDescription> files = new HashSet<>();
+
+		for (int i = 0; i < count; i++) {
+			files.add(new FileDescription(new File(String.format("shared-file-%04d.bin", new Integer(i)))));
+		}
+
+		return files;
+
+	}
+
+	/**
+	 * @return A request of the specified type with the data its client sends.
+	 */
+	static Request<?> newRequest(final Request.Type type) {
+
+		final Serializable data;
+
+		switch (type) {
+		case REGISTER:
+		case LOGIN:
+			data = new Credentials("benchmark_user", "5baa61e4c9b93f3f0682250b6cf8331b7ee68fd8");
+			break;
+
+		case BOUND_LOGIN:
+			data = new Pair<>(new Credentials("benchmark_user", "5baa61e4c9b93f3f0682250b6cf8331b7ee68fd8"),
+			        new Pair<>(new InetSocketAddress("127.0.0.1", 40000),
+			                RequestSerializationBenchmark.newFileDescriptions(25)));
+			break;
+
+		case RESUME:
+			data = new Pair<>(
+			        "MTc2MDAwMDAwMDAwMDoxMjM0NTY3OmJlbmNobWFya191c2Vy.3q2-7wAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA",
+			        new Pair<>(new InetSocketAddress("127.0.0.1", 40000),
+			                "5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8"));
+			break;
+
+		case CHECK_ALIVE:
+			data = Boolean.TRUE;
+			break;
+
+		case SEARCH:
+			data = new Pair<>(new Integer(1234567), "shared-file-0042.bin");
+			break;
+
+		case ACKNOWLEDGE:
+			data = new Pair<>(new Integer(1234567), new Pair<>("uploader_user", "shared-file-0042.bin"));
+			break;
+
+		case ANNOUNCE_ADD:
+		case ANNOUNCE_REMOVE:
+			data = new Pair<>(new Integer(1234567), RequestSerializationBenchmark.newFileDescriptions(3));
+			break;
+
+		case SIMPLE_DOWNLOAD:
+			data = "shared-file-0042.bin";
+			break;
+
+		case LOGOUT:
+			data = new Integer(1234567);
+			break;
+
+		default:
+			data = null;
+		}
+
+		return new Request<>(type, data);
+
+	}
+
+	@Param
+	private Request.Type type;
+
+	private Request<?> request;
+	private byte[]	   encoded_request;
+	private byte[]	   encoded_reply;
+
+	/**
+	 * Prepares the messages.
+	 */
+	@Setup
+	public void setup() {
+
+		this.request = RequestSerializationBenchmark.newRequest(this.type);
+		this.encoded_request = Serialization.encode(this.request);
+		this.encoded_reply = Serialization.encode(Reply.getSimpleSuccessMessage());
+
+	}
+
+	/**
+	 * @param payload_size
+	 *            Reports the size of the encoded request.
+	 * @return The decoded request.
+	 */
+	@Benchmark
+	public Object decodeRequest(final Serialization.PayloadSize payload_size) {
+
+		payload_size.payload_bytes = this.encoded_request.length;
+
+		return Serialization.decode(this.encoded_request);
+	}
+
+	/**
+	 * @return The decoded simple success reply.
+	 */
+	@Benchmark
+	public Object decodeSimpleReply() {
+
+		return Serialization.decode(this.encoded_reply);
+	}
+
+	/**
+	 * @param payload_size
+	 *            Reports the size of the encoded request.
+	 * @return The encoded request.
+	 */
+	@Benchmark
+	public byte[] encodeRequest(final Serialization.PayloadSize payload_size) {
+
+		final byte[] bytes = Serialization.encode(this.request);
+
+		payload_size.payload_bytes = bytes.length;
+
+		return bytes;
+
+	}
+
+	/**
+	 * @return The encoded simple success reply.
+	 */
+	@Benchmark
+	public byte[] encodeSimpleReply() {
+
+		return Serialization.encode(Reply.getSimpleSuccessMessage());
+	}
+
+}
@@ -0,0 +1,87 @@
+package p2p.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The Serialization class encodes and decodes messages the way the channels
+ * do. Every message is written to a new object stream, since a channel
+ * usually exchanges a single request and reply, so the stream header and the
+ * class descriptors are part of the measured cost.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+final class Serialization {
+
+	/**
+	 * A Serialization#PayloadSize object reports the number of bytes of the
+	 * encoded message as a secondary result of a benchmark. The value is
+	 * accurate when the benchmark runs on a single thread.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PayloadSize {
+
+		/**
+		 * The number of bytes of the last encoded message.
+		 */
+		public long payload_bytes;
+
+	}
+
+	/**
+	 * Deserializes an object the way a channel reads it.
+	 *
+	 * @param bytes
+	 *            The serialized object.
+	 * @return The object.
+	 */
+	static Object decode(final byte[] bytes) {
+
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+
+			return in.readObject();
+
+		} catch (final IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (final ClassNotFoundException ex) {
+			throw new IllegalStateException(ex);
+		}
+
+	}
+
+	/**
+	 * Serializes an object the way a channel writes it.
+	 *
+	 * @param object
+	 *            The object to be serialized.
+	 * @return The serialized object.
+	 */
+	static byte[] encode(final Object object) {
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+
+			out.writeObject(object);
+			out.flush();
+
+		} catch (final IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+
+		return bytes.toByteArray();
+
+	}
+
+	private Serialization() {}
+
+}
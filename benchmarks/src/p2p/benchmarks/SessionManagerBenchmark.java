@@ -0,0 +1,548 @@
+package p2p.benchmarks;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.trackers.SessionManager;
+
+/**
+ * Measures the operations of the {@link SessionManager} of a tracker with an
+ * index of 1k, 10k and 100k sessions. Every operation locks the manager the
+ * way the tracker's channels do, so the single threaded results include the
+ * cost of an uncontended lock and the contended results show how the tracker
+ * scales when several channels use the index at the same time.
+ * <p>
+ * The shared files are drawn from a catalog with a skewed popularity, so a few
+ * files are shared by many peers and most files by a few, and the searches
+ * follow the same popularity.
+ * <p>
+ * The additions and the removals of sessions change the size of the index, so
+ * they are measured in batches of {@value #batch_size} operations, with the
+ * index restored before every batch.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SessionManagerBenchmark {
+
+	/**
+	 * The number of sessions that are added or removed in every measured batch.
+	 */
+	public static final int batch_size = 1000;
+
+	/**
+	 * The number of threads of the contended benchmarks.
+	 */
+	public static final int contending_threads = 4;
+
+	/**
+	 * A SessionManagerBenchmark#Index object keeps the populated session
+	 * manager, shared by all the threads of a benchmark.
+	 */
+	@State(Scope.Benchmark)
+	public static class Index {
+
+		/**
+		 * @return The username of the session.
+		 */
+		static String getUsername(final int session_id) {
+
+			return String.format("user_%d", new Integer(session_id));
+		}
+
+		@Param({ "1000", "10000", "100000" })
+		private int sessions;
+
+		@Param({ "25" })
+		private int files_per_session;
+
+		@Param({ "50000" })
+		private int catalog_size;
+
+		private final SessionManager session_manager = new SessionManager();
+		private final AtomicInteger	 next_session_id = new AtomicInteger();
+
+		private FileDescription[] catalog;
+		private String[]		  shared_filenames;
+
+		/**
+		 * Fills the session manager.
+		 */
+		@Setup
+		public void setup() {
+
+			final Random random = new Random(42);
+
+			this.catalog = new FileDescription[this.catalog_size];
+
+			for (int i = 0; i < this.catalog_size; i++) {
+				this.catalog[i] = new FileDescription(new File(String.format("shared-file-%06d.bin", new Integer(i))));
+			}
+
+			/*
+			 * One of the files of every session is kept, so a download can be
+			 * acknowledged without searching the index.
+			 */
+			this.shared_filenames = new String[this.sessions + 1];
+
+			for (int i = 1; i <= this.sessions; i++) {
+
+				final HashSet<FileDescription> files = this.newFiles(random);
+
+				this.shared_filenames[i] = files.iterator().next().getFilename();
+				this.addSession(i, files);
+
+			}
+
+			this.next_session_id.set(this.sessions + 1);
+
+		}
+
+		/**
+		 * Adds a session while holding the manager's lock.
+		 *
+		 * @return True If the session was added.
+		 */
+		boolean addSession(final int session_id, final HashSet<FileDescription> files) {
+
+			synchronized (this.session_manager) {
+
+				return this.session_manager.addSession(session_id, Index.getUsername(session_id),
+				        new InetSocketAddress("127.0.0.1", 1024 + (session_id % 60000)), files);
+
+			}
+
+		}
+
+		/**
+		 * @return The filename of a file of the catalog, the lower indices
+		 *         being the most popular.
+		 */
+		String getFilename(final Random random) {
+
+			return this.getFile(random).getFilename();
+		}
+
+		/**
+		 * @return The id of an existing session.
+		 */
+		int getSessionID(final Random random) {
+
+			return 1 + random.nextInt(this.sessions);
+		}
+
+		/**
+		 * @return A filename shared by the session.
+		 */
+		String getSharedFilename(final int session_id) {
+
+			return this.shared_filenames[session_id];
+		}
+
+		/**
+		 * @return The files of a new session.
+		 */
+		HashSet<FileDescription> newFiles(final Random random) {
+
+			final HashSet<FileDescription> files = new HashSet<>();
+
+			while (files.size() < Math.min(this.files_per_session, this.catalog_size)) {
+				files.add(this.getFile(random));
+			}
+
+			return files;
+
+		}
+
+		/**
+		 * Reserves a range of session ids that are not used by the index.
+		 *
+		 * @return The first id of the range.
+		 */
+		int reserveSessionIDs(final int count) {
+
+			return this.next_session_id.getAndAdd(count);
+		}
+
+		/**
+		 * Removes a session while holding the manager's lock.
+		 *
+		 * @return True If the session was removed.
+		 */
+		boolean removeSession(final int session_id) {
+
+			synchronized (this.session_manager) {
+				return this.session_manager.removeSession(session_id);
+			}
+
+		}
+
+		/**
+		 * @return A file of the catalog, the lower indices being the most
+		 *         popular.
+		 */
+		private FileDescription getFile(final Random random) {
+
+			final double x = random.nextDouble();
+
+			return this.catalog[(int) (this.catalog_size * x * x * x)];
+		}
+
+	}
+
+	/**
+	 * A SessionManagerBenchmark#NewSessions object prepares a batch of
+	 * sessions to be added.
+	 */
+	@State(Scope.Benchmark)
+	public static class NewSessions {
+
+		/**
+		 * @return An array for the files of the batch.
+		 */
+		@SuppressWarnings("unchecked")
+		private static HashSet<FileDescription>[] newFilesArray() {
+
+			return new HashSet[SessionManagerBenchmark.batch_size];
+		}
+
+		private final HashSet<FileDescription>[] files = NewSessions.newFilesArray();
+
+		private int first_session_id;
+		private int next = 0;
+
+		/**
+		 * Reserves the session ids and prepares the shared files.
+		 *
+		 * @param index
+		 *            The index.
+		 */
+		@Setup
+		public void setup(final Index index) {
+
+			final Random random = new Random(7);
+
+			this.first_session_id = index.reserveSessionIDs(SessionManagerBenchmark.batch_size);
+
+			for (int i = 0; i < SessionManagerBenchmark.batch_size; i++) {
+				this.files[i] = index.newFiles(random);
+			}
+
+		}
+
+		/**
+		 * Removes the sessions added by the previous batch.
+		 *
+		 * @param index
+		 *            The index.
+		 */
+		@Setup(Level.Iteration)
+		public void reset(final Index index) {
+
+			for (int i = 0; i < this.next; i++) {
+				index.removeSession(this.first_session_id + i);
+			}
+
+			this.next = 0;
+
+		}
+
+	}
+
+	/**
+	 * A SessionManagerBenchmark#AddedSessions object adds a batch of sessions
+	 * to be removed.
+	 */
+	@State(Scope.Benchmark)
+	public static class AddedSessions {
+
+		private int first_session_id;
+		private int next = SessionManagerBenchmark.batch_size;
+
+		/**
+		 * Reserves the session ids.
+		 *
+		 * @param index
+		 *            The index.
+		 */
+		@Setup
+		public void setup(final Index index) {
+
+			this.first_session_id = index.reserveSessionIDs(SessionManagerBenchmark.batch_size);
+		}
+
+		/**
+		 * Adds the sessions removed by the previous batch.
+		 *
+		 * @param index
+		 *            The index.
+		 */
+		@Setup(Level.Iteration)
+		public void reset(final Index index) {
+
+			final Random random = new Random(11);
+
+			for (int i = 0; i < this.next; i++) {
+				index.addSession(this.first_session_id + i, index.newFiles(random));
+			}
+
+			this.next = 0;
+
+		}
+
+	}
+
+	/**
+	 * A SessionManagerBenchmark#Client object keeps the state of a single
+	 * thread, like a channel of the tracker.
+	 */
+	@State(Scope.Thread)
+	public static class Client {
+
+		private Random					 random;
+		private int						 session_id;
+		private HashSet<FileDescription> files;
+
+		/**
+		 * Reserves a session id for the thread.
+		 *
+		 * @param index
+		 *            The index.
+		 * @param thread_params
+		 *            The parameters of the thread.
+		 */
+		@Setup
+		public void setup(final Index index, final ThreadParams thread_params) {
+
+			this.random = new Random(thread_params.getThreadIndex());
+			this.session_id = index.reserveSessionIDs(1);
+			this.files = index.newFiles(this.random);
+
+		}
+
+	}
+
+	/**
+	 * Acknowledges a download, so the downloader is added to the peers that
+	 * share the file.
+	 */
+	private static boolean acknowledge(final Index index, final Client client) {
+
+		final int downloader = index.getSessionID(client.random);
+		final int uploader = index.getSessionID(client.random);
+
+		synchronized (index.session_manager) {
+
+			return index.session_manager.addDownloadFileFrom(downloader, Index.getUsername(uploader),
+			        index.getSharedFilename(uploader));
+
+		}
+
+	}
+
+	/**
+	 * Looks up the session id of an active user.
+	 */
+	private static Integer findSessionID(final Index index, final Client client) {
+
+		final String username = Index.getUsername(index.getSessionID(client.random));
+
+		synchronized (index.session_manager) {
+			return index.session_manager.getSessionID(username);
+		}
+
+	}
+
+	/**
+	 * Searches for a file of the catalog.
+	 */
+	private static List<Pair<String, InetSocketAddress>> search(final Index index, final Client client) {
+
+		final String filename = index.getFilename(client.random);
+
+		synchronized (index.session_manager) {
+			return index.session_manager.searchFilename(filename);
+		}
+
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return True If the download was acknowledged.
+	 */
+	@Benchmark
+	public boolean addDownloadFileFrom(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.acknowledge(index, client);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param new_sessions
+	 *            The batch of sessions to be added.
+	 * @return True If the session was added.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 10, batchSize = SessionManagerBenchmark.batch_size)
+	@Measurement(iterations = 20, batchSize = SessionManagerBenchmark.batch_size)
+	public boolean addSession(final Index index, final NewSessions new_sessions) {
+
+		final int i = new_sessions.next++;
+
+		return index.addSession(new_sessions.first_session_id + i, new_sessions.files[i]);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return True If the download was acknowledged.
+	 */
+	@Benchmark
+	@Threads(SessionManagerBenchmark.contending_threads)
+	public boolean contendedAddDownloadFileFrom(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.acknowledge(index, client);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return The session id of the user.
+	 */
+	@Benchmark
+	@Threads(SessionManagerBenchmark.contending_threads)
+	public Integer contendedGetSessionID(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.findSessionID(index, client);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return The peers that share the file.
+	 */
+	@Benchmark
+	@Threads(SessionManagerBenchmark.contending_threads)
+	public List<Pair<String, InetSocketAddress>> contendedSearchFilename(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.search(index, client);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return The session id of the user.
+	 */
+	@Benchmark
+	public Integer getSessionID(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.findSessionID(index, client);
+	}
+
+	/**
+	 * Logs a peer in and out while the other threads of the group search.
+	 *
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return True If the session was added and removed.
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public boolean mixedLoginLogout(final Index index, final Client client) {
+
+		return index.addSession(client.session_id, client.files) && index.removeSession(client.session_id);
+	}
+
+	/**
+	 * Searches while another thread of the group logs a peer in and out.
+	 *
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return The peers that share the file.
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(SessionManagerBenchmark.contending_threads - 1)
+	public List<Pair<String, InetSocketAddress>> mixedSearchFilename(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.search(index, client);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param added_sessions
+	 *            The batch of sessions to be removed.
+	 * @return True If the session was removed.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 10, batchSize = SessionManagerBenchmark.batch_size)
+	@Measurement(iterations = 20, batchSize = SessionManagerBenchmark.batch_size)
+	public boolean removeSession(final Index index, final AddedSessions added_sessions) {
+
+		return index.removeSession(added_sessions.first_session_id + added_sessions.next++);
+	}
+
+	/**
+	 * @param index
+	 *            The index.
+	 * @param client
+	 *            The state of the thread.
+	 * @return The peers that share the file.
+	 */
+	@Benchmark
+	public List<Pair<String, InetSocketAddress>> searchFilename(final Index index, final Client client) {
+
+		return SessionManagerBenchmark.search(index, client);
+	}
+
+}
@@ -0,0 +1,62 @@
+package p2p.components.events.jfr;
+
+import java.net.Socket;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import p2p.components.events.ChannelEvent;
+import p2p.components.events.EventContext;
+
+/**
+ * A FlightChannelEvent object is the Flight Recorder implementation of the
+ * {@link ChannelEvent} that records the lifetime of a channel, from the moment
+ * its communication starts until its socket is closed.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@Name("p2p.Channel")
+@Label("Channel")
+@Category({ "P2P", "Communication" })
+@Description("The lifetime of a channel")
+@StackTrace(false)
+public class FlightChannelEvent extends jdk.jfr.Event implements ChannelEvent {
+
+	@Label("Channel")
+	String channel;
+
+	@Label("Channel Type")
+	String channelType;
+
+	@Label("Peer Address")
+	String peerAddress;
+
+	@Label("Session ID")
+	String sessionId;
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.ChannelEvent#complete(Thread, Socket)
+	 */
+	@Override
+	public void complete(final Thread thread, final Socket socket) {
+
+		this.end();
+
+		if (this.shouldCommit()) {
+
+			this.channel = thread.getName();
+			this.channelType = thread.getClass().getSimpleName();
+			this.peerAddress = String.valueOf(socket.getRemoteSocketAddress());
+			this.sessionId = EventContext.getSessionID();
+
+			this.commit();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+package p2p.components.events.jfr;
+
+import java.net.InetSocketAddress;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import p2p.components.events.CheckAliveEvent;
+import p2p.components.events.EventContext;
+
+/**
+ * A FlightCheckAliveEvent object is the Flight Recorder implementation of the
+ * {@link CheckAliveEvent} that records a check alive probe and its outcome.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@Name("p2p.CheckAlive")
+@Label("Check Alive")
+@Category({ "P2P", "Communication" })
+@Description("A check alive probe sent to a server")
+@StackTrace(false)
+public class FlightCheckAliveEvent extends jdk.jfr.Event implements CheckAliveEvent {
+
+	@Label("Peer Address")
+	@Description("The address of the probed server")
+	String peerAddress;
+
+	@Label("Session ID")
+	String sessionId;
+
+	@Label("Response Time")
+	@Timespan(Timespan.MILLISECONDS)
+	long responseTime;
+
+	@Label("Outcome")
+	String outcome;
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.CheckAliveEvent#complete(InetSocketAddress, long, String)
+	 */
+	@Override
+	public void complete(final InetSocketAddress socket_address, final long response_time, final String outcome) {
+
+		this.end();
+
+		if (this.shouldCommit()) {
+
+			this.peerAddress = String.valueOf(socket_address);
+			this.sessionId = EventContext.getSessionID();
+			this.responseTime = response_time;
+			this.outcome = outcome;
+
+			this.commit();
+
+		}
+
+	}
+
+}
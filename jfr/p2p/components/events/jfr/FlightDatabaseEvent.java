@@ -0,0 +1,59 @@
+package p2p.components.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import p2p.components.events.DatabaseEvent;
+import p2p.components.events.EventContext;
+
+/**
+ * A FlightDatabaseEvent object is the Flight Recorder implementation of the
+ * {@link DatabaseEvent} that records a call to the tracker's database.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@Name("p2p.Database")
+@Label("Database Call")
+@Category({ "P2P", "Database" })
+@Description("A call to the tracker's database")
+@StackTrace(false)
+public class FlightDatabaseEvent extends jdk.jfr.Event implements DatabaseEvent {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Username")
+	String username;
+
+	@Label("Peer Address")
+	String peerAddress;
+
+	@Label("Session ID")
+	String sessionId;
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.DatabaseEvent#complete(String, String)
+	 */
+	@Override
+	public void complete(final String operation, final String username) {
+
+		this.end();
+
+		if (this.shouldCommit()) {
+
+			this.operation = operation;
+			this.username = username;
+			this.peerAddress = EventContext.getPeerAddress();
+			this.sessionId = EventContext.getSessionID();
+
+			this.commit();
+
+		}
+
+	}
+
+}
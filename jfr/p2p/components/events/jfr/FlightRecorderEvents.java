@@ -0,0 +1,69 @@
+package p2p.components.events.jfr;
+
+import p2p.components.events.ChannelEvent;
+import p2p.components.events.CheckAliveEvent;
+import p2p.components.events.DatabaseEvent;
+import p2p.components.events.EventProvider;
+import p2p.components.events.RequestEvent;
+import p2p.components.events.TransferEvent;
+
+/**
+ * A FlightRecorderEvents object creates the Flight Recorder implementations of
+ * the events. It is loaded reflectively by {@link p2p.components.events.Events
+ * Events} only if the {@code jdk.jfr} API is available.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class FlightRecorderEvents implements EventProvider {
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.EventProvider#newChannelEvent()
+	 */
+	@Override
+	public ChannelEvent newChannelEvent() {
+
+		return new FlightChannelEvent();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.EventProvider#newCheckAliveEvent()
+	 */
+	@Override
+	public CheckAliveEvent newCheckAliveEvent() {
+
+		return new FlightCheckAliveEvent();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.EventProvider#newDatabaseEvent()
+	 */
+	@Override
+	public DatabaseEvent newDatabaseEvent() {
+
+		return new FlightDatabaseEvent();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.EventProvider#newRequestEvent()
+	 */
+	@Override
+	public RequestEvent newRequestEvent() {
+
+		return new FlightRequestEvent();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.EventProvider#newTransferEvent()
+	 */
+	@Override
+	public TransferEvent newTransferEvent() {
+
+		return new FlightTransferEvent();
+	}
+
+}
@@ -0,0 +1,61 @@
+package p2p.components.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import p2p.components.communication.messages.Request;
+import p2p.components.events.EventContext;
+import p2p.components.events.RequestEvent;
+
+/**
+ * A FlightRequestEvent object is the Flight Recorder implementation of the
+ * {@link RequestEvent} that records the dispatch of a request by a server,
+ * from the moment the request is read until it has been processed.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@Name("p2p.Request")
+@Label("Request")
+@Category({ "P2P", "Communication" })
+@Description("The processing of a request by a server")
+@StackTrace(false)
+public class FlightRequestEvent extends jdk.jfr.Event implements RequestEvent {
+
+	@Label("Request Type")
+	String requestType;
+
+	@Label("Peer Address")
+	String peerAddress;
+
+	@Label("Session ID")
+	String sessionId;
+
+	@Label("Completed")
+	@Description("If the request was processed without an exception")
+	boolean completed;
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.RequestEvent#complete(Request.Type, boolean)
+	 */
+	@Override
+	public void complete(final Request.Type request_type, final boolean completed) {
+
+		this.end();
+
+		if (this.shouldCommit()) {
+
+			this.requestType = request_type.name();
+			this.peerAddress = EventContext.getPeerAddress();
+			this.sessionId = EventContext.getSessionID();
+			this.completed = completed;
+
+			this.commit();
+
+		}
+
+	}
+
+}
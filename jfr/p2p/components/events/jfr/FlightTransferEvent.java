@@ -0,0 +1,74 @@
+package p2p.components.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import p2p.components.events.EventContext;
+import p2p.components.events.TransferEvent;
+
+/**
+ * A FlightTransferEvent object is the Flight Recorder implementation of the
+ * {@link TransferEvent} that records the transfer of a file between two peers.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@Name("p2p.Transfer")
+@Label("File Transfer")
+@Category({ "P2P", "Transfers" })
+@Description("The transfer of a file between two peers")
+@StackTrace(false)
+public class FlightTransferEvent extends jdk.jfr.Event implements TransferEvent {
+
+	@Label("Direction")
+	String direction;
+
+	@Label("Filename")
+	String filename;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Throughput")
+	@DataAmount
+	@Frequency
+	long throughput;
+
+	@Label("Peer Address")
+	String peerAddress;
+
+	@Label("Session ID")
+	String sessionId;
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.events.TransferEvent#complete(String, String, long, long)
+	 */
+	@Override
+	public void complete(final String direction, final String filename, final long bytes, final long start_time) {
+
+		this.end();
+
+		if (this.shouldCommit()) {
+
+			final long duration = System.nanoTime() - start_time;
+
+			this.direction = direction;
+			this.filename = filename;
+			this.bytes = bytes;
+			this.throughput = duration > 0 ? (long) ((bytes * 1e9) / duration) : 0;
+			this.peerAddress = EventContext.getPeerAddress();
+			this.sessionId = EventContext.getSessionID();
+
+			this.commit();
+
+		}
+
+	}
+
+}
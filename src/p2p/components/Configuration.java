@@ -17,7 +17,7 @@ import p2p.utilities.LoggerManager;
  */
 public class Configuration extends Properties {
 
-	private static Configuration default_configuration = new Configuration();
+	private static volatile Configuration default_configuration = new Configuration();
 
 	/**
 	 * The serialVersionID required by the {@link Serializable} interface to
@@ -35,7 +35,8 @@ public class Configuration extends Properties {
 	}
 
 	/**
-	 * Update the default configuration.
+	 * Update the default configuration and publish a new
+	 * {@link ConfigurationSnapshot} of it.
 	 *
 	 * @param new_configuration
 	 *            The new configuration.
@@ -45,12 +46,15 @@ public class Configuration extends Properties {
 
 		final Configuration last_configuration = Configuration.default_configuration;
 		Configuration.default_configuration = new_configuration;
+		ConfigurationSnapshot.publish(new_configuration);
 		return last_configuration;
 
 	}
 
 	private final String path;
 
+	private boolean loaded = false;
+
 	/**
 	 * Allocates a new empty Configuration object.
 	 */
@@ -73,6 +77,7 @@ public class Configuration extends Properties {
 			try (final FileInputStream in = new FileInputStream(new File(path))) {
 
 				this.load(in);
+				this.loaded = true;
 
 				LoggerManager.tracedLog(Level.INFO,
 				        String.format("The configuration file <%s> loaded successfully.", path));
@@ -188,4 +193,13 @@ public class Configuration extends Properties {
 		return this.getProperty(key, default_value);
 	}
 
+	/**
+	 * @return True If the configuration was read from a properties file
+	 *         successfully.
+	 */
+	public final boolean isLoaded() {
+
+		return this.loaded;
+	}
+
 }
@@ -0,0 +1,124 @@
+package p2p.components;
+
+import java.util.logging.Level;
+
+import p2p.components.communication.Channel;
+import p2p.components.communication.ChannelCleaner;
+import p2p.components.trackers.TrackerServerChannel;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A ConfigurationSnapshot object holds the typed values of the properties that
+ * are read on every request. The values are parsed and validated once, when
+ * the default {@link Configuration} changes, and the current snapshot is
+ * published through a volatile reference so it can be read without any
+ * locking. Changes made directly to the properties of the default
+ * configuration are not reflected until it is set as default again.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class ConfigurationSnapshot {
+
+	/*
+	 * Until a default configuration is set every property has its default
+	 * value.
+	 */
+	private static volatile ConfigurationSnapshot current = new ConfigurationSnapshot(new Configuration());
+
+	/**
+	 * @return The snapshot of the default configuration.
+	 */
+	public static ConfigurationSnapshot getCurrent() {
+
+		return ConfigurationSnapshot.current;
+	}
+
+	/**
+	 * Parses the configuration and publishes the new snapshot.
+	 *
+	 * @param configuration
+	 *            The new default configuration.
+	 * @return The new snapshot.
+	 */
+	static ConfigurationSnapshot publish(final Configuration configuration) {
+
+		final ConfigurationSnapshot snapshot = new ConfigurationSnapshot(configuration);
+		ConfigurationSnapshot.current = snapshot;
+		return snapshot;
+
+	}
+
+	/**
+	 * Reads an integer property and validates that it is not less than the
+	 * specified minimum value.
+	 *
+	 * @return The value of the property or the default value if the property
+	 *         is missing or invalid.
+	 */
+	private static int getInteger(final Configuration configuration, final String key, final int default_value,
+	        final int min_value) {
+
+		final String text = configuration.getString(key);
+
+		if (text == null) return default_value;
+
+		try {
+
+			final int value = Integer.parseInt(text.trim());
+
+			if (value >= min_value) return value;
+
+		} catch (@SuppressWarnings("unused") final NumberFormatException ex) {
+			// Reported below.
+		}
+
+		LoggerManager.tracedLog(Level.WARNING, () -> String.format(
+		        "The value <%s> of the property <%s> is invalid, the default value <%d> is used instead.", text, key,
+		        new Integer(default_value)));
+
+		return default_value;
+
+	}
+
+	private final int check_alive_threshold;
+	private final int cleaning_interval;
+	private final int peer_penalty;
+
+	private ConfigurationSnapshot(final Configuration configuration) {
+
+		this.check_alive_threshold = ConfigurationSnapshot.getInteger(configuration, "check_alive_threshold",
+		        Channel.default_check_alive_threshold, 1);
+		this.cleaning_interval = ConfigurationSnapshot.getInteger(configuration, "cleaning_interval",
+		        ChannelCleaner.default_cleaning_interval, 1);
+		this.peer_penalty = ConfigurationSnapshot.getInteger(configuration, "peer_penalty",
+		        TrackerServerChannel.default_peer_penalty, 0);
+
+	}
+
+	/**
+	 * @return The amount of milliseconds to wait for a reply to the check alive
+	 *         request before considering the peer inactive.
+	 */
+	public int getCheckAliveThreshold() {
+
+		return this.check_alive_threshold;
+	}
+
+	/**
+	 * @return The interval in milliseconds at which the cleaners check the
+	 *         channels.
+	 */
+	public int getCleaningInterval() {
+
+		return this.cleaning_interval;
+	}
+
+	/**
+	 * @return The amount of milliseconds a penalized peer is delayed.
+	 */
+	public int getPeerPenalty() {
+
+		return this.peer_penalty;
+	}
+
+}
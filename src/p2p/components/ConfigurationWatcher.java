@@ -0,0 +1,183 @@
+package p2p.components;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import p2p.components.communication.CloseableThread;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A ConfigurationWatcher object watches a properties file and, every time the
+ * file changes, loads it again and sets it as the default {@link Configuration}
+ * so that the current {@link ConfigurationSnapshot} is updated without a
+ * restart. A file that can not be read, eg. while an editor replaces it, is
+ * read again a few times and, if it still fails, the current configuration is
+ * kept.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class ConfigurationWatcher extends CloseableThread {
+
+	/**
+	 * The amount of milliseconds to wait for the file to settle after a change
+	 * is detected, since editors usually write a file in more than one step.
+	 */
+	private static final long settle_time = 200;
+
+	/**
+	 * The number of times a changed file is read before the change is ignored.
+	 */
+	private static final int reload_attempts = 3;
+
+	private final Path		   path;
+	private final WatchService watch_service;
+
+	/**
+	 * Allocates a new ConfigurationWatcher object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that this watcher belongs to.
+	 * @param name
+	 *            The name of this watcher.
+	 * @param path
+	 *            The path to the properties file.
+	 * @throws IOException
+	 *             If the file's directory can not be watched.
+	 */
+	public ConfigurationWatcher(final ThreadGroup group, final String name, final String path) throws IOException {
+		super(group, name);
+
+		this.path = Paths.get(path).toAbsolutePath();
+		this.watch_service = FileSystems.getDefault().newWatchService();
+
+		this.path.getParent().register(this.watch_service, StandardWatchEventKinds.ENTRY_CREATE,
+		        StandardWatchEventKinds.ENTRY_MODIFY);
+
+		this.setDaemon(true);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		this.watch_service.close();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		try {
+
+			while (true) {
+
+				if (this.isChanged(this.watch_service.take())) {
+
+					/*
+					 * Let the file settle and discard the events caused by the
+					 * same write.
+					 */
+					for (WatchKey key = this.watch_service.poll(ConfigurationWatcher.settle_time,
+					        TimeUnit.MILLISECONDS); key != null; key = this.watch_service
+					                .poll(ConfigurationWatcher.settle_time, TimeUnit.MILLISECONDS)) {
+						this.isChanged(key);
+					}
+
+					final Configuration configuration = this.load();
+
+					if (configuration == null) {
+
+						LoggerManager.tracedLog(this, Level.WARNING, String.format(
+						        "The configuration file <%s> could not be reloaded, the current configuration is kept.",
+						        this.path));
+
+					}
+					else {
+
+						Configuration.setAsDefault(configuration);
+
+						LoggerManager.tracedLog(this, Level.INFO,
+						        String.format("The configuration file <%s> was reloaded.", this.path));
+
+					}
+
+				}
+
+			}
+
+		} catch (@SuppressWarnings("unused") final InterruptedException | ClosedWatchServiceException ex) {
+
+			LoggerManager.tracedLog(this, Level.INFO, "The configuration watcher was stopped.");
+
+		}
+
+	}
+
+	/**
+	 * Consumes the events of the key and resets it.
+	 *
+	 * @param key
+	 *            The signaled key.
+	 * @return True If any of the events concerns the watched file.
+	 */
+	private boolean isChanged(final WatchKey key) {
+
+		boolean changed = false;
+
+		for (final WatchEvent<?> event : key.pollEvents()) {
+
+			if (this.path.getFileName().equals(event.context())) {
+				changed = true;
+			}
+
+		}
+
+		key.reset();
+
+		return changed;
+
+	}
+
+	/**
+	 * Reads the watched file, retrying after the settle time if it can not be
+	 * read.
+	 *
+	 * @return The loaded configuration or null if every attempt failed.
+	 * @throws InterruptedException
+	 *             If the watcher is stopped while waiting to retry.
+	 */
+	private Configuration load() throws InterruptedException {
+
+		for (int attempt = 0; attempt < ConfigurationWatcher.reload_attempts; attempt++) {
+
+			if (attempt > 0) {
+				Thread.sleep(ConfigurationWatcher.settle_time);
+			}
+
+			final Configuration configuration = new Configuration(this.path.toString());
+
+			if (configuration.isLoaded()) return configuration;
+
+		}
+
+		return null;
+
+	}
+
+}
@@ -1,9 +1,20 @@
 package p2p.components;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.logging.Level;
 
 import p2p.utilities.LoggerManager;
@@ -27,7 +38,12 @@ public final class Hash {
 		 * Indicates that computations are going to be made using the SHA-1
 		 * algorithm.
 		 */
-		SHA1("SHA-1");
+		SHA1("SHA-1"),
+		/**
+		 * Indicates that computations are going to be made using the SHA-256
+		 * algorithm.
+		 */
+		SHA256("SHA-256");
 
 		private final String label;
 
@@ -46,6 +62,87 @@ public final class Hash {
 
 	}
 
+	/**
+	 * A Hash#FileHashTask object hashes a range of files, splitting it in
+	 * halves until a single file remains so the workers of the pool balance
+	 * files of different sizes among them.
+	 */
+	private static final class FileHashTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -2981406237826478105L;
+
+		private final List<Path>						  files;
+		private final int								  from;
+		private final int								  to;
+		private final ConcurrentHashMap<Path, BigInteger> hashes;
+
+		private FileHashTask(final List<Path> files, final int from, final int to,
+		        final ConcurrentHashMap<Path, BigInteger> hashes) {
+
+			this.files = files;
+			this.from = from;
+			this.to = to;
+			this.hashes = hashes;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+
+			if ((this.to - this.from) > 1) {
+
+				final int middle = (this.from + this.to) >>> 1;
+
+				RecursiveAction.invokeAll(new FileHashTask(this.files, this.from, middle, this.hashes),
+				        new FileHashTask(this.files, middle, this.to, this.hashes));
+
+				return;
+
+			}
+
+			if (this.to > this.from) {
+
+				final Path file = this.files.get(this.from);
+
+				try {
+
+					final BigInteger hash = Hash.getSHA256(file);
+
+					if (hash != null) {
+						this.hashes.put(file, hash);
+					}
+
+				} catch (final IOException ex) {
+					LoggerManager.tracedLog(Level.FINE, String.format("The file <%s> could not be hashed.", file), ex);
+				}
+
+			}
+
+		}
+
+	}
+
+	/*
+	 * Every worker streams the files through its own digest and buffer, so
+	 * neither is allocated per file nor shared between threads.
+	 */
+	private static final ThreadLocal<MessageDigest> sha256_digests = ThreadLocal.withInitial(() -> {
+
+		try {
+			return MessageDigest.getInstance(Algorithm.SHA256.getLabel());
+		} catch (final NoSuchAlgorithmException ex) {
+			LoggerManager.tracedLog(Level.WARNING, "The hash value could not be calculated.", ex);
+		}
+
+		return null;
+
+	});
+
+	private static final ThreadLocal<byte[]> read_buffers = ThreadLocal.withInitial(() -> new byte[65536]);
+
 	/**
 	 * Calculates the SHA-1 hash of the given plaintext.
 	 *
@@ -59,6 +156,75 @@ public final class Hash {
 		return Hash.getHash(plaintext, Algorithm.SHA1);
 	}
 
+	/**
+	 * Calculates the SHA-256 hash of the given plaintext.
+	 *
+	 * @param plaintext
+	 *            The plaintext to be processed.
+	 * @return The SHA-256 hash of the plaintext or null if the computation
+	 *         could not be completed.
+	 */
+	public static final BigInteger getSHA256(final String plaintext) {
+
+		return Hash.getHash(plaintext, Algorithm.SHA256);
+	}
+
+	/**
+	 * Calculates the SHA-256 hash of the contents of the given file. The file
+	 * is streamed, so it does not have to fit in memory.
+	 *
+	 * @param file
+	 *            The file to be processed.
+	 * @return The SHA-256 hash of the file's contents or null if the
+	 *         computation could not be completed.
+	 * @throws IOException
+	 *             If an error occurs while reading the file.
+	 */
+	public static final BigInteger getSHA256(final Path file) throws IOException {
+
+		final MessageDigest digest = Hash.sha256_digests.get();
+		if (digest == null) return null;
+
+		digest.reset();
+
+		try (InputStream in = Files.newInputStream(file)) {
+
+			final byte[] buffer = Hash.read_buffers.get();
+
+			for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+				digest.update(buffer, 0, read);
+			}
+
+		}
+
+		return new BigInteger(1, digest.digest());
+
+	}
+
+	/**
+	 * Calculates the SHA-256 hashes of the contents of the given files in
+	 * parallel, using the workers of the provided pool.
+	 *
+	 * @param files
+	 *            The files to be processed.
+	 * @param pool
+	 *            The pool that the files are hashed in.
+	 * @return The hash of every file that could be read.
+	 */
+	public static final Map<Path, BigInteger> getSHA256(final List<Path> files, final ForkJoinPool pool) {
+
+		final ConcurrentHashMap<Path, BigInteger> hashes = new ConcurrentHashMap<>();
+
+		/*
+		 * The task accesses the files by index.
+		 */
+		pool.invoke(new FileHashTask(files instanceof RandomAccess ? files : new ArrayList<>(files), 0, files.size(),
+		        hashes));
+
+		return hashes;
+
+	}
+
 	/**
 	 * Calculates the hash value of the given plaintext based on the provided
 	 * algorithm.
@@ -2,6 +2,11 @@ package p2p.components.common;
 
 import java.io.File;
 import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import p2p.components.Hash;
 
 /**
  * A FileDescription object keeps information about a specific shared file. As
@@ -19,6 +24,26 @@ public class FileDescription implements Serializable {
 	 */
 	private static final long serialVersionUID = 2094746920609208735L;
 
+	/**
+	 * Calculates a digest of a set of shared files that identifies the set as
+	 * far as the tracker is concerned, aka. a digest of the sorted filenames.
+	 * Two peers that share files with the same filenames produce the same
+	 * digest regardless of the order the files are listed.
+	 *
+	 * @param files
+	 *            The descriptions of the shared files.
+	 * @return The hexadecimal digest of the set or null if it could not be
+	 *         calculated.
+	 */
+	public static String getDigest(final Collection<FileDescription> files) {
+
+		final BigInteger digest = Hash.getSHA256(
+		        files.stream().map(x -> x.getFilename()).distinct().sorted().collect(Collectors.joining("\n")));
+
+		return digest == null ? null : digest.toString(16);
+
+	}
+
 	private final String filename;
 	/*
 	 * NOTE Right now this information is not required and used only for legacy
@@ -39,6 +64,22 @@ public class FileDescription implements Serializable {
 
 	}
 
+	/**
+	 * Allocates a new FileDescription object from already known metadata,
+	 * without accessing the file.
+	 *
+	 * @param filename
+	 *            The filename of the file.
+	 * @param size
+	 *            The size of the file.
+	 */
+	public FileDescription(final String filename, final long size) {
+
+		this.filename = filename;
+		this.size = size;
+
+	}
+
 	/**
 	 * Copy constructor of the FileDescription object.
 	 *
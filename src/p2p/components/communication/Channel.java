@@ -1,8 +1,10 @@
 package p2p.components.communication;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
@@ -13,9 +15,19 @@ import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import p2p.components.Configuration;
+import p2p.components.ConfigurationSnapshot;
 import p2p.components.common.Pair;
 import p2p.components.communication.messages.Message;
+import p2p.components.communication.transport.Transport;
+import p2p.components.events.ChannelEvent;
+import p2p.components.events.CheckAliveEvent;
+import p2p.components.events.EventContext;
+import p2p.components.events.Events;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.tracing.Span;
+import p2p.components.tracing.Tracer;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -29,12 +41,70 @@ import p2p.utilities.LoggerManager;
  */
 public abstract class Channel extends CloseableThread {
 
+	/**
+	 * A Channel#ProgressOutputStream object writes to the socket in chunks and
+	 * counts every chunk down from the pending bytes of the channel, so the
+	 * reported progress follows the bytes that actually left the channel.
+	 */
+	private final class ProgressOutputStream extends FilterOutputStream {
+
+		private ProgressOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.FilterOutputStream#write(byte[], int, int)
+		 */
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+
+			for (int written = 0; written < len;) {
+
+				final int chunk = Math.min(len - written, Channel.transfer_chunk_size);
+
+				this.out.write(b, off + written, chunk);
+				written += chunk;
+
+				Channel.this.sent(chunk);
+
+			}
+
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.FilterOutputStream#write(int)
+		 */
+		@Override
+		public void write(final int b) throws IOException {
+
+			this.out.write(b);
+			Channel.this.sent(1);
+		}
+
+	}
+
 	/**
 	 * The default amount of milliseconds to wait for a reply to the check alive
 	 * request before considering the peer inactive.
 	 */
 	public static final int default_check_alive_threshold = 1000;
 
+	/**
+	 * The maximum number of bytes that are written to the socket at once.
+	 */
+	private static final int transfer_chunk_size = 65536;
+
+	private static final Histogram check_alive_response_times = MetricsRegistry.getDefault()
+	        .getHistogram("check_alive.response_time");
+	private static final Counter   overloaded_check_alives	  = MetricsRegistry.getDefault()
+	        .getCounter("check_alive.overloaded");
+	private static final Counter   failed_check_alives		  = MetricsRegistry.getDefault()
+	        .getCounter("check_alive.failed");
+	private static final Counter   unreachable_check_alives	  = MetricsRegistry.getDefault()
+	        .getCounter("check_alive.unreachable");
+
 	/**
 	 * Sends a check alive request to the socket and return its response time.
 	 *
@@ -44,8 +114,7 @@ public abstract class Channel extends CloseableThread {
 	 */
 	public static final long getResponseTime(final InetSocketAddress socket_address) {
 
-		return Channel.getResponseTime(socket_address,
-		        Configuration.getDefault().getInteger("check_alive_threshold", Channel.default_check_alive_threshold));
+		return Channel.getResponseTime(socket_address, ConfigurationSnapshot.getCurrent().getCheckAliveThreshold());
 	}
 
 	/**
@@ -64,7 +133,7 @@ public abstract class Channel extends CloseableThread {
 		final ThreadGroup group = new ThreadGroup(String.format("%s.CheckAliveClients", current_thread.getName()));
 
 		return Channel.getResponseTime(group, String.format("%s.CheckAlive", current_thread.getName()), socket_address,
-		        check_alive_threshold);
+		        check_alive_threshold, Tracer.getCurrent());
 	}
 
 	/**
@@ -80,7 +149,7 @@ public abstract class Channel extends CloseableThread {
 	        final Set<InetSocketAddress> socket_address_batch) {
 
 		return Channel.getResponseTime(socket_address_batch,
-		        Configuration.getDefault().getInteger("check_alive_threshold", Channel.default_check_alive_threshold));
+		        ConfigurationSnapshot.getCurrent().getCheckAliveThreshold());
 	}
 
 	/**
@@ -101,6 +170,12 @@ public abstract class Channel extends CloseableThread {
 		final Thread current_thread = Thread.currentThread();
 		final ThreadGroup group = new ThreadGroup(String.format("%s.CheckAliveClients", current_thread.getName()));
 
+		/*
+		 * The requests are sent from the workers of a parallel stream, which
+		 * do not share the current span.
+		 */
+		final Span parent = Tracer.getCurrent();
+
 		/*
 		 * Create an integer iterator to enumerate the socket addresses.
 		 */
@@ -122,7 +197,7 @@ public abstract class Channel extends CloseableThread {
 			                                x -> new Long(Channel.getResponseTime(group,
 			                                        String.format("%s.CheckAlive-%d", current_thread.getName(),
 			                                                x.getValue()),
-			                                        x.getKey(), check_alive_threshold))))
+			                                        x.getKey(), check_alive_threshold, parent))))
 			        .entrySet().parallelStream().filter(x -> x.getValue().longValue() <= check_alive_threshold)
 			        .sorted((x, y) -> x.getValue().compareTo(y.getValue()))
 			        .map(x -> new Pair<>(x.getKey(), x.getValue())).collect(Collectors.toList());
@@ -139,13 +214,19 @@ public abstract class Channel extends CloseableThread {
 	}
 
 	private static final long getResponseTime(final ThreadGroup group, final String name,
-	        final InetSocketAddress socket_address, final long check_alive_threshold) {
+	        final InetSocketAddress socket_address, final long check_alive_threshold, final Span parent) {
+
+		final CheckAliveEvent event = Events.newCheckAliveEvent();
+		event.begin();
+
+		final Span span = Tracer.startSpan(parent, "check_alive").setAttribute("peer", socket_address);
 
 		try (CheckAliveClient client_channel = new CheckAliveClient(group, name, socket_address)) { // $NON-NLS-1$
 
 			/*
 			 * Calculate the response time of the request.
 			 */
+			final long start_time = System.nanoTime();
 			long current_time = System.currentTimeMillis();
 			client_channel.start();
 			client_channel.join(check_alive_threshold);
@@ -154,7 +235,30 @@ public abstract class Channel extends CloseableThread {
 
 			if (client_channel.getStatus() == ClientChannel.Status.SUCCESSFULL) {
 
-				LoggerManager.tracedLog(Level.FINE, String.format("The server <%s> responded in %d milliseconds.",
+				Channel.check_alive_response_times.recordSince(start_time);
+
+				if (client_channel.isOverloaded()) {
+
+					Channel.overloaded_check_alives.increment();
+					event.complete(socket_address, response_time, "overloaded");
+					span.setAttribute("outcome", "overloaded");
+
+					LoggerManager.tracedLog(Level.FINE,
+					        () -> String.format("The server <%s> responded in %d milliseconds but is overloaded.",
+					                socket_address.toString(), new Long(response_time)));
+
+					/*
+					 * An overloaded server is kept but considered the slowest
+					 * acceptable one.
+					 */
+					return check_alive_threshold;
+
+				}
+
+				event.complete(socket_address, response_time, "successful");
+				span.setAttribute("outcome", "successful");
+
+				LoggerManager.tracedLog(Level.FINE, () -> String.format("The server <%s> responded in %d milliseconds.",
 				        socket_address.toString(), new Long(response_time)));
 
 				return response_time;
@@ -162,8 +266,12 @@ public abstract class Channel extends CloseableThread {
 			}
 			else {
 
+				Channel.failed_check_alives.increment();
+				event.complete(socket_address, response_time, "failed");
+				span.setAttribute("outcome", "failed");
+
 				LoggerManager.tracedLog(Level.FINE,
-				        String.format("The server <%s> failed to respond in %d milliseconds.",
+				        () -> String.format("The server <%s> failed to respond in %d milliseconds.",
 				                socket_address.toString(), new Long(check_alive_threshold)));
 
 				/*
@@ -176,13 +284,19 @@ public abstract class Channel extends CloseableThread {
 
 		} catch (@SuppressWarnings("unused") final IOException ex) {
 
-			LoggerManager.tracedLog(Level.FINE, String.format("The server <%s> is probably down.",
+			Channel.unreachable_check_alives.increment();
+			event.complete(socket_address, check_alive_threshold, "unreachable");
+			span.setAttribute("outcome", "unreachable");
+
+			LoggerManager.tracedLog(Level.FINE, () -> String.format("The server <%s> is probably down.",
 			        socket_address.toString(), new Long(check_alive_threshold)));
 
 		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
 
 			LoggerManager.tracedLog(Level.WARNING, "The check alive request was interrupted.");
 
+		} finally {
+			span.close();
 		}
 
 		/*
@@ -197,10 +311,18 @@ public abstract class Channel extends CloseableThread {
 	 */
 	protected final Socket socket;
 
+	private final Span parent_span;
+
 	private long last_active_time;
 
+	private volatile long pending_bytes = 0;
+
+	private long communication_start_time;
+
 	/**
-	 * Allocates a new Channel object by binding a remote {@link Socket} object.
+	 * Allocates a new Channel object by binding a remote {@link Socket} object,
+	 * opened through the default {@link Transport}. The channel continues the
+	 * current span of the calling thread.
 	 *
 	 * @param group
 	 *            The {@link ThreadGroup} object that this channel belongs to.
@@ -217,14 +339,16 @@ public abstract class Channel extends CloseableThread {
 	        throws IOException {
 		super(group, name);
 
-		this.socket = new Socket(socket_address.getAddress(), socket_address.getPort());
+		this.socket = Transport.getDefault().connect(group, socket_address);
+		this.parent_span = Tracer.getCurrent();
 
 		this.heartbit();
 
 	}
 
 	/**
-	 * Allocates a new Channel object.
+	 * Allocates a new Channel object. The channel continues the current span of
+	 * the calling thread.
 	 *
 	 * @param group
 	 *            The {@link ThreadGroup} object that this channel belongs to.
@@ -237,6 +361,7 @@ public abstract class Channel extends CloseableThread {
 		super(group, name);
 
 		this.socket = socket;
+		this.parent_span = Tracer.getCurrent();
 
 		this.heartbit();
 
@@ -281,6 +406,16 @@ public abstract class Channel extends CloseableThread {
 
 	}
 
+	/**
+	 * @return The number of bytes that the channel has still to send. The
+	 *         number reported by the communication is counted down as the
+	 *         bytes are written to the socket.
+	 */
+	public final long getPendingBytes() {
+
+		return this.pending_bytes;
+	}
+
 	/**
 	 * Updates the last active time of the server. Should be updated regularly
 	 * avoid interruption by the cleaner.
@@ -297,15 +432,27 @@ public abstract class Channel extends CloseableThread {
 	@Override
 	public void run() {
 
+		final ChannelEvent event = Events.newChannelEvent();
+		event.begin();
+
+		EventContext.setPeerAddress(this.socket.getRemoteSocketAddress());
+
+		/*
+		 * Continue the span of the thread that created the channel, so that
+		 * the requests sent through the channel join its trace.
+		 */
+		Tracer.setCurrent(this.parent_span);
+
 		try {
 
 			if (!this.socket.isClosed()) {
 
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format("A new communication started (%d active in group <%s>).",
+				        () -> String.format("A new communication started (%d active in group <%s>).",
 				                new Integer(CloseableThread.countActive(this.getThreadGroup())),
 				                this.getThreadGroup().getName()));
 
+				this.communication_start_time = System.nanoTime();
 				this.communicate();
 
 			}
@@ -330,7 +477,7 @@ public abstract class Channel extends CloseableThread {
 				this.close();
 
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format("The communication ended (approximately %d remaining in group <%s>).",
+				        () -> String.format("The communication ended (approximately %d remaining in group <%s>).",
 				                new Integer(CloseableThread.countActive(this.getThreadGroup())),
 				                this.getThreadGroup().getName()));
 
@@ -338,12 +485,65 @@ public abstract class Channel extends CloseableThread {
 
 				LoggerManager.tracedLog(this, Level.WARNING, "The channel could not be closed properly.", ex);
 
+			} finally {
+
+				event.complete(this, this.socket);
+
+				this.completed();
+
 			}
 
 		}
 
 	}
 
+	/**
+	 * Called once at the end of the channel's execution, after the channel has
+	 * been closed. Subclasses can override this method to be notified about the
+	 * completion of the communication.
+	 */
+	protected void completed() {
+
+		// Does nothing by default.
+	}
+
+	/**
+	 * Reports the number of bytes that the channel is about to send. The number
+	 * is counted down as the bytes are written to the socket.
+	 *
+	 * @param pending_bytes
+	 *            The number of bytes.
+	 */
+	protected final void setPendingBytes(final long pending_bytes) {
+
+		this.pending_bytes = pending_bytes;
+	}
+
+	/**
+	 * Counts down the bytes that were written to the socket. Every chunk counts
+	 * as activity, so a long transfer is not stopped by the cleaner.
+	 */
+	private void sent(final int bytes) {
+
+		final long remaining_bytes = this.pending_bytes;
+
+		if (remaining_bytes > 0) {
+			this.pending_bytes = Math.max(0, remaining_bytes - bytes);
+		}
+
+		this.heartbit();
+
+	}
+
+	/**
+	 * @return The moment, as returned by {@link System#nanoTime()}, that the
+	 *         communication started or zero if it has not started.
+	 */
+	protected final long getCommunicationStartTime() {
+
+		return this.communication_start_time;
+	}
+
 	/**
 	 * Implements a communication with the other end of the connection.
 	 *
@@ -393,7 +593,7 @@ public abstract class Channel extends CloseableThread {
 	 */
 	protected final ObjectOutputStream getOutputStream() throws IOException {
 
-		return new ObjectOutputStream(this.socket.getOutputStream()) {
+		return new ObjectOutputStream(new ProgressOutputStream(this.socket.getOutputStream())) {
 
 			/*
 			 * (non-Javadoc)
@@ -2,7 +2,7 @@ package p2p.components.communication;
 
 import java.util.logging.Level;
 
-import p2p.components.Configuration;
+import p2p.components.ConfigurationSnapshot;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -22,7 +22,8 @@ public class ChannelCleaner extends Thread {
 	private final ThreadGroup group;
 
 	/**
-	 * Allocates a new ServerCleaner object with default cleaning interval.
+	 * Allocates a new ServerCleaner object with default cleaning interval. The
+	 * interval follows any change of the default configuration.
 	 *
 	 * @param group
 	 *            The group of threads to check.
@@ -44,8 +45,7 @@ public class ChannelCleaner extends Thread {
 		super(CloseableThread.newThreadGroup(group.getParent(), "Cleaners"),
 		        String.format("%s.Cleaner", group.getParent().getName()));
 
-		this.cleaning_interval = cleaning_interval > 0 ? cleaning_interval
-		        : Configuration.getDefault().getInteger("cleaning_interval", ChannelCleaner.default_cleaning_interval);
+		this.cleaning_interval = cleaning_interval;
 		this.group = group;
 	}
 
@@ -60,10 +60,13 @@ public class ChannelCleaner extends Thread {
 
 			while (true) {
 
+				final int cleaning_interval = this.cleaning_interval > 0 ? this.cleaning_interval
+				        : ConfigurationSnapshot.getCurrent().getCleaningInterval();
+
 				/*
 				 * Wait for the specified interval.
 				 */
-				Thread.sleep(this.cleaning_interval);
+				Thread.sleep(cleaning_interval);
 
 				/*
 				 * For each in the group, suppose it is a Channel object, call
@@ -72,7 +75,7 @@ public class ChannelCleaner extends Thread {
 
 				CloseableThread.getActive(this.group).parallelStream().forEach(x -> {
 					if (x instanceof Channel) {
-						((Channel) x).clean(this.cleaning_interval);
+						((Channel) x).clean(cleaning_interval);
 					}
 				});
 
@@ -19,6 +19,8 @@ import p2p.utilities.LoggerManager;
  */
 public final class CheckAliveClient extends ClientChannel {
 
+	private boolean overloaded = false;
+
 	/**
 	 * Allocates a new CheckAliveClient object.
 	 *
@@ -39,6 +41,15 @@ public final class CheckAliveClient extends ClientChannel {
 		super(group, name, socket_address);
 	}
 
+	/**
+	 * @return True If the server replied that it is alive but currently
+	 *         overloaded.
+	 */
+	public boolean isOverloaded() {
+
+		return this.overloaded;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see p2p.components.communication.Channel#communicate()
@@ -60,9 +71,14 @@ public final class CheckAliveClient extends ClientChannel {
 
 			throw new IOException(ex);
 
-		} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+		} catch (final FailedRequestException ex) {
 
-			this.status = Status.FAILED;
+			/*
+			 * A server that sheds the connection due to overload is still
+			 * alive.
+			 */
+			this.overloaded = ex.isRetryable();
+			this.status = this.overloaded ? Status.SUCCESSFULL : Status.FAILED;
 
 		}
 
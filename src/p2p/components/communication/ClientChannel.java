@@ -6,6 +6,10 @@ import java.io.ObjectOutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+
 /**
  * A ClientChannel is a {@link Channel} object that is going to initialize the
  * connection with the remote socket. The {@link ServerChannel} and the
@@ -38,6 +42,38 @@ public abstract class ClientChannel extends Channel {
 		FAILED;
 	}
 
+	/*
+	 * The latency histogram and the failure counter of every client class are
+	 * resolved once, on the first completion of a client of the class.
+	 */
+	private static final ClassValue<Histogram> client_latencies = new ClassValue<Histogram>() {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.ClassValue#computeValue(java.lang.Class)
+		 */
+		@Override
+		protected Histogram computeValue(final Class<?> type) {
+
+			return MetricsRegistry.getDefault().getHistogram(String.format("client.%s", type.getSimpleName()));
+		}
+
+	};
+
+	private static final ClassValue<Counter> failed_clients = new ClassValue<Counter>() {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.ClassValue#computeValue(java.lang.Class)
+		 */
+		@Override
+		protected Counter computeValue(final Class<?> type) {
+
+			return MetricsRegistry.getDefault().getCounter(String.format("client.%s.failed", type.getSimpleName()));
+		}
+
+	};
+
 	/*
 	 * The order of declaration is important for the 'in' and 'out' variables.
 	 */
@@ -100,6 +136,27 @@ public abstract class ClientChannel extends Channel {
 		this.status = Status.UNKNOWN;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#completed()
+	 */
+	@Override
+	protected void completed() {
+
+		final long start_time = this.getCommunicationStartTime();
+
+		if (start_time != 0) {
+
+			ClientChannel.client_latencies.get(this.getClass()).recordSince(start_time);
+
+			if (this.status != Status.SUCCESSFULL) {
+				ClientChannel.failed_clients.get(this.getClass()).increment();
+			}
+
+		}
+
+	}
+
 	/**
 	 * @return The current status of the request.
 	 */
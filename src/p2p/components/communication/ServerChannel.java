@@ -5,9 +5,17 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.EnumMap;
 
 import p2p.components.communication.messages.Reply;
 import p2p.components.communication.messages.Request;
+import p2p.components.events.Events;
+import p2p.components.events.RequestEvent;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.tracing.Span;
+import p2p.components.tracing.Tracer;
 
 /**
  * A ServerChannel is a {@link Channel} object that is going to accept the
@@ -19,6 +27,25 @@ import p2p.components.communication.messages.Request;
  */
 public abstract class ServerChannel extends Channel {
 
+	private static final EnumMap<Request.Type, Histogram> request_latencies = new EnumMap<>(Request.Type.class);
+	private static final EnumMap<Request.Type, Counter>	  failed_requests	= new EnumMap<>(Request.Type.class);
+	private static final EnumMap<Request.Type, String>	  span_names		= new EnumMap<>(Request.Type.class);
+
+	static {
+
+		for (final Request.Type type : Request.Type.values()) {
+
+			final String name = String.format("server.%s", type.name().toLowerCase());
+
+			ServerChannel.request_latencies.put(type, MetricsRegistry.getDefault().getHistogram(name));
+			ServerChannel.failed_requests.put(type,
+			        MetricsRegistry.getDefault().getCounter(String.format("%s.failed", name)));
+			ServerChannel.span_names.put(type, name);
+
+		}
+
+	}
+
 	/*
 	 * The order of declaration is important for the 'in' and 'out' variables.
 	 */
@@ -32,6 +59,8 @@ public abstract class ServerChannel extends Channel {
 	 */
 	protected final ObjectOutputStream out = this.getOutputStream();
 
+	private volatile Runnable completion_listener = null;
+
 	/**
 	 * Allocates a new ClientChannel object.
 	 *
@@ -51,6 +80,51 @@ public abstract class ServerChannel extends Channel {
 		super(group, name, socket);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#completed()
+	 */
+	@Override
+	protected void completed() {
+
+		final Runnable listener = this.completion_listener;
+
+		if (listener != null) {
+			listener.run();
+		}
+
+	}
+
+	/**
+	 * Replies to a STATS request with a snapshot of the default metrics
+	 * registry. Taking the snapshot does not acquire any of the locks that
+	 * guard the state of the server.
+	 *
+	 * @throws IOException
+	 *             If an error occurs while writing to the stream.
+	 */
+	protected final void sendStats() throws IOException {
+
+		this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, MetricsRegistry.getDefault().getSnapshot()));
+	}
+
+	/**
+	 * Sets the listener that is going to be notified when the channel completes
+	 * its execution. Used by the {@link ServerChannelManager} to keep track of
+	 * its active channels.
+	 *
+	 * @param completion_listener
+	 *            The listener to be notified.
+	 */
+	final void setCompletionListener(final Runnable completion_listener) {
+
+		this.completion_listener = completion_listener;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#communicate()
+	 */
 	@Override
 	protected final void communicate() throws IOException, InterruptedException {
 
@@ -64,19 +138,55 @@ public abstract class ServerChannel extends Channel {
 			final Request<?> request = Request.class.cast(this.in.readObject());
 			final Request.Type request_type = request.getType();
 
-			switch (request_type) {
-			case CHECK_ALIVE:
+			/*
+			 * The latency is measured from the moment the request is read
+			 * until it has been processed.
+			 */
+			final RequestEvent event = Events.newRequestEvent();
+			event.begin();
+
+			/*
+			 * Continue the trace of the sender, if the request carries one.
+			 */
+			final Span span = Tracer.startRemoteSpan(request.getTraceID(), request.getParentSpanID(),
+			        ServerChannel.span_names.get(request_type));
+
+			final long start_time = System.nanoTime();
+			boolean completed = false;
+
+			try {
+
+				switch (request_type) {
+				case CHECK_ALIVE:
+
+					/*
+					 * Reply immediately to a check alive request.
+					 */
+					this.out.writeObject(Reply.getSimpleSuccessMessage());
+					break;
+
+				default:
+
+					this.communicate(request);
+					break;
+
+				}
+
+				completed = true;
+
+			} finally {
+
+				ServerChannel.request_latencies.get(request_type).recordSince(start_time);
 
-				/*
-				 * Reply immediately to a check alive request.
-				 */
-				this.out.writeObject(Reply.getSimpleSuccessMessage());
-				break;
+				if (!completed) {
+					ServerChannel.failed_requests.get(request_type).increment();
+				}
 
-			default:
+				event.complete(request_type, completed);
 
-				this.communicate(request);
-				break;
+				span.setAttribute("peer", this.socket.getRemoteSocketAddress()).setAttribute("completed",
+				        Boolean.valueOf(completed));
+				span.close();
 
 			}
 
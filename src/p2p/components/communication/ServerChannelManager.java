@@ -1,19 +1,47 @@
 package p2p.components.communication;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
+import p2p.components.Configuration;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.transport.Transport;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
 import p2p.utilities.LoggerManager;
 
 /**
  * A ServerChannelManager object listens to a specified {@link ServerSocket} for
  * incoming connections and allocates the necessary resources to handle the
- * traffic.
+ * traffic. The number of concurrently active servers is bounded. Connections
+ * that arrive while all servers are busy wait in a bounded queue and are shed,
+ * by answering immediately with a failure reply, when the queue is full or
+ * when the time the connections spend in the queue stays above a target for a
+ * whole interval (CoDel style). The thread of the manager only accepts the
+ * connections. The stream handshake and the allocation of the servers take
+ * place on handshake threads under a timeout. There is a handshake thread for
+ * every server that can be active, so a slow client only delays its own
+ * connection.
  *
  * @author {@literal p3100161 <Joseph Sakos>}
  * @param <S>
@@ -22,10 +50,119 @@ import p2p.utilities.LoggerManager;
  */
 public abstract class ServerChannelManager<S extends ServerChannel> extends CloseableThread {
 
+	/**
+	 * A ServerChannelManager#PendingConnection object holds an accepted
+	 * connection that waits for a free server.
+	 */
+	private static final class PendingConnection {
+
+		private final Socket socket;
+		private final int	 index;
+		private final long	 enqueue_time;
+
+		private PendingConnection(final Socket socket, final int index, final long enqueue_time) {
+
+			this.socket = socket;
+			this.index = index;
+			this.enqueue_time = enqueue_time;
+		}
+
+	}
+
+	/**
+	 * The default maximum number of servers that can be active concurrently.
+	 */
+	public static final int default_max_active_servers = 64;
+
+	/**
+	 * The default maximum number of connections that can wait for a free
+	 * server.
+	 */
+	public static final int default_max_queued_connections = 128;
+
+	/**
+	 * The default amount of milliseconds a connection is expected to wait in
+	 * the queue.
+	 */
+	public static final int default_target_queue_delay = 100;
+
+	/**
+	 * The default amount of milliseconds the queue delay should stay above the
+	 * target before connections start to be shed.
+	 */
+	public static final int default_queue_delay_interval = 1000;
+
+	/**
+	 * The default amount of milliseconds a client is given to complete the
+	 * stream handshake.
+	 */
+	public static final int default_handshake_timeout = 5000;
+
+	/**
+	 * The default amount of milliseconds to wait for the active servers to
+	 * complete during a gentle interrupt before they are forcibly closed.
+	 */
+	public static final int default_drain_timeout = 30000;
+
+	/**
+	 * The default maximum amount of milliseconds a shed connection is kept
+	 * open, after the failure reply was sent, for the request of the client to
+	 * be drained.
+	 */
+	public static final int default_shed_linger_timeout = 1000;
+
+	/**
+	 * The number of threads that drain the shed connections.
+	 */
+	private static final int shed_threads = 4;
+
+	/**
+	 * The amount of milliseconds between two progress reports while draining.
+	 */
+	private static final long drain_report_interval = 1000;
+
+	private static final Counter   accepted_connections_counter = MetricsRegistry.getDefault()
+	        .getCounter("connections.accepted");
+	private static final Counter   queued_connections_counter	= MetricsRegistry.getDefault()
+	        .getCounter("connections.queued");
+	private static final Counter   shed_connections_counter		= MetricsRegistry.getDefault()
+	        .getCounter("connections.shed");
+	private static final Histogram queue_delays					= MetricsRegistry.getDefault()
+	        .getHistogram("connections.queue_delay");
+
 	private final ServerSocket	server_socket;
 	private final ThreadGroup	servers		   = CloseableThread.newThreadGroup(this, "Servers");
 	private final Thread		server_cleaner = new ChannelCleaner(this.servers);
 	private final ReentrantLock	listening_lock = new ReentrantLock();
+	private final ThreadGroup	handshakers	   = CloseableThread.newThreadGroup(this, "Handshakers");
+	private final ThreadGroup	lingerers	   = CloseableThread.newThreadGroup(this, "Lingerers");
+
+	private final int max_active_servers;
+	private final int max_queued_connections;
+	private final int target_queue_delay;
+	private final int queue_delay_interval;
+	private final int handshake_timeout;
+	private final int drain_timeout;
+	private final int shed_linger_timeout;
+
+	private final ThreadPoolExecutor handshake_executor;
+	private final ThreadPoolExecutor shed_executor;
+
+	private final Set<S>						active_servers		= ConcurrentHashMap.newKeySet();
+	private final Set<Socket>					handshaking_sockets	= ConcurrentHashMap.newKeySet();
+	private final ArrayDeque<PendingConnection>	pending_connections	= new ArrayDeque<>();
+
+	private final AtomicLong accepted_connections = new AtomicLong();
+	private final AtomicLong queued_connections	  = new AtomicLong();
+	private final AtomicLong shed_connections	  = new AtomicLong();
+
+	/*
+	 * The following variables are guarded by the pending connections' queue.
+	 */
+	private int	 reserved_servers = 0;
+	private long first_above_time = 0;
+
+	private volatile boolean draining = false;
 
 	/**
 	 * Allocates a new ServerChannelManager object.
@@ -35,16 +172,14 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 	 * @param name
 	 *            The name of this manager.
 	 * @param port
-	 *            The port number that the {@link ServerSocket} object is going
-	 *            to listen to.
+	 *            The port number that the {@link ServerSocket} object, opened
+	 *            through the default {@link Transport}, is going to listen to.
 	 * @throws IOException
 	 *             If an error occurs during the allocation of the
 	 *             {@link ServerSocket} object.
 	 */
 	public ServerChannelManager(final ThreadGroup group, final String name, final int port) throws IOException {
-		super(group, name);
-
-		this.server_socket = new ServerSocket(port);
+		this(group, name, Transport.getDefault().listen(port));
 	}
 
 	/**
@@ -63,6 +198,57 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 		super(group, name);
 
 		this.server_socket = server_socket;
+
+		final Configuration configuration = Configuration.getDefault();
+
+		this.max_active_servers = Math.max(1, configuration.getInteger("max_active_servers",
+		        ServerChannelManager.default_max_active_servers));
+		this.max_queued_connections = Math.max(0, configuration.getInteger("max_queued_connections",
+		        ServerChannelManager.default_max_queued_connections));
+		this.target_queue_delay = configuration.getInteger("target_queue_delay",
+		        ServerChannelManager.default_target_queue_delay);
+		this.queue_delay_interval = configuration.getInteger("queue_delay_interval",
+		        ServerChannelManager.default_queue_delay_interval);
+		this.handshake_timeout = Math.max(0,
+		        configuration.getInteger("handshake_timeout", ServerChannelManager.default_handshake_timeout));
+		this.drain_timeout = Math.max(0,
+		        configuration.getInteger("drain_timeout", ServerChannelManager.default_drain_timeout));
+		this.shed_linger_timeout = Math.max(1,
+		        configuration.getInteger("shed_linger_timeout", ServerChannelManager.default_shed_linger_timeout));
+
+		/*
+		 * Only reserved servers perform a handshake, so there is never a
+		 * handshake waiting for a thread. The threads are started on demand
+		 * and terminate when they stay idle, so a manager that is rarely
+		 * contacted does not keep them.
+		 */
+		final AtomicInteger handshakers_count = new AtomicInteger();
+
+		this.handshake_executor = new ThreadPoolExecutor(this.max_active_servers, this.max_active_servers,
+		        60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), x -> {
+			        final Thread handshaker = new Thread(this.handshakers, x,
+			                String.format("%s.Handshaker-%d", name, new Integer(handshakers_count.getAndIncrement())));
+			        handshaker.setDaemon(true);
+			        return handshaker;
+		        });
+		this.handshake_executor.allowCoreThreadTimeOut(true);
+
+		/*
+		 * The threads are only started under overload and terminate when they
+		 * stay idle. Connections that can not be queued for draining are just
+		 * closed.
+		 */
+		final AtomicInteger lingerers_count = new AtomicInteger();
+
+		this.shed_executor = new ThreadPoolExecutor(ServerChannelManager.shed_threads,
+		        ServerChannelManager.shed_threads, 60, TimeUnit.SECONDS,
+		        new LinkedBlockingQueue<>(Math.max(1, this.max_queued_connections)), x -> {
+			        final Thread lingerer = new Thread(this.lingerers, x,
+			                String.format("%s.Lingerer-%d", name, new Integer(lingerers_count.getAndIncrement())));
+			        lingerer.setDaemon(true);
+			        return lingerer;
+		        });
+		this.shed_executor.allowCoreThreadTimeOut(true);
 	}
 
 	/*
@@ -89,6 +275,37 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 			 */
 			this.server_cleaner.interrupt();
 
+			MetricsRegistry.getDefault().removeGauge(String.format("%s.active_servers", this.getName()));
+			MetricsRegistry.getDefault().removeGauge(String.format("%s.pending_connections", this.getName()));
+
+			/*
+			 * Stop the handshake threads. A blocked read is not interrupted, so
+			 * the sockets of the handshakes that are still in progress are
+			 * closed as well.
+			 */
+			this.handshake_executor.shutdownNow();
+			this.shed_executor.shutdown();
+
+			for (final Socket socket : this.handshaking_sockets) {
+				this.drop(socket);
+			}
+
+			/*
+			 * Drop the connections that still wait for a server.
+			 */
+			final List<PendingConnection> dropped_connections;
+
+			synchronized (this.pending_connections) {
+
+				dropped_connections = new LinkedList<>(this.pending_connections);
+				this.pending_connections.clear();
+
+			}
+
+			for (final PendingConnection pending_connection : dropped_connections) {
+				pending_connection.socket.close();
+			}
+
 			/*
 			 * Then interrupt the execution of any remaining servers.
 			 */
@@ -105,10 +322,15 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 	/**
 	 * Close the server socket so no more incoming connection can initialized
 	 * but keep any server channels until they are completed their transactions
-	 * or interrupted by the cleaner.
+	 * or interrupted by the cleaner. The caller is blocked until every server,
+	 * including the ones of the already queued connections, has completed or
+	 * the drain timeout expires, in which case the remaining servers are
+	 * forcibly closed.
 	 */
 	public void gentleInterrupt() {
 
+		this.draining = true;
+
 		try {
 
 			if (!this.server_socket.isClosed()) {
@@ -121,19 +343,122 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 
 		}
 
-		while (true) {
+		final long deadline = System.currentTimeMillis() + this.drain_timeout;
+
+		try {
+
+			/*
+			 * The progress is reported without holding the queue's monitor,
+			 * since summing the pending bytes visits every active server.
+			 */
+			for (long now = System.currentTimeMillis(); now < deadline; now = System.currentTimeMillis()) {
+
+				final int queued_connections;
+
+				synchronized (this.pending_connections) {
+
+					if (this.isDrained()) {
+						break;
+					}
+
+					queued_connections = this.pending_connections.size();
+
+				}
+
+				LoggerManager.tracedLog(this, Level.INFO,
+				        String.format("Draining %d active server(s) and %d queued connection(s) (%d byte(s) to send).",
+				                new Integer(this.numberOfActiveServers()), new Integer(queued_connections),
+				                new Long(this.getPendingBytes())));
+
+				synchronized (this.pending_connections) {
 
-			if (this.numberOfActiveServers() == 0) {
+					/*
+					 * Every completed server releases its reservation which in
+					 * turn wakes up this thread, so there is no need to poll.
+					 */
+					if (!this.isDrained()) {
+						this.pending_connections
+						        .wait(Math.min(deadline - now, ServerChannelManager.drain_report_interval));
+					}
+
+				}
 
-				this.interrupt();
-				break;
+			}
+
+			final boolean drained;
 
+			synchronized (this.pending_connections) {
+				drained = this.isDrained();
 			}
 
+			if (!drained) {
+
+				LoggerManager.tracedLog(this, Level.WARNING,
+				        String.format(
+				                "The drain timeout expired, %d server(s) are closed with %d byte(s) still to send.",
+				                new Integer(this.numberOfActiveServers()), new Long(this.getPendingBytes())));
+
+			}
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			LoggerManager.tracedLog(this, Level.WARNING, "The drain was interrupted.");
+
+		} finally {
+
+			/*
+			 * Close any stragglers.
+			 */
+			this.interrupt();
+
 		}
 
 	}
 
+	/**
+	 * @return The total number of connections accepted by the server's socket.
+	 */
+	public long getAcceptedConnections() {
+
+		return this.accepted_connections.get();
+	}
+
+	/**
+	 * @return The number of connections that currently wait for a free server.
+	 */
+	public int getPendingConnections() {
+
+		synchronized (this.pending_connections) {
+			return this.pending_connections.size();
+		}
+
+	}
+
+	/**
+	 * @return The total number of connections that had to wait for a free
+	 *         server.
+	 */
+	public long getQueuedConnections() {
+
+		return this.queued_connections.get();
+	}
+
+	/**
+	 * @return The total number of connections that were shed due to overload.
+	 */
+	public long getShedConnections() {
+
+		return this.shed_connections.get();
+	}
+
+	/**
+	 * @return The number of bytes that the active servers have still to send.
+	 */
+	public long getPendingBytes() {
+
+		return this.active_servers.stream().mapToLong(x -> x.getPendingBytes()).sum();
+	}
+
 	/**
 	 * @return A {@link InetSocketAddress} object that contains the required
 	 *         information to communicate with the server's socket.
@@ -149,7 +474,7 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 	 */
 	public int numberOfActiveServers() {
 
-		return CloseableThread.countActive(this.servers);
+		return this.active_servers.size();
 	}
 
 	/*
@@ -168,34 +493,23 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 				 */
 				this.server_cleaner.start();
 
+				MetricsRegistry.getDefault().setGauge(String.format("%s.active_servers", this.getName()),
+				        () -> this.numberOfActiveServers());
+				MetricsRegistry.getDefault().setGauge(String.format("%s.pending_connections", this.getName()),
+				        () -> this.getPendingConnections());
+
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format("The server started listening for incoming connection"));
+				        () -> String.format("The server started listening for incoming connection"));
 
 				for (int i = 0; !this.server_socket.isClosed(); i++) {
 
 					try {
 
-						try {
-
-							this.listening_lock.lock();
+						final Socket socket;
 
-							/*
-							 * The {@link ServerChannelManager#close close()}
-							 * prevents any memory leaks from the {@link
-							 * ServerChannel} objects.
-							 */
-
-							@SuppressWarnings("resource")
-							final S server_channel = this.newServerChannel(this.servers,
-							        String.format("%s.Server-%d", this.getName(), new Integer(i)),
-							        this.server_socket.accept());
-
-							server_channel.start();
+						try {
 
-							LoggerManager.tracedLog(this, Level.FINE,
-							        String.format(
-							                "A new connection started (%d active server(s) currently handled by the manager).",
-							                new Integer(CloseableThread.countActive(this.servers))));
+							socket = this.server_socket.accept();
 
 						} catch (@SuppressWarnings("unused") final SocketException ex) {
 
@@ -207,6 +521,14 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 
 							break;
 
+						}
+
+						try {
+
+							this.listening_lock.lock();
+
+							this.admit(socket, i);
+
 						} finally {
 
 							this.listening_lock.unlock();
@@ -228,12 +550,27 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 
 			try {
 
+				/*
+				 * During a gentle interrupt the active servers are left to
+				 * complete and the manager is closed after they are drained.
+				 */
+				if (this.draining) {
+
+					LoggerManager.tracedLog(this, Level.FINE,
+					        () -> String.format(
+					                "A server stopped listening for incoming connections (%d active server remain).",
+					                new Integer(this.numberOfActiveServers())));
+
+					return;
+
+				}
+
 				this.close();
 
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format(
+				        () -> String.format(
 				                "A server stopped listening for incoming connections (%d active server remain and reducing).",
-				                new Integer(CloseableThread.countActive(this.servers))));
+				                new Integer(this.numberOfActiveServers())));
 
 			} catch (final IOException ex) {
 
@@ -245,6 +582,357 @@ public abstract class ServerChannelManager<S extends ServerChannel> extends Clos
 
 	}
 
+	/**
+	 * Decides what happens to a newly accepted connection. The connection is
+	 * either handled immediately, queued until a server becomes free or shed.
+	 *
+	 * @param socket
+	 *            The accepted socket.
+	 * @param index
+	 *            The index of the connection, used to name the server.
+	 */
+	private void admit(final Socket socket, final int index) {
+
+		this.accepted_connections.incrementAndGet();
+		ServerChannelManager.accepted_connections_counter.increment();
+
+		boolean start = false;
+		boolean shed = false;
+
+		synchronized (this.pending_connections) {
+
+			if ((this.reserved_servers < this.max_active_servers) && this.pending_connections.isEmpty()) {
+
+				this.reserved_servers++;
+				start = true;
+
+			}
+			else if (this.pending_connections.size() < this.max_queued_connections) {
+
+				this.pending_connections.add(new PendingConnection(socket, index, System.currentTimeMillis()));
+				this.queued_connections.incrementAndGet();
+				ServerChannelManager.queued_connections_counter.increment();
+
+			}
+			else {
+				shed = true;
+			}
+
+		}
+
+		if (start) {
+			this.start(socket, index);
+		}
+		else if (shed) {
+			this.shed(socket);
+		}
+
+	}
+
+	/**
+	 * Called when a server completes its execution. The freed server is handed
+	 * over to the next queued connection, if any.
+	 *
+	 * @param server_channel
+	 *            The server that completed.
+	 */
+	private void completed(final S server_channel) {
+
+		this.active_servers.remove(server_channel);
+		this.release();
+
+	}
+
+	/**
+	 * Reads and discards the data that the client of a shed connection sends,
+	 * until the client closes the connection or the linger timeout expires,
+	 * and then closes the connection.
+	 *
+	 * @param socket
+	 *            The socket of the shed connection.
+	 */
+	private void drain(final Socket socket) {
+
+		final long deadline = System.currentTimeMillis() + this.shed_linger_timeout;
+
+		try {
+
+			socket.setSoTimeout(this.shed_linger_timeout);
+
+			final InputStream in = socket.getInputStream();
+			final byte[] buffer = new byte[1024];
+
+			while ((in.read(buffer) >= 0) && (System.currentTimeMillis() < deadline)) {
+				// Discard the request.
+			}
+
+		} catch (@SuppressWarnings("unused") final IOException ex) {
+			// The client did not close the connection in time.
+		} finally {
+			this.drop(socket);
+		}
+
+	}
+
+	/**
+	 * Closes a connection without answering.
+	 *
+	 * @param socket
+	 *            The socket of the connection.
+	 */
+	private void drop(final Socket socket) {
+
+		try {
+			socket.close();
+		} catch (@SuppressWarnings("unused") final IOException ex) {
+			// The connection is dropped anyway.
+		}
+
+	}
+
+	/**
+	 * Performs the stream handshake by allocating a new server for the
+	 * connection and starts it. The client has to complete the handshake
+	 * before the handshake timeout expires.
+	 *
+	 * @param socket
+	 *            The accepted socket.
+	 * @param index
+	 *            The index of the connection, used to name the server.
+	 */
+	private void handshake(final Socket socket, final int index) {
+
+		this.handshaking_sockets.add(socket);
+
+		try {
+
+			/*
+			 * The manager may have been closed before the socket was added.
+			 */
+			if (this.handshake_executor.isShutdown()) throw new SocketException("The manager is closed.");
+
+			socket.setSoTimeout(this.handshake_timeout);
+
+			/*
+			 * The {@link ServerChannelManager#close close()} prevents any
+			 * memory leaks from the {@link ServerChannel} objects.
+			 */
+
+			@SuppressWarnings("resource")
+			final S server_channel = this.newServerChannel(this.servers,
+			        String.format("%s.Server-%d", this.getName(), new Integer(index)), socket);
+
+			/*
+			 * From now on inactive servers are handled by the cleaner.
+			 */
+			socket.setSoTimeout(0);
+
+			server_channel.setCompletionListener(() -> this.completed(server_channel));
+			this.active_servers.add(server_channel);
+
+			server_channel.start();
+
+			LoggerManager.tracedLog(this, Level.FINE,
+			        () -> String.format(
+			                "A new connection started (%d active server(s) currently handled by the manager).",
+			                new Integer(this.numberOfActiveServers())));
+
+		} catch (@SuppressWarnings("unused") final SocketTimeoutException ex) {
+
+			LoggerManager.tracedLog(this, Level.WARNING,
+			        String.format("The client <%s> did not complete the handshake in %d milliseconds.",
+			                socket.getRemoteSocketAddress(), new Integer(this.handshake_timeout)));
+
+			this.drop(socket);
+			this.release();
+
+		} catch (final IOException ex) {
+
+			/*
+			 * The sockets are closed on purpose while the manager is closing.
+			 */
+			if (!this.handshake_executor.isShutdown()) {
+				LoggerManager.tracedLog(this, Level.SEVERE, "An IOException occurred during the communication.", ex);
+			}
+
+			this.drop(socket);
+			this.release();
+
+		} finally {
+			this.handshaking_sockets.remove(socket);
+		}
+
+	}
+
+	/**
+	 * @return True If no server is reserved and no connection is queued. The
+	 *         method should be called while holding the queue's monitor.
+	 */
+	private boolean isDrained() {
+
+		return (this.reserved_servers == 0) && this.pending_connections.isEmpty();
+	}
+
+	/**
+	 * Retrieves the next queued connection that should be handled. While the
+	 * queue delay stays above the target for longer than the interval, every
+	 * connection that waited longer than the target is shed instead. The
+	 * method should be called while holding the queue's monitor.
+	 *
+	 * @param now
+	 *            The current time in milliseconds.
+	 * @param dropped_connections
+	 *            A list where the connections that should be shed are added.
+	 * @return The next connection or null if the queue is empty.
+	 */
+	private PendingConnection next(final long now, final List<PendingConnection> dropped_connections) {
+
+		PendingConnection pending_connection;
+
+		while ((pending_connection = this.pending_connections.poll()) != null) {
+
+			if ((now - pending_connection.enqueue_time) < this.target_queue_delay) {
+
+				this.first_above_time = 0;
+				return pending_connection;
+
+			}
+
+			if (this.first_above_time == 0) {
+
+				this.first_above_time = now + this.queue_delay_interval;
+				return pending_connection;
+
+			}
+
+			if (now < this.first_above_time) return pending_connection;
+
+			dropped_connections.add(pending_connection);
+
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Releases a reserved server or hands it over to the next queued
+	 * connection.
+	 */
+	private void release() {
+
+		final List<PendingConnection> dropped_connections = new LinkedList<>();
+		final PendingConnection pending_connection;
+
+		synchronized (this.pending_connections) {
+
+			pending_connection = this.next(System.currentTimeMillis(), dropped_connections);
+
+			if (pending_connection == null) {
+
+				this.reserved_servers--;
+
+				/*
+				 * Wake up a draining thread.
+				 */
+				this.pending_connections.notifyAll();
+
+			}
+
+		}
+
+		dropped_connections.forEach(x -> this.shed(x.socket));
+
+		if (pending_connection != null) {
+
+			ServerChannelManager.queue_delays
+			        .record((System.currentTimeMillis() - pending_connection.enqueue_time) * 1000);
+
+			this.start(pending_connection.socket, pending_connection.index);
+
+		}
+
+	}
+
+	/**
+	 * Answers the connection with a failure reply that carries a retry hint
+	 * and closes it. The request of the client is never processed. The output
+	 * is half-closed after the reply and the request is drained by one of the
+	 * lingering threads before the connection is closed, since closing a
+	 * socket with unread data resets the connection and the client may lose
+	 * the reply.
+	 *
+	 * @param socket
+	 *            The socket of the connection to be shed.
+	 */
+	private void shed(final Socket socket) {
+
+		this.shed_connections.incrementAndGet();
+		ServerChannelManager.shed_connections_counter.increment();
+
+		try {
+
+			/*
+			 * Closing the object stream would close the socket as well.
+			 */
+			@SuppressWarnings("resource")
+			final ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+
+			out.writeObject(Reply.getRetryFailureMessage(this.queue_delay_interval));
+			out.flush();
+
+			socket.shutdownOutput();
+
+			this.shed_executor.execute(() -> this.drain(socket));
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(this, Level.FINE, "A shed connection could not be answered.", ex);
+
+			this.drop(socket);
+
+		} catch (@SuppressWarnings("unused") final RejectedExecutionException ex) {
+
+			/*
+			 * Too many connections are lingering already.
+			 */
+			this.drop(socket);
+
+		}
+
+		LoggerManager.tracedLog(this, Level.FINE,
+		        () -> String.format("A connection was shed due to overload (%d shed in total).",
+		                new Long(this.shed_connections.get())));
+
+	}
+
+	/**
+	 * Allocates and starts a new server for the connection on one of the
+	 * handshake threads. The server should have already been reserved.
+	 *
+	 * @param socket
+	 *            The accepted socket.
+	 * @param index
+	 *            The index of the connection, used to name the server.
+	 */
+	private void start(final Socket socket, final int index) {
+
+		try {
+
+			this.handshake_executor.execute(() -> this.handshake(socket, index));
+
+		} catch (@SuppressWarnings("unused") final RejectedExecutionException ex) {
+
+			/*
+			 * The manager is closing so the connection is dropped.
+			 */
+			this.drop(socket);
+			this.release();
+
+		}
+
+	}
+
 	/**
 	 * Returns a new {@link ServerChannel} object with specific type S
 	 * initialized with the given parameters.
@@ -0,0 +1,111 @@
+package p2p.components.communication;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.logging.Level;
+
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+import p2p.components.exceptions.FailedRequestException;
+import p2p.components.metrics.MetricsSnapshot;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A StatsClient object retrieves a {@link MetricsSnapshot} from a running
+ * tracker or peer.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class StatsClient extends ClientChannel {
+
+	/**
+	 * Retrieves a snapshot of the metrics of the server.
+	 *
+	 * @param socket_address
+	 *            The socket address of the server.
+	 * @return The snapshot or null if the server did not reply successfully.
+	 */
+	public static MetricsSnapshot getStats(final InetSocketAddress socket_address) {
+
+		final Thread current_thread = Thread.currentThread();
+
+		try (StatsClient client_channel = new StatsClient(current_thread.getThreadGroup(),
+		        String.format("%s.StatsClient", current_thread.getName()), socket_address)) {
+
+			client_channel.run();
+
+			if (client_channel.getStatus() == Status.SUCCESSFULL) return client_channel.getStats();
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING,
+			        String.format("The stats of the server <%s> could not be retrieved.", socket_address), ex);
+
+		}
+
+		return null;
+
+	}
+
+	private MetricsSnapshot stats;
+
+	/**
+	 * Allocates a new StatsClient object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup ThreadGroup} object that this channel
+	 *            belongs to.
+	 * @param name
+	 *            The name of this channel.
+	 * @param socket_address
+	 *            The {@link InetSocketAddress SocketDescription} of the
+	 *            server's socket.
+	 * @throws IOException
+	 *             If an error occurs during the initialization of the
+	 *             {@link Socket Socket} object.
+	 */
+	public StatsClient(final ThreadGroup group, final String name, final InetSocketAddress socket_address)
+	        throws IOException {
+		super(group, name, socket_address);
+	}
+
+	/**
+	 * @return The snapshot sent by the server or null if the request was not
+	 *         successful.
+	 */
+	public MetricsSnapshot getStats() {
+
+		return this.stats;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#communicate()
+	 */
+	@Override
+	protected final void communicate() throws IOException, InterruptedException {
+
+		this.out.writeObject(new Request<>(Request.Type.STATS, null));
+
+		LoggerManager.tracedLog(this, Level.FINE, "A new stats request was sent through the channel.");
+
+		try {
+
+			this.stats = Reply.getValidatedData(this.in.readObject(), MetricsSnapshot.class);
+
+			this.status = Status.SUCCESSFULL;
+
+		} catch (ClassCastException | ClassNotFoundException ex) {
+
+			throw new IOException(ex);
+
+		} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+			this.status = Status.FAILED;
+
+		}
+
+	}
+
+}
@@ -49,6 +49,21 @@ public final class Reply<D extends Serializable> extends Message<D> {
 		return new Reply<>(Type.FAILURE, null);
 	}
 
+	/**
+	 * Returns a failure reply that indicates that the request was not
+	 * processed because the sender is temporarily unable or unwilling to
+	 * process it, eg. because a rate limit was exceeded.
+	 *
+	 * @param retry_after
+	 *            The amount of milliseconds the receiver should wait before
+	 *            retrying the request.
+	 * @return A Reply with type Failure and the retry hint as data.
+	 */
+	public static Reply<Long> getRetryFailureMessage(final long retry_after) {
+
+		return new Reply<>(Type.FAILURE, new Long(Math.max(1, retry_after)));
+	}
+
 	/**
 	 * Returns a common success reply.
 	 *
@@ -62,7 +77,8 @@ public final class Reply<D extends Serializable> extends Message<D> {
 	/**
 	 * Tries to treat the provided object as a Reply object and retrieve the
 	 * contained data. If the replie's type is Failure then a
-	 * {@link FailedRequestException} is raised.
+	 * {@link FailedRequestException} is raised. If the failure carries a retry
+	 * hint it is available through the exception.
 	 *
 	 * @param <D>
 	 *            The type of the expected data.
@@ -80,7 +96,14 @@ public final class Reply<D extends Serializable> extends Message<D> {
 	        throws ClassCastException, FailedRequestException {
 
 		final Reply<?> reply = Reply.class.cast(object);
-		if (reply.getType() == Type.FAILURE) throw new FailedRequestException();
+		if (reply.getType() == Type.FAILURE) {
+
+			if (reply.getData() instanceof Long) throw new FailedRequestException("The request should be retried later.",
+			        ((Long) reply.getData()).longValue());
+
+			throw new FailedRequestException();
+
+		}
 
 		return expected_type.cast(reply.getData());
 
@@ -2,6 +2,9 @@ package p2p.components.communication.messages;
 
 import java.io.Serializable;
 
+import p2p.components.tracing.Span;
+import p2p.components.tracing.Tracer;
+
 /**
  * A Request is a {@link Message} object that indicates the operation that the
  * client requests from the server. Every request has a type in order for the
@@ -27,6 +30,17 @@ public final class Request<D extends Serializable> extends Message<D> {
 		 * Indicates a login request.
 		 */
 		LOGIN,
+		/**
+		 * Indicates a login request that also carries the address of the
+		 * sender's server and its shared files, so the session is created in
+		 * a single round trip.
+		 */
+		BOUND_LOGIN,
+		/**
+		 * Indicates that the sender wants to resume its session using the
+		 * token it received on a previous login.
+		 */
+		RESUME,
 		/**
 		 * Indicates that the sender wants to know if the receiver is alive.
 		 * Implemented at low level classes.
@@ -42,6 +56,16 @@ public final class Request<D extends Serializable> extends Message<D> {
 		 * from another peer.
 		 */
 		ACKNOWLEDGE,
+		/**
+		 * Indicates that the sender added files to its shared directory since
+		 * its last login or announcement.
+		 */
+		ANNOUNCE_ADD,
+		/**
+		 * Indicates that the sender removed files from its shared directory
+		 * since its last login or announcement.
+		 */
+		ANNOUNCE_REMOVE,
 		/**
 		 * Indicates that the peer wants download a specific file from the
 		 * server.
@@ -50,7 +74,11 @@ public final class Request<D extends Serializable> extends Message<D> {
 		/**
 		 * Indicates a logout request.
 		 */
-		LOGOUT;
+		LOGOUT,
+		/**
+		 * Indicates that the sender wants a snapshot of the receiver's metrics.
+		 */
+		STATS;
 	}
 
 	/**
@@ -72,8 +100,13 @@ public final class Request<D extends Serializable> extends Message<D> {
 
 	private final Type type;
 
+	private final long trace_id;
+	private final long parent_span_id;
+
 	/**
-	 * Allocates a new Reply object.
+	 * Allocates a new Reply object. If the current thread has an active
+	 * {@link Span} the request carries its ids, so the receiver can continue
+	 * the trace.
 	 *
 	 * @param type
 	 *            The type of the request.
@@ -85,6 +118,29 @@ public final class Request<D extends Serializable> extends Message<D> {
 		super(data);
 
 		this.type = type;
+
+		final Span span = Tracer.getCurrent();
+
+		this.trace_id = span != null ? span.getTraceID() : 0;
+		this.parent_span_id = span != null ? span.getSpanID() : 0;
+	}
+
+	/**
+	 * @return The id of the span that sent the request or zero if the request
+	 *         is not traced.
+	 */
+	public long getParentSpanID() {
+
+		return this.parent_span_id;
+	}
+
+	/**
+	 * @return The id of the trace that the request belongs to or zero if the
+	 *         request is not traced.
+	 */
+	public long getTraceID() {
+
+		return this.trace_id;
 	}
 
 	/**
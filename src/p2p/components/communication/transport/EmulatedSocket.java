@@ -0,0 +1,455 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An EmulatedSocket object wraps a connected socket and passes its bytes
+ * through an emulated link described by a {@link LinkProfile}. The emulation
+ * runs entirely on the connecting side, in the threads that read and write the
+ * streams, so the other side and the operating system are not involved.
+ * <p>
+ * The protocol of the channels alternates between requests and replies, so
+ * the latency is added whenever the direction of the conversation changes,
+ * once for the first bytes of a request and once for the first bytes of its
+ * reply, which gives every exchange a full round trip while a long transfer
+ * pays the latency only once. Every segment of bytes also occupies the link
+ * for the time the bandwidth allows and may stall with the probability of the
+ * profile, as if it had to be retransmitted.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class EmulatedSocket extends Socket {
+
+	/**
+	 * The maximum number of bytes that are transmitted as one segment.
+	 */
+	public static final int segment_size = 16384;
+
+	private static final int idle	 = 0;
+	private static final int reading = 1;
+	private static final int writing = 2;
+
+	/**
+	 * Blocks the current thread for the specified time.
+	 */
+	private static void delay(final long nanoseconds) throws InterruptedIOException {
+
+		final long deadline = System.nanoTime() + nanoseconds;
+		long remaining = nanoseconds;
+
+		while (remaining > 0) {
+
+			try {
+				TimeUnit.NANOSECONDS.sleep(remaining);
+			} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("The emulated link was interrupted.");
+			}
+
+			remaining = deadline - System.nanoTime();
+
+		}
+
+	}
+
+	private final Socket	  socket;
+	private final LinkProfile profile;
+
+	private final InputStream  input_stream;
+	private final OutputStream output_stream;
+
+	private final AtomicInteger direction = new AtomicInteger(EmulatedSocket.idle);
+
+	/**
+	 * The time in nanoseconds at which each direction of the link becomes
+	 * available for the next segment.
+	 */
+	private long input_available_time  = 0;
+	private long output_available_time = 0;
+
+	/**
+	 * Allocates a new EmulatedSocket object.
+	 *
+	 * @param socket
+	 *            The connected socket whose bytes are emulated.
+	 * @param profile
+	 *            The profile of the emulated link.
+	 * @throws IOException
+	 *             If the streams of the socket could not be obtained.
+	 */
+	public EmulatedSocket(final Socket socket, final LinkProfile profile) throws IOException {
+
+		this.socket = socket;
+		this.profile = profile;
+
+		final InputStream socket_input = socket.getInputStream();
+		final OutputStream socket_output = socket.getOutputStream();
+
+		this.input_stream = new InputStream() {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#available()
+			 */
+			@Override
+			public int available() throws IOException {
+
+				return socket_input.available();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#close()
+			 */
+			@Override
+			public void close() throws IOException {
+
+				EmulatedSocket.this.close();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#read()
+			 */
+			@Override
+			public int read() throws IOException {
+
+				final byte[] bytes = new byte[1];
+
+				return this.read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xFF;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#read(byte[], int, int)
+			 */
+			@Override
+			public synchronized int read(final byte[] bytes, final int offset, final int length) throws IOException {
+
+				final int read = socket_input.read(bytes, offset, Math.min(length, EmulatedSocket.segment_size));
+
+				if (read > 0) {
+					EmulatedSocket.this.input_available_time = EmulatedSocket.this
+					        .transmit(EmulatedSocket.reading, EmulatedSocket.this.input_available_time, read);
+				}
+
+				return read;
+			}
+
+		};
+
+		this.output_stream = new OutputStream() {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#close()
+			 */
+			@Override
+			public void close() throws IOException {
+
+				EmulatedSocket.this.close();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#flush()
+			 */
+			@Override
+			public void flush() throws IOException {
+
+				socket_output.flush();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#write(byte[], int, int)
+			 */
+			@Override
+			public synchronized void write(final byte[] bytes, final int offset, final int length)
+			        throws IOException {
+
+				for (int written = 0; written < length; written += EmulatedSocket.segment_size) {
+
+					final int segment = Math.min(length - written, EmulatedSocket.segment_size);
+
+					EmulatedSocket.this.output_available_time = EmulatedSocket.this
+					        .transmit(EmulatedSocket.writing, EmulatedSocket.this.output_available_time, segment);
+
+					socket_output.write(bytes, offset + written, segment);
+
+				}
+
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#write(int)
+			 */
+			@Override
+			public void write(final int value) throws IOException {
+
+				this.write(new byte[] { (byte) value }, 0, 1);
+			}
+
+		};
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		this.socket.close();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getInetAddress()
+	 */
+	@Override
+	public InetAddress getInetAddress() {
+
+		return this.socket.getInetAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getInputStream()
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException {
+
+		if (this.socket.isClosed()) throw new SocketException("Socket is closed");
+
+		return this.input_stream;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalAddress()
+	 */
+	@Override
+	public InetAddress getLocalAddress() {
+
+		return this.socket.getLocalAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalPort()
+	 */
+	@Override
+	public int getLocalPort() {
+
+		return this.socket.getLocalPort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalSocketAddress()
+	 */
+	@Override
+	public SocketAddress getLocalSocketAddress() {
+
+		return this.socket.getLocalSocketAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getOutputStream()
+	 */
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+
+		if (this.socket.isClosed()) throw new SocketException("Socket is closed");
+
+		return this.output_stream;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getPort()
+	 */
+	@Override
+	public int getPort() {
+
+		return this.socket.getPort();
+	}
+
+	/**
+	 * @return The profile of the emulated link.
+	 */
+	public LinkProfile getProfile() {
+
+		return this.profile;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getRemoteSocketAddress()
+	 */
+	@Override
+	public SocketAddress getRemoteSocketAddress() {
+
+		return this.socket.getRemoteSocketAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getSoTimeout()
+	 */
+	@Override
+	public int getSoTimeout() throws SocketException {
+
+		return this.socket.getSoTimeout();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getTcpNoDelay()
+	 */
+	@Override
+	public boolean getTcpNoDelay() throws SocketException {
+
+		return this.socket.getTcpNoDelay();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isBound()
+	 */
+	@Override
+	public boolean isBound() {
+
+		return this.socket.isBound();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isClosed()
+	 */
+	@Override
+	public boolean isClosed() {
+
+		return this.socket.isClosed();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isConnected()
+	 */
+	@Override
+	public boolean isConnected() {
+
+		return this.socket.isConnected();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isInputShutdown()
+	 */
+	@Override
+	public boolean isInputShutdown() {
+
+		return this.socket.isInputShutdown();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isOutputShutdown()
+	 */
+	@Override
+	public boolean isOutputShutdown() {
+
+		return this.socket.isOutputShutdown();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#setSoTimeout(int)
+	 */
+	@Override
+	public void setSoTimeout(final int timeout) throws SocketException {
+
+		this.socket.setSoTimeout(timeout);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#setTcpNoDelay(boolean)
+	 */
+	@Override
+	public void setTcpNoDelay(final boolean on) throws SocketException {
+
+		this.socket.setTcpNoDelay(on);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#shutdownInput()
+	 */
+	@Override
+	public void shutdownInput() throws IOException {
+
+		this.socket.shutdownInput();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#shutdownOutput()
+	 */
+	@Override
+	public void shutdownOutput() throws IOException {
+
+		this.socket.shutdownOutput();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return String.format("EmulatedSocket[%s,link=%s]", this.socket, this.profile.getName());
+	}
+
+	/**
+	 * Delays the current thread for the transmission of a segment, adding the
+	 * latency if the direction of the conversation changed, a possible stall
+	 * and the time the segment occupies the link.
+	 *
+	 * @return The time in nanoseconds at which the link becomes available for
+	 *         the next segment of the same direction.
+	 */
+	private long transmit(final int new_direction, final long available_time, final int bytes)
+	        throws InterruptedIOException {
+
+		long delay = this.profile.nextStall();
+
+		if (this.direction.getAndSet(new_direction) != new_direction) {
+			delay += this.profile.nextDelay();
+		}
+
+		final long now = System.nanoTime();
+		final long end_time = Math.max(now + delay, available_time) + this.profile.getTransmissionTime(bytes);
+
+		EmulatedSocket.delay(end_time - now);
+
+		return end_time;
+
+	}
+
+}
@@ -0,0 +1,317 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import p2p.components.Configuration;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.utilities.LoggerManager;
+
+/**
+ * An EmulatedTransport object wraps another {@link Transport} and passes the
+ * bytes of its connections through emulated wide area links. Every listening
+ * socket is assigned a {@link LinkProfile}, drawn from the weighted profiles of
+ * a scenario, and the connections to that socket are delayed, throttled and
+ * stalled according to it. This way every peer of a test sits behind a link of
+ * its own and the performance of the protocol can be evaluated under
+ * realistic network conditions on a single host.
+ * <p>
+ * A scenario is defined in a configuration by the keys
+ * <i>wan_scenario.&lt;name&gt;</i>, the weights of its profiles such as
+ * <i>dsl:70,fiber:30</i>, and <i>wan_profile.&lt;name&gt;</i>, the description
+ * of every profile as accepted by {@link LinkProfile#parse(String, String)}.
+ * The key <i>wan_scenario</i> selects the scenario or disables the emulation
+ * when it is <i>none</i>.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class EmulatedTransport extends Transport {
+
+	/**
+	 * The name of the scenario that disables the emulation.
+	 */
+	public static final String no_scenario = "none";
+
+	private static final Counter opened_connections = MetricsRegistry.getDefault()
+	        .getCounter("transport.emulated.connections");
+
+	/**
+	 * Wraps a transport according to the scenario selected by a configuration.
+	 *
+	 * @param configuration
+	 *            The configuration that defines the scenario and its profiles.
+	 * @param transport
+	 *            The transport that opens the actual connections.
+	 * @return The emulated transport or the specified transport if no scenario
+	 *         is selected or the scenario is invalid.
+	 */
+	public static Transport newScenario(final Configuration configuration, final Transport transport) {
+
+		final String scenario = configuration.getString("wan_scenario", EmulatedTransport.no_scenario).trim();
+
+		if (scenario.isEmpty() || scenario.equalsIgnoreCase(EmulatedTransport.no_scenario)) return transport;
+
+		try {
+
+			final String weights = configuration.getString(String.format("wan_scenario.%s", scenario));
+
+			if (weights == null)
+			    throw new NoSuchElementException(String.format("The scenario <%s> is not defined.", scenario));
+
+			final EmulatedTransport emulated_transport = new EmulatedTransport(transport,
+			        configuration.getInteger("wan_seed", 0));
+
+			for (final String entry : weights.split(",")) {
+
+				if (entry.trim().isEmpty()) {
+					continue;
+				}
+
+				final String[] parts = entry.split(":");
+				final String name = parts[0].trim();
+				final String profile = configuration.getString(String.format("wan_profile.%s", name));
+
+				if (profile == null)
+				    throw new NoSuchElementException(String.format("The link profile <%s> is not defined.", name));
+
+				try {
+					emulated_transport.addProfile(LinkProfile.parse(name, profile),
+					        parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+				} catch (final NumberFormatException ex) {
+					throw new NoSuchElementException(String.format("Invalid weight of the link profile <%s>.", name));
+				}
+
+			}
+
+			final String tracker_profile = configuration.getString("wan_tracker_profile");
+
+			if ((tracker_profile != null) && !tracker_profile.trim().isEmpty()) {
+
+				final String profile = configuration.getString(String.format("wan_profile.%s", tracker_profile.trim()));
+
+				if (profile == null) throw new NoSuchElementException(
+				        String.format("The link profile <%s> is not defined.", tracker_profile.trim()));
+
+				emulated_transport.setFirstProfile(LinkProfile.parse(tracker_profile.trim(), profile));
+
+			}
+
+			LoggerManager.tracedLog(Level.INFO, String.format("The WAN scenario <%s> is emulated over <%s>.",
+			        scenario, transport.getName()));
+
+			return emulated_transport;
+
+		} catch (final NoSuchElementException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING,
+			        String.format("The WAN scenario <%s> was ignored.", scenario), ex);
+
+			return transport;
+
+		}
+
+	}
+
+	private final Transport transport;
+	private final Random	random;
+
+	private final ArrayList<LinkProfile> profiles = new ArrayList<>();
+	private final ArrayList<Integer>	 weights  = new ArrayList<>();
+	private int							 total_weight;
+
+	private LinkProfile first_profile = null;
+
+	private final ConcurrentHashMap<InetSocketAddress, LinkProfile> links = new ConcurrentHashMap<>();
+
+	/**
+	 * Allocates a new EmulatedTransport object without any profiles, so its
+	 * links are not emulated until profiles are added.
+	 *
+	 * @param transport
+	 *            The transport that opens the actual connections.
+	 * @param seed
+	 *            The seed of the assignment of the profiles to the listening
+	 *            sockets, so the same scenario assigns the same profiles.
+	 */
+	public EmulatedTransport(final Transport transport, final long seed) {
+
+		this.transport = transport;
+		this.random = new Random(seed);
+
+	}
+
+	/**
+	 * Adds a profile to the profiles that are assigned to the listening
+	 * sockets.
+	 *
+	 * @param profile
+	 *            The profile.
+	 * @param weight
+	 *            The relative frequency of the profile.
+	 */
+	public synchronized void addProfile(final LinkProfile profile, final int weight) {
+
+		if (weight <= 0) return;
+
+		this.profiles.add(profile);
+		this.weights.add(new Integer(weight));
+		this.total_weight += weight;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#connect(java.net.InetSocketAddress)
+	 */
+	@Override
+	public Socket connect(final InetSocketAddress socket_address) throws IOException {
+
+		final LinkProfile profile = this.getProfile(socket_address);
+		final Socket socket = this.transport.connect(socket_address);
+
+		if (profile == null) return socket;
+
+		EmulatedTransport.opened_connections.increment();
+
+		return new EmulatedSocket(socket, profile);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * p2p.components.communication.transport.Transport#connect(java.lang.
+	 * ThreadGroup, java.net.InetSocketAddress)
+	 */
+	@Override
+	public Socket connect(final ThreadGroup group, final InetSocketAddress socket_address) throws IOException {
+
+		final LinkProfile profile = this.getProfile(socket_address);
+		final Socket socket = this.transport.connect(group, socket_address);
+
+		if (profile == null) return socket;
+
+		EmulatedTransport.opened_connections.increment();
+
+		return new EmulatedSocket(socket, profile);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#getName()
+	 */
+	@Override
+	public String getName() {
+
+		return String.format("emulated %s", this.transport.getName());
+	}
+
+	/**
+	 * @param socket_address
+	 *            The socket address of a listening socket.
+	 * @return The profile of the link of the listening socket, assigned on
+	 *         first use if the socket was not opened by this transport, or
+	 *         null if there are no profiles.
+	 */
+	public LinkProfile getProfile(final InetSocketAddress socket_address) {
+
+		final LinkProfile profile = this.links.get(socket_address);
+
+		if (profile != null) return profile;
+
+		/*
+		 * The sockets that listen to every address are known by their port.
+		 */
+		return this.links.computeIfAbsent(new InetSocketAddress(socket_address.getPort()), x -> this.nextProfile());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#listen(int)
+	 */
+	@Override
+	public ServerSocket listen(final int port) throws IOException {
+
+		final ServerSocket server_socket = this.transport.listen(port);
+		final LinkProfile profile = this.nextProfile();
+
+		if (profile != null) {
+
+			this.links.put((InetSocketAddress) server_socket.getLocalSocketAddress(), profile);
+
+			LoggerManager.tracedLog(Level.FINE, String.format("The socket <%s> is behind the link %s.",
+			        server_socket.getLocalSocketAddress(), profile));
+
+		}
+
+		return server_socket;
+
+	}
+
+	/**
+	 * Assigns a profile to the first listening socket that is opened, which
+	 * is usually the tracker's, instead of a random one of the scenario.
+	 *
+	 * @param profile
+	 *            The profile of the first listening socket.
+	 */
+	public synchronized void setFirstProfile(final LinkProfile profile) {
+
+		this.first_profile = profile;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * p2p.components.communication.transport.Transport#setLocalAddress(java.
+	 * lang.ThreadGroup, java.net.InetAddress)
+	 */
+	@Override
+	public void setLocalAddress(final ThreadGroup group, final InetAddress address) {
+
+		this.transport.setLocalAddress(group, address);
+	}
+
+	/**
+	 * @return The profile of a new listening socket or null if there are no
+	 *         profiles.
+	 */
+	private synchronized LinkProfile nextProfile() {
+
+		if (this.first_profile != null) {
+
+			final LinkProfile profile = this.first_profile;
+
+			this.first_profile = null;
+
+			return profile;
+
+		}
+
+		if (this.total_weight == 0) return null;
+
+		int value = this.random.nextInt(this.total_weight);
+
+		for (int i = 0; i < this.profiles.size(); i++) {
+
+			value -= this.weights.get(i).intValue();
+
+			if (value < 0) return this.profiles.get(i);
+
+		}
+
+		return this.profiles.get(this.profiles.size() - 1);
+
+	}
+
+}
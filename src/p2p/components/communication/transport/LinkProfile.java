@@ -0,0 +1,209 @@
+package p2p.components.communication.transport;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A LinkProfile object describes the conditions of an emulated network link,
+ * its one way latency and jitter, its bandwidth and the probability that a
+ * transmission stalls, as if a packet was lost and had to be retransmitted.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class LinkProfile {
+
+	/**
+	 * Parses a profile from text such as
+	 * <i>latency:20,jitter:5,bandwidth:1024,stall_probability:0.001,stall_time:200</i>.
+	 * The latency, the jitter and the stall time are in milliseconds and the
+	 * bandwidth in KiB per second. Missing values are zero, a zero bandwidth
+	 * is unlimited.
+	 *
+	 * @param name
+	 *            The name of the profile.
+	 * @param text
+	 *            The description of the profile.
+	 * @return The profile.
+	 * @throws NoSuchElementException
+	 *             If the text contains an unknown or invalid value.
+	 */
+	public static LinkProfile parse(final String name, final String text) throws NoSuchElementException {
+
+		int latency = 0;
+		int jitter = 0;
+		int bandwidth = 0;
+		double stall_probability = 0;
+		int stall_time = 0;
+
+		for (final String entry : text.split(",")) {
+
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+
+			final String[] parts = entry.split(":");
+
+			try {
+
+				final String key = parts[0].trim();
+				final String value = parts[1].trim();
+
+				switch (key) {
+				case "latency":
+					latency = Integer.parseInt(value);
+					break;
+				case "jitter":
+					jitter = Integer.parseInt(value);
+					break;
+				case "bandwidth":
+					bandwidth = Integer.parseInt(value);
+					break;
+				case "stall_probability":
+					stall_probability = Double.parseDouble(value);
+					break;
+				case "stall_time":
+					stall_time = Integer.parseInt(value);
+					break;
+				default:
+					throw new NoSuchElementException(String.format("Unknown link property <%s>.", key));
+				}
+
+			} catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+
+				throw new NoSuchElementException(String.format("Invalid link property <%s>.", entry));
+
+			}
+
+		}
+
+		return new LinkProfile(name, latency, jitter, bandwidth, stall_probability, stall_time);
+
+	}
+
+	private final String name;
+	private final int	 latency;
+	private final int	 jitter;
+	private final int	 bandwidth;
+	private final double stall_probability;
+	private final int	 stall_time;
+
+	/**
+	 * Allocates a new LinkProfile object.
+	 *
+	 * @param name
+	 *            The name of the profile.
+	 * @param latency
+	 *            The one way latency in milliseconds.
+	 * @param jitter
+	 *            The maximum deviation from the latency in milliseconds.
+	 * @param bandwidth
+	 *            The bandwidth in KiB per second or 0 if it is unlimited.
+	 * @param stall_probability
+	 *            The probability that a transmission stalls.
+	 * @param stall_time
+	 *            The duration of a stall in milliseconds.
+	 */
+	public LinkProfile(final String name, final int latency, final int jitter, final int bandwidth,
+	        final double stall_probability, final int stall_time) {
+
+		this.name = name;
+		this.latency = Math.max(0, latency);
+		this.jitter = Math.max(0, jitter);
+		this.bandwidth = Math.max(0, bandwidth);
+		this.stall_probability = Math.min(1, Math.max(0, stall_probability));
+		this.stall_time = Math.max(0, stall_time);
+
+	}
+
+	/**
+	 * @return The bandwidth in KiB per second or 0 if it is unlimited.
+	 */
+	public int getBandwidth() {
+
+		return this.bandwidth;
+	}
+
+	/**
+	 * @return The maximum deviation from the latency in milliseconds.
+	 */
+	public int getJitter() {
+
+		return this.jitter;
+	}
+
+	/**
+	 * @return The one way latency in milliseconds.
+	 */
+	public int getLatency() {
+
+		return this.latency;
+	}
+
+	/**
+	 * @return The name of the profile.
+	 */
+	public String getName() {
+
+		return this.name;
+	}
+
+	/**
+	 * @return The probability that a transmission stalls.
+	 */
+	public double getStallProbability() {
+
+		return this.stall_probability;
+	}
+
+	/**
+	 * @return The duration of a stall in milliseconds.
+	 */
+	public int getStallTime() {
+
+		return this.stall_time;
+	}
+
+	/**
+	 * @return A random one way delay in nanoseconds, the latency shifted by up
+	 *         to the jitter in either direction.
+	 */
+	long nextDelay() {
+
+		final long jitter_nanoseconds = this.jitter * 1000000L;
+		final long deviation = jitter_nanoseconds == 0 ? 0
+		        : ThreadLocalRandom.current().nextLong(-jitter_nanoseconds, jitter_nanoseconds + 1);
+
+		return Math.max(0, (this.latency * 1000000L) + deviation);
+	}
+
+	/**
+	 * @return The stall in nanoseconds of a transmission, usually 0.
+	 */
+	long nextStall() {
+
+		return (this.stall_probability > 0) && (ThreadLocalRandom.current().nextDouble() < this.stall_probability)
+		        ? this.stall_time * 1000000L : 0;
+	}
+
+	/**
+	 * @return The time in nanoseconds that the specified number of bytes
+	 *         occupy the link.
+	 */
+	long getTransmissionTime(final int bytes) {
+
+		return this.bandwidth == 0 ? 0 : (bytes * 1000000000L) / (this.bandwidth * 1024L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return String.format("%s[latency=%d ms, jitter=%d ms, bandwidth=%d KiB/s, stalls=%.4f x %d ms]", this.name,
+		        new Integer(this.latency), new Integer(this.jitter), new Integer(this.bandwidth),
+		        new Double(this.stall_probability), new Integer(this.stall_time));
+	}
+
+}
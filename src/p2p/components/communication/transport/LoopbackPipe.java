@@ -0,0 +1,280 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A LoopbackPipe object carries the bytes of one direction of a loopback
+ * connection in a bounded ring buffer. The buffer is allocated on the first
+ * write and grows up to its capacity only as far as the unread bytes need, so
+ * the many short exchanges of a test cost a small buffer each. A writer blocks
+ * while the buffer is full, like a socket whose send buffer is full, and a
+ * reader blocks while it is empty, up to its read timeout.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+final class LoopbackPipe {
+
+	/**
+	 * The default capacity of the buffer in bytes.
+	 */
+	static final int default_capacity = 65536;
+
+	/**
+	 * The size of the buffer when it is first allocated.
+	 */
+	static final int initial_size = 1024;
+
+	private static final byte[] empty_buffer = new byte[0];
+
+	private final int capacity;
+
+	private byte[] buffer = LoopbackPipe.empty_buffer;
+
+	private final ReentrantLock	lock	 = new ReentrantLock();
+	private final Condition		readable = this.lock.newCondition();
+	private final Condition		writable = this.lock.newCondition();
+
+	private int		head		  = 0;
+	private int		count		  = 0;
+	private boolean	reader_closed = false;
+	private boolean	writer_closed = false;
+
+	/**
+	 * Allocates a new LoopbackPipe object with the default capacity.
+	 */
+	LoopbackPipe() {
+		this(LoopbackPipe.default_capacity);
+	}
+
+	/**
+	 * Allocates a new LoopbackPipe object.
+	 *
+	 * @param capacity
+	 *            The capacity of the buffer in bytes.
+	 */
+	LoopbackPipe(final int capacity) {
+
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * @return The number of bytes that can be read without blocking.
+	 */
+	int available() {
+
+		this.lock.lock();
+
+		try {
+			return this.count;
+		} finally {
+			this.lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Closes the reading end. Blocked readers fail and later writes fail.
+	 */
+	void closeReader() {
+
+		this.lock.lock();
+
+		try {
+
+			/*
+			 * The unread bytes are never going to be read.
+			 */
+			this.reader_closed = true;
+			this.buffer = LoopbackPipe.empty_buffer;
+			this.head = 0;
+			this.count = 0;
+
+			this.readable.signalAll();
+			this.writable.signalAll();
+
+		} finally {
+			this.lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Closes the writing end. Readers receive the remaining bytes and then the
+	 * end of the stream.
+	 */
+	void closeWriter() {
+
+		this.lock.lock();
+
+		try {
+
+			this.writer_closed = true;
+			this.readable.signalAll();
+			this.writable.signalAll();
+
+		} finally {
+			this.lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Reads up to the specified number of bytes, blocking until at least one is
+	 * available.
+	 *
+	 * @param bytes
+	 *            The buffer the bytes are copied to.
+	 * @param offset
+	 *            The offset of the first byte in the buffer.
+	 * @param length
+	 *            The maximum number of bytes to be read.
+	 * @param timeout
+	 *            The maximum time in milliseconds to wait for a byte or 0 to
+	 *            wait indefinitely.
+	 * @return The number of bytes read or -1 at the end of the stream.
+	 * @throws IOException
+	 *             If the reading end is closed, the timeout expires or the
+	 *             thread is interrupted.
+	 */
+	int read(final byte[] bytes, final int offset, final int length, final int timeout) throws IOException {
+
+		if (length == 0) return 0;
+
+		this.lock.lock();
+
+		try {
+
+			long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+			while (this.count == 0) {
+
+				if (this.reader_closed) throw new SocketException("Socket closed");
+				if (this.writer_closed) return -1;
+
+				if (timeout > 0) {
+
+					if (remaining <= 0) throw new SocketTimeoutException("Read timed out");
+
+					remaining = this.readable.awaitNanos(remaining);
+
+				}
+				else {
+					this.readable.await();
+				}
+
+			}
+
+			if (this.reader_closed) throw new SocketException("Socket closed");
+
+			final int read = Math.min(length, this.count);
+			final int first = Math.min(read, this.buffer.length - this.head);
+
+			System.arraycopy(this.buffer, this.head, bytes, offset, first);
+			System.arraycopy(this.buffer, 0, bytes, offset + first, read - first);
+
+			this.head = (this.head + read) % this.buffer.length;
+			this.count -= read;
+
+			this.writable.signalAll();
+
+			return read;
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The read was interrupted.");
+
+		} finally {
+			this.lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Writes the bytes, blocking while the buffer is full.
+	 *
+	 * @param bytes
+	 *            The buffer the bytes are copied from.
+	 * @param offset
+	 *            The offset of the first byte in the buffer.
+	 * @param length
+	 *            The number of bytes to be written.
+	 * @throws IOException
+	 *             If either end is closed or the thread is interrupted.
+	 */
+	void write(final byte[] bytes, final int offset, final int length) throws IOException {
+
+		this.lock.lock();
+
+		try {
+
+			int written = 0;
+
+			while (written < length) {
+
+				if ((this.count == this.buffer.length) && (this.buffer.length < this.capacity) && !this.reader_closed) {
+					this.grow(length - written);
+				}
+
+				while ((this.count == this.buffer.length) && !this.reader_closed && !this.writer_closed) {
+					this.writable.await();
+				}
+
+				if (this.writer_closed) throw new SocketException("Socket closed");
+				if (this.reader_closed) throw new SocketException("Broken pipe");
+
+				final int tail = (this.head + this.count) % this.buffer.length;
+				final int chunk = Math.min(length - written,
+				        Math.min(this.buffer.length - this.count, this.buffer.length - tail));
+
+				System.arraycopy(bytes, offset + written, this.buffer, tail, chunk);
+
+				this.count += chunk;
+				written += chunk;
+
+				this.readable.signalAll();
+
+			}
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The write was interrupted.");
+
+		} finally {
+			this.lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Replaces the buffer with a larger one that fits the unread bytes and as
+	 * many of the bytes to be written as the capacity allows. Must be called
+	 * while holding the lock.
+	 *
+	 * @param pending
+	 *            The number of bytes waiting to be written.
+	 */
+	private void grow(final int pending) {
+
+		final int size = (int) Math.min(this.capacity, Math.max(
+		        Math.max(LoopbackPipe.initial_size, 2L * this.buffer.length), (long) this.count + pending));
+		final byte[] grown_buffer = new byte[size];
+
+		final int first = Math.min(this.count, this.buffer.length - this.head);
+
+		System.arraycopy(this.buffer, this.head, grown_buffer, 0, first);
+		System.arraycopy(this.buffer, 0, grown_buffer, first, this.count - first);
+
+		this.buffer = grown_buffer;
+		this.head = 0;
+
+	}
+
+}
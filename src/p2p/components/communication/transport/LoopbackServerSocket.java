@@ -0,0 +1,218 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A LoopbackServerSocket object accepts the in-memory connections opened
+ * through a {@link LoopbackTransport} to its address. It never allocates a file
+ * descriptor. The connections wait in an unbounded queue until they are
+ * accepted, so the queue of the server manager is the only limit.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class LoopbackServerSocket extends ServerSocket {
+
+	/**
+	 * Marks the end of the queue when the socket is closed.
+	 */
+	private static final Socket closed_marker = new Socket();
+
+	private final LoopbackTransport	transport;
+	private final InetSocketAddress	local_address;
+
+	private final LinkedBlockingQueue<Socket> pending_connections = new LinkedBlockingQueue<>();
+
+	private volatile int	 timeout = 0;
+	private volatile boolean closed	 = false;
+
+	/**
+	 * Allocates a new LoopbackServerSocket object.
+	 *
+	 * @param transport
+	 *            The transport that the socket is registered to.
+	 * @param local_address
+	 *            The socket address that the socket listens to.
+	 * @throws IOException
+	 *             Never, declared by the constructor of the
+	 *             {@link ServerSocket}.
+	 */
+	LoopbackServerSocket(final LoopbackTransport transport, final InetSocketAddress local_address)
+	        throws IOException {
+
+		this.transport = transport;
+		this.local_address = local_address;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#accept()
+	 */
+	@Override
+	public Socket accept() throws IOException {
+
+		if (this.closed) throw new SocketException("Socket is closed");
+
+		try {
+
+			final Socket socket = this.timeout > 0
+			        ? this.pending_connections.poll(this.timeout, TimeUnit.MILLISECONDS)
+			        : this.pending_connections.take();
+
+			if (socket == null) throw new SocketTimeoutException("Accept timed out");
+
+			if (socket == LoopbackServerSocket.closed_marker) {
+
+				this.pending_connections.offer(LoopbackServerSocket.closed_marker);
+				throw new SocketException("Socket closed");
+
+			}
+
+			return socket;
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			Thread.currentThread().interrupt();
+			throw new SocketException("The accept was interrupted.");
+
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		synchronized (this) {
+
+			if (this.closed) return;
+
+			this.closed = true;
+
+		}
+
+		this.transport.unregister(this);
+
+		/*
+		 * The connections that were never accepted are refused.
+		 */
+		for (Socket socket = this.pending_connections.poll(); socket != null; socket = this.pending_connections
+		        .poll()) {
+			socket.close();
+		}
+
+		this.pending_connections.offer(LoopbackServerSocket.closed_marker);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#getInetAddress()
+	 */
+	@Override
+	public InetAddress getInetAddress() {
+
+		return this.local_address.getAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#getLocalPort()
+	 */
+	@Override
+	public int getLocalPort() {
+
+		return this.local_address.getPort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#getLocalSocketAddress()
+	 */
+	@Override
+	public SocketAddress getLocalSocketAddress() {
+
+		return this.local_address;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#getSoTimeout()
+	 */
+	@Override
+	public int getSoTimeout() {
+
+		return this.timeout;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#isBound()
+	 */
+	@Override
+	public boolean isBound() {
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#isClosed()
+	 */
+	@Override
+	public boolean isClosed() {
+
+		return this.closed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#setSoTimeout(int)
+	 */
+	@Override
+	public void setSoTimeout(final int timeout) throws SocketException {
+
+		if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative");
+
+		this.timeout = timeout;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.ServerSocket#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return String.format("LoopbackServerSocket[addr=%s,localport=%d]", this.local_address.getAddress(),
+		        new Integer(this.local_address.getPort()));
+	}
+
+	/**
+	 * Queues a new connection to be accepted.
+	 *
+	 * @param socket
+	 *            The server's end of the connection.
+	 * @return True If the connection was queued, false if the socket is
+	 *         closed.
+	 */
+	boolean offer(final Socket socket) {
+
+		if (this.closed) return false;
+
+		return this.pending_connections.offer(socket);
+	}
+
+}
@@ -0,0 +1,371 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.Socket;
+
+/**
+ * A LoopbackSocket object is one end of an in-memory connection created by a
+ * {@link LoopbackTransport}. It never allocates a file descriptor, the bytes
+ * are exchanged through two {@link LoopbackPipe} objects shared with the other
+ * end. Only the methods used by the channels are supported, the options of
+ * the operating system's sockets are accepted and ignored.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class LoopbackSocket extends Socket {
+
+	private final InetSocketAddress	local_address;
+	private final InetSocketAddress	remote_address;
+	private final LoopbackPipe		input;
+	private final LoopbackPipe		output;
+
+	private final InputStream	input_stream;
+	private final OutputStream	output_stream;
+
+	private volatile int	 timeout		 = 0;
+	private volatile boolean closed			 = false;
+	private volatile boolean input_shutdown	 = false;
+	private volatile boolean output_shutdown = false;
+
+	/**
+	 * Allocates a new LoopbackSocket object.
+	 *
+	 * @param local_address
+	 *            The socket address of this end.
+	 * @param remote_address
+	 *            The socket address of the other end.
+	 * @param input
+	 *            The pipe that this end reads from.
+	 * @param output
+	 *            The pipe that this end writes to.
+	 */
+	LoopbackSocket(final InetSocketAddress local_address, final InetSocketAddress remote_address,
+	        final LoopbackPipe input, final LoopbackPipe output) {
+
+		this.local_address = local_address;
+		this.remote_address = remote_address;
+		this.input = input;
+		this.output = output;
+
+		this.input_stream = new InputStream() {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#available()
+			 */
+			@Override
+			public int available() throws IOException {
+
+				return LoopbackSocket.this.input_shutdown ? 0 : LoopbackSocket.this.input.available();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#close()
+			 */
+			@Override
+			public void close() throws IOException {
+
+				LoopbackSocket.this.close();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#read()
+			 */
+			@Override
+			public int read() throws IOException {
+
+				final byte[] bytes = new byte[1];
+
+				return this.read(bytes, 0, 1) < 0 ? -1 : bytes[0] & 0xFF;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.InputStream#read(byte[], int, int)
+			 */
+			@Override
+			public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+
+				if (LoopbackSocket.this.input_shutdown) return -1;
+
+				return LoopbackSocket.this.input.read(bytes, offset, length, LoopbackSocket.this.timeout);
+			}
+
+		};
+
+		this.output_stream = new OutputStream() {
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#close()
+			 */
+			@Override
+			public void close() throws IOException {
+
+				LoopbackSocket.this.close();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#write(byte[], int, int)
+			 */
+			@Override
+			public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+
+				LoopbackSocket.this.output.write(bytes, offset, length);
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.io.OutputStream#write(int)
+			 */
+			@Override
+			public void write(final int value) throws IOException {
+
+				this.write(new byte[] { (byte) value }, 0, 1);
+			}
+
+		};
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#close()
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+
+		if (this.closed) return;
+
+		this.closed = true;
+
+		this.input.closeReader();
+		this.output.closeWriter();
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getInetAddress()
+	 */
+	@Override
+	public InetAddress getInetAddress() {
+
+		return this.remote_address.getAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getInputStream()
+	 */
+	@Override
+	public InputStream getInputStream() throws IOException {
+
+		if (this.closed) throw new SocketException("Socket is closed");
+
+		return this.input_stream;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalAddress()
+	 */
+	@Override
+	public InetAddress getLocalAddress() {
+
+		return this.local_address.getAddress();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalPort()
+	 */
+	@Override
+	public int getLocalPort() {
+
+		return this.local_address.getPort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getLocalSocketAddress()
+	 */
+	@Override
+	public SocketAddress getLocalSocketAddress() {
+
+		return this.local_address;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getOutputStream()
+	 */
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+
+		if (this.closed) throw new SocketException("Socket is closed");
+
+		return this.output_stream;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getPort()
+	 */
+	@Override
+	public int getPort() {
+
+		return this.remote_address.getPort();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getRemoteSocketAddress()
+	 */
+	@Override
+	public SocketAddress getRemoteSocketAddress() {
+
+		return this.remote_address;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getSoTimeout()
+	 */
+	@Override
+	public int getSoTimeout() {
+
+		return this.timeout;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#getTcpNoDelay()
+	 */
+	@Override
+	public boolean getTcpNoDelay() {
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isBound()
+	 */
+	@Override
+	public boolean isBound() {
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isClosed()
+	 */
+	@Override
+	public boolean isClosed() {
+
+		return this.closed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isConnected()
+	 */
+	@Override
+	public boolean isConnected() {
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isInputShutdown()
+	 */
+	@Override
+	public boolean isInputShutdown() {
+
+		return this.input_shutdown;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#isOutputShutdown()
+	 */
+	@Override
+	public boolean isOutputShutdown() {
+
+		return this.output_shutdown;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#setSoTimeout(int)
+	 */
+	@Override
+	public void setSoTimeout(final int timeout) throws SocketException {
+
+		if (timeout < 0) throw new IllegalArgumentException("timeout can't be negative");
+
+		this.timeout = timeout;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#setTcpNoDelay(boolean)
+	 */
+	@Override
+	public void setTcpNoDelay(final boolean on) {
+
+		// The bytes are always delivered immediately.
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#shutdownInput()
+	 */
+	@Override
+	public void shutdownInput() throws IOException {
+
+		if (this.closed) throw new SocketException("Socket is closed");
+
+		this.input_shutdown = true;
+		this.input.closeReader();
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#shutdownOutput()
+	 */
+	@Override
+	public void shutdownOutput() throws IOException {
+
+		if (this.closed) throw new SocketException("Socket is closed");
+
+		this.output_shutdown = true;
+		this.output.closeWriter();
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.net.Socket#toString()
+	 */
+	@Override
+	public String toString() {
+
+		return String.format("LoopbackSocket[addr=%s,port=%d,localport=%d]", this.remote_address.getAddress(),
+		        new Integer(this.remote_address.getPort()), new Integer(this.local_address.getPort()));
+	}
+
+}
@@ -0,0 +1,254 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.MetricsRegistry;
+
+/**
+ * A LoopbackTransport object connects the channels of a single JVM in memory,
+ * without sockets of the operating system. Every listening socket gets a
+ * socket address of its own and the connections are routed by the whole
+ * address, so the listening sockets are not limited by the ports of a single
+ * host: once the ephemeral ports of a loopback address are taken, the next
+ * address of the <i>127.0.0.0/8</i> block is used. The connections opened on
+ * behalf of a group of channels originate from the local address set for the
+ * group, eg. the address of their peer's listening socket, so a tracker sees
+ * every peer at the address it listens to. This way a tracker and tens of
+ * thousands of peers can run in one JVM without running out of ports or file
+ * descriptors, and the measured costs do not include the kernel's networking.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class LoopbackTransport extends Transport {
+
+	/**
+	 * The first port assigned to the listening sockets that do not request a
+	 * specific port.
+	 */
+	public static final int first_ephemeral_port = 49152;
+
+	private static final int last_port = 65535;
+
+	private static final int ports_per_address = (LoopbackTransport.last_port - LoopbackTransport.first_ephemeral_port)
+	        + 1;
+
+	/**
+	 * The number of addresses of the <i>127.0.0.0/8</i> block, without the
+	 * network and the broadcast address.
+	 */
+	private static final long loopback_addresses = (1 << 24) - 2;
+
+	private static final Counter opened_connections	 = MetricsRegistry.getDefault()
+	        .getCounter("transport.loopback.connections");
+	private static final Counter refused_connections = MetricsRegistry.getDefault()
+	        .getCounter("transport.loopback.refused_connections");
+
+	/**
+	 * @return The next port of the ephemeral range, starting over after the
+	 *         last port.
+	 */
+	private static int getPort(final AtomicInteger next_port) {
+
+		return LoopbackTransport.first_ephemeral_port + Math.floorMod(
+		        next_port.getAndIncrement() - LoopbackTransport.first_ephemeral_port,
+		        LoopbackTransport.ports_per_address);
+	}
+
+	/**
+	 * @return The socket address of the specified id, the ephemeral ports of
+	 *         <i>127.0.0.1</i> first, then those of <i>127.0.0.2</i> and so on,
+	 *         starting over after the last address.
+	 * @throws IOException
+	 *             Never, the address is always valid.
+	 */
+	private static InetSocketAddress getSocketAddress(final long id) throws IOException {
+
+		final long index = Math.floorMod(id,
+		        LoopbackTransport.loopback_addresses * LoopbackTransport.ports_per_address);
+		final int host = (int) (index / LoopbackTransport.ports_per_address) + 1;
+		final int port = LoopbackTransport.first_ephemeral_port + (int) (index % LoopbackTransport.ports_per_address);
+
+		return new InetSocketAddress(
+		        InetAddress.getByAddress(new byte[] { 127, (byte) (host >>> 16), (byte) (host >>> 8), (byte) host }),
+		        port);
+
+	}
+
+	private final InetAddress address = InetAddress.getLoopbackAddress();
+
+	private final ConcurrentHashMap<InetSocketAddress, LoopbackServerSocket> listeners = new ConcurrentHashMap<>();
+
+	private final Map<ThreadGroup, InetAddress> local_addresses = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicLong	next_server_id	 = new AtomicLong();
+	private final AtomicInteger	next_client_port = new AtomicInteger(LoopbackTransport.first_ephemeral_port);
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#connect(java.net.
+	 * InetSocketAddress)
+	 */
+	@Override
+	public Socket connect(final InetSocketAddress socket_address) throws IOException {
+
+		return this.connect(Thread.currentThread().getThreadGroup(), socket_address);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * p2p.components.communication.transport.Transport#connect(java.lang.
+	 * ThreadGroup, java.net.InetSocketAddress)
+	 */
+	@Override
+	public Socket connect(final ThreadGroup group, final InetSocketAddress socket_address) throws IOException {
+
+		final InetSocketAddress server_address = new InetSocketAddress(this.getRoutedAddress(socket_address),
+		        socket_address.getPort());
+		final InetSocketAddress client_address = new InetSocketAddress(this.getLocalAddress(group),
+		        LoopbackTransport.getPort(this.next_client_port));
+
+		final LoopbackServerSocket listener = this.listeners.get(server_address);
+
+		final LoopbackPipe requests = new LoopbackPipe();
+		final LoopbackPipe replies = new LoopbackPipe();
+
+		final LoopbackSocket client_socket = new LoopbackSocket(client_address, server_address, replies, requests);
+		final LoopbackSocket server_socket = new LoopbackSocket(server_address, client_address, requests, replies);
+
+		if ((listener == null) || !listener.offer(server_socket)) {
+
+			LoopbackTransport.refused_connections.increment();
+			throw new ConnectException(String.format("Connection refused to <%s>", socket_address));
+
+		}
+
+		LoopbackTransport.opened_connections.increment();
+
+		return client_socket;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#getName()
+	 */
+	@Override
+	public String getName() {
+
+		return Transport.loopback_transport;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#listen(int)
+	 */
+	@Override
+	public ServerSocket listen(final int port) throws IOException {
+
+		if ((port < 0) || (port > LoopbackTransport.last_port))
+		    throw new IllegalArgumentException(String.format("Port value out of range: %d", new Integer(port)));
+
+		if (port != 0) {
+
+			final InetSocketAddress socket_address = new InetSocketAddress(this.address, port);
+			final LoopbackServerSocket server_socket = new LoopbackServerSocket(this, socket_address);
+
+			if (this.listeners.putIfAbsent(socket_address, server_socket) != null)
+			    throw new BindException(String.format("Address already in use: %d", new Integer(port)));
+
+			return server_socket;
+
+		}
+
+		/*
+		 * There are far more addresses than listening sockets, so a free one
+		 * is found after a few tries at most.
+		 */
+		while (true) {
+
+			final InetSocketAddress socket_address = LoopbackTransport
+			        .getSocketAddress(this.next_server_id.getAndIncrement());
+			final LoopbackServerSocket server_socket = new LoopbackServerSocket(this, socket_address);
+
+			if (this.listeners.putIfAbsent(socket_address, server_socket) == null) return server_socket;
+
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * p2p.components.communication.transport.Transport#setLocalAddress(java.
+	 * lang.ThreadGroup, java.net.InetAddress)
+	 */
+	@Override
+	public void setLocalAddress(final ThreadGroup group, final InetAddress address) {
+
+		if (address == null) {
+			this.local_addresses.remove(group);
+		}
+		else {
+			this.local_addresses.put(group, address);
+		}
+
+	}
+
+	/**
+	 * Removes a closed listening socket, so its address can be reused.
+	 *
+	 * @param server_socket
+	 *            The closed socket.
+	 */
+	void unregister(final LoopbackServerSocket server_socket) {
+
+		this.listeners.remove(server_socket.getLocalSocketAddress(), server_socket);
+	}
+
+	/**
+	 * @return The local address set for the group or its closest ancestor, the
+	 *         loopback address if there is none.
+	 */
+	private InetAddress getLocalAddress(final ThreadGroup group) {
+
+		for (ThreadGroup current_group = group; current_group != null; current_group = current_group.getParent()) {
+
+			final InetAddress local_address = this.local_addresses.get(current_group);
+
+			if (local_address != null) return local_address;
+
+		}
+
+		return this.address;
+
+	}
+
+	/**
+	 * @return The address of the listening socket that a connection to the
+	 *         specified socket address is routed to. Addresses outside of the
+	 *         loopback block, eg. a configured host name, are routed to the
+	 *         loopback address.
+	 */
+	private InetAddress getRoutedAddress(final InetSocketAddress socket_address) {
+
+		final InetAddress socket_host = socket_address.getAddress();
+
+		return (socket_host != null) && socket_host.isLoopbackAddress() && (socket_host.getAddress().length == 4)
+		        ? socket_host : this.address;
+	}
+
+}
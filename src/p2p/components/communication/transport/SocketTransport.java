@@ -0,0 +1,47 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * A SocketTransport object connects the channels through the sockets of the
+ * operating system.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class SocketTransport extends Transport {
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#connect(java.net.
+	 * InetSocketAddress)
+	 */
+	@Override
+	public Socket connect(final InetSocketAddress socket_address) throws IOException {
+
+		return new Socket(socket_address.getAddress(), socket_address.getPort());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#getName()
+	 */
+	@Override
+	public String getName() {
+
+		return Transport.socket_transport;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.transport.Transport#listen(int)
+	 */
+	@Override
+	public ServerSocket listen(final int port) throws IOException {
+
+		return new ServerSocket(port);
+	}
+
+}
@@ -0,0 +1,156 @@
+package p2p.components.communication.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import p2p.components.Configuration;
+import p2p.components.communication.Channel;
+import p2p.components.communication.ServerChannelManager;
+
+/**
+ * A Transport object opens the connections of the {@link Channel} objects and
+ * the listening sockets of the {@link ServerChannelManager} objects. The
+ * channels only depend on the {@link Socket} and {@link ServerSocket}
+ * interfaces, so a transport can replace the sockets of the operating system
+ * with its own implementation. The transport is selected by the
+ * <i>transport</i> key of the configuration, either <i>socket</i>, the
+ * default, or <i>loopback</i>.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public abstract class Transport {
+
+	/**
+	 * The name of the transport that uses the sockets of the operating system.
+	 */
+	public static final String socket_transport = "socket";
+
+	/**
+	 * The name of the transport that keeps all the connections in memory.
+	 */
+	public static final String loopback_transport = "loopback";
+
+	private static volatile Transport default_transport = null;
+
+	/**
+	 * @return The default transport, created from the default configuration on
+	 *         its first use.
+	 */
+	public static Transport getDefault() {
+
+		Transport transport = Transport.default_transport;
+
+		if (transport == null) {
+
+			synchronized (Transport.class) {
+
+				if (Transport.default_transport == null) {
+					Transport.default_transport = Transport
+					        .newTransport(Configuration.getDefault().getString("transport", Transport.socket_transport));
+				}
+
+				transport = Transport.default_transport;
+
+			}
+
+		}
+
+		return transport;
+
+	}
+
+	/**
+	 * Allocates a new Transport object.
+	 *
+	 * @param name
+	 *            The name of the transport, either <i>socket</i> or
+	 *            <i>loopback</i>. Unknown names select the socket transport.
+	 * @return The new transport.
+	 */
+	public static Transport newTransport(final String name) {
+
+		if (Transport.loopback_transport.equalsIgnoreCase(name == null ? null : name.trim()))
+		    return new LoopbackTransport();
+
+		return new SocketTransport();
+
+	}
+
+	/**
+	 * Replaces the default transport. Should be called before any channel or
+	 * server manager is created, the existing ones keep their connections.
+	 *
+	 * @param transport
+	 *            The new default transport.
+	 */
+	public static void setDefault(final Transport transport) {
+
+		synchronized (Transport.class) {
+			Transport.default_transport = transport;
+		}
+
+	}
+
+	/**
+	 * Opens a connection to a listening socket.
+	 *
+	 * @param socket_address
+	 *            The socket address of the listening socket.
+	 * @return The connected socket.
+	 * @throws IOException
+	 *             If the connection could not be established.
+	 */
+	public abstract Socket connect(InetSocketAddress socket_address) throws IOException;
+
+	/**
+	 * Opens a connection to a listening socket on behalf of a channel.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object of the channel.
+	 * @param socket_address
+	 *            The socket address of the listening socket.
+	 * @return The connected socket.
+	 * @throws IOException
+	 *             If the connection could not be established.
+	 */
+	public Socket connect(final ThreadGroup group, final InetSocketAddress socket_address) throws IOException {
+
+		return this.connect(socket_address);
+	}
+
+	/**
+	 * @return The name of the transport.
+	 */
+	public abstract String getName();
+
+	/**
+	 * Opens a listening socket.
+	 *
+	 * @param port
+	 *            The port to listen to or 0 for any free port.
+	 * @return The listening socket.
+	 * @throws IOException
+	 *             If the port is in use or the socket could not be opened.
+	 */
+	public abstract ServerSocket listen(int port) throws IOException;
+
+	/**
+	 * Sets the address that the connections opened on behalf of the channels
+	 * of a group and its subgroups originate from, eg. the address of the
+	 * listening socket of the peer that the channels belong to. Ignored by
+	 * default, the operating system chooses the local address of its sockets.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object of the channels.
+	 * @param address
+	 *            The local address of their connections.
+	 */
+	public void setLocalAddress(final ThreadGroup group, final InetAddress address) {
+
+		// Ignored by default.
+	}
+
+}
@@ -0,0 +1,28 @@
+package p2p.components.events;
+
+import java.net.Socket;
+
+/**
+ * A ChannelEvent object records the lifetime of a channel, from the moment its
+ * communication starts until its socket is closed.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface ChannelEvent {
+
+	/**
+	 * Starts the timing of the event.
+	 */
+	public void begin();
+
+	/**
+	 * Commits the event if it is enabled and exceeds the threshold.
+	 *
+	 * @param thread
+	 *            The thread of the channel.
+	 * @param socket
+	 *            The socket of the channel.
+	 */
+	public void complete(final Thread thread, final Socket socket);
+
+}
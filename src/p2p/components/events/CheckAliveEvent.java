@@ -0,0 +1,29 @@
+package p2p.components.events;
+
+import java.net.InetSocketAddress;
+
+/**
+ * A CheckAliveEvent object records a check alive probe and its outcome.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface CheckAliveEvent {
+
+	/**
+	 * Starts the timing of the event.
+	 */
+	public void begin();
+
+	/**
+	 * Commits the event if it is enabled and exceeds the threshold.
+	 *
+	 * @param socket_address
+	 *            The address of the probed server.
+	 * @param response_time
+	 *            The response time in milliseconds.
+	 * @param outcome
+	 *            The outcome of the probe.
+	 */
+	public void complete(final InetSocketAddress socket_address, final long response_time, final String outcome);
+
+}
@@ -0,0 +1,25 @@
+package p2p.components.events;
+
+/**
+ * A DatabaseEvent object records a call to the tracker's database.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface DatabaseEvent {
+
+	/**
+	 * Starts the timing of the event.
+	 */
+	public void begin();
+
+	/**
+	 * Commits the event if it is enabled and exceeds the threshold.
+	 *
+	 * @param operation
+	 *            The name of the operation.
+	 * @param username
+	 *            The user that the operation concerns.
+	 */
+	public void complete(final String operation, final String username);
+
+}
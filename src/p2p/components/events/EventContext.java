@@ -0,0 +1,59 @@
+package p2p.components.events;
+
+import java.net.SocketAddress;
+
+/**
+ * The EventContext class keeps the session id and the peer address that the
+ * current thread is working for, so that the events recorded deep inside a
+ * call, eg. by the database, can be associated with the request that caused
+ * them. The values are inherited by the threads that the current thread
+ * creates, so the channels started on behalf of a session carry its id.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class EventContext {
+
+	private static final InheritableThreadLocal<String> session_id	 = new InheritableThreadLocal<>();
+	private static final InheritableThreadLocal<String> peer_address = new InheritableThreadLocal<>();
+
+	/**
+	 * @return The peer address of the current thread or null if it is unknown.
+	 */
+	public static String getPeerAddress() {
+
+		return EventContext.peer_address.get();
+	}
+
+	/**
+	 * @return The session id of the current thread or null if it is unknown.
+	 */
+	public static String getSessionID() {
+
+		return EventContext.session_id.get();
+	}
+
+	/**
+	 * Sets the peer address of the current thread.
+	 *
+	 * @param socket_address
+	 *            The address of the remote end or null if it is unknown.
+	 */
+	public static void setPeerAddress(final SocketAddress socket_address) {
+
+		EventContext.peer_address.set(socket_address == null ? null : socket_address.toString());
+	}
+
+	/**
+	 * Sets the session id of the current thread.
+	 *
+	 * @param session_id
+	 *            The session id or null if it is unknown.
+	 */
+	public static void setSessionID(final Integer session_id) {
+
+		EventContext.session_id.set(session_id == null ? null : session_id.toString());
+	}
+
+	private EventContext() {}
+
+}
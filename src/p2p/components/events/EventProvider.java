@@ -0,0 +1,36 @@
+package p2p.components.events;
+
+/**
+ * An EventProvider object creates the events recorded by a specific
+ * recorder.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface EventProvider {
+
+	/**
+	 * @return A new {@link ChannelEvent ChannelEvent} object.
+	 */
+	public ChannelEvent newChannelEvent();
+
+	/**
+	 * @return A new {@link CheckAliveEvent CheckAliveEvent} object.
+	 */
+	public CheckAliveEvent newCheckAliveEvent();
+
+	/**
+	 * @return A new {@link DatabaseEvent DatabaseEvent} object.
+	 */
+	public DatabaseEvent newDatabaseEvent();
+
+	/**
+	 * @return A new {@link RequestEvent RequestEvent} object.
+	 */
+	public RequestEvent newRequestEvent();
+
+	/**
+	 * @return A new {@link TransferEvent TransferEvent} object.
+	 */
+	public TransferEvent newTransferEvent();
+
+}
@@ -0,0 +1,209 @@
+package p2p.components.events;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.logging.Level;
+
+import p2p.components.communication.messages.Request;
+import p2p.utilities.LoggerManager;
+
+/**
+ * The Events class creates the events recorded by the application. The Flight
+ * Recorder implementations of the events are kept apart from the rest of the
+ * sources and are loaded reflectively, so that neither compiling nor running
+ * the application requires the {@code jdk.jfr} API. If the API is missing the
+ * events do nothing.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class Events {
+
+	/**
+	 * An Events#Disabled object is a single event of every type that records
+	 * nothing. It is used when the Flight Recorder is not available.
+	 */
+	private static final class Disabled implements EventProvider, ChannelEvent, CheckAliveEvent, DatabaseEvent,
+	        RequestEvent, TransferEvent {
+
+		private Disabled() {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.ChannelEvent#begin()
+		 */
+		@Override
+		public void begin() {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.CheckAliveEvent#complete(InetSocketAddress,
+		 * long, String)
+		 */
+		@Override
+		public void complete(final InetSocketAddress socket_address, final long response_time,
+		        final String outcome) {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.RequestEvent#complete(Request.Type, boolean)
+		 */
+		@Override
+		public void complete(final Request.Type request_type, final boolean completed) {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.DatabaseEvent#complete(String, String)
+		 */
+		@Override
+		public void complete(final String operation, final String username) {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.TransferEvent#complete(String, String, long,
+		 * long)
+		 */
+		@Override
+		public void complete(final String direction, final String filename, final long bytes,
+		        final long start_time) {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.ChannelEvent#complete(Thread, Socket)
+		 */
+		@Override
+		public void complete(final Thread thread, final Socket socket) {}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.EventProvider#newChannelEvent()
+		 */
+		@Override
+		public ChannelEvent newChannelEvent() {
+
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.EventProvider#newCheckAliveEvent()
+		 */
+		@Override
+		public CheckAliveEvent newCheckAliveEvent() {
+
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.EventProvider#newDatabaseEvent()
+		 */
+		@Override
+		public DatabaseEvent newDatabaseEvent() {
+
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.EventProvider#newRequestEvent()
+		 */
+		@Override
+		public RequestEvent newRequestEvent() {
+
+			return this;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.events.EventProvider#newTransferEvent()
+		 */
+		@Override
+		public TransferEvent newTransferEvent() {
+
+			return this;
+		}
+
+	}
+
+	private static final String flight_recorder_provider = "p2p.components.events.jfr.FlightRecorderEvents";
+
+	private static final EventProvider provider = Events.loadProvider();
+
+	/**
+	 * @return A new {@link ChannelEvent ChannelEvent} object.
+	 */
+	public static ChannelEvent newChannelEvent() {
+
+		return Events.provider.newChannelEvent();
+	}
+
+	/**
+	 * @return A new {@link CheckAliveEvent CheckAliveEvent} object.
+	 */
+	public static CheckAliveEvent newCheckAliveEvent() {
+
+		return Events.provider.newCheckAliveEvent();
+	}
+
+	/**
+	 * @return A new {@link DatabaseEvent DatabaseEvent} object.
+	 */
+	public static DatabaseEvent newDatabaseEvent() {
+
+		return Events.provider.newDatabaseEvent();
+	}
+
+	/**
+	 * @return A new {@link RequestEvent RequestEvent} object.
+	 */
+	public static RequestEvent newRequestEvent() {
+
+		return Events.provider.newRequestEvent();
+	}
+
+	/**
+	 * @return A new {@link TransferEvent TransferEvent} object.
+	 */
+	public static TransferEvent newTransferEvent() {
+
+		return Events.provider.newTransferEvent();
+	}
+
+	/**
+	 * @return The Flight Recorder provider if both the {@code jdk.jfr} API and
+	 *         the provider itself can be loaded, otherwise a provider of
+	 *         events that record nothing.
+	 */
+	private static EventProvider loadProvider() {
+
+		try {
+
+			Class.forName("jdk.jfr.Event");
+
+			final EventProvider provider = Class.forName(Events.flight_recorder_provider)
+			        .asSubclass(EventProvider.class).getConstructor().newInstance();
+
+			/*
+			 * Link every event now, instead of failing at the first request.
+			 */
+			provider.newChannelEvent();
+			provider.newCheckAliveEvent();
+			provider.newDatabaseEvent();
+			provider.newRequestEvent();
+			provider.newTransferEvent();
+
+			return provider;
+
+		} catch (ReflectiveOperationException | LinkageError | ClassCastException ex) {
+
+			LoggerManager.tracedLog(Level.CONFIG, "The Flight Recorder events are disabled.", ex);
+
+			return new Disabled();
+
+		}
+
+	}
+
+	private Events() {}
+
+}
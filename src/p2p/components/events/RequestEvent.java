@@ -0,0 +1,28 @@
+package p2p.components.events;
+
+import p2p.components.communication.messages.Request;
+
+/**
+ * A RequestEvent object records the dispatch of a request by a server, from
+ * the moment the request is read until it has been processed.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface RequestEvent {
+
+	/**
+	 * Starts the timing of the event.
+	 */
+	public void begin();
+
+	/**
+	 * Commits the event if it is enabled and exceeds the threshold.
+	 *
+	 * @param request_type
+	 *            The type of the request.
+	 * @param completed
+	 *            If the request was processed without an exception.
+	 */
+	public void complete(final Request.Type request_type, final boolean completed);
+
+}
@@ -0,0 +1,40 @@
+package p2p.components.events;
+
+/**
+ * A TransferEvent object records the transfer of a file between two peers.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public interface TransferEvent {
+
+	/**
+	 * The direction of a file sent to another peer.
+	 */
+	public static final String UPLOAD = "upload";
+
+	/**
+	 * The direction of a file received from another peer.
+	 */
+	public static final String DOWNLOAD = "download";
+
+	/**
+	 * Starts the timing of the event.
+	 */
+	public void begin();
+
+	/**
+	 * Commits the event if it is enabled and exceeds the threshold.
+	 *
+	 * @param direction
+	 *            The direction of the transfer.
+	 * @param filename
+	 *            The name of the transferred file.
+	 * @param bytes
+	 *            The number of transferred bytes, zero if the transfer failed.
+	 * @param start_time
+	 *            The moment the transfer started as returned by
+	 *            {@link System#nanoTime()}, used to calculate the throughput.
+	 */
+	public void complete(final String direction, final String filename, final long bytes, final long start_time);
+
+}
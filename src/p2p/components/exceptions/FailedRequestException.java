@@ -17,11 +17,13 @@ public class FailedRequestException extends Exception {
 	 */
 	private static final long serialVersionUID = 8162583015988451467L;
 
+	private final long retry_after;
+
 	/**
 	 * Allocates a new FailedRequestException object.
 	 */
 	public FailedRequestException() {
-		super();
+		this(null, 0);
 	}
 
 	/**
@@ -31,7 +33,39 @@ public class FailedRequestException extends Exception {
 	 *            The detail message of the exception.
 	 */
 	public FailedRequestException(final String message) {
+		this(message, 0);
+	}
+
+	/**
+	 * Allocates a new FailedRequestException object.
+	 *
+	 * @param message
+	 *            The detail message of the exception.
+	 * @param retry_after
+	 *            The amount of milliseconds the sender suggested to wait before
+	 *            retrying the request or 0 if no suggestion was made.
+	 */
+	public FailedRequestException(final String message, final long retry_after) {
 		super(message);
+
+		this.retry_after = retry_after;
+	}
+
+	/**
+	 * @return The amount of milliseconds the sender suggested to wait before
+	 *         retrying the request or 0 if no suggestion was made.
+	 */
+	public long getRetryAfter() {
+
+		return this.retry_after;
+	}
+
+	/**
+	 * @return True If the sender suggested to retry the request later.
+	 */
+	public boolean isRetryable() {
+
+		return this.retry_after > 0;
 	}
 
 }
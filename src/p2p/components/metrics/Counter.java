@@ -0,0 +1,42 @@
+package p2p.components.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Counter object holds a monotonically increasing value. Updates are spread
+ * over many cells so concurrent threads never contend on a single variable.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class Counter {
+
+	private final LongAdder value = new LongAdder();
+
+	/**
+	 * Adds the specified amount to the counter.
+	 *
+	 * @param amount
+	 *            The amount to be added.
+	 */
+	public void add(final long amount) {
+
+		this.value.add(amount);
+	}
+
+	/**
+	 * @return The current value of the counter.
+	 */
+	public long getValue() {
+
+		return this.value.sum();
+	}
+
+	/**
+	 * Increments the counter by one.
+	 */
+	public void increment() {
+
+		this.value.increment();
+	}
+
+}
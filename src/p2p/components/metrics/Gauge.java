@@ -0,0 +1,17 @@
+package p2p.components.metrics;
+
+/**
+ * A Gauge object samples a value that can both increase and decrease, for
+ * example the size of a queue, at the time it is read.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+@FunctionalInterface
+public interface Gauge {
+
+	/**
+	 * @return The current value of the gauge.
+	 */
+	public long getValue();
+
+}
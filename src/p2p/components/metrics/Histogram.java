@@ -0,0 +1,176 @@
+package p2p.components.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Histogram object records the distribution of latencies in microseconds.
+ * The buckets are log-linear, every power of two range is divided in 64 equal
+ * sub-buckets, so every recorded value is kept with a relative error below 1%
+ * in a fixed array of counters. Recording a value is lock-free and does not
+ * allocate.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class Histogram {
+
+	/**
+	 * The number of bits of the values that are kept exactly.
+	 */
+	private static final int precision = 7;
+
+	private static final int sub_buckets	  = 1 << Histogram.precision;
+	private static final int half_sub_buckets = Histogram.sub_buckets >> 1;
+
+	/**
+	 * The exponent of the highest power of two that can be recorded, larger
+	 * values fall into the last bucket. About 25 days in microseconds.
+	 */
+	private static final int max_exponent = 41;
+
+	private static final int buckets = Histogram.sub_buckets
+	        + ((Histogram.max_exponent - Histogram.precision + 1) * Histogram.half_sub_buckets);
+
+	/**
+	 * @return The index of the bucket that the value belongs to.
+	 */
+	private static int getIndex(final long value) {
+
+		if (value < Histogram.sub_buckets) return (int) value;
+
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+		if (exponent > Histogram.max_exponent) return Histogram.buckets - 1;
+
+		final int shift = (exponent - Histogram.precision) + 1;
+
+		return Histogram.sub_buckets + ((exponent - Histogram.precision) * Histogram.half_sub_buckets)
+		        + (int) ((value >> shift) - Histogram.half_sub_buckets);
+
+	}
+
+	/**
+	 * @return The value in the middle of the bucket's range.
+	 */
+	private static long getValue(final int index) {
+
+		if (index < Histogram.sub_buckets) return index;
+
+		final int group = (index - Histogram.sub_buckets) / Histogram.half_sub_buckets;
+		final int offset = (index - Histogram.sub_buckets) % Histogram.half_sub_buckets;
+		final int shift = group + 1;
+
+		return ((long) (offset + Histogram.half_sub_buckets) << shift) + ((1L << shift) >> 1);
+
+	}
+
+	private final AtomicLongArray counts = new AtomicLongArray(Histogram.buckets);
+	private final LongAdder		  count	 = new LongAdder();
+	private final LongAdder		  sum	 = new LongAdder();
+	private final AtomicLong	  max	 = new AtomicLong();
+
+	/**
+	 * @return The number of recorded values.
+	 */
+	public long getCount() {
+
+		return this.count.sum();
+	}
+
+	/**
+	 * @return The highest recorded value.
+	 */
+	public long getMax() {
+
+		return this.max.get();
+	}
+
+	/**
+	 * @return The mean of the recorded values.
+	 */
+	public double getMean() {
+
+		final long count = this.count.sum();
+
+		return count == 0 ? 0 : (double) this.sum.sum() / count;
+	}
+
+	/**
+	 * Estimates the value below which the specified percentage of the recorded
+	 * values fall.
+	 *
+	 * @param percentile
+	 *            The percentage, between 0 and 100.
+	 * @return The estimated value or 0 if no value has been recorded.
+	 */
+	public long getPercentile(final double percentile) {
+
+		final long[] counts = new long[Histogram.buckets];
+		long total = 0;
+
+		for (int i = 0; i < Histogram.buckets; i++) {
+			counts[i] = this.counts.get(i);
+			total += counts[i];
+		}
+
+		if (total == 0) return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil((Math.min(100, Math.max(0, percentile)) / 100) * total));
+		long cumulative = 0;
+
+		for (int i = 0; i < Histogram.buckets; i++) {
+
+			cumulative += counts[i];
+
+			if (cumulative >= rank) return Math.min(Histogram.getValue(i), this.max.get());
+
+		}
+
+		return this.max.get();
+
+	}
+
+	/**
+	 * @return The sum of the recorded values.
+	 */
+	public long getSum() {
+
+		return this.sum.sum();
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value
+	 *            The value in microseconds. Negative values are recorded as
+	 *            zero.
+	 */
+	public void record(final long value) {
+
+		final long valid_value = Math.max(0, value);
+
+		this.counts.incrementAndGet(Histogram.getIndex(valid_value));
+		this.count.increment();
+		this.sum.add(valid_value);
+
+		for (long current_max = this.max.get(); valid_value > current_max; current_max = this.max.get()) {
+			if (this.max.compareAndSet(current_max, valid_value)) {
+				break;
+			}
+		}
+
+	}
+
+	/**
+	 * Records the time that passed since the specified moment.
+	 *
+	 * @param start_time
+	 *            The moment as returned by {@link System#nanoTime()}.
+	 */
+	public void recordSince(final long start_time) {
+
+		this.record((System.nanoTime() - start_time) / 1000);
+	}
+
+}
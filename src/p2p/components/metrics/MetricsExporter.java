@@ -0,0 +1,349 @@
+package p2p.components.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.logging.Level;
+
+import p2p.components.Configuration;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A MetricsExporter object periodically writes a {@link MetricsSnapshot} of a
+ * {@link MetricsRegistry} to the local file system, either as a file in the
+ * Prometheus text exposition format, which is replaced atomically on every
+ * export, or as rows appended to a CSV time series, which is rotated when it
+ * grows beyond a maximum size, or both. The exporter runs on its own daemon
+ * thread with the lowest priority and only reads the metrics, so it never
+ * blocks the handling of the requests.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class MetricsExporter extends Thread {
+
+	/**
+	 * The default interval in milliseconds between two exports.
+	 */
+	public static final int default_export_interval = 10000;
+
+	/**
+	 * The default size in bytes after which the CSV file is rotated.
+	 */
+	public static final int default_csv_max_bytes = 10485760;
+
+	/**
+	 * The default number of rotated CSV files that are kept.
+	 */
+	public static final int default_csv_max_files = 5;
+
+	private static final String csv_header = "timestamp,metric,value";
+
+	/**
+	 * Allocates a new MetricsExporter object for the default registry based on
+	 * the default configuration.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that the exporter belongs to.
+	 * @return The exporter or null if no export path is configured.
+	 */
+	public static MetricsExporter newDefault(final ThreadGroup group) {
+
+		final Configuration configuration = Configuration.getDefault();
+
+		final Path prometheus_path = MetricsExporter.getPath(configuration.getString("metrics_prometheus_path"));
+		final Path csv_path = MetricsExporter.getPath(configuration.getString("metrics_csv_path"));
+
+		if ((prometheus_path == null) && (csv_path == null)) return null;
+
+		return new MetricsExporter(group, MetricsExporter.class.getSimpleName(), MetricsRegistry.getDefault(),
+		        configuration.getInteger("metrics_export_interval", MetricsExporter.default_export_interval),
+		        prometheus_path, csv_path,
+		        configuration.getInteger("metrics_csv_max_bytes", MetricsExporter.default_csv_max_bytes),
+		        configuration.getInteger("metrics_csv_max_files", MetricsExporter.default_csv_max_files));
+
+	}
+
+	/**
+	 * @return The text of a CSV field, quoted if it contains a separator.
+	 */
+	private static String escapeCSV(final String text) {
+
+		if ((text.indexOf(',') < 0) && (text.indexOf('"') < 0) && (text.indexOf('\n') < 0)) return text;
+
+		return String.format("\"%s\"", text.replace("\"", "\"\""));
+	}
+
+	/**
+	 * @return The text of a label value with the backslashes, the quotes and
+	 *         the new lines escaped.
+	 */
+	private static String escapeLabel(final String text) {
+
+		return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/**
+	 * @return The name of the metric converted to a valid Prometheus metric
+	 *         name.
+	 */
+	private static String getMetricName(final String name) {
+
+		return String.format("p2p_%s", name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_"));
+	}
+
+	/**
+	 * @return The path or null if the text is empty.
+	 */
+	private static Path getPath(final String text) {
+
+		return (text == null) || text.trim().isEmpty() ? null : Paths.get(text.trim());
+	}
+
+	private final MetricsRegistry registry;
+	private final int			  export_interval;
+	private final Path			  prometheus_path;
+	private final Path			  csv_path;
+	private final long			  csv_max_bytes;
+	private final int			  csv_max_files;
+
+	/**
+	 * Allocates a new MetricsExporter object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that the exporter belongs to.
+	 * @param name
+	 *            The name of the exporter.
+	 * @param registry
+	 *            The registry whose metrics are exported.
+	 * @param export_interval
+	 *            The interval in milliseconds between two exports.
+	 * @param prometheus_path
+	 *            The path of the Prometheus file or null if it is not written.
+	 * @param csv_path
+	 *            The path of the CSV file or null if it is not written.
+	 * @param csv_max_bytes
+	 *            The size in bytes after which the CSV file is rotated.
+	 * @param csv_max_files
+	 *            The number of rotated CSV files that are kept.
+	 */
+	public MetricsExporter(final ThreadGroup group, final String name, final MetricsRegistry registry,
+	        final int export_interval, final Path prometheus_path, final Path csv_path, final long csv_max_bytes,
+	        final int csv_max_files) {
+		super(group, name);
+
+		this.registry = registry;
+		this.export_interval = Math.max(1, export_interval);
+		this.prometheus_path = prometheus_path;
+		this.csv_path = csv_path;
+		this.csv_max_bytes = Math.max(1, csv_max_bytes);
+		this.csv_max_files = Math.max(0, csv_max_files);
+
+		this.setDaemon(true);
+		this.setPriority(Thread.MIN_PRIORITY);
+
+	}
+
+	/**
+	 * Takes a snapshot of the registry and writes it to the configured files.
+	 * Failures are logged and do not stop later exports.
+	 */
+	public void export() {
+
+		final MetricsSnapshot snapshot = this.registry.getSnapshot();
+
+		if (this.prometheus_path != null) {
+
+			try {
+				this.writePrometheus(snapshot);
+			} catch (final IOException ex) {
+				LoggerManager.tracedLog(this, Level.WARNING,
+				        String.format("The metrics could not be exported to <%s>.", this.prometheus_path), ex);
+			}
+
+		}
+
+		if (this.csv_path != null) {
+
+			try {
+				this.appendCSV(snapshot);
+			} catch (final IOException ex) {
+				LoggerManager.tracedLog(this, Level.WARNING,
+				        String.format("The metrics could not be exported to <%s>.", this.csv_path), ex);
+			}
+
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		try {
+
+			while (true) {
+
+				Thread.sleep(this.export_interval);
+
+				this.export();
+
+			}
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+			LoggerManager.tracedLog(this, Level.INFO, "The metrics exporter was stopped.");
+
+		}
+
+	}
+
+	/**
+	 * Appends one row per value of the snapshot to the CSV file, rotating the
+	 * file first if it has grown beyond the maximum size.
+	 */
+	private void appendCSV(final MetricsSnapshot snapshot) throws IOException {
+
+		if (Files.isRegularFile(this.csv_path) && (Files.size(this.csv_path) >= this.csv_max_bytes)) {
+			this.rotateCSV();
+		}
+
+		final boolean is_new = !Files.isRegularFile(this.csv_path) || (Files.size(this.csv_path) == 0);
+		final long timestamp = snapshot.getTimestamp();
+
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(this.csv_path, StandardCharsets.UTF_8,
+		        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE))) {
+
+			if (is_new) {
+				out.print(String.format("%s%n", MetricsExporter.csv_header));
+			}
+
+			snapshot.getCounters().forEach((x, y) -> out.print(String.format("%d,%s,%d%n", new Long(timestamp),
+			        MetricsExporter.escapeCSV(x), y)));
+			snapshot.getGauges().forEach((x, y) -> out.print(String.format("%d,%s,%d%n", new Long(timestamp),
+			        MetricsExporter.escapeCSV(x), y)));
+			snapshot.getHistograms().forEach((x, y) -> {
+
+				final String name = MetricsExporter.escapeCSV(x);
+
+				out.print(String.format("%d,%s.count,%d%n", new Long(timestamp), name, new Long(y.getCount())));
+				out.print(String.format("%d,%s.p50,%d%n", new Long(timestamp), name, new Long(y.getP50())));
+				out.print(String.format("%d,%s.p90,%d%n", new Long(timestamp), name, new Long(y.getP90())));
+				out.print(String.format("%d,%s.p99,%d%n", new Long(timestamp), name, new Long(y.getP99())));
+				out.print(String.format("%d,%s.max,%d%n", new Long(timestamp), name, new Long(y.getMax())));
+
+			});
+
+			if (out.checkError()) throw new IOException("The CSV file could not be written.");
+
+		}
+
+	}
+
+	/**
+	 * Shifts the rotated CSV files by one, dropping the oldest, and moves the
+	 * current file to the first position.
+	 */
+	private void rotateCSV() throws IOException {
+
+		if (this.csv_max_files == 0) {
+
+			Files.delete(this.csv_path);
+			return;
+
+		}
+
+		Files.deleteIfExists(Paths.get(String.format("%s.%d", this.csv_path, new Integer(this.csv_max_files))));
+
+		for (int i = this.csv_max_files - 1; i >= 1; i--) {
+
+			final Path source = Paths.get(String.format("%s.%d", this.csv_path, new Integer(i)));
+
+			if (Files.exists(source)) {
+				Files.move(source, Paths.get(String.format("%s.%d", this.csv_path, new Integer(i + 1))),
+				        StandardCopyOption.REPLACE_EXISTING);
+			}
+
+		}
+
+		Files.move(this.csv_path, Paths.get(String.format("%s.1", this.csv_path)),
+		        StandardCopyOption.REPLACE_EXISTING);
+
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file next to the Prometheus file and
+	 * moves it in place, so a scraper never reads a partial file.
+	 */
+	private void writePrometheus(final MetricsSnapshot snapshot) throws IOException {
+
+		final StringBuilder builder = new StringBuilder();
+
+		snapshot.getCounters().forEach((x, y) -> {
+
+			final String name = String.format("%s_total", MetricsExporter.getMetricName(x));
+
+			builder.append(String.format("# TYPE %s counter%n%s %d%n", name, name, y));
+
+		});
+
+		snapshot.getGauges().forEach((x, y) -> {
+
+			final String name = MetricsExporter.getMetricName(x);
+
+			builder.append(String.format("# TYPE %s gauge%n%s %d%n", name, name, y));
+
+		});
+
+		snapshot.getHistograms().forEach((x, y) -> {
+
+			final String name = String.format("%s_microseconds", MetricsExporter.getMetricName(x));
+
+			builder.append(String.format("# TYPE %s summary%n", name));
+			builder.append(String.format("%s{quantile=\"0.5\"} %d%n", name, new Long(y.getP50())));
+			builder.append(String.format("%s{quantile=\"0.9\"} %d%n", name, new Long(y.getP90())));
+			builder.append(String.format("%s{quantile=\"0.99\"} %d%n", name, new Long(y.getP99())));
+			builder.append(String.format("%s_sum %d%n", name, new Long(y.getSum())));
+			builder.append(String.format("%s_count %d%n", name, new Long(y.getCount())));
+
+		});
+
+		snapshot.getRankings().forEach(x -> {
+
+			final String name = MetricsExporter.getMetricName(x);
+
+			builder.append(String.format("# TYPE %s gauge%n", name));
+			snapshot.getRanking(x).forEach((y, z) -> builder
+			        .append(String.format("%s{key=\"%s\"} %d%n", name, MetricsExporter.escapeLabel(y), z)));
+
+		});
+
+		final Path temporary_path = Paths.get(String.format("%s.tmp", this.prometheus_path));
+
+		try {
+
+			Files.write(temporary_path, builder.toString().getBytes(StandardCharsets.UTF_8));
+
+			try {
+				Files.move(temporary_path, this.prometheus_path, StandardCopyOption.ATOMIC_MOVE,
+				        StandardCopyOption.REPLACE_EXISTING);
+			} catch (@SuppressWarnings("unused") final AtomicMoveNotSupportedException ex) {
+				Files.move(temporary_path, this.prometheus_path, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+		} finally {
+			Files.deleteIfExists(temporary_path);
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+package p2p.components.metrics;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A MetricsRegistry object keeps the named {@link Counter}, {@link Gauge},
+ * {@link Histogram} and {@link Ranking} objects of the application. The
+ * metrics are created on their first use and live as long as the registry.
+ * Callers on hot paths should look up their metrics once and keep a reference
+ * to them.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class MetricsRegistry {
+
+	private static final MetricsRegistry default_registry = new MetricsRegistry();
+
+	/**
+	 * @return The default registry.
+	 */
+	public static MetricsRegistry getDefault() {
+
+		return MetricsRegistry.default_registry;
+	}
+
+	private final ConcurrentHashMap<String, Counter>   counters	  = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Gauge>	   gauges	  = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, Ranking>   rankings	  = new ConcurrentHashMap<>();
+
+	private final long start_time = System.currentTimeMillis();
+
+	/**
+	 * @param name
+	 *            The name of the counter.
+	 * @return The counter with the specified name, which is created if it does
+	 *         not exist.
+	 */
+	public Counter getCounter(final String name) {
+
+		return this.counters.computeIfAbsent(name, x -> new Counter());
+	}
+
+	/**
+	 * @return A sorted view of the registered counters.
+	 */
+	public SortedMap<String, Counter> getCounters() {
+
+		return Collections.unmodifiableSortedMap(new TreeMap<>(this.counters));
+	}
+
+	/**
+	 * @return A sorted view of the registered gauges.
+	 */
+	public SortedMap<String, Gauge> getGauges() {
+
+		return Collections.unmodifiableSortedMap(new TreeMap<>(this.gauges));
+	}
+
+	/**
+	 * @param name
+	 *            The name of the histogram.
+	 * @return The histogram with the specified name, which is created if it
+	 *         does not exist.
+	 */
+	public Histogram getHistogram(final String name) {
+
+		return this.histograms.computeIfAbsent(name, x -> new Histogram());
+	}
+
+	/**
+	 * @return A sorted view of the registered histograms.
+	 */
+	public SortedMap<String, Histogram> getHistograms() {
+
+		return Collections.unmodifiableSortedMap(new TreeMap<>(this.histograms));
+	}
+
+	/**
+	 * @param name
+	 *            The name of the ranking.
+	 * @return The ranking with the specified name, which is created if it does
+	 *         not exist.
+	 */
+	public Ranking getRanking(final String name) {
+
+		return this.rankings.computeIfAbsent(name, x -> new Ranking());
+	}
+
+	/**
+	 * @return A sorted view of the registered rankings.
+	 */
+	public SortedMap<String, Ranking> getRankings() {
+
+		return Collections.unmodifiableSortedMap(new TreeMap<>(this.rankings));
+	}
+
+	/**
+	 * Captures the current values of all metrics. Only the metrics themselves
+	 * are read, so taking a snapshot never blocks the recording threads.
+	 *
+	 * @return A new {@link MetricsSnapshot} object.
+	 */
+	public MetricsSnapshot getSnapshot() {
+
+		return new MetricsSnapshot(this, System.currentTimeMillis() - this.start_time);
+	}
+
+	/**
+	 * Removes a gauge, usually because the sampled object is closed.
+	 *
+	 * @param name
+	 *            The name of the gauge.
+	 */
+	public void removeGauge(final String name) {
+
+		this.gauges.remove(name);
+	}
+
+	/**
+	 * Registers a gauge, replacing any gauge with the same name.
+	 *
+	 * @param name
+	 *            The name of the gauge.
+	 * @param gauge
+	 *            The gauge to be registered.
+	 */
+	public void setGauge(final String name, final Gauge gauge) {
+
+		this.gauges.put(name, gauge);
+	}
+
+}
@@ -0,0 +1,286 @@
+package p2p.components.metrics;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A MetricsSnapshot object holds the values of the metrics of a
+ * {@link MetricsRegistry} object at a specific moment. It is compact enough to
+ * be sent as the reply of a STATS request, since histograms are summarized by
+ * a few percentiles, histograms with no recorded values are omitted and only
+ * the top keys of every ranking are kept. Rates are calculated by comparing
+ * two snapshots.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class MetricsSnapshot implements Serializable {
+
+	/**
+	 * A MetricsSnapshot#Summary object holds the summary of a {@link Histogram}
+	 * object. All values are in microseconds.
+	 *
+	 * @author {@literal p3100161 <Joseph Sakos>}
+	 */
+	public static final class Summary implements Serializable {
+
+		/**
+		 * The serialVersionID required by the {@link Serializable} interface to
+		 * ensure the integrity of the object during a serialization and
+		 * deserialization process.
+		 */
+		private static final long serialVersionUID = -3102416927435806148L;
+
+		private final long	 count;
+		private final long	 sum;
+		private final double mean;
+		private final long	 p50;
+		private final long	 p90;
+		private final long	 p99;
+		private final long	 max;
+
+		private Summary(final Histogram histogram) {
+
+			this.count = histogram.getCount();
+			this.sum = histogram.getSum();
+			this.mean = histogram.getMean();
+			this.p50 = histogram.getPercentile(50);
+			this.p90 = histogram.getPercentile(90);
+			this.p99 = histogram.getPercentile(99);
+			this.max = histogram.getMax();
+
+		}
+
+		/**
+		 * @return The number of recorded values.
+		 */
+		public long getCount() {
+
+			return this.count;
+		}
+
+		/**
+		 * @return The highest recorded value.
+		 */
+		public long getMax() {
+
+			return this.max;
+		}
+
+		/**
+		 * @return The mean of the recorded values.
+		 */
+		public double getMean() {
+
+			return this.mean;
+		}
+
+		/**
+		 * @return The 50th percentile of the recorded values.
+		 */
+		public long getP50() {
+
+			return this.p50;
+		}
+
+		/**
+		 * @return The 90th percentile of the recorded values.
+		 */
+		public long getP90() {
+
+			return this.p90;
+		}
+
+		/**
+		 * @return The 99th percentile of the recorded values.
+		 */
+		public long getP99() {
+
+			return this.p99;
+		}
+
+		/**
+		 * @return The sum of the recorded values.
+		 */
+		public long getSum() {
+
+			return this.sum;
+		}
+
+	}
+
+	/**
+	 * The serialVersionID required by the {@link Serializable} interface to
+	 * ensure the integrity of the object during a serialization and
+	 * deserialization process.
+	 */
+	private static final long serialVersionUID = 7519408143067324205L;
+
+	/**
+	 * The number of keys of every ranking that are kept in a snapshot.
+	 */
+	public static final int ranking_size = 10;
+
+	private final long timestamp;
+	private final long uptime;
+
+	private final TreeMap<String, Long>	   counters	  = new TreeMap<>();
+	private final TreeMap<String, Long>	   gauges	  = new TreeMap<>();
+	private final TreeMap<String, Summary> histograms = new TreeMap<>();
+
+	private final TreeMap<String, LinkedHashMap<String, Long>> rankings = new TreeMap<>();
+
+	/**
+	 * Allocates a new MetricsSnapshot object.
+	 *
+	 * @param registry
+	 *            The registry whose metrics are captured.
+	 * @param uptime
+	 *            The amount of milliseconds that the registry has been active.
+	 */
+	MetricsSnapshot(final MetricsRegistry registry, final long uptime) {
+
+		this.timestamp = System.currentTimeMillis();
+		this.uptime = uptime;
+
+		registry.getCounters().forEach((x, y) -> this.counters.put(x, new Long(y.getValue())));
+		registry.getGauges().forEach((x, y) -> this.gauges.put(x, new Long(y.getValue())));
+		registry.getHistograms().forEach((x, y) -> {
+			if (y.getCount() > 0) {
+				this.histograms.put(x, new Summary(y));
+			}
+		});
+		registry.getRankings().forEach(
+		        (x, y) -> this.rankings.put(x, new LinkedHashMap<>(y.getTop(MetricsSnapshot.ranking_size))));
+
+	}
+
+	/**
+	 * @param name
+	 *            The name of the counter.
+	 * @return The value of the counter or zero if it does not exist.
+	 */
+	public long getCounter(final String name) {
+
+		return this.counters.getOrDefault(name, new Long(0)).longValue();
+	}
+
+	/**
+	 * @return The values of the counters sorted by name.
+	 */
+	public SortedMap<String, Long> getCounters() {
+
+		return Collections.unmodifiableSortedMap(this.counters);
+	}
+
+	/**
+	 * @param name
+	 *            The name of the gauge.
+	 * @return The value of the gauge or zero if it does not exist.
+	 */
+	public long getGauge(final String name) {
+
+		return this.gauges.getOrDefault(name, new Long(0)).longValue();
+	}
+
+	/**
+	 * @return The values of the gauges sorted by name.
+	 */
+	public SortedMap<String, Long> getGauges() {
+
+		return Collections.unmodifiableSortedMap(this.gauges);
+	}
+
+	/**
+	 * @param name
+	 *            The name of the histogram.
+	 * @return The summary of the histogram or null if it has no values.
+	 */
+	public Summary getHistogram(final String name) {
+
+		return this.histograms.get(name);
+	}
+
+	/**
+	 * @return The summaries of the histograms sorted by name.
+	 */
+	public SortedMap<String, Summary> getHistograms() {
+
+		return Collections.unmodifiableSortedMap(this.histograms);
+	}
+
+	/**
+	 * @param name
+	 *            The name of the ranking.
+	 * @return The top keys of the ranking and their amounts in descending
+	 *         order, which is empty if the ranking does not exist.
+	 */
+	public Map<String, Long> getRanking(final String name) {
+
+		final Map<String, Long> ranking = this.rankings.get(name);
+
+		return ranking != null ? Collections.unmodifiableMap(ranking) : Collections.emptyMap();
+	}
+
+	/**
+	 * @return The names of the rankings sorted by name.
+	 */
+	public SortedSet<String> getRankings() {
+
+		return Collections.unmodifiableSortedSet(new TreeSet<>(this.rankings.keySet()));
+	}
+
+	/**
+	 * Calculates the rate per second of a counter or of the recorded values of
+	 * a histogram between a previous snapshot and this one. Without a previous
+	 * snapshot the average rate since the registry's creation is returned.
+	 *
+	 * @param name
+	 *            The name of the counter or the histogram.
+	 * @param previous
+	 *            The previous snapshot of the same registry or null.
+	 * @return The rate per second.
+	 */
+	public double getRate(final String name, final MetricsSnapshot previous) {
+
+		final long elapsed_time = previous == null ? this.uptime : this.timestamp - previous.timestamp;
+
+		if (elapsed_time <= 0) return 0;
+
+		final long delta = this.getCount(name) - (previous == null ? 0 : previous.getCount(name));
+
+		return (Math.max(0, delta) * 1000.0) / elapsed_time;
+
+	}
+
+	/**
+	 * @return The moment that the snapshot was taken in milliseconds since the
+	 *         epoch.
+	 */
+	public long getTimestamp() {
+
+		return this.timestamp;
+	}
+
+	/**
+	 * @return The amount of milliseconds that the registry had been active
+	 *         when the snapshot was taken.
+	 */
+	public long getUptime() {
+
+		return this.uptime;
+	}
+
+	private long getCount(final String name) {
+
+		final Summary summary = this.histograms.get(name);
+
+		return summary != null ? summary.getCount() : this.getCounter(name);
+	}
+
+}
@@ -0,0 +1,125 @@
+package p2p.components.metrics;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import p2p.components.common.Pair;
+
+/**
+ * A Ranking object counts an amount per key, for example the searches per
+ * filename, so the keys with the highest amounts can be reported. The number of
+ * keys is bounded, whenever it is exceeded the half of the keys with the lowest
+ * amounts is discarded, so rarely used keys are approximated but the top of the
+ * ranking is kept accurately.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class Ranking {
+
+	/**
+	 * The default number of keys that are tracked.
+	 */
+	public static final int default_capacity = 1024;
+
+	private final int capacity;
+
+	private final ConcurrentHashMap<String, LongAdder> amounts	= new ConcurrentHashMap<>();
+	private final AtomicBoolean						   trimming	= new AtomicBoolean();
+
+	/**
+	 * Allocates a new Ranking object with the default capacity.
+	 */
+	public Ranking() {
+		this(Ranking.default_capacity);
+	}
+
+	/**
+	 * Allocates a new Ranking object.
+	 *
+	 * @param capacity
+	 *            The number of keys that are tracked.
+	 */
+	public Ranking(final int capacity) {
+
+		this.capacity = Math.max(2, capacity);
+	}
+
+	/**
+	 * Adds the specified amount to the key.
+	 *
+	 * @param key
+	 *            The key, ignored if null.
+	 * @param amount
+	 *            The amount to be added.
+	 */
+	public void add(final String key, final long amount) {
+
+		if (key == null) return;
+
+		this.amounts.computeIfAbsent(key, x -> new LongAdder()).add(amount);
+
+		if ((this.amounts.size() > this.capacity) && this.trimming.compareAndSet(false, true)) {
+
+			try {
+				this.trim();
+			} finally {
+				this.trimming.set(false);
+			}
+
+		}
+
+	}
+
+	/**
+	 * @param limit
+	 *            The maximum number of keys to be returned.
+	 * @return The keys with the highest amounts and their amounts in
+	 *         descending order.
+	 */
+	public Map<String, Long> getTop(final int limit) {
+
+		final LinkedHashMap<String, Long> top = new LinkedHashMap<>();
+
+		this.getAmounts().sorted(Comparator.comparing(Pair<String, Long>::getSecond, Comparator.reverseOrder()))
+		        .limit(Math.max(0, limit)).forEachOrdered(x -> top.put(x.getFirst(), x.getSecond()));
+
+		return Collections.unmodifiableMap(top);
+
+	}
+
+	/**
+	 * Increments the amount of the key by one.
+	 *
+	 * @param key
+	 *            The key, ignored if null.
+	 */
+	public void increment(final String key) {
+
+		this.add(key, 1);
+	}
+
+	/**
+	 * @return The current amounts of the keys.
+	 */
+	private Stream<Pair<String, Long>> getAmounts() {
+
+		return this.amounts.entrySet().stream().map(x -> new Pair<>(x.getKey(), new Long(x.getValue().sum())));
+	}
+
+	/**
+	 * Discards the half of the keys with the lowest amounts.
+	 */
+	private void trim() {
+
+		this.getAmounts().sorted(Comparator.comparing(Pair<String, Long>::getSecond)).limit(this.amounts.size() / 2)
+		        .forEach(x -> this.amounts.remove(x.getFirst()));
+
+	}
+
+}
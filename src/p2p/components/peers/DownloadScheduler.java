@@ -13,6 +13,9 @@ import p2p.components.common.Pair;
 import p2p.components.communication.Channel;
 import p2p.components.communication.ClientChannel;
 import p2p.components.communication.CloseableThread;
+import p2p.components.events.EventContext;
+import p2p.components.tracing.Span;
+import p2p.components.tracing.Tracer;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -26,7 +29,8 @@ import p2p.utilities.LoggerManager;
  */
 public class DownloadScheduler extends CloseableThread {
 
-	private final ThreadGroup		clients_group = new ThreadGroup(String.format("%s.Clients", this.getName()));
+	private final ThreadGroup		clients_group = new ThreadGroup(this.getThreadGroup(),
+	        String.format("%s.Clients", this.getName()));
 	private final InetSocketAddress	tracker_socket_address;
 
 	private final String filename;
@@ -113,16 +117,62 @@ public class DownloadScheduler extends CloseableThread {
 
 		LoggerManager.tracedLog(Level.INFO, String.format("File <%s> was scheduled for download.", this.filename));
 
+		/*
+		 * The clients started by the scheduler inherit the session id, so
+		 * their events can be associated with the download.
+		 */
+		EventContext.setSessionID(new Integer(this.session_id));
+
+		/*
+		 * Every phase of the download is a span of the download's trace, so a
+		 * slow download can be broken down to its search, probe, transfer and
+		 * acknowledge time.
+		 */
+		final Span trace = Tracer.startTrace("download").setAttribute("filename", this.filename)
+		        .setAttribute("session_id", new Integer(this.session_id));
+
 		try {
 
 			if (this.shared_directory.isDirectory()) {
 
-				final List<Pair<String, InetSocketAddress>> peers_list = this.search();
-				final InetSocketAddress peer = this.simpleDownload(this.tryCheckAlive(
-				        peers_list.parallelStream().map(y -> y.getSecond()).collect(Collectors.toSet())));
+				final List<Pair<String, InetSocketAddress>> peers_list;
+
+				try (Span span = Tracer.startSpan("search")) {
+
+					peers_list = this.search();
+					span.setAttribute("peers", new Integer(peers_list.size()));
+
+				}
+
+				final List<InetSocketAddress> ordered_peers_list;
+
+				try (Span span = Tracer.startSpan("probe")) {
+
+					ordered_peers_list = this.tryCheckAlive(
+					        peers_list.parallelStream().map(y -> y.getSecond()).collect(Collectors.toSet()));
+					span.setAttribute("alive_peers", new Integer(ordered_peers_list.size()));
+
+				}
+
+				final InetSocketAddress peer;
+
+				try (Span span = Tracer.startSpan("transfer")) {
+
+					peer = this.simpleDownload(ordered_peers_list);
+					span.setAttribute("peer", peer);
+
+				}
+
 				if (peer != null) {
-					this.acknowledge(peers_list.parallelStream().filter(x -> x.getSecond().equals(peer)).findAny().get()
-					        .getFirst());
+
+					try (Span span = Tracer.startSpan("acknowledge")) {
+
+						this.acknowledge(peers_list.parallelStream().filter(x -> x.getSecond().equals(peer)).findAny()
+						        .get().getFirst());
+						span.setAttribute("status", this.ack_status);
+
+					}
+
 				}
 
 			}
@@ -142,6 +192,9 @@ public class DownloadScheduler extends CloseableThread {
 				this.status = ClientChannel.Status.FAILED;
 			}
 
+			trace.setAttribute("status", this.status);
+			trace.close();
+
 		}
 
 	}
@@ -170,7 +223,8 @@ public class DownloadScheduler extends CloseableThread {
 					this.ack_status = ClientChannel.Status.SUCCESSFULL;
 
 					LoggerManager.tracedLog(Level.FINE,
-					        String.format("The download of file <%s> from peer <%s> was acknowledged by the tracker.",
+					        () -> String.format(
+					                "The download of file <%s> from peer <%s> was acknowledged by the tracker.",
 					                this.filename, username));
 
 				}
@@ -289,7 +343,7 @@ public class DownloadScheduler extends CloseableThread {
 			        .map(x -> x.getFirst()).collect(Collectors.toList());
 
 			LoggerManager.tracedLog(Level.FINE,
-			        String.format(
+			        () -> String.format(
 			                "The file <%s> was found in the following peers, appearing in ascending order based on their response time: %s",
 			                this.filename, ordered_peers_list.toString()));
 
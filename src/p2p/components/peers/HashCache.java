@@ -0,0 +1,133 @@
+package p2p.components.peers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.logging.Level;
+
+import p2p.utilities.LoggerManager;
+
+/**
+ * A HashCache object persists the entries of a {@link SharedDirectoryIndex},
+ * so the content hashes of the files survive a restart of the peer and only
+ * the files whose path, size or modification time changed are hashed again.
+ * Every entry is stored in a line of the form
+ * <i>hash&lt;TAB&gt;size&lt;TAB&gt;modification time&lt;TAB&gt;path</i>.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+class HashCache {
+
+	private final Path path;
+
+	/**
+	 * Allocates a new HashCache object.
+	 *
+	 * @param path
+	 *            The path of the file that the entries are stored in.
+	 */
+	HashCache(final Path path) {
+
+		this.path = path;
+
+	}
+
+	/**
+	 * @return The path of the file that the entries are stored in.
+	 */
+	public Path getPath() {
+
+		return this.path;
+	}
+
+	/**
+	 * Loads the stored entries. A missing cache is considered empty and
+	 * malformed lines are skipped.
+	 *
+	 * @return The stored entries indexed by their path.
+	 */
+	public HashMap<String, SharedDirectoryIndex.Entry> load() {
+
+		final HashMap<String, SharedDirectoryIndex.Entry> entries = new HashMap<>();
+
+		if (!Files.isRegularFile(this.path)) return entries;
+
+		try (BufferedReader reader = Files.newBufferedReader(this.path, StandardCharsets.UTF_8)) {
+
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+
+				final String[] fields = line.split("\t", 4);
+				if (fields.length != 4) continue;
+
+				try {
+
+					entries.put(fields[3], new SharedDirectoryIndex.Entry(fields[3], Long.parseLong(fields[1]),
+					        Long.parseLong(fields[2]), fields[0]));
+
+				} catch (@SuppressWarnings("unused") final NumberFormatException ex) {
+					// Skip the malformed line.
+				}
+
+			}
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING,
+			        String.format("The hash cache <%s> could not be loaded.", this.path), ex);
+
+		}
+
+		return entries;
+
+	}
+
+	/**
+	 * Stores the provided entries, replacing the previous contents of the
+	 * cache. The entries are written to a temporary file first, so a crash
+	 * never leaves a truncated cache behind.
+	 *
+	 * @param entries
+	 *            The entries to be stored. Entries without a hash are skipped.
+	 */
+	public void save(final Collection<SharedDirectoryIndex.Entry> entries) {
+
+		try {
+
+			if (this.path.getParent() != null) {
+				Files.createDirectories(this.path.getParent());
+			}
+
+			final Path temporary_path = this.path.resolveSibling(String.format("%s.tmp", this.path.getFileName()));
+
+			try (BufferedWriter writer = Files.newBufferedWriter(temporary_path, StandardCharsets.UTF_8)) {
+
+				for (final SharedDirectoryIndex.Entry entry : entries) {
+
+					if (entry.getHash() == null) continue;
+
+					writer.write(String.format("%s\t%d\t%d\t%s", entry.getHash(), new Long(entry.getSize()),
+					        new Long(entry.getLastModified()), entry.getFilename()));
+					writer.newLine();
+
+				}
+
+			}
+
+			Files.move(temporary_path, this.path, StandardCopyOption.REPLACE_EXISTING);
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING, String.format("The hash cache <%s> could not be saved.", this.path),
+			        ex);
+
+		}
+
+	}
+
+}
@@ -4,7 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.locks.Condition;
@@ -12,9 +12,13 @@ import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
+import p2p.components.Configuration;
 import p2p.components.common.Credentials;
+import p2p.components.common.FileDescription;
 import p2p.components.communication.ClientChannel;
 import p2p.components.communication.CloseableThread;
+import p2p.components.communication.messages.Request;
+import p2p.components.communication.transport.Transport;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -38,6 +42,25 @@ public class Peer extends CloseableThread {
 	 */
 	public static final boolean COOPERATIVE_LOGOUT_POLICY = true;
 
+	/**
+	 * The login mode that starts the server manager first and sends the
+	 * credentials, the server's address and the shared files in a single
+	 * request.
+	 */
+	public static final String bound_login_mode = "bound";
+
+	/**
+	 * The login mode that sends the credentials first and the server's address
+	 * and the shared files after the tracker accepted them. Should be used with
+	 * trackers that do not support bound logins.
+	 */
+	public static final String two_phase_login_mode = "two_phase";
+
+	/**
+	 * The default maximum number of files that a single announcement carries.
+	 */
+	public static final int default_announce_batch_size = 1000;
+
 	/*
 	 * This lock should be accessible for the peer to be updated in any way.
 	 */
@@ -55,13 +78,34 @@ public class Peer extends CloseableThread {
 	 */
 	protected final ThreadGroup server_managers_group = CloseableThread.newThreadGroup(this, "ServerManagers");
 
+	/**
+	 * A group that contains the index of the shared directory and the
+	 * announcer of its changes.
+	 */
+	protected final ThreadGroup indexers_group = CloseableThread.newThreadGroup(this, "Indexers");
+
 	private final LinkedList<DownloadScheduler>	download_managers	   = new LinkedList<>();
 	private PeerServerManager					current_server_manager = null;
 	private String								shared_directory_path  = null;
+	private SharedDirectoryIndex				shared_directory_index = null;
+	private SharedFilesAnnouncer				shared_files_announcer = null;
 	private InetSocketAddress					tracker_socket_address = null;
 
 	private Integer session_id = null;
 
+	/*
+	 * The token of the last bound login or resume and the username it was
+	 * issued for. Cleared on an explicit logout.
+	 */
+	private String resumption_token	   = null;
+	private String resumption_username = null;
+
+	/*
+	 * The shared files that the tracker knows, as they were sent on the last
+	 * login and the following announcements.
+	 */
+	private HashSet<FileDescription> announced_files = null;
+
 	/**
 	 * Allocates a new Peer object.
 	 *
@@ -148,6 +192,159 @@ public class Peer extends CloseableThread {
 		return false;
 	}
 
+	/**
+	 * Announces the changes of the shared directory since the last login or
+	 * announcement to the tracker through the use of {@link PeerAnnounceClient}
+	 * objects. Only the descriptions of the added and the removed files are
+	 * sent, so the tracker keeps the session up to date without a new login.
+	 * Large changes are split in announcements of at most
+	 * <i>announce_batch_size</i> files, so the announced files of a huge
+	 * directory tree grow incrementally instead of through a single request.
+	 * The changes are also announced by a {@link SharedFilesAnnouncer} as soon
+	 * as the shared directory settles.
+	 *
+	 * @return True If the tracker applied all the changes or there were none.
+	 */
+	public boolean announceSharedFiles() {
+
+		if (!this.configuration_lock.tryLock()) return false;
+
+		try {
+
+			if (!this.isLoggedIn() || (this.announced_files == null)) return false;
+
+			final HashSet<FileDescription> current_files = this.getSharedFileDescriptions();
+
+			final HashSet<FileDescription> added_files = new HashSet<>(current_files);
+			added_files.removeAll(this.announced_files);
+
+			final HashSet<FileDescription> removed_files = new HashSet<>(this.announced_files);
+			removed_files.removeAll(current_files);
+
+			return this.announce(Request.Type.ANNOUNCE_REMOVE, removed_files)
+			        && this.announce(Request.Type.ANNOUNCE_ADD, added_files);
+
+		} finally {
+			this.configuration_lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Returns the files that a login carries, aka. at most
+	 * <i>announce_batch_size</i> of the provided files.
+	 *
+	 * @param files
+	 *            The descriptions of all the shared files.
+	 * @return The descriptions of the files that should be sent with the login.
+	 */
+	static HashSet<FileDescription> getFirstAnnounceBatch(final HashSet<FileDescription> files) {
+
+		final int batch_size = Peer.getAnnounceBatchSize();
+
+		if (files.size() <= batch_size) return files;
+
+		return files.stream().limit(batch_size).collect(Collectors.toCollection(HashSet::new));
+
+	}
+
+	/**
+	 * @return The maximum number of files that a single announcement carries.
+	 */
+	private static int getAnnounceBatchSize() {
+
+		return Math.max(1,
+		        Configuration.getDefault().getInteger("announce_batch_size", Peer.default_announce_batch_size));
+	}
+
+	/**
+	 * Sends the files in batches of announcements and updates the announced
+	 * files after every batch that the tracker applied.
+	 *
+	 * @return True If the tracker applied all the announcements or there were
+	 *         none.
+	 */
+	private boolean announce(final Request.Type type, final HashSet<FileDescription> files) {
+
+		final int batch_size = Peer.getAnnounceBatchSize();
+
+		HashSet<FileDescription> batch = new HashSet<>();
+
+		for (final FileDescription file : files) {
+
+			batch.add(file);
+
+			if (batch.size() >= batch_size) {
+
+				if (!this.announceBatch(type, batch)) return false;
+
+				batch = new HashSet<>();
+
+			}
+
+		}
+
+		return this.announceBatch(type, batch);
+
+	}
+
+	/**
+	 * Announces the files that the login did not carry. If the announcement
+	 * fails the announcer retries it once the directory settles.
+	 */
+	private void announceRemainingFiles() {
+
+		if (this.announceSharedFiles() || (this.shared_files_announcer == null)) return;
+
+		LoggerManager.tracedLog(this, Level.WARNING,
+		        "Some shared files could not be announced after the login, retrying later.");
+
+		this.shared_files_announcer.changed();
+
+	}
+
+	/**
+	 * Sends a single announcement and updates the announced files if the
+	 * tracker applied it.
+	 *
+	 * @return True If the tracker applied the announcement or it was empty.
+	 */
+	private boolean announceBatch(final Request.Type type, final HashSet<FileDescription> files) {
+
+		if (files.isEmpty()) return true;
+
+		try (PeerAnnounceClient client_channel = new PeerAnnounceClient(this.clients_group,
+		        String.format("%s.Announce", this.getName()), this, type, files)) {
+
+			client_channel.start();
+			client_channel.join();
+
+			if (client_channel.getStatus() == ClientChannel.Status.SUCCESSFULL) {
+
+				if (type == Request.Type.ANNOUNCE_ADD) {
+					this.announced_files.addAll(files);
+				}
+				else {
+					this.announced_files.removeAll(files);
+				}
+
+				LoggerManager.tracedLog(this, Level.FINE, () -> String.format("The peer announced %d files with <%s>.",
+				        new Integer(files.size()), type.name()));
+
+				return true;
+
+			}
+
+		} catch (final IOException ex) {
+			LoggerManager.tracedLog(this, Level.SEVERE, "An IOException occurred during the announcement.", ex);
+		} catch (final InterruptedException ex) {
+			LoggerManager.tracedLog(this, Level.WARNING, "The announcement was interrupted.", ex);
+		}
+
+		return false;
+
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see java.io.Closeable#close()
@@ -177,6 +374,12 @@ public class Peer extends CloseableThread {
 
 		CloseableThread.interrupt(this.server_managers_group);
 
+		/*
+		 * Finally stop watching the shared directory.
+		 */
+
+		CloseableThread.interrupt(this.indexers_group);
+
 	}
 
 	/**
@@ -277,12 +480,34 @@ public class Peer extends CloseableThread {
 	}
 
 	/**
-	 * @return The list of files in the shared directory.
+	 * @return The index of the shared directory or null if the shared
+	 *         directory is not set.
+	 */
+	public SharedDirectoryIndex getSharedDirectoryIndex() {
+
+		return this.shared_directory_index;
+	}
+
+	/**
+	 * @return The descriptions of the files in the shared directory, as they
+	 *         are sent to the tracker.
+	 */
+	public HashSet<FileDescription> getSharedFileDescriptions() {
+
+		final SharedDirectoryIndex index = this.shared_directory_index;
+
+		return index == null ? new HashSet<>() : index.getFileDescriptions();
+	}
+
+	/**
+	 * @return The list of files in the shared directory and its
+	 *         subdirectories.
 	 */
 	public List<File> getSharedFiles() {
 
-		return Arrays.asList(new File(this.shared_directory_path).listFiles()).parallelStream().filter(x -> x.isFile())
-		        .collect(Collectors.toList());
+		final SharedDirectoryIndex index = this.shared_directory_index;
+
+		return index == null ? new LinkedList<>() : index.getFiles();
 	}
 
 	/**
@@ -336,7 +561,16 @@ public class Peer extends CloseableThread {
 	 * Implement a new login request through the use of a
 	 * {@link PeerLoginClient} object. If the request was successful a new
 	 * session id is stored for future use and the server manager of the peer is
-	 * activated to listen for incoming connections.
+	 * activated to listen for incoming connections. Unless the <i>login_mode</i>
+	 * of the configuration is <i>two_phase</i>, the login is bound and
+	 * completes in a single round trip. A bound login first tries to resume
+	 * the previous session of the same user, if the peer holds a resumption
+	 * token for it, and falls back to a full login if the tracker rejects it.
+	 * <p>
+	 * A login only carries the first <i>announce_batch_size</i> shared files,
+	 * so the request stays small regardless of the size of the shared
+	 * directory. The rest of the files are announced right after the login
+	 * and, if that fails, again by the {@link SharedFilesAnnouncer}.
 	 *
 	 * @param user_credentials
 	 *            The user's credentials.
@@ -354,7 +588,19 @@ public class Peer extends CloseableThread {
 			 * credentials should at least correspond to a valid username.
 			 */
 
-			if ((user_credentials != null) && this.isTrackerSet() && this.isSharedDirecorySet()) {
+			final boolean login_possible = (user_credentials != null) && this.isTrackerSet()
+			        && this.isSharedDirecorySet();
+
+			if (login_possible && !Peer.two_phase_login_mode.equalsIgnoreCase(
+			        Configuration.getDefault().getString("login_mode", Peer.bound_login_mode).trim())) {
+
+				if (user_credentials.getUsername().equals(this.resumption_username) && this.resumeSession())
+				    return true;
+
+				if (this.boundLogin(user_credentials)) return true;
+
+			}
+			else if (login_possible) {
 
 				/*
 				 * A login request consists of more steps that require the
@@ -403,12 +649,15 @@ public class Peer extends CloseableThread {
 						if (client_channel.getStatus() == ClientChannel.Status.SUCCESSFULL) {
 
 							this.session_id = session_id;
+							this.announced_files = client_channel.getAnnouncedFiles();
 
 							LoggerManager.tracedLog(this, Level.INFO,
 							        String.format(
 							                "The peer logged in to the tracker with session id <%d> and credentials <%s>.",
 							                this.getSessionID(), user_credentials.toString()));
 
+							this.announceRemainingFiles();
+
 							return true;
 
 						}
@@ -454,6 +703,115 @@ public class Peer extends CloseableThread {
 
 	}
 
+	/**
+	 * Implement a new bound login request through the use of a
+	 * {@link PeerBoundLoginClient} object. The server manager is started
+	 * before the request is sent, so the tracker receives everything it needs
+	 * in a single request, and it is stopped again if the login fails.
+	 *
+	 * @param user_credentials
+	 *            The user's credentials.
+	 * @return True If the login was successful.
+	 */
+	private boolean boundLogin(final Credentials user_credentials) {
+
+		if (!this.isWaitingConnections() && !this.startManager(0)) return false;
+
+		try (PeerBoundLoginClient client_channel = new PeerBoundLoginClient(this.clients_group,
+		        String.format("%s.Login", this.getName()), this, user_credentials)) {
+
+			client_channel.start();
+			client_channel.join();
+
+			if (client_channel.getStatus() == ClientChannel.Status.SUCCESSFULL) {
+
+				this.session_id = client_channel.getSessionID();
+				this.announced_files = client_channel.getAnnouncedFiles();
+				this.resumption_token = client_channel.getResumptionToken();
+				this.resumption_username = this.resumption_token == null ? null : user_credentials.getUsername();
+
+				LoggerManager.tracedLog(this, Level.INFO,
+				        String.format("The peer logged in to the tracker with session id <%d> and credentials <%s>.",
+				                this.getSessionID(), user_credentials.toString()));
+
+				this.announceRemainingFiles();
+
+				return true;
+
+			}
+
+		} catch (final IOException ex) {
+			LoggerManager.tracedLog(this, Level.SEVERE, "An IOException occurred during the login attempt.", ex);
+		} catch (final InterruptedException ex) {
+
+			LoggerManager.tracedLog(this, Level.WARNING, "The login attempt was interrupted.", ex);
+
+			this.session_id = null;
+
+		}
+
+		/*
+		 * Make sure to stop the server in a failed login attempt.
+		 */
+
+		this.stopManager();
+
+		return false;
+
+	}
+
+	/**
+	 * Implement a new resume request through the use of a
+	 * {@link PeerResumeClient} object. The server manager is started before
+	 * the request is sent, like in a bound login. The resumption token is
+	 * replaced on success and discarded on failure, so the next login is a
+	 * full one.
+	 *
+	 * @return True If the session was resumed.
+	 */
+	private boolean resumeSession() {
+
+		if (!this.isWaitingConnections() && !this.startManager(0)) return false;
+
+		try (PeerResumeClient client_channel = new PeerResumeClient(this.clients_group,
+		        String.format("%s.Login", this.getName()), this, this.resumption_token)) {
+
+			client_channel.start();
+			client_channel.join();
+
+			if (client_channel.getStatus() == ClientChannel.Status.SUCCESSFULL) {
+
+				this.session_id = client_channel.getSessionID();
+				this.announced_files = client_channel.getAnnouncedFiles();
+				this.resumption_token = client_channel.getResumptionToken();
+
+				LoggerManager.tracedLog(this, Level.INFO,
+				        String.format("The peer resumed the session of user <%s> with session id <%d>.",
+				                this.resumption_username, this.getSessionID()));
+
+				this.announceRemainingFiles();
+
+				return true;
+
+			}
+
+		} catch (final IOException ex) {
+			LoggerManager.tracedLog(this, Level.SEVERE, "An IOException occurred during the resume attempt.", ex);
+		} catch (final InterruptedException ex) {
+			LoggerManager.tracedLog(this, Level.WARNING, "The resume attempt was interrupted.", ex);
+		}
+
+		LoggerManager.tracedLog(this, Level.WARNING,
+		        String.format("The session of user <%s> could not be resumed.", this.resumption_username));
+
+		this.session_id = null;
+		this.resumption_token = null;
+		this.resumption_username = null;
+
+		return false;
+
+	}
+
 	/**
 	 * Implement a new logout request through the user of a
 	 * {@link PeerLogoutClient} object. Two different types of logout's are
@@ -519,6 +877,15 @@ public class Peer extends CloseableThread {
 
 			this.stopManager();
 			this.session_id = null;
+			this.announced_files = null;
+
+			/*
+			 * An explicit logout ends the session for good, so it should not
+			 * be resumed.
+			 */
+
+			this.resumption_token = null;
+			this.resumption_username = null;
 
 			/*
 			 * A successful logout is defined as the logical and of a successful
@@ -627,7 +994,34 @@ public class Peer extends CloseableThread {
 
 			if (!this.isLoggedIn()) {
 
+				/*
+				 * The index of the previous directory is replaced by a new
+				 * one that scans the new directory in the background.
+				 */
+
+				if (this.shared_directory_index != null) {
+					this.shared_directory_index.interrupt();
+				}
+
 				this.shared_directory_path = shared_directory_path;
+				this.shared_directory_index = shared_directory_path == null ? null
+				        : new SharedDirectoryIndex(this.indexers_group, String.format("%s.Index", this.getName()),
+				                shared_directory_path);
+
+				if (this.shared_directory_index != null) {
+
+					if (this.shared_files_announcer == null) {
+
+						this.shared_files_announcer = new SharedFilesAnnouncer(this.indexers_group,
+						        String.format("%s.Announcer", this.getName()), this);
+						this.shared_files_announcer.start();
+
+					}
+
+					this.shared_directory_index.setChangeListener(this.shared_files_announcer::changed);
+					this.shared_directory_index.start();
+
+				}
 
 				LoggerManager.tracedLog(this, Level.INFO,
 				        String.format("The shared directory's path changed to <%s>.", this.shared_directory_path));
@@ -697,9 +1091,16 @@ public class Peer extends CloseableThread {
 			try {
 
 				this.current_server_manager = new PeerServerManager(this.server_managers_group,
-				        String.format("%s.ServerManager", this.getName()), port, this.shared_directory_path);
+				        String.format("%s.ServerManager", this.getName()), port, this.shared_directory_index);
 				this.current_server_manager.start();
 
+				/*
+				 * The requests of the peer originate from the address of its
+				 * server, which is the address the tracker is going to use.
+				 */
+				Transport.getDefault().setLocalAddress(this.clients_group,
+				        this.current_server_manager.getSocketAddress().getAddress());
+
 				return true;
 
 			} catch (final IOException ex) {
@@ -64,7 +64,7 @@ public class PeerAcknowledgeClient extends ClientChannel {
 		        new Pair<>(new Integer(this.session_id), new Pair<>(this.username, this.filename))));
 
 		LoggerManager.tracedLog(this, Level.FINE,
-		        String.format(
+		        () -> String.format(
 		                "A new acknowledge request about user<%s> for the file <%s> was sent through the channel.",
 		                this.username, this.filename));
 
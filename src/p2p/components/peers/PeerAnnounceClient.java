@@ -0,0 +1,89 @@
+package p2p.components.peers;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.logging.Level;
+
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.ClientChannel;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+import p2p.components.exceptions.FailedRequestException;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A PeerAnnounceClient object sends the files that were added to or removed
+ * from the shared directory of the peer since the last announcement, so the
+ * tracker can update the peer's session without a new login.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+class PeerAnnounceClient extends ClientChannel {
+
+	private final Peer						caller;
+	private final Request.Type				type;
+	private final HashSet<FileDescription>	files;
+
+	/**
+	 * Allocates a new PeerAnnounceClient object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup ThreadGroup} object that this channel
+	 *            belongs to.
+	 * @param name
+	 *            The name of this channel.
+	 * @param caller
+	 *            The peer that started the execution of this client. Used to
+	 *            retrieve information about the peer.
+	 * @param type
+	 *            The type of the announcement, either
+	 *            {@link Request.Type#ANNOUNCE_ADD ANNOUNCE_ADD} or
+	 *            {@link Request.Type#ANNOUNCE_REMOVE ANNOUNCE_REMOVE}.
+	 * @param files
+	 *            The descriptions of the added or removed files.
+	 * @throws IOException
+	 *             If an error occurs during the initialization of the
+	 *             {@link Socket Socket} object.
+	 */
+	public PeerAnnounceClient(final ThreadGroup group, final String name, final Peer caller,
+	        final Request.Type type, final HashSet<FileDescription> files) throws IOException {
+		super(group, name, caller.getTrackerAddress());
+
+		this.caller = caller;
+		this.type = type;
+		this.files = files;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#communicate()
+	 */
+	@Override
+	protected void communicate() throws IOException, InterruptedException {
+
+		this.out.writeObject(new Request<>(this.type, new Pair<>(this.caller.getSessionID(), this.files)));
+
+		LoggerManager.tracedLog(this, Level.FINE,
+		        () -> String.format("A new announcement of type <%s> for %d files was sent through the channel.",
+		                this.type.name(), new Integer(this.files.size())));
+
+		try {
+
+			Reply.getValidatedData(this.in.readObject(), Boolean.class);
+
+			this.status = Status.SUCCESSFULL;
+
+		} catch (ClassCastException | ClassNotFoundException ex) {
+			throw new IOException(ex);
+		} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+			this.status = Status.FAILED;
+
+		}
+
+	}
+
+}
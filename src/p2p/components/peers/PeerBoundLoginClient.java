@@ -0,0 +1,129 @@
+package p2p.components.peers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.logging.Level;
+
+import p2p.components.common.Credentials;
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.ClientChannel;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+import p2p.components.exceptions.FailedRequestException;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A PeerBoundLoginClient object sends a bound login request to the tracker and
+ * stores the associate session id and resumption token if the request
+ * completed successfully. The
+ * server manager of the peer should already be running, because its address is
+ * sent along with the user's credentials and the first batch of the shared
+ * files, so the login completes in a single round trip. The rest of the files
+ * are announced by the peer afterwards.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+class PeerBoundLoginClient extends ClientChannel {
+
+	private final Peer		  caller;
+	private final Credentials user_credentials;
+
+	private Integer					 session_id		  = null;
+	private String					 resumption_token = null;
+	private HashSet<FileDescription> shared_files	  = null;
+
+	/**
+	 * Allocates a new PeerBoundLoginClient object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup ThreadGroup} object that this channel
+	 *            belongs to.
+	 * @param name
+	 *            The name of this channel.
+	 * @param caller
+	 *            The peer that started the execution of this client. Used to
+	 *            retrieve information about the peer.
+	 * @param user_credentials
+	 *            The credentials of the user.
+	 * @throws IOException
+	 *             If an error occurs during the initialization of the
+	 *             {@link Socket Socket} object.
+	 */
+	public PeerBoundLoginClient(final ThreadGroup group, final String name, final Peer caller,
+	        final Credentials user_credentials) throws IOException {
+		super(group, name, caller.getTrackerAddress());
+
+		this.caller = caller;
+		this.user_credentials = user_credentials;
+
+	}
+
+	/**
+	 * @return The descriptions of the shared files that were sent to the
+	 *         tracker.
+	 */
+	public HashSet<FileDescription> getAnnouncedFiles() {
+
+		return this.shared_files;
+	}
+
+	/**
+	 * @return The resumption token received on a successful login attempt.
+	 */
+	public String getResumptionToken() {
+
+		return this.resumption_token;
+	}
+
+	/**
+	 * @return The session id received on a successful login attempt.
+	 */
+	public Integer getSessionID() {
+
+		return this.session_id == null ? null : new Integer(this.session_id.intValue());
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#communicate()
+	 */
+	@Override
+	protected void communicate() throws IOException, InterruptedException {
+
+		try {
+
+			final InetSocketAddress socket_address = this.caller.getServerAddress();
+
+			if (socket_address == null) throw new FailedRequestException();
+
+			this.shared_files = Peer.getFirstAnnounceBatch(this.caller.getSharedFileDescriptions());
+
+			this.out.writeObject(new Request<>(Request.Type.BOUND_LOGIN,
+			        new Pair<>(this.user_credentials, new Pair<>(socket_address, this.shared_files))));
+
+			LoggerManager.tracedLog(this, Level.FINE, "A new bound login request was sent through the channel.");
+
+			final Pair<?, ?> reply_data = Reply.getValidatedData(this.in.readObject(), Pair.class);
+
+			this.session_id = Integer.class.cast(reply_data.getFirst());
+			if (this.session_id == null) throw new FailedRequestException();
+
+			this.resumption_token = String.class.cast(reply_data.getSecond());
+
+			this.status = Status.SUCCESSFULL;
+
+		} catch (ClassCastException | ClassNotFoundException ex) {
+			throw new IOException(ex);
+		} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+			this.status = Status.FAILED;
+
+		}
+
+	}
+
+}
@@ -7,7 +7,6 @@ import java.util.HashSet;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 import p2p.components.common.Credentials;
 import p2p.components.common.FileDescription;
@@ -32,7 +31,8 @@ class PeerLoginClient extends ClientChannel {
 	private final ReentrantLock	authentication_lock;
 	private final Condition		waits_response;
 
-	private Integer session_id = null;
+	private Integer					 session_id	  = null;
+	private HashSet<FileDescription> shared_files = null;
 
 	/**
 	 * Allocates a new LoginClientChannel object.
@@ -95,6 +95,15 @@ class PeerLoginClient extends ClientChannel {
 
 	}
 
+	/**
+	 * @return The descriptions of the shared files that were sent to the
+	 *         tracker.
+	 */
+	public HashSet<FileDescription> getAnnouncedFiles() {
+
+		return this.shared_files;
+	}
+
 	/**
 	 * @return The session id received on a successful login attempt.
 	 */
@@ -154,11 +163,13 @@ class PeerLoginClient extends ClientChannel {
 			if (socket_address == null) throw new FailedRequestException();
 
 			/*
-			 * Convert a list of files to a list of file description a send this
-			 * new list along with socket address of the server to the tracker.
+			 * Convert a list of files to a list of file description a send the
+			 * first batch of this list along with socket address of the server
+			 * to the tracker. The rest is announced by the peer afterwards.
 			 */
-			this.out.writeObject(new Message<>(new Pair<>(socket_address, new HashSet<>(this.caller.getSharedFiles()
-			        .parallelStream().map(x -> new FileDescription(x)).collect(Collectors.toSet())))));
+			this.shared_files = Peer.getFirstAnnounceBatch(this.caller.getSharedFileDescriptions());
+
+			this.out.writeObject(new Message<>(new Pair<>(socket_address, this.shared_files)));
 
 			Reply.getValidatedData(this.in.readObject(), Boolean.class);
 
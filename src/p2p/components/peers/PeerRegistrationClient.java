@@ -18,7 +18,7 @@ import p2p.utilities.LoggerManager;
  *
  * @author {@literal p3100161 <Joseph Sakos>}
  */
-class PeerRegistrationClient extends ClientChannel {
+public class PeerRegistrationClient extends ClientChannel {
 
 	private final Credentials user_credentials;
 
@@ -0,0 +1,144 @@
+package p2p.components.peers;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.logging.Level;
+
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.ClientChannel;
+import p2p.components.communication.messages.Message;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+import p2p.components.exceptions.FailedRequestException;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A PeerResumeClient object presents the resumption token of a previous login
+ * to the tracker along with a digest of the peer's shared files. The shared
+ * files themselves are only sent if the tracker asks for them, aka. if the
+ * files it knows for the user do not match the digest, and then only their
+ * first batch, like in a login. The server manager of the peer should already
+ * be running.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+class PeerResumeClient extends ClientChannel {
+
+	private final Peer	 caller;
+	private final String resumption_token;
+
+	private Integer					 session_id				  = null;
+	private String					 renewed_resumption_token = null;
+	private HashSet<FileDescription> shared_files			  = null;
+
+	/**
+	 * Allocates a new PeerResumeClient object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup ThreadGroup} object that this channel
+	 *            belongs to.
+	 * @param name
+	 *            The name of this channel.
+	 * @param caller
+	 *            The peer that started the execution of this client. Used to
+	 *            retrieve information about the peer.
+	 * @param resumption_token
+	 *            The token received on the previous login.
+	 * @throws IOException
+	 *             If an error occurs during the initialization of the
+	 *             {@link Socket Socket} object.
+	 */
+	public PeerResumeClient(final ThreadGroup group, final String name, final Peer caller,
+	        final String resumption_token) throws IOException {
+		super(group, name, caller.getTrackerAddress());
+
+		this.caller = caller;
+		this.resumption_token = resumption_token;
+
+	}
+
+	/**
+	 * @return The descriptions of the shared files that were sent to the
+	 *         tracker.
+	 */
+	public HashSet<FileDescription> getAnnouncedFiles() {
+
+		return this.shared_files;
+	}
+
+	/**
+	 * @return The token that replaces the presented one on a successful resume
+	 *         attempt.
+	 */
+	public String getResumptionToken() {
+
+		return this.renewed_resumption_token;
+	}
+
+	/**
+	 * @return The session id received on a successful resume attempt.
+	 */
+	public Integer getSessionID() {
+
+		return this.session_id == null ? null : new Integer(this.session_id.intValue());
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.Channel#communicate()
+	 */
+	@Override
+	protected void communicate() throws IOException, InterruptedException {
+
+		try {
+
+			final InetSocketAddress socket_address = this.caller.getServerAddress();
+
+			if (socket_address == null) throw new FailedRequestException();
+
+			this.shared_files = this.caller.getSharedFileDescriptions();
+
+			this.out.writeObject(new Request<>(Request.Type.RESUME, new Pair<>(this.resumption_token,
+			        new Pair<>(socket_address, FileDescription.getDigest(this.shared_files)))));
+
+			LoggerManager.tracedLog(this, Level.FINE, "A new resume request was sent through the channel.");
+
+			Pair<?, ?> reply_data = Reply.getValidatedData(this.in.readObject(), Pair.class);
+
+			/*
+			 * A reply without a session id means that the tracker does not
+			 * know the current shared files of the peer.
+			 */
+			if (reply_data.getFirst() == null) {
+
+				this.shared_files = Peer.getFirstAnnounceBatch(this.shared_files);
+				this.out.writeObject(new Message<>(this.shared_files));
+
+				LoggerManager.tracedLog(this, Level.FINE, "The shared files were resent through the channel.");
+
+				reply_data = Reply.getValidatedData(this.in.readObject(), Pair.class);
+
+			}
+
+			this.session_id = Integer.class.cast(reply_data.getFirst());
+			if (this.session_id == null) throw new FailedRequestException();
+
+			this.renewed_resumption_token = String.class.cast(reply_data.getSecond());
+
+			this.status = Status.SUCCESSFULL;
+
+		} catch (ClassCastException | ClassNotFoundException ex) {
+			throw new IOException(ex);
+		} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+			this.status = Status.FAILED;
+
+		}
+
+	}
+
+}
@@ -4,12 +4,19 @@ import java.io.File;
 import java.io.IOException;
 import java.net.Socket;
 import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import p2p.components.communication.ServerChannel;
 import p2p.components.communication.messages.Message;
 import p2p.components.communication.messages.Reply;
 import p2p.components.communication.messages.Request;
+import p2p.components.events.Events;
+import p2p.components.events.TransferEvent;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.metrics.Ranking;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -20,7 +27,18 @@ import p2p.utilities.LoggerManager;
  */
 public class PeerServerChannel extends ServerChannel {
 
-	private final File shared_directory;
+	private static final Histogram upload_latency = MetricsRegistry.getDefault().getHistogram("transfer.upload");
+	private static final Counter   uploaded_bytes = MetricsRegistry.getDefault().getCounter("transfer.uploaded_bytes");
+	private static final Ranking   uploaded_files = MetricsRegistry.getDefault().getRanking("transfer.uploaded_files");
+
+	private static final AtomicInteger upload_slots_in_use = new AtomicInteger();
+
+	static {
+		MetricsRegistry.getDefault().setGauge("transfer.upload_slots_in_use",
+		        () -> PeerServerChannel.upload_slots_in_use.get());
+	}
+
+	private final SharedDirectoryIndex shared_directory_index;
 
 	/**
 	 * Allocates a new PeerServerChannel object.
@@ -31,17 +49,18 @@ public class PeerServerChannel extends ServerChannel {
 	 *            The name of this channel.
 	 * @param socket
 	 *            The {@link Socket} object associated with this channel.
-	 * @param shared_directory
-	 *            The directory where the shared files are located.
+	 * @param shared_directory_index
+	 *            The index of the directory where the shared files are
+	 *            located.
 	 * @throws IOException
 	 *             If an error occurs during the allocation of the
 	 *             {@link Socket} object.
 	 */
 	public PeerServerChannel(final ThreadGroup group, final String name, final Socket socket,
-	        final File shared_directory) throws IOException {
+	        final SharedDirectoryIndex shared_directory_index) throws IOException {
 		super(group, name, socket);
 
-		this.shared_directory = shared_directory;
+		this.shared_directory_index = shared_directory_index;
 
 	}
 
@@ -62,6 +81,11 @@ public class PeerServerChannel extends ServerChannel {
 				this.transfer(request);
 				break;
 
+			case STATS:
+
+				this.sendStats();
+				break;
+
 			default:
 
 				/*
@@ -82,7 +106,8 @@ public class PeerServerChannel extends ServerChannel {
 	}
 
 	/**
-	 * Sends the requested file to the client.
+	 * Sends the requested file to the client. Only files that are present in
+	 * the index of the shared directory are served.
 	 *
 	 * @param request
 	 *            The client's request. Should contain the filename of the
@@ -94,9 +119,9 @@ public class PeerServerChannel extends ServerChannel {
 	protected boolean transfer(final Request<?> request) throws IOException {
 
 		final String filename = Message.getData(request, String.class);
-		final File file = new File(this.shared_directory, filename);
+		final File file = this.shared_directory_index.getFile(filename);
 
-		if (file.isFile()) {
+		if (file != null) {
 
 			byte[] file_data = null;
 
@@ -111,7 +136,27 @@ public class PeerServerChannel extends ServerChannel {
 
 			if (file_data != null) {
 
-				this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, file_data));
+				final TransferEvent event = Events.newTransferEvent();
+				event.begin();
+
+				final long start_time = System.nanoTime();
+				boolean uploaded = false;
+
+				this.setPendingBytes(file_data.length);
+				PeerServerChannel.upload_slots_in_use.incrementAndGet();
+
+				try {
+					this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, file_data));
+					uploaded = true;
+				} finally {
+					PeerServerChannel.upload_slots_in_use.decrementAndGet();
+					this.setPendingBytes(0);
+					event.complete(TransferEvent.UPLOAD, filename, uploaded ? file_data.length : 0, start_time);
+				}
+
+				PeerServerChannel.upload_latency.recordSince(start_time);
+				PeerServerChannel.uploaded_bytes.add(file_data.length);
+				PeerServerChannel.uploaded_files.add(filename, file_data.length);
 
 				return true;
 
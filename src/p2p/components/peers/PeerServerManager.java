@@ -1,6 +1,5 @@
 package p2p.components.peers;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -14,9 +13,9 @@ import p2p.components.communication.ServerChannelManager;
  *
  * @author {@literal p3100161 <Joseph Sakos>}
  */
-class PeerServerManager extends ServerChannelManager<PeerServerChannel> {
+public class PeerServerManager extends ServerChannelManager<PeerServerChannel> {
 
-	private final File shared_directory;
+	private final SharedDirectoryIndex shared_directory_index;
 
 	/**
 	 * Allocates a new PeerServerManager object.
@@ -28,17 +27,18 @@ class PeerServerManager extends ServerChannelManager<PeerServerChannel> {
 	 * @param port
 	 *            The port number that the {@link ServerSocket} object is going
 	 *            to listen to.
-	 * @param shared_directory_path
-	 *            The path to the shared directory.
+	 * @param shared_directory_index
+	 *            The index of the shared directory that the files are served
+	 *            from.
 	 * @throws IOException
 	 *             I an error occurs during the allocation of the
 	 *             {@link ServerSocket} object.
 	 */
 	public PeerServerManager(final ThreadGroup group, final String name, final int port,
-	        final String shared_directory_path) throws IOException {
+	        final SharedDirectoryIndex shared_directory_index) throws IOException {
 		super(group, name, port);
 
-		this.shared_directory = new File(shared_directory_path);
+		this.shared_directory_index = shared_directory_index;
 
 	}
 
@@ -52,15 +52,16 @@ class PeerServerManager extends ServerChannelManager<PeerServerChannel> {
 	 *            The {@link ThreadGroup} object that this manager belongs to.
 	 * @param name
 	 *            The name of this manager.
-	 * @param shared_directory_path
-	 *            The path to the shared directory.
+	 * @param shared_directory_index
+	 *            The index of the shared directory that the files are served
+	 *            from.
 	 * @throws IOException
 	 *             I an error occurs during the allocation of the
 	 *             {@link ServerSocket} object.
 	 */
-	public PeerServerManager(final ThreadGroup group, final String name, final String shared_directory_path)
-	        throws IOException {
-		this(group, name, 0, shared_directory_path);
+	public PeerServerManager(final ThreadGroup group, final String name,
+	        final SharedDirectoryIndex shared_directory_index) throws IOException {
+		this(group, name, 0, shared_directory_index);
 	}
 
 	/*
@@ -73,7 +74,7 @@ class PeerServerManager extends ServerChannelManager<PeerServerChannel> {
 	protected PeerServerChannel newServerChannel(final ThreadGroup group, final String name, final Socket socket)
 	        throws IOException {
 
-		return new PeerServerChannel(group, name, socket, this.shared_directory);
+		return new PeerServerChannel(group, name, socket, this.shared_directory_index);
 	}
 
 }
@@ -74,7 +74,8 @@ public class SearchClient extends ClientChannel {
 		        new Request<>(Request.Type.SEARCH, new Pair<>(new Integer(this.session_id), this.filename)));
 
 		LoggerManager.tracedLog(this, Level.FINE,
-		        String.format("A new search request for the file <%s> was sent through the channel.", this.filename));
+		        () -> String.format(
+		                "A new search request for the file <%s> was sent through the channel.", this.filename));
 
 		try {
 
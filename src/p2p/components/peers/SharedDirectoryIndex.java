@@ -0,0 +1,1053 @@
+package p2p.components.peers;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import p2p.components.Configuration;
+import p2p.components.Hash;
+import p2p.components.common.FileDescription;
+import p2p.components.communication.CloseableThread;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A SharedDirectoryIndex object keeps an in-memory index of the regular files
+ * in a peer's shared directory and its subdirectories, along with their size,
+ * modification time and content hash. The index is kept up to date by a
+ * {@link WatchService} and is fully rescanned every
+ * <i>shared_index_rescan_interval</i> milliseconds, to recover from missed
+ * events, or whenever the directory can not be watched. Both the peer's server
+ * and the tracker announcements read the index instead of the file system.
+ * <p>
+ * Files are identified by their path relative to the shared directory, with
+ * <i>/</i> as the separator. The tree is walked lazily, one directory at a
+ * time, and symbolic links are not followed, so nothing outside the shared
+ * directory is ever shared. The comma separated glob patterns of
+ * <i>shared_include_patterns</i> and <i>shared_exclude_patterns</i> select the
+ * shared files. A pattern matches a file if it matches either its relative
+ * path or its name, and an excluded directory is not walked at all. If no
+ * include pattern is set every file is included.
+ * <p>
+ * The entries of the files are published as soon as the walk finds them and
+ * their hashes are filled in by a separate hasher thread, so neither reading
+ * the index nor applying the changes of the directory waits for the files to
+ * be hashed. Files are hashed in parallel by <i>hashing_threads</i> workers,
+ * all the processors by default. A file that turns out to be unreadable is
+ * removed from the index. The entries are
+ * persisted to a {@link HashCache} in
+ * the <i>hash_cache_directory</i>, so on the next start only the files whose
+ * size or modification time changed are hashed again.
+ * <p>
+ * A change listener is notified on the index's thread whenever the indexed
+ * files change after they were loaded from the cache, so it should return
+ * quickly.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class SharedDirectoryIndex extends CloseableThread {
+
+	/**
+	 * A SharedDirectoryIndex#Entry object holds the indexed information of a
+	 * single shared file.
+	 */
+	public static final class Entry {
+
+		private final String filename;
+		private final long	 size;
+		private final long	 last_modified;
+		private final String hash;
+
+		Entry(final String filename, final long size, final long last_modified, final String hash) {
+
+			this.filename = filename;
+			this.size = size;
+			this.last_modified = last_modified;
+			this.hash = hash;
+		}
+
+		/**
+		 * @return The description of the file that is sent to the tracker.
+		 */
+		public FileDescription getFileDescription() {
+
+			return new FileDescription(this.filename, this.size);
+		}
+
+		/**
+		 * @return The filename of the file.
+		 */
+		public String getFilename() {
+
+			return this.filename;
+		}
+
+		/**
+		 * @return The hexadecimal SHA-256 hash of the file's contents or null
+		 *         if it was not calculated yet.
+		 */
+		public String getHash() {
+
+			return this.hash;
+		}
+
+		/**
+		 * @return The modification time of the file in milliseconds since the
+		 *         epoch.
+		 */
+		public long getLastModified() {
+
+			return this.last_modified;
+		}
+
+		/**
+		 * @return The size of the file in bytes.
+		 */
+		public long getSize() {
+
+			return this.size;
+		}
+
+	}
+
+	/**
+	 * A SharedDirectoryIndex#Scanner object walks a directory tree, registers
+	 * its directories with the watch service and indexes its files. The
+	 * entries of the changed files are added to the index without a hash while
+	 * the walk is still in progress and the files are queued to be hashed.
+	 */
+	private final class Scanner extends SimpleFileVisitor<Path> {
+
+		private final Map<String, Entry> cached_entries;
+		private final Set<String>		 present_files;
+
+		private int	cached_files  = 0;
+		private int	changed_files = 0;
+
+		Scanner(final Map<String, Entry> cached_entries, final Set<String> present_files) {
+
+			this.cached_entries = cached_entries;
+			this.present_files = present_files;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.nio.file.SimpleFileVisitor#postVisitDirectory(java.lang.Object, java.io.IOException)
+		 */
+		@Override
+		public FileVisitResult postVisitDirectory(final Path directory, final IOException ex) {
+
+			/*
+			 * A directory that could not be read completely is scanned again
+			 * by the next rescan.
+			 */
+			return FileVisitResult.CONTINUE;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.nio.file.SimpleFileVisitor#preVisitDirectory(java.lang.Object,
+		 * java.nio.file.attribute.BasicFileAttributes)
+		 */
+		@Override
+		public FileVisitResult preVisitDirectory(final Path directory, final BasicFileAttributes attributes) {
+
+			if (SharedDirectoryIndex.this.isExcluded(directory)) return FileVisitResult.SKIP_SUBTREE;
+
+			SharedDirectoryIndex.this.register(directory);
+
+			return FileVisitResult.CONTINUE;
+
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.nio.file.SimpleFileVisitor#visitFile(java.lang.Object,
+		 * java.nio.file.attribute.BasicFileAttributes)
+		 */
+		@Override
+		public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+
+			if (!attributes.isRegularFile() || !SharedDirectoryIndex.this.isShared(file)) {
+				return FileVisitResult.CONTINUE;
+			}
+
+			final String filename = SharedDirectoryIndex.this.getFilename(file);
+			final Entry cached_entry = this.cached_entries.get(filename);
+
+			this.present_files.add(filename);
+
+			if (SharedDirectoryIndex.matches(SharedDirectoryIndex.this.entries.get(filename), attributes)) {
+				return FileVisitResult.CONTINUE;
+			}
+
+			if (SharedDirectoryIndex.matches(cached_entry, attributes)) {
+
+				SharedDirectoryIndex.this.entries.put(filename, cached_entry);
+				this.cached_files++;
+
+			}
+			else {
+
+				SharedDirectoryIndex.this.publish(file, filename, attributes);
+				this.changed_files++;
+
+			}
+
+			return FileVisitResult.CONTINUE;
+
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.nio.file.SimpleFileVisitor#visitFileFailed(java.lang.Object, java.io.IOException)
+		 */
+		@Override
+		public FileVisitResult visitFileFailed(final Path file, final IOException ex) throws IOException {
+
+			/*
+			 * If the scanned directory itself can not be read every file would
+			 * be considered removed. Any other file was removed in the
+			 * meantime or can not be read, so it is not shared.
+			 */
+			if (SharedDirectoryIndex.this.directory.equals(file)) throw ex;
+
+			return FileVisitResult.CONTINUE;
+
+		}
+
+	}
+
+	/**
+	 * A SharedDirectoryIndex#Hasher object hashes the queued files in batches
+	 * while the index keeps walking the tree and applying the changes of the
+	 * directory. The hash of a file is only added if neither its entry nor the
+	 * file itself changed while it was hashed.
+	 */
+	private final class Hasher extends CloseableThread {
+
+		private final ForkJoinPool hashing_pool = new ForkJoinPool(SharedDirectoryIndex.this.hashing_threads);
+
+		Hasher(final ThreadGroup group, final String name) {
+			super(group, name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+
+			this.hashing_pool.shutdownNow();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+
+			final long start_time = System.nanoTime();
+			boolean initial_files_hashed = false;
+			int hashed_files = 0;
+
+			try {
+
+				while (!this.isInterrupted()) {
+
+					/*
+					 * The initial hashing is complete once the walk is over
+					 * and the queue is drained.
+					 */
+					if (!initial_files_hashed && (SharedDirectoryIndex.this.initial_scan.getCount() == 0)
+					        && SharedDirectoryIndex.this.unhashed_files.isEmpty()) {
+
+						initial_files_hashed = true;
+
+						SharedDirectoryIndex.hashing_latency.recordSince(start_time);
+
+						LoggerManager.tracedLog(this, Level.INFO,
+						        String.format("Hashed %d files of <%s> in %d ms with %d threads.",
+						                new Integer(hashed_files), SharedDirectoryIndex.this.directory,
+						                new Long(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start_time)),
+						                new Integer(SharedDirectoryIndex.this.hashing_threads)));
+
+						SharedDirectoryIndex.this.saveHashCache();
+
+					}
+
+					final Path file = initial_files_hashed ? SharedDirectoryIndex.this.unhashed_files.take()
+					        : SharedDirectoryIndex.this.unhashed_files.poll(100, TimeUnit.MILLISECONDS);
+
+					if (file == null) continue;
+
+					final ArrayList<Path> files = new ArrayList<>(SharedDirectoryIndex.hashing_batch_size);
+					files.add(file);
+					SharedDirectoryIndex.this.unhashed_files.drainTo(files,
+					        SharedDirectoryIndex.hashing_batch_size - 1);
+
+					hashed_files += this.hash(files);
+
+				}
+
+			} catch (@SuppressWarnings("unused") InterruptedException | RejectedExecutionException
+			        | CancellationException ex) {
+				/*
+				 * The index was closed.
+				 */
+			} finally {
+				this.hashing_pool.shutdownNow();
+			}
+
+		}
+
+		/**
+		 * Hashes a batch of queued files in parallel and adds the hashes to
+		 * their entries.
+		 *
+		 * @return The number of hashed files.
+		 */
+		private int hash(final List<Path> files) {
+
+			final HashMap<Path, Entry> unhashed_entries = new HashMap<>();
+
+			for (final Path file : files) {
+
+				final Entry entry = SharedDirectoryIndex.this.entries
+				        .get(SharedDirectoryIndex.this.getFilename(file));
+
+				/*
+				 * A file may be queued more than once or removed in the
+				 * meantime.
+				 */
+				if ((entry != null) && (entry.getHash() == null)) {
+					unhashed_entries.put(file, entry);
+				}
+
+			}
+
+			if (unhashed_entries.isEmpty()) return 0;
+
+			final Map<Path, BigInteger> hashes = Hash.getSHA256(new ArrayList<>(unhashed_entries.keySet()),
+			        this.hashing_pool);
+
+			for (final Map.Entry<Path, Entry> unhashed_entry : unhashed_entries.entrySet()) {
+
+				final Entry entry = unhashed_entry.getValue();
+				final BigInteger hash = hashes.get(unhashed_entry.getKey());
+
+				/*
+				 * A file that could not be read can not be shared either.
+				 */
+				if (hash == null) {
+
+					SharedDirectoryIndex.this
+					        .setModified(SharedDirectoryIndex.this.entries.remove(entry.getFilename(), entry));
+					continue;
+
+				}
+
+				try {
+
+					final BasicFileAttributes attributes = Files.readAttributes(unhashed_entry.getKey(),
+					        BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+					/*
+					 * A file that changed while it was hashed is queued again
+					 * by the event of the change.
+					 */
+					if (!SharedDirectoryIndex.matches(entry, attributes)) continue;
+
+				} catch (@SuppressWarnings("unused") final IOException ex) {
+					// The file was removed in the meantime.
+					continue;
+				}
+
+				if (SharedDirectoryIndex.this.entries.replace(entry.getFilename(), entry, new Entry(
+				        entry.getFilename(), entry.getSize(), entry.getLastModified(), hash.toString(16)))) {
+					SharedDirectoryIndex.this.modified = true;
+				}
+
+			}
+
+			return unhashed_entries.size();
+
+		}
+
+	}
+
+	/**
+	 * The default interval in milliseconds between two full rescans of the
+	 * directory.
+	 */
+	public static final int default_rescan_interval = 60000;
+
+	/**
+	 * The default directory that the hash caches are stored in.
+	 */
+	public static final String default_hash_cache_directory = "cache/hashes";
+
+	/**
+	 * The number of queued files that are hashed in parallel before their
+	 * hashes are added to the index.
+	 */
+	private static final int hashing_batch_size = 1024;
+
+	private static final Histogram startup_latency = MetricsRegistry.getDefault()
+	        .getHistogram("shared_index.startup");
+	private static final Histogram hashing_latency = MetricsRegistry.getDefault()
+	        .getHistogram("shared_index.hashing");
+
+	/**
+	 * @return The matchers of the comma separated glob patterns.
+	 */
+	private static List<PathMatcher> getPathMatchers(final String patterns) {
+
+		final ArrayList<PathMatcher> matchers = new ArrayList<>();
+
+		for (final String pattern : patterns.split(",")) {
+
+			if (pattern.trim().isEmpty()) continue;
+
+			matchers.add(FileSystems.getDefault().getPathMatcher(String.format("glob:%s", pattern.trim())));
+
+		}
+
+		return matchers;
+
+	}
+
+	/**
+	 * @return True If the entry describes the current version of the file,
+	 *         aka. its size and modification time did not change.
+	 */
+	private static boolean matches(final Entry entry, final BasicFileAttributes attributes) {
+
+		return (entry != null) && (entry.getSize() == attributes.size())
+		        && (entry.getLastModified() == attributes.lastModifiedTime().toMillis());
+	}
+
+	/**
+	 * @return True If any of the matchers matches either the relative path or
+	 *         the name of the file.
+	 */
+	private static boolean matchesAny(final List<PathMatcher> matchers, final Path relative_path) {
+
+		final Path name = relative_path.getFileName();
+
+		return matchers.stream().anyMatch(x -> x.matches(relative_path) || ((name != null) && x.matches(name)));
+	}
+
+	private final Path								directory;
+	private final int								rescan_interval;
+	private final int								hashing_threads;
+	private final HashCache							hash_cache;
+	private final List<PathMatcher>					include_matchers;
+	private final List<PathMatcher>					exclude_matchers;
+	private final ConcurrentHashMap<String, Entry>	entries				= new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<WatchKey, Path>	watched_directories	= new ConcurrentHashMap<>();
+	private final CountDownLatch					initial_scan		= new CountDownLatch(1);
+
+	/*
+	 * The files whose entries are published without a hash, in the order they
+	 * were found. Drained by the hasher.
+	 */
+	private final LinkedBlockingQueue<Path> unhashed_files = new LinkedBlockingQueue<>();
+
+	private volatile WatchService watch_service	  = null;
+	private volatile boolean	  modified		  = false;
+	private volatile Runnable	  change_listener = null;
+
+	/**
+	 * Allocates a new SharedDirectoryIndex object. The directory is scanned
+	 * for the first time as soon as the index is started, and the methods that
+	 * read the index block until that scan has walked the whole tree, but not
+	 * until its files are hashed.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that this index belongs to.
+	 * @param name
+	 *            The name of this index.
+	 * @param shared_directory_path
+	 *            The path to the shared directory.
+	 */
+	public SharedDirectoryIndex(final ThreadGroup group, final String name, final String shared_directory_path) {
+		super(group, name);
+
+		this.directory = Paths.get(shared_directory_path).toAbsolutePath().normalize();
+		this.rescan_interval = Math.max(1, Configuration.getDefault().getInteger("shared_index_rescan_interval",
+		        SharedDirectoryIndex.default_rescan_interval));
+
+		final int configured_hashing_threads = Configuration.getDefault().getInteger("hashing_threads", 0);
+		this.hashing_threads = configured_hashing_threads > 0 ? configured_hashing_threads
+		        : Runtime.getRuntime().availableProcessors();
+
+		this.include_matchers = SharedDirectoryIndex
+		        .getPathMatchers(Configuration.getDefault().getString("shared_include_patterns", ""));
+		this.exclude_matchers = SharedDirectoryIndex
+		        .getPathMatchers(Configuration.getDefault().getString("shared_exclude_patterns", ""));
+
+		/*
+		 * Every directory has its own cache, named after the hash of its path,
+		 * so the indexes of different peers never share a file.
+		 */
+		final String hash_cache_directory = Configuration.getDefault()
+		        .getString("hash_cache_directory", SharedDirectoryIndex.default_hash_cache_directory).trim();
+		this.hash_cache = hash_cache_directory.isEmpty() ? null
+		        : new HashCache(Paths.get(hash_cache_directory)
+		                .resolve(String.format("%s.cache", Hash.getSHA1(this.directory.toString()).toString(16))));
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		final WatchService current_watch_service = this.watch_service;
+
+		if (current_watch_service != null) {
+			current_watch_service.close();
+		}
+
+		/*
+		 * Do not leave readers waiting for a scan that is never going to
+		 * happen.
+		 */
+		this.initial_scan.countDown();
+
+	}
+
+	/**
+	 * @return The path of the indexed directory.
+	 */
+	public Path getDirectory() {
+
+		return this.directory;
+	}
+
+	/**
+	 * @param filename
+	 *            The path of the shared file relative to the shared directory.
+	 * @return The indexed information of the file or null if the file is not
+	 *         shared.
+	 */
+	public Entry getEntry(final String filename) {
+
+		this.awaitInitialScan();
+
+		return filename == null ? null : this.entries.get(filename);
+	}
+
+	/**
+	 * Resolves a shared file. Only filenames that are present in the index are
+	 * resolved, so a request can not reach files outside the shared directory.
+	 *
+	 * @param filename
+	 *            The path of the shared file relative to the shared directory.
+	 * @return The shared file or null if the file is not shared.
+	 */
+	public File getFile(final String filename) {
+
+		return this.getEntry(filename) == null ? null : this.directory.resolve(filename).toFile();
+	}
+
+	/**
+	 * @return The descriptions of the shared files as they are sent to the
+	 *         tracker.
+	 */
+	public HashSet<FileDescription> getFileDescriptions() {
+
+		this.awaitInitialScan();
+
+		return new HashSet<>(
+		        this.entries.values().stream().map(x -> x.getFileDescription()).collect(Collectors.toSet()));
+	}
+
+	/**
+	 * @return The shared files.
+	 */
+	public List<File> getFiles() {
+
+		this.awaitInitialScan();
+
+		return this.entries.keySet().stream().map(x -> this.directory.resolve(x).toFile())
+		        .collect(Collectors.toList());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		final Hasher hasher = new Hasher(this.getThreadGroup(), String.format("%s.Hasher", this.getName()));
+
+		try {
+
+			try {
+
+				this.watch_service = this.directory.getFileSystem().newWatchService();
+
+			} catch (IOException | UnsupportedOperationException ex) {
+
+				LoggerManager.tracedLog(this, Level.WARNING, String.format(
+				        "The directory <%s> can not be watched, only rescans are applied.", this.directory), ex);
+
+				this.stopWatching();
+
+			}
+
+			/*
+			 * Every directory is registered right before it is scanned, so no
+			 * change is missed in between. The files are hashed while the walk
+			 * is still in progress.
+			 */
+			final long start_time = System.nanoTime();
+			final Map<String, Entry> cached_entries = this.hash_cache == null ? Collections.emptyMap()
+			        : this.hash_cache.load();
+
+			hasher.start();
+
+			final int queued_files = this.rescan(cached_entries);
+			this.initial_scan.countDown();
+
+			SharedDirectoryIndex.startup_latency.recordSince(start_time);
+
+			LoggerManager.tracedLog(this, Level.INFO,
+			        String.format("Indexed %d files of <%s> in %d ms, %d cached and %d queued to be hashed.",
+			                new Integer(this.entries.size()), this.directory,
+			                new Long(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start_time)),
+			                new Integer(this.entries.size() - queued_files), new Integer(queued_files)));
+
+			long next_rescan_time = System.currentTimeMillis() + this.rescan_interval;
+
+			while (!this.isInterrupted()) {
+
+				final long timeout = next_rescan_time - System.currentTimeMillis();
+
+				if (timeout > 0) {
+
+					final WatchService current_watch_service = this.watch_service;
+
+					if (current_watch_service == null) {
+						Thread.sleep(timeout);
+					}
+					else {
+
+						final WatchKey key = current_watch_service.poll(timeout, TimeUnit.MILLISECONDS);
+
+						if (key != null) {
+							this.process(key);
+						}
+
+					}
+
+				}
+				else {
+
+					this.rescan(Collections.emptyMap());
+					this.saveHashCache();
+
+					next_rescan_time = System.currentTimeMillis() + this.rescan_interval;
+
+				}
+
+			}
+
+		} catch (@SuppressWarnings("unused") InterruptedException | ClosedWatchServiceException ex) {
+			/*
+			 * The index was closed.
+			 */
+		} finally {
+
+			this.initial_scan.countDown();
+			this.stopWatching();
+
+			hasher.interrupt();
+			this.saveHashCache();
+
+		}
+
+	}
+
+	/**
+	 * Sets the listener that is notified whenever the indexed files change.
+	 *
+	 * @param change_listener
+	 *            The listener or null to stop notifying.
+	 */
+	public void setChangeListener(final Runnable change_listener) {
+
+		this.change_listener = change_listener;
+	}
+
+	private void awaitInitialScan() {
+
+		try {
+
+			this.initial_scan.await();
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+	}
+
+	/**
+	 * @return The path of the file relative to the shared directory, with
+	 *         <i>/</i> as the separator on every platform.
+	 */
+	private String getFilename(final Path file) {
+
+		final StringJoiner filename = new StringJoiner("/");
+
+		for (final Path name : this.directory.relativize(file)) {
+			filename.add(name.toString());
+		}
+
+		return filename.toString();
+
+	}
+
+	/**
+	 * @return True If the directory matches any of the exclude patterns.
+	 */
+	private boolean isExcluded(final Path directory) {
+
+		return !directory.equals(this.directory)
+		        && SharedDirectoryIndex.matchesAny(this.exclude_matchers, this.directory.relativize(directory));
+	}
+
+	/**
+	 * @return True If the file matches any of the include patterns, or none
+	 *         are set, and none of the exclude patterns.
+	 */
+	private boolean isShared(final Path file) {
+
+		final Path relative_path = this.directory.relativize(file);
+
+		return (this.include_matchers.isEmpty()
+		        || SharedDirectoryIndex.matchesAny(this.include_matchers, relative_path))
+		        && !SharedDirectoryIndex.matchesAny(this.exclude_matchers, relative_path);
+	}
+
+	private void process(final WatchKey key) {
+
+		final Path watched_directory = this.watched_directories.get(key);
+
+		for (final WatchEvent<?> event : key.pollEvents()) {
+
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+
+				/*
+				 * Some events were lost, only a rescan can tell what changed.
+				 */
+				this.rescan(Collections.emptyMap());
+
+			}
+			else if (watched_directory != null) {
+
+				final Path file = watched_directory.resolve((Path) event.context());
+
+				if ((event.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+				        && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+
+					/*
+					 * A new directory may already contain files, e.g. if it was
+					 * moved into the shared directory, so its whole tree is
+					 * scanned.
+					 */
+					try {
+						this.scan(file, Collections.emptyMap(), new HashSet<>());
+					} catch (@SuppressWarnings("unused") final IOException ex) {
+						// The directory was removed in the meantime.
+					}
+
+				}
+				else {
+					this.update(file);
+				}
+
+			}
+
+		}
+
+		if (!key.reset()) {
+
+			this.watched_directories.remove(key);
+
+			/*
+			 * The keys of removed subdirectories are invalidated as well, their
+			 * entries are removed by the event of their parent.
+			 */
+			if (this.directory.equals(watched_directory)) {
+
+				LoggerManager.tracedLog(this, Level.WARNING, String
+				        .format("The directory <%s> is no longer watched, only rescans are applied.", this.directory));
+
+				this.stopWatching();
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Registers a directory with the watch service, if the index is still
+	 * watching.
+	 */
+	private void register(final Path directory) {
+
+		final WatchService current_watch_service = this.watch_service;
+
+		if (current_watch_service == null) return;
+
+		try {
+
+			this.watched_directories.put(directory.register(current_watch_service, StandardWatchEventKinds.ENTRY_CREATE,
+			        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), directory);
+
+		} catch (final IOException ex) {
+
+			if (this.directory.equals(directory)) {
+
+				LoggerManager.tracedLog(this, Level.WARNING, String.format(
+				        "The directory <%s> can not be watched, only rescans are applied.", this.directory), ex);
+
+				this.stopWatching();
+
+			}
+			else {
+
+				LoggerManager.tracedLog(this, Level.WARNING, String.format(
+				        "The directory <%s> can not be watched, its changes are only applied by rescans.", directory),
+				        ex);
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Adds the entry of a file to the index without a hash and queues the file
+	 * to be hashed.
+	 */
+	private void publish(final Path file, final String filename, final BasicFileAttributes attributes) {
+
+		this.entries.put(filename,
+		        new Entry(filename, attributes.size(), attributes.lastModifiedTime().toMillis(), null));
+		this.unhashed_files.add(file);
+
+	}
+
+	/**
+	 * Removes the entry of a file, or the entries of all the files under it if
+	 * it was a directory.
+	 *
+	 * @return True If any entry was removed.
+	 */
+	private boolean remove(final String filename) {
+
+		final String prefix = String.format("%s/", filename);
+
+		final boolean removed_file = this.entries.remove(filename) != null;
+		final boolean removed_directory = this.entries.keySet().removeIf(x -> x.startsWith(prefix));
+
+		return removed_file || removed_directory;
+
+	}
+
+	/**
+	 * Scans the whole directory tree. The files that are neither indexed nor
+	 * cached with the same size and modification time are queued to be
+	 * hashed.
+	 *
+	 * @return The number of queued files.
+	 */
+	private int rescan(final Map<String, Entry> cached_entries) {
+
+		final HashSet<String> present_files = new HashSet<>();
+		final int queued_files;
+
+		try {
+
+			queued_files = this.scan(this.directory, cached_entries, present_files);
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(this, Level.WARNING,
+			        String.format("The directory <%s> could not be scanned.", this.directory), ex);
+
+			return 0;
+
+		}
+
+		this.setModified(this.entries.keySet().retainAll(present_files));
+
+		return queued_files;
+
+	}
+
+	/**
+	 * Saves the entries to the hash cache if any of them changed since the
+	 * last time they were saved. Called by both the index and the hasher.
+	 */
+	private void saveHashCache() {
+
+		if (this.hash_cache == null) return;
+
+		synchronized (this.hash_cache) {
+
+			if (!this.modified) return;
+
+			this.modified = false;
+			this.hash_cache.save(this.entries.values());
+
+		}
+
+	}
+
+	/**
+	 * Walks the tree under the specified directory and indexes its files.
+	 *
+	 * @param present_files
+	 *            Collects the filenames of the shared files that were found.
+	 * @return The number of files that were queued to be hashed.
+	 * @throws IOException
+	 *             If the specified directory can not be read.
+	 */
+	private int scan(final Path start, final Map<String, Entry> cached_entries, final Set<String> present_files)
+	        throws IOException {
+
+		final Scanner scanner = new Scanner(cached_entries, present_files);
+
+		Files.walkFileTree(start, scanner);
+
+		/*
+		 * The cache should also be saved if some of its files are gone.
+		 */
+		this.setModified((scanner.cached_files < cached_entries.size()) || (scanner.changed_files > 0));
+
+		return scanner.changed_files;
+
+	}
+
+	/**
+	 * Marks the entries as changed since they were last saved, if they did,
+	 * and notifies the change listener.
+	 */
+	private void setModified(final boolean modified) {
+
+		if (!modified) return;
+
+		this.modified = true;
+
+		final Runnable current_change_listener = this.change_listener;
+
+		if (current_change_listener != null) {
+			current_change_listener.run();
+		}
+
+	}
+
+	private void stopWatching() {
+
+		final WatchService current_watch_service = this.watch_service;
+		this.watch_service = null;
+		this.watched_directories.clear();
+
+		if (current_watch_service != null) {
+
+			try {
+				current_watch_service.close();
+			} catch (@SuppressWarnings("unused") final IOException ex) {
+				// The watch service is discarded anyway.
+			}
+
+		}
+
+	}
+
+	/**
+	 * Updates the entry of a single file. The file is only queued to be hashed
+	 * again if its size or modification time changed.
+	 */
+	private void update(final Path file) {
+
+		final String filename = this.getFilename(file);
+
+		try {
+
+			final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class,
+			        LinkOption.NOFOLLOW_LINKS);
+
+			/*
+			 * The changes in a subdirectory are reported by its own key.
+			 */
+			if (attributes.isDirectory()) return;
+
+			if (!attributes.isRegularFile() || !this.isShared(file)) {
+
+				this.setModified(this.remove(filename));
+				return;
+
+			}
+
+			if (SharedDirectoryIndex.matches(this.entries.get(filename), attributes)) return;
+
+			this.publish(file, filename, attributes);
+			this.setModified(true);
+
+		} catch (@SuppressWarnings("unused") final IOException ex) {
+
+			/*
+			 * The file or directory was removed or can not be read, in both
+			 * cases it can not be shared.
+			 */
+			this.setModified(this.remove(filename));
+
+		}
+
+	}
+
+}
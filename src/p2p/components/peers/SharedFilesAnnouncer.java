@@ -0,0 +1,153 @@
+package p2p.components.peers;
+
+import java.io.IOException;
+import java.util.logging.Level;
+
+import p2p.components.Configuration;
+import p2p.components.communication.CloseableThread;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A SharedFilesAnnouncer object announces the changes of a peer's shared
+ * directory to the tracker as soon as the directory settles. Every change that
+ * the {@link SharedDirectoryIndex} reports restarts a delay of
+ * <i>announce_delay</i> milliseconds, so a burst of changes, e.g. a directory
+ * being copied, is sent through a single announcement. A steady stream of
+ * changes is still announced at least once every ten delays. A failed
+ * announcement is retried after the same delay for as long as the peer is
+ * logged in.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class SharedFilesAnnouncer extends CloseableThread {
+
+	/**
+	 * The default amount of milliseconds without changes before the changes
+	 * are announced.
+	 */
+	public static final int default_announce_delay = 2000;
+
+	private final Peer peer;
+	private final long announce_delay;
+
+	private long	first_change_time = 0;
+	private long	last_change_time  = 0;
+	private boolean	pending			  = false;
+
+	/**
+	 * Allocates a new SharedFilesAnnouncer object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that this announcer belongs to.
+	 * @param name
+	 *            The name of this announcer.
+	 * @param peer
+	 *            The peer whose changes are announced.
+	 */
+	public SharedFilesAnnouncer(final ThreadGroup group, final String name, final Peer peer) {
+		super(group, name);
+
+		this.peer = peer;
+		this.announce_delay = Math.max(0, Configuration.getDefault().getInteger("announce_delay",
+		        SharedFilesAnnouncer.default_announce_delay));
+
+		this.setDaemon(true);
+
+	}
+
+	/**
+	 * Reports a change of the shared directory. Does not block, so it can be
+	 * called by the index while it updates its entries.
+	 */
+	public synchronized void changed() {
+
+		this.last_change_time = System.currentTimeMillis();
+
+		if (!this.pending) {
+
+			this.first_change_time = this.last_change_time;
+			this.pending = true;
+
+		}
+
+		this.notifyAll();
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		/*
+		 * The announcer only waits on its own monitor, the interrupt is enough.
+		 */
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		try {
+
+			while (!this.isInterrupted()) {
+
+				this.awaitQuietPeriod();
+
+				/*
+				 * Changes made while logged out are sent by the next login.
+				 */
+				if (!this.peer.isLoggedIn()) continue;
+
+				if (!this.peer.announceSharedFiles()) {
+
+					LoggerManager.tracedLog(this, Level.FINE,
+					        "The changes of the shared directory could not be announced, retrying later.");
+
+					this.changed();
+
+				}
+
+			}
+
+		} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+			/*
+			 * The peer was closed.
+			 */
+		}
+
+	}
+
+	/**
+	 * Blocks until a change is pending and either no other change was reported
+	 * for a whole delay or ten delays passed since the first pending change.
+	 */
+	private synchronized void awaitQuietPeriod() throws InterruptedException {
+
+		while (true) {
+
+			if (!this.pending) {
+				this.wait();
+				continue;
+			}
+
+			final long current_time = System.currentTimeMillis();
+			final long timeout = Math.min(this.last_change_time + this.announce_delay,
+			        this.first_change_time + (10 * this.announce_delay)) - current_time;
+
+			if (timeout <= 0) break;
+
+			this.wait(timeout);
+
+		}
+
+		this.pending = false;
+
+	}
+
+}
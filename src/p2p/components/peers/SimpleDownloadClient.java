@@ -5,12 +5,19 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Level;
 
 import p2p.components.communication.ClientChannel;
 import p2p.components.communication.messages.Reply;
 import p2p.components.communication.messages.Request;
+import p2p.components.events.Events;
+import p2p.components.events.TransferEvent;
 import p2p.components.exceptions.FailedRequestException;
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.metrics.Ranking;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -21,6 +28,12 @@ import p2p.utilities.LoggerManager;
  */
 public class SimpleDownloadClient extends ClientChannel {
 
+	private static final Histogram download_latency = MetricsRegistry.getDefault().getHistogram("transfer.download");
+	private static final Counter   downloaded_bytes = MetricsRegistry.getDefault()
+	        .getCounter("transfer.downloaded_bytes");
+	private static final Ranking   downloaded_files = MetricsRegistry.getDefault()
+	        .getRanking("transfer.downloaded_files");
+
 	private final String filename;
 	private final File	 shared_directory;
 
@@ -58,20 +71,38 @@ public class SimpleDownloadClient extends ClientChannel {
 
 		if (this.shared_directory.isDirectory()) {
 
-			final File file = new File(this.shared_directory, this.filename);
+			final Path shared_path = this.shared_directory.toPath().toAbsolutePath().normalize();
+			final Path file_path = shared_path.resolve(this.filename).normalize();
+			final File file = file_path.toFile();
 
-			if (!file.exists()) {
+			/*
+			 * Filenames are paths relative to the shared directory and must not
+			 * lead outside of it.
+			 */
+			if (file_path.startsWith(shared_path) && !file_path.equals(shared_path) && !file.exists()) {
 
 				this.out.writeObject(new Request<>(Request.Type.SIMPLE_DOWNLOAD, this.filename));
 
-				LoggerManager.tracedLog(this, Level.FINE, String.format(
+				LoggerManager.tracedLog(this, Level.FINE, () -> String.format(
 				        "A new download request for the file <%s> was sent through the channel.", this.filename));
 
+				final TransferEvent event = Events.newTransferEvent();
+				event.begin();
+
+				final long start_time = System.nanoTime();
+				long downloaded_length = 0;
+
 				try {
 
 					final byte[] file_data = Reply.getValidatedData(this.in.readObject(), byte[].class);
 
-					Files.write(file.toPath(), file_data);
+					Files.createDirectories(file_path.getParent());
+					Files.write(file_path, file_data);
+
+					SimpleDownloadClient.download_latency.recordSince(start_time);
+					SimpleDownloadClient.downloaded_bytes.add(file_data.length);
+					SimpleDownloadClient.downloaded_files.add(this.filename, file_data.length);
+					downloaded_length = file_data.length;
 
 					this.status = Status.SUCCESSFULL;
 
@@ -81,6 +112,8 @@ public class SimpleDownloadClient extends ClientChannel {
 
 					this.status = Status.FAILED;
 
+				} finally {
+					event.complete(TransferEvent.DOWNLOAD, this.filename, downloaded_length, start_time);
 				}
 
 			}
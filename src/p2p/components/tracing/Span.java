@@ -0,0 +1,203 @@
+package p2p.components.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A Span object represents a timed operation of a trace, eg. the search phase
+ * of a download or the processing of a request by a server. Spans are created
+ * by the {@link Tracer} class and become the current span of the thread that
+ * created them until they are closed, so any span or request created in
+ * the meantime is associated with them. A closed span is handed to the tracer
+ * to be written to the trace file.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class Span implements AutoCloseable {
+
+	/**
+	 * The span returned while tracing is disabled or when there is no trace to
+	 * be continued. It records nothing.
+	 */
+	static final Span NOOP = new Span();
+
+	private final long	 trace_id;
+	private final long	 span_id;
+	private final long	 parent_id;
+	private final String name;
+	private final Span	 previous;
+	private final Thread thread;
+
+	private final long start_time;
+	private final long start_nano_time;
+	private long	   duration = -1;
+
+	private final Map<String, String> attributes;
+
+	/**
+	 * Allocates a new Span object that records nothing.
+	 */
+	private Span() {
+
+		this.trace_id = 0;
+		this.span_id = 0;
+		this.parent_id = 0;
+		this.name = null;
+		this.previous = null;
+		this.thread = null;
+		this.start_time = 0;
+		this.start_nano_time = 0;
+		this.attributes = Collections.emptyMap();
+
+	}
+
+	/**
+	 * Allocates a new Span object and makes it the current span of the current
+	 * thread.
+	 *
+	 * @param trace_id
+	 *            The id of the trace that the span belongs to.
+	 * @param span_id
+	 *            The id of the span.
+	 * @param parent_id
+	 *            The id of the parent span or zero if it is the root span.
+	 * @param name
+	 *            The name of the operation.
+	 * @param previous
+	 *            The current span of the thread, restored when this span is
+	 *            closed.
+	 */
+	Span(final long trace_id, final long span_id, final long parent_id, final String name, final Span previous) {
+
+		this.trace_id = trace_id;
+		this.span_id = span_id;
+		this.parent_id = parent_id;
+		this.name = name;
+		this.previous = previous;
+		this.thread = Thread.currentThread();
+		this.start_time = System.currentTimeMillis();
+		this.start_nano_time = System.nanoTime();
+		this.attributes = new LinkedHashMap<>();
+
+	}
+
+	/**
+	 * Ends the span, restores the previous span of the thread and passes the
+	 * span to the tracer to be written. Closing a span more than once has no
+	 * effect.
+	 */
+	@Override
+	public void close() {
+
+		if (this.isRecording() && (this.duration < 0)) {
+
+			this.duration = (System.nanoTime() - this.start_nano_time) / 1000;
+
+			if (Thread.currentThread() == this.thread) {
+				Tracer.restore(this, this.previous);
+			}
+
+			Tracer.record(this);
+
+		}
+
+	}
+
+	/**
+	 * @return The attributes of the span.
+	 */
+	public synchronized Map<String, String> getAttributes() {
+
+		return Collections.unmodifiableMap(new LinkedHashMap<>(this.attributes));
+	}
+
+	/**
+	 * @return The duration of the span in microseconds or -1 if the span is
+	 *         still open.
+	 */
+	public long getDuration() {
+
+		return this.duration;
+	}
+
+	/**
+	 * @return The name of the operation.
+	 */
+	public String getName() {
+
+		return this.name;
+	}
+
+	/**
+	 * @return The id of the parent span or zero if the span is the root.
+	 */
+	public long getParentID() {
+
+		return this.parent_id;
+	}
+
+	/**
+	 * @return The id of the span or zero if it records nothing.
+	 */
+	public long getSpanID() {
+
+		return this.span_id;
+	}
+
+	/**
+	 * @return The start time of the span in milliseconds since the epoch.
+	 */
+	public long getStartTime() {
+
+		return this.start_time;
+	}
+
+	/**
+	 * @return The thread that created the span.
+	 */
+	public Thread getThread() {
+
+		return this.thread;
+	}
+
+	/**
+	 * @return The id of the trace or zero if the span records nothing.
+	 */
+	public long getTraceID() {
+
+		return this.trace_id;
+	}
+
+	/**
+	 * @return If the span is going to be written when it is closed.
+	 */
+	public boolean isRecording() {
+
+		return this != Span.NOOP;
+	}
+
+	/**
+	 * Sets an attribute of the span. Ignored if the span records nothing.
+	 *
+	 * @param key
+	 *            The name of the attribute.
+	 * @param value
+	 *            The value of the attribute, converted to a string.
+	 * @return This span.
+	 */
+	public Span setAttribute(final String key, final Object value) {
+
+		if (this.isRecording()) {
+
+			synchronized (this) {
+				this.attributes.put(key, String.valueOf(value));
+			}
+
+		}
+
+		return this;
+
+	}
+
+}
@@ -0,0 +1,238 @@
+package p2p.components.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Level;
+
+import p2p.components.metrics.Counter;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A TraceWriter object appends the closed {@link Span} objects to the trace
+ * file from its own low priority thread. The spans are queued in a bounded
+ * queue, if it is full the span is dropped instead of blocking the thread that
+ * closed it. Every span is written as a JSON object on its own line, its start
+ * time in milliseconds since the epoch and its duration in microseconds.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+final class TraceWriter extends Thread {
+
+	/**
+	 * The number of spans that can wait to be written.
+	 */
+	private static final int queue_capacity = 4096;
+
+	private static final Counter dropped_spans = MetricsRegistry.getDefault().getCounter("tracing.dropped_spans");
+	private static final Counter written_spans = MetricsRegistry.getDefault().getCounter("tracing.written_spans");
+
+	/**
+	 * Appends the text as a JSON string.
+	 */
+	private static void appendString(final StringBuilder builder, final String text) {
+
+		if (text == null) {
+
+			builder.append("null");
+			return;
+
+		}
+
+		builder.append('"');
+
+		for (int i = 0; i < text.length(); i++) {
+
+			final char c = text.charAt(i);
+
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					builder.append(String.format("\\u%04x", new Integer(c)));
+				}
+				else {
+					builder.append(c);
+				}
+			}
+
+		}
+
+		builder.append('"');
+
+	}
+
+	private final Path	 path;
+	private final String process;
+
+	private final ArrayBlockingQueue<Span> queue = new ArrayBlockingQueue<>(TraceWriter.queue_capacity);
+
+	private final BufferedWriter out;
+
+	/**
+	 * Allocates a new TraceWriter object and opens the trace file.
+	 *
+	 * @param path
+	 *            The path of the trace file.
+	 * @param process
+	 *            The name of the process.
+	 * @throws IOException
+	 *             If the file can not be opened.
+	 */
+	TraceWriter(final Path path, final String process) throws IOException {
+		super(TraceWriter.class.getSimpleName());
+
+		this.path = path;
+		this.process = process;
+		this.out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+		        StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+
+		this.setDaemon(true);
+		this.setPriority(Thread.MIN_PRIORITY);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		final List<Span> spans = new ArrayList<>();
+
+		try {
+
+			try {
+
+				while (true) {
+
+					spans.add(this.queue.take());
+					this.queue.drainTo(spans);
+					this.write(spans);
+
+				}
+
+			} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+
+				/*
+				 * Write whatever was closed before tracing was disabled.
+				 */
+				this.queue.drainTo(spans);
+				this.write(spans);
+
+			} finally {
+				this.out.close();
+			}
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(this, Level.WARNING,
+			        String.format("The spans could not be written to <%s>.", this.path), ex);
+
+		}
+
+	}
+
+	/**
+	 * Queues a closed span to be written.
+	 *
+	 * @param span
+	 *            The span to be written.
+	 */
+	void write(final Span span) {
+
+		if (!this.queue.offer(span)) {
+			TraceWriter.dropped_spans.increment();
+		}
+
+	}
+
+	/**
+	 * @return The span as a JSON object.
+	 */
+	private String toJSON(final Span span) {
+
+		final StringBuilder builder = new StringBuilder(256);
+
+		builder.append(String.format("{\"trace_id\":\"%016x\",\"span_id\":\"%016x\",\"parent_id\":",
+		        new Long(span.getTraceID()), new Long(span.getSpanID())));
+
+		if (span.getParentID() == 0) {
+			builder.append("null");
+		}
+		else {
+			builder.append(String.format("\"%016x\"", new Long(span.getParentID())));
+		}
+
+		builder.append(",\"name\":");
+		TraceWriter.appendString(builder, span.getName());
+		builder.append(",\"process\":");
+		TraceWriter.appendString(builder, this.process);
+		builder.append(",\"thread\":");
+		TraceWriter.appendString(builder, span.getThread().getName());
+		builder.append(String.format(",\"start\":%d,\"duration\":%d,\"attributes\":{", new Long(span.getStartTime()),
+		        new Long(span.getDuration())));
+
+		for (final Iterator<Map.Entry<String, String>> it = span.getAttributes().entrySet().iterator(); it
+		        .hasNext();) {
+
+			final Map.Entry<String, String> attribute = it.next();
+
+			TraceWriter.appendString(builder, attribute.getKey());
+			builder.append(':');
+			TraceWriter.appendString(builder, attribute.getValue());
+
+			if (it.hasNext()) {
+				builder.append(',');
+			}
+
+		}
+
+		return builder.append("}}").toString();
+
+	}
+
+	/**
+	 * Writes and clears the spans.
+	 */
+	private void write(final List<Span> spans) throws IOException {
+
+		for (final Span span : spans) {
+
+			this.out.write(this.toJSON(span));
+			this.out.newLine();
+
+		}
+
+		this.out.flush();
+
+		TraceWriter.written_spans.add(spans.size());
+		spans.clear();
+
+	}
+
+}
@@ -0,0 +1,211 @@
+package p2p.components.tracing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The Tracer class creates the {@link Span} objects of the application and
+ * keeps the current span of every thread. The current span is not inherited by
+ * other threads, eg. pooled workers that outlive it, but is handed explicitly
+ * to the channels started on behalf of an operation, so that they join its
+ * trace. Every request created while a span is active carries the ids that the
+ * receiver needs to continue the trace. Closed spans are written
+ * asynchronously, one JSON object per line, to a local trace file. While no
+ * trace file is open tracing is disabled and every span returned records
+ * nothing.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public final class Tracer {
+
+	private static final ThreadLocal<Span> current = new ThreadLocal<>();
+
+	private static volatile TraceWriter writer = null;
+
+	/**
+	 * Stops writing spans and closes the trace file, disabling tracing.
+	 */
+	public static synchronized void close() {
+
+		final TraceWriter trace_writer = Tracer.writer;
+
+		Tracer.writer = null;
+
+		if (trace_writer != null) {
+			trace_writer.interrupt();
+		}
+
+	}
+
+	/**
+	 * @return The current span of the thread or null if there is none.
+	 */
+	public static Span getCurrent() {
+
+		return Tracer.current.get();
+	}
+
+	/**
+	 * @return If a trace file is open.
+	 */
+	public static boolean isEnabled() {
+
+		return Tracer.writer != null;
+	}
+
+	/**
+	 * Opens the trace file, replacing any previously open one, and enables
+	 * tracing.
+	 *
+	 * @param path
+	 *            The path of the trace file. Spans are appended to it.
+	 * @param process
+	 *            The name of the process that is written with every span, eg.
+	 *            tracker or peer.
+	 * @throws IOException
+	 *             If the file can not be opened.
+	 */
+	public static synchronized void open(final Path path, final String process) throws IOException {
+
+		final TraceWriter trace_writer = new TraceWriter(path, process);
+
+		Tracer.close();
+
+		trace_writer.start();
+		Tracer.writer = trace_writer;
+
+	}
+
+	/**
+	 * Makes the specified span the current span of the thread. Used by threads
+	 * that continue the work of a span created by another thread, eg. the
+	 * channels.
+	 *
+	 * @param span
+	 *            The span or null.
+	 */
+	public static void setCurrent(final Span span) {
+
+		Tracer.current.set(span);
+	}
+
+	/**
+	 * Starts a span that continues a trace started by a remote process.
+	 *
+	 * @param trace_id
+	 *            The id of the trace or zero if there is no trace.
+	 * @param parent_id
+	 *            The id of the remote parent span.
+	 * @param name
+	 *            The name of the operation.
+	 * @return The new span or a span that records nothing if tracing is
+	 *         disabled or there is no trace.
+	 */
+	public static Span startRemoteSpan(final long trace_id, final long parent_id, final String name) {
+
+		if ((trace_id == 0) || !Tracer.isEnabled()) return Span.NOOP;
+
+		return Tracer.start(trace_id, parent_id, name);
+	}
+
+	/**
+	 * Starts a child span of the current span of the thread.
+	 *
+	 * @param name
+	 *            The name of the operation.
+	 * @return The new span or a span that records nothing if tracing is
+	 *         disabled or the thread has no current span.
+	 */
+	public static Span startSpan(final String name) {
+
+		return Tracer.startSpan(Tracer.getCurrent(), name);
+	}
+
+	/**
+	 * Starts a child span of the specified span. Used when the work is handed
+	 * to threads that do not share the current span, eg. the workers of a
+	 * parallel stream.
+	 *
+	 * @param parent
+	 *            The parent span or null.
+	 * @param name
+	 *            The name of the operation.
+	 * @return The new span or a span that records nothing if tracing is
+	 *         disabled or the parent records nothing.
+	 */
+	public static Span startSpan(final Span parent, final String name) {
+
+		if ((parent == null) || !parent.isRecording() || !Tracer.isEnabled()) return Span.NOOP;
+
+		return Tracer.start(parent.getTraceID(), parent.getSpanID(), name);
+	}
+
+	/**
+	 * Starts the root span of a new trace.
+	 *
+	 * @param name
+	 *            The name of the operation.
+	 * @return The new span or a span that records nothing if tracing is
+	 *         disabled.
+	 */
+	public static Span startTrace(final String name) {
+
+		if (!Tracer.isEnabled()) return Span.NOOP;
+
+		return Tracer.start(Tracer.newID(), 0, name);
+	}
+
+	/**
+	 * Passes a closed span to the writer.
+	 */
+	static void record(final Span span) {
+
+		final TraceWriter trace_writer = Tracer.writer;
+
+		if (trace_writer != null) {
+			trace_writer.write(span);
+		}
+
+	}
+
+	/**
+	 * Restores the previous span of the thread, if the closed span is still
+	 * the current one.
+	 */
+	static void restore(final Span span, final Span previous) {
+
+		if (Tracer.current.get() == span) {
+			Tracer.current.set(previous);
+		}
+
+	}
+
+	/**
+	 * @return A random non zero id.
+	 */
+	private static long newID() {
+
+		long id;
+
+		do {
+			id = ThreadLocalRandom.current().nextLong();
+		} while (id == 0);
+
+		return id;
+
+	}
+
+	private static Span start(final long trace_id, final long parent_id, final String name) {
+
+		final Span span = new Span(trace_id, Tracer.newID(), parent_id, name, Tracer.current.get());
+
+		Tracer.current.set(span);
+
+		return span;
+
+	}
+
+	private Tracer() {}
+
+}
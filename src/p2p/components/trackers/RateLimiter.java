@@ -0,0 +1,226 @@
+package p2p.components.trackers;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import p2p.components.Configuration;
+import p2p.components.communication.messages.Request;
+
+/**
+ * A RateLimiter object keeps a token bucket for every session and for every
+ * source host and decides if a request should be processed or rejected. The
+ * limits are configured per {@link Request.Type} through the properties
+ * <i>&lt;type&gt;_session_rate_limit</i>, <i>&lt;type&gt;_session_rate_burst</i>,
+ * <i>&lt;type&gt;_host_rate_limit</i> and <i>&lt;type&gt;_host_rate_burst</i>,
+ * where the rate is measured in requests per second. A missing or zero rate
+ * disables the corresponding limit. The buckets of at most
+ * <i>rate_limiter_max_buckets</i> sessions and as many hosts are kept, the
+ * least recently used are discarded first.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class RateLimiter {
+
+	/**
+	 * A RateLimiter#Limit object holds the configured rate and burst of a
+	 * request type.
+	 */
+	private static final class Limit {
+
+		private final double rate;
+		private final double burst;
+
+		private Limit(final int rate, final int burst) {
+
+			this.rate = Math.max(0, rate);
+			this.burst = Math.max(Math.max(1, burst), this.rate);
+		}
+
+		private boolean isEnabled() {
+
+			return this.rate > 0;
+		}
+
+	}
+
+	/**
+	 * A RateLimiter#Buckets object keeps the buckets of every request type for
+	 * a bounded number of keys, either session ids or hosts, in least recently
+	 * used order. It should only be accessed while holding the lock of the
+	 * rate limiter.
+	 */
+	private static final class Buckets<K> extends LinkedHashMap<K, EnumMap<Request.Type, TokenBucket>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int max_size;
+
+		private Buckets(final int max_size) {
+			super(16, 0.75f, true);
+
+			this.max_size = Math.max(1, max_size);
+		}
+
+		private TokenBucket getBucket(final K key, final Request.Type type, final Limit limit, final long now) {
+
+			return this.computeIfAbsent(key, x -> new EnumMap<>(Request.Type.class)).computeIfAbsent(type,
+			        x -> new TokenBucket(limit.burst, now));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+		 */
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<K, EnumMap<Request.Type, TokenBucket>> eldest) {
+
+			return this.size() > this.max_size;
+		}
+
+	}
+
+	/**
+	 * A RateLimiter#TokenBucket object is refilled at a constant rate up to its
+	 * capacity and every request consumes a single token.
+	 */
+	private static final class TokenBucket {
+
+		private double tokens;
+		private long   last_refill_time;
+
+		private TokenBucket(final double capacity, final long now) {
+
+			this.tokens = capacity;
+			this.last_refill_time = now;
+		}
+
+		private void consume() {
+
+			this.tokens -= 1;
+		}
+
+		/**
+		 * @return 0 If a token is available or else the amount of milliseconds
+		 *         until a token becomes available.
+		 */
+		private long getRetryAfter(final Limit limit, final long now) {
+
+			this.refill(limit, now);
+
+			if (this.tokens >= 1) return 0;
+
+			return (long) Math.ceil(((1 - this.tokens) * 1000) / limit.rate);
+
+		}
+
+		private void refill(final Limit limit, final long now) {
+
+			if (now <= this.last_refill_time) return;
+
+			this.tokens = Math.min(limit.burst, this.tokens + (((now - this.last_refill_time) * limit.rate) / 1000));
+			this.last_refill_time = now;
+		}
+
+	}
+
+	/**
+	 * The default maximum number of sessions, and of hosts, whose buckets are
+	 * kept before the least recently used are discarded.
+	 */
+	public static final int default_max_buckets = 10000;
+
+	private final EnumMap<Request.Type, Limit> session_limits = new EnumMap<>(Request.Type.class);
+	private final EnumMap<Request.Type, Limit> host_limits	  = new EnumMap<>(Request.Type.class);
+
+	private final Buckets<Integer> session_buckets;
+	private final Buckets<String>  host_buckets;
+
+	/**
+	 * Allocates a new RateLimiter object based on the default configuration.
+	 */
+	public RateLimiter() {
+		this(Configuration.getDefault());
+	}
+
+	/**
+	 * Allocates a new RateLimiter object.
+	 *
+	 * @param configuration
+	 *            The configuration that the limits are read from.
+	 */
+	public RateLimiter(final Configuration configuration) {
+
+		for (final Request.Type type : Request.Type.values()) {
+
+			final String prefix = type.name().toLowerCase();
+
+			this.session_limits.put(type,
+			        new Limit(configuration.getInteger(String.format("%s_session_rate_limit", prefix), 0),
+			                configuration.getInteger(String.format("%s_session_rate_burst", prefix), 0)));
+			this.host_limits.put(type,
+			        new Limit(configuration.getInteger(String.format("%s_host_rate_limit", prefix), 0),
+			                configuration.getInteger(String.format("%s_host_rate_burst", prefix), 0)));
+
+		}
+
+		final int max_buckets = configuration.getInteger("rate_limiter_max_buckets", RateLimiter.default_max_buckets);
+
+		this.session_buckets = new Buckets<>(max_buckets);
+		this.host_buckets = new Buckets<>(max_buckets);
+
+	}
+
+	/**
+	 * Checks both the session's and the host's bucket for the specified request
+	 * type. A token is consumed from either bucket only if both of them allow
+	 * the request.
+	 *
+	 * @param type
+	 *            The type of the request.
+	 * @param session_id
+	 *            The session id carried by the request or null if the request
+	 *            does not carry one.
+	 * @param host
+	 *            The address of the host that sent the request.
+	 * @return 0 If the request should be processed or else the amount of
+	 *         milliseconds the sender should wait before retrying.
+	 */
+	public long tryAcquire(final Request.Type type, final Integer session_id, final String host) {
+
+		final Limit host_limit = this.host_limits.get(type);
+		final Limit session_limit = this.session_limits.get(type);
+		final boolean limit_host = host_limit.isEnabled();
+		final boolean limit_session = session_limit.isEnabled() && (session_id != null);
+
+		if (!limit_host && !limit_session) return 0;
+
+		final long now = System.currentTimeMillis();
+
+		synchronized (this) {
+
+			final TokenBucket host_bucket = limit_host ? this.host_buckets.getBucket(host, type, host_limit, now)
+			        : null;
+			final TokenBucket session_bucket = limit_session
+			        ? this.session_buckets.getBucket(session_id, type, session_limit, now) : null;
+
+			final long retry_after = Math.max(host_bucket == null ? 0 : host_bucket.getRetryAfter(host_limit, now),
+			        session_bucket == null ? 0 : session_bucket.getRetryAfter(session_limit, now));
+
+			if (retry_after > 0) return retry_after;
+
+			if (host_bucket != null) {
+				host_bucket.consume();
+			}
+
+			if (session_bucket != null) {
+				session_bucket.consume();
+			}
+
+			return 0;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+package p2p.components.trackers;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+
+import p2p.components.Configuration;
+import p2p.components.trackers.TrackerServerChannel.UserStatus;
+
+/**
+ * A RequestScheduler object limits the number of requests that the tracker
+ * processes concurrently and decides which of the waiting requests is going to
+ * be processed next. Every user class, as indicated by the
+ * {@link TrackerServerChannel.UserStatus UserStatus} enumeration, has its own
+ * queue and the queues are served by a smooth weighted round robin. As long as
+ * there are free slots the requests are admitted immediately, so the weights
+ * only matter under contention.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class RequestScheduler {
+
+	/**
+	 * A RequestScheduler#Ticket object represents a request that waits for a
+	 * free slot.
+	 */
+	private static final class Ticket {
+
+		private boolean granted = false;
+
+	}
+
+	/**
+	 * The default number of requests that can be processed concurrently.
+	 */
+	public static final int default_scheduler_slots = 16;
+
+	/**
+	 * The default weight of the seeders' queue.
+	 */
+	public static final int default_seeder_weight = 4;
+
+	/**
+	 * The default weight of the present users' queue.
+	 */
+	public static final int default_present_weight = 2;
+
+	/**
+	 * The default weight of the new, not yet active, users' queue.
+	 */
+	public static final int default_new_user_weight = 1;
+
+	private final int slots;
+
+	private final EnumMap<UserStatus, ArrayDeque<Ticket>> queues  = new EnumMap<>(UserStatus.class);
+	private final EnumMap<UserStatus, Integer>			  weights = new EnumMap<>(UserStatus.class);
+	private final EnumMap<UserStatus, Integer>			  credits = new EnumMap<>(UserStatus.class);
+
+	private int slots_in_use = 0;
+
+	/**
+	 * Allocates a new RequestScheduler object based on the default
+	 * configuration.
+	 */
+	public RequestScheduler() {
+		this(Configuration.getDefault().getInteger("scheduler_slots", RequestScheduler.default_scheduler_slots),
+		        Configuration.getDefault().getInteger("scheduler_seeder_weight", RequestScheduler.default_seeder_weight),
+		        Configuration.getDefault().getInteger("scheduler_present_weight",
+		                RequestScheduler.default_present_weight),
+		        Configuration.getDefault().getInteger("scheduler_new_user_weight",
+		                RequestScheduler.default_new_user_weight));
+	}
+
+	/**
+	 * Allocates a new RequestScheduler object.
+	 *
+	 * @param slots
+	 *            The number of requests that can be processed concurrently.
+	 * @param seeder_weight
+	 *            The weight of the seeders' queue.
+	 * @param present_weight
+	 *            The weight of the present users' queue.
+	 * @param new_user_weight
+	 *            The weight of the new users' queue.
+	 */
+	public RequestScheduler(final int slots, final int seeder_weight, final int present_weight,
+	        final int new_user_weight) {
+
+		this.slots = Math.max(1, slots);
+
+		this.weights.put(UserStatus.SEEDER, new Integer(Math.max(1, seeder_weight)));
+		this.weights.put(UserStatus.PRESENT, new Integer(Math.max(1, present_weight)));
+		this.weights.put(UserStatus.ABSENT, new Integer(Math.max(1, new_user_weight)));
+
+		for (final UserStatus user_status : UserStatus.values()) {
+			this.queues.put(user_status, new ArrayDeque<>());
+			this.credits.put(user_status, new Integer(0));
+		}
+
+	}
+
+	/**
+	 * Waits until a slot is assigned to the request. Should always be followed
+	 * by a call to the {@link RequestScheduler#release release()} method.
+	 *
+	 * @param user_status
+	 *            The class of the user that sent the request.
+	 * @throws InterruptedException
+	 *             If the thread was interrupted while waiting. In that case no
+	 *             slot is held by the caller.
+	 */
+	public synchronized void acquire(final UserStatus user_status) throws InterruptedException {
+
+		/*
+		 * Admit immediately if there is free capacity and nobody is waiting
+		 * ahead of the request.
+		 */
+		if ((this.slots_in_use < this.slots) && (this.getQueuedRequests() == 0)) {
+
+			this.slots_in_use++;
+			return;
+
+		}
+
+		final Ticket ticket = new Ticket();
+		this.queues.get(user_status).add(ticket);
+
+		try {
+
+			while (!ticket.granted) {
+				this.wait();
+			}
+
+		} catch (final InterruptedException ex) {
+
+			/*
+			 * If the slot was granted in the meantime hand it over to the next
+			 * request, otherwise just leave the queue.
+			 */
+			if (ticket.granted) {
+				this.release();
+			}
+			else {
+				this.queues.get(user_status).remove(ticket);
+			}
+
+			throw ex;
+
+		}
+
+	}
+
+	/**
+	 * @return The number of requests that currently wait for a slot.
+	 */
+	public synchronized int getQueuedRequests() {
+
+		return this.queues.values().stream().mapToInt(x -> x.size()).sum();
+	}
+
+	/**
+	 * @param user_status
+	 *            The class of the users.
+	 * @return The number of requests of the specified class that currently wait
+	 *         for a slot.
+	 */
+	public synchronized int getQueuedRequests(final UserStatus user_status) {
+
+		return this.queues.get(user_status).size();
+	}
+
+	/**
+	 * @return The number of slots currently in use.
+	 */
+	public synchronized int getSlotsInUse() {
+
+		return this.slots_in_use;
+	}
+
+	/**
+	 * Releases the slot held by the caller and assigns it to the next request,
+	 * if any is waiting.
+	 */
+	public synchronized void release() {
+
+		final Ticket next = this.next();
+
+		if (next != null) {
+
+			/*
+			 * The slot is handed over directly so the number of slots in use
+			 * remains the same.
+			 */
+			next.granted = true;
+			this.notifyAll();
+
+		}
+		else {
+			this.slots_in_use--;
+		}
+
+	}
+
+	/**
+	 * Selects the next request using a smooth weighted round robin over the
+	 * non empty queues. Empty queues do not accumulate credits, so idle
+	 * capacity is always used by the classes that have pending requests.
+	 *
+	 * @return The ticket of the selected request or null if no request waits.
+	 */
+	private Ticket next() {
+
+		UserStatus selected = null;
+		int total_weight = 0;
+
+		for (final UserStatus user_status : UserStatus.values()) {
+
+			if (this.queues.get(user_status).isEmpty()) {
+				continue;
+			}
+
+			final int weight = this.weights.get(user_status).intValue();
+			final int credit = this.credits.get(user_status).intValue() + weight;
+
+			this.credits.put(user_status, new Integer(credit));
+			total_weight += weight;
+
+			if ((selected == null) || (credit > this.credits.get(selected).intValue())) {
+				selected = user_status;
+			}
+
+		}
+
+		if (selected == null) return null;
+
+		this.credits.put(selected, new Integer(this.credits.get(selected).intValue() - total_weight));
+
+		return this.queues.get(selected).poll();
+
+	}
+
+}
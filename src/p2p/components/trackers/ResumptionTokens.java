@@ -0,0 +1,263 @@
+package p2p.components.trackers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import p2p.components.Configuration;
+import p2p.utilities.LoggerManager;
+
+/**
+ * A ResumptionTokens object issues and verifies the signed, time-limited tokens
+ * that let a peer resume its session without repeating the full login. A token
+ * carries the username, the session id and the expiration time of the session
+ * it was issued for and is signed with HMAC-SHA256, so the tracker does not
+ * have to store it. Only the sessions that were revoked, after a logout, are
+ * remembered until the tokens issued for them expire. A token only resumes a
+ * session that the tracker still knows, either active or retired, so no
+ * session can be resumed after a restart of the tracker, whatever the secret.
+ * The secret is read from the <i>resumption_secret</i> property. If it is not
+ * set a random secret is generated.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class ResumptionTokens {
+
+	/**
+	 * The claims carried by a valid token.
+	 */
+	public static final class Claims {
+
+		private final String username;
+		private final int	 session_id;
+		private final long	 expiration_time;
+
+		private Claims(final String username, final int session_id, final long expiration_time) {
+
+			this.username = username;
+			this.session_id = session_id;
+			this.expiration_time = expiration_time;
+
+		}
+
+		/**
+		 * @return The time in milliseconds that the token expires at.
+		 */
+		public long getExpirationTime() {
+
+			return this.expiration_time;
+		}
+
+		/**
+		 * @return The id of the session that the token was issued for.
+		 */
+		public int getSessionID() {
+
+			return this.session_id;
+		}
+
+		/**
+		 * @return The username that the token was issued for.
+		 */
+		public String getUsername() {
+
+			return this.username;
+		}
+
+	}
+
+	/**
+	 * The default amount of milliseconds that a token remains valid.
+	 */
+	public static final long default_token_lifetime = 3600000;
+
+	private static final String algorithm = "HmacSHA256";
+
+	private final SecretKeySpec secret;
+	private final long			token_lifetime;
+
+	/*
+	 * Maps the revoked sessions to the time until which the tokens issued for
+	 * them are rejected.
+	 */
+	private final ConcurrentHashMap<String, Long> revoked_sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * Allocates a new ResumptionTokens object based on the default
+	 * configuration.
+	 */
+	public ResumptionTokens() {
+		this(Configuration.getDefault());
+	}
+
+	/**
+	 * Allocates a new ResumptionTokens object.
+	 *
+	 * @param configuration
+	 *            The configuration that the secret and the lifetime of the
+	 *            tokens are read from.
+	 */
+	public ResumptionTokens(final Configuration configuration) {
+
+		final String configured_secret = configuration.getString("resumption_secret", "").trim();
+		byte[] secret_bytes;
+
+		if (configured_secret.isEmpty()) {
+
+			secret_bytes = new byte[32];
+			new SecureRandom().nextBytes(secret_bytes);
+
+			LoggerManager.tracedLog(Level.FINE, "No resumption secret is configured, a random one is used.");
+
+		}
+		else {
+			secret_bytes = configured_secret.getBytes(StandardCharsets.UTF_8);
+		}
+
+		this.secret = new SecretKeySpec(secret_bytes, ResumptionTokens.algorithm);
+		this.token_lifetime = Math.max(0, configuration.getInteger("resumption_token_lifetime",
+		        (int) ResumptionTokens.default_token_lifetime));
+
+	}
+
+	/**
+	 * Issues a new token for the specified session.
+	 *
+	 * @param username
+	 *            The username associated with the session.
+	 * @param session_id
+	 *            The id of the session.
+	 * @return The token or null if the token could not be signed.
+	 */
+	public String issue(final String username, final int session_id) {
+
+		return this.issue(username, session_id, System.currentTimeMillis() + this.token_lifetime);
+	}
+
+	/**
+	 * Issues a new token for the specified session that expires at the
+	 * specified time. Used when a session is resumed, so the new token does
+	 * not outlive the one it replaces.
+	 *
+	 * @param username
+	 *            The username associated with the session.
+	 * @param session_id
+	 *            The id of the session.
+	 * @param expiration_time
+	 *            The time in milliseconds that the token expires at.
+	 * @return The token or null if the token could not be signed.
+	 */
+	public String issue(final String username, final int session_id, final long expiration_time) {
+
+		final String payload = String.format("%d:%d:%s", new Long(expiration_time), new Integer(session_id), username);
+		final byte[] payload_bytes = payload.getBytes(StandardCharsets.UTF_8);
+		final byte[] signature = this.sign(payload_bytes);
+
+		if (signature == null) return null;
+
+		return String.format("%s.%s", Base64.getUrlEncoder().withoutPadding().encodeToString(payload_bytes),
+		        Base64.getUrlEncoder().withoutPadding().encodeToString(signature));
+
+	}
+
+	/**
+	 * Revokes the tokens that were issued so far for the specified session.
+	 * Tokens issued for the same session afterwards are not affected.
+	 *
+	 * @param username
+	 *            The username associated with the session.
+	 * @param session_id
+	 *            The id of the session.
+	 */
+	public void revoke(final String username, final int session_id) {
+
+		final long current_time = System.currentTimeMillis();
+
+		this.revoked_sessions.values().removeIf(x -> x.longValue() < current_time);
+		this.revoked_sessions.put(ResumptionTokens.getSessionKey(username, session_id),
+		        new Long(current_time + this.token_lifetime));
+
+	}
+
+	/**
+	 * Verifies the signature and the expiration time of a token and that the
+	 * session it was issued for has not been revoked since.
+	 *
+	 * @param token
+	 *            The token to be verified.
+	 * @return The claims of the token or null if the token is not valid.
+	 */
+	public Claims verify(final String token) {
+
+		if (token == null) return null;
+
+		final int separator = token.indexOf('.');
+		if (separator < 0) return null;
+
+		try {
+
+			final byte[] payload_bytes = Base64.getUrlDecoder().decode(token.substring(0, separator));
+			final byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+			final byte[] expected_signature = this.sign(payload_bytes);
+
+			/*
+			 * The comparison takes constant time to avoid leaking how much of
+			 * a forged signature is correct.
+			 */
+			if ((expected_signature == null) || !MessageDigest.isEqual(expected_signature, signature)) return null;
+
+			final String[] fields = new String(payload_bytes, StandardCharsets.UTF_8).split(":", 3);
+			if (fields.length != 3) return null;
+
+			final long expiration_time = Long.parseLong(fields[0]);
+			final int session_id = Integer.parseInt(fields[1]);
+
+			if (expiration_time < System.currentTimeMillis()) return null;
+
+			final Long revoked_until = this.revoked_sessions.get(ResumptionTokens.getSessionKey(fields[2], session_id));
+			if ((revoked_until != null) && (expiration_time <= revoked_until.longValue())) return null;
+
+			return new Claims(fields[2], session_id, expiration_time);
+
+		} catch (@SuppressWarnings("unused") final IllegalArgumentException ex) {
+			/*
+			 * Thrown by the decoder as well as the number parsers on malformed
+			 * tokens.
+			 */
+			return null;
+		}
+
+	}
+
+	private static String getSessionKey(final String username, final int session_id) {
+
+		return String.format("%d:%s", new Integer(session_id), username);
+	}
+
+	private byte[] sign(final byte[] payload) {
+
+		try {
+
+			final Mac mac = Mac.getInstance(ResumptionTokens.algorithm);
+			mac.init(this.secret);
+
+			return mac.doFinal(payload);
+
+		} catch (final GeneralSecurityException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING, "The resumption token could not be signed.", ex);
+
+		}
+
+		return null;
+
+	}
+
+}
@@ -4,23 +4,34 @@ import java.net.InetSocketAddress;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import p2p.components.Configuration;
 import p2p.components.common.FileDescription;
 import p2p.components.common.Pair;
 
 /**
  * A SessionManager object keeps information about the active peer sessions
  * indexed by the session id an complementary structures to support file
- * indexing.
+ * indexing. The shared files of recently removed sessions are retired to a
+ * bounded cache along with the id of the session, so a peer that resumes its
+ * session does not have to send them again.
  *
  * @author {@literal p3100161 <Joseph Sakos>}
  */
 public class SessionManager {
 
+	/**
+	 * The default maximum number of retired sessions whose shared files are
+	 * kept.
+	 */
+	public static final int default_resumption_cache_size = 10000;
+
 	private final Random random_number_generator = new Random(System.currentTimeMillis());
 
 	private final HashMap<Integer, Pair<Pair<String, InetSocketAddress>, HashSet<FileDescription>>> sessions = new HashMap<>();
@@ -29,11 +40,56 @@ public class SessionManager {
 	private final HashSet<String>					users		  = new HashSet<>();
 	private final HashSet<Integer>					locked		  = new HashSet<>();
 
+	private final LinkedHashMap<String, Pair<Integer, HashSet<FileDescription>>> retired_sessions;
+
+	/*
+	 * The sizes of the structures are published after every update so they can
+	 * be read without holding the manager's lock.
+	 */
+	private volatile int session_count	= 0;
+	private volatile int filename_count = 0;
+
 	/**
-	 * Allocates a new SessionManager object.
+	 * Allocates a new SessionManager object based on the default
+	 * configuration.
 	 */
 	public SessionManager() {
-		// Empty constructor.
+		this(Configuration.getDefault());
+	}
+
+	/**
+	 * Allocates a new SessionManager object.
+	 *
+	 * @param configuration
+	 *            The configuration that the size of the retired sessions cache
+	 *            is read from.
+	 */
+	public SessionManager(final Configuration configuration) {
+
+		final int resumption_cache_size = Math.max(0,
+		        configuration.getInteger("resumption_cache_size", SessionManager.default_resumption_cache_size));
+
+		/*
+		 * An access ordered map evicts the least recently retired or resumed
+		 * session once the cache is full.
+		 */
+		this.retired_sessions = new LinkedHashMap<String, Pair<Integer, HashSet<FileDescription>>>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -4620712581385640416L;
+
+			/*
+			 * (non-Javadoc)
+			 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+			 */
+			@Override
+			protected boolean removeEldestEntry(
+			        final Map.Entry<String, Pair<Integer, HashSet<FileDescription>>> eldest) {
+
+				return this.size() > resumption_cache_size;
+			}
+
+		};
+
 	}
 
 	/**
@@ -55,11 +111,12 @@ public class SessionManager {
 		    return false;
 
 		final FileDescription file = this.sessions.get(this.getSessionID(username)).getSecond().parallelStream()
-		        .filter(x -> x.getFilename().equals(filename)).findAny().orElseGet(null);
+		        .filter(x -> x.getFilename().equals(filename)).findAny().orElse(null);
 		if (file != null) {
 
 			this.sessions.get(new Integer(session_id)).getSecond().add(file);
 			this.file_sessions.get(filename).add(new Integer(session_id));
+			this.updateCounts();
 			return true;
 
 		}
@@ -68,6 +125,38 @@ public class SessionManager {
 
 	}
 
+	/**
+	 * Adds shared files to an active session and indexes them, so a peer can
+	 * announce new files without a new login. Files that the session already
+	 * shares are ignored.
+	 *
+	 * @param session_id
+	 *            The session id of the peer.
+	 * @param files
+	 *            Required information of the added files.
+	 * @return True If the session is active.
+	 */
+	public boolean addFiles(final int session_id, final Set<FileDescription> files) {
+
+		if (!this.isActiveSession(session_id)) return false;
+
+		final Integer key = new Integer(session_id);
+		final HashSet<FileDescription> session_files = this.sessions.get(key).getSecond();
+
+		for (final FileDescription file : files) {
+
+			if (session_files.add(file)) {
+				this.file_sessions.computeIfAbsent(file.getFilename(), x -> new HashSet<>()).add(key);
+			}
+
+		}
+
+		this.updateCounts();
+
+		return true;
+
+	}
+
 	/**
 	 * Adds a session with the specified session id, provided that the session
 	 * id is not locked and the username of the contact information to be added
@@ -110,11 +199,42 @@ public class SessionManager {
 		 * Finally the set of active usernames is also updated.
 		 */
 		this.users.add(username);
+		this.retired_sessions.remove(username);
+
+		this.updateCounts();
 
 		return true;
 
 	}
 
+	/**
+	 * @return The number of indexed filenames. Does not require the manager's
+	 *         lock.
+	 */
+	public int getFilenameCount() {
+
+		return this.filename_count;
+	}
+
+	/**
+	 * Returns the shared files that the tracker knows for the specified user,
+	 * either from the user's active session or from a retired one.
+	 *
+	 * @param username
+	 *            The username of the peer.
+	 * @return A copy of the shared files or null if none are known.
+	 */
+	public Set<FileDescription> getKnownFiles(final String username) {
+
+		final Integer session_id = this.getSessionID(username);
+		final Pair<Integer, HashSet<FileDescription>> retired_session = this.retired_sessions.get(username);
+		final Set<FileDescription> files = session_id != null ? this.sessions.get(session_id).getSecond()
+		        : retired_session != null ? retired_session.getSecond() : null;
+
+		return files == null ? null : new HashSet<>(files);
+
+	}
+
 	/**
 	 * Return a list of shared files that the peer of the specified session can
 	 * provide.
@@ -204,6 +324,28 @@ public class SessionManager {
 
 	}
 
+	/**
+	 * Checks if the specified session of a user can be resumed. This is the
+	 * case only if it is the active session of the user, whose connection
+	 * might be dead, or the session that the user retired most recently.
+	 *
+	 * @param username
+	 *            The username of the peer.
+	 * @param session_id
+	 *            The session id to be checked.
+	 * @return True If the session can be resumed.
+	 */
+	public boolean isResumableSession(final String username, final int session_id) {
+
+		final Integer active_session_id = this.getSessionID(username);
+		if (active_session_id != null) return active_session_id.intValue() == session_id;
+
+		final Pair<Integer, HashSet<FileDescription>> retired_session = this.retired_sessions.get(username);
+
+		return (retired_session != null) && (retired_session.getFirst().intValue() == session_id);
+
+	}
+
 	/**
 	 * @param session_id
 	 *            The session id to be checked.
@@ -250,7 +392,47 @@ public class SessionManager {
 	}
 
 	/**
-	 * Removed a session with the specified id.
+	 * Removes shared files from an active session and from the index. Files
+	 * that the session does not share are ignored.
+	 *
+	 * @param session_id
+	 *            The session id of the peer.
+	 * @param files
+	 *            Required information of the removed files.
+	 * @return True If the session is active.
+	 */
+	public boolean removeFiles(final int session_id, final Set<FileDescription> files) {
+
+		if (!this.isActiveSession(session_id)) return false;
+
+		final Integer key = new Integer(session_id);
+		final HashSet<FileDescription> session_files = this.sessions.get(key).getSecond();
+
+		for (final FileDescription file : files) {
+
+			final HashSet<Integer> sharing_sessions = this.file_sessions.get(file.getFilename());
+
+			if (session_files.remove(file) && (sharing_sessions != null)) {
+
+				sharing_sessions.remove(key);
+
+				if (sharing_sessions.isEmpty()) {
+					this.file_sessions.remove(file.getFilename());
+				}
+
+			}
+
+		}
+
+		this.updateCounts();
+
+		return true;
+
+	}
+
+	/**
+	 * Removed a session with the specified id. The session is retired, so it
+	 * can be resumed later.
 	 *
 	 * @param session_id
 	 *            The id of the session to be removed.
@@ -258,6 +440,22 @@ public class SessionManager {
 	 */
 	public boolean removeSession(final int session_id) {
 
+		return this.removeSession(session_id, true);
+	}
+
+	/**
+	 * Removed a session with the specified id.
+	 *
+	 * @param session_id
+	 *            The id of the session to be removed.
+	 * @param retire
+	 *            True if the session should be retired, so it can be resumed
+	 *            later, false if any retired session of the user should be
+	 *            discarded as well.
+	 * @return True If the session was removed successfully.
+	 */
+	public boolean removeSession(final int session_id, final boolean retire) {
+
 		if (!this.isActiveSession(session_id)) return false;
 
 		boolean removed = false;
@@ -273,12 +471,31 @@ public class SessionManager {
 			        .reduce(Boolean.TRUE, (x, y) -> new Boolean(x.booleanValue() && y.booleanValue())).booleanValue();
 			removed &= this.users.remove(removed_session.getFirst().getFirst());
 
+			if (retire) {
+				this.retired_sessions.put(removed_session.getFirst().getFirst(),
+				        new Pair<>(new Integer(session_id), removed_session.getSecond()));
+			}
+			else {
+				this.retired_sessions.remove(removed_session.getFirst().getFirst());
+			}
+
+			this.updateCounts();
+
 		}
 
 		return removed;
 
 	}
 
+	/**
+	 * @return The number of active sessions. Does not require the manager's
+	 *         lock.
+	 */
+	public int getSessionCount() {
+
+		return this.session_count;
+	}
+
 	/**
 	 * Takes advantage of the complimentary structures and checks which peer's
 	 * can provide the specified shared file.
@@ -308,4 +525,10 @@ public class SessionManager {
 		return this.locked.remove(new Integer(session_id));
 	}
 
+	private void updateCounts() {
+
+		this.session_count = this.sessions.size();
+		this.filename_count = this.file_sessions.size();
+	}
+
 }
@@ -11,6 +11,10 @@ import java.util.logging.Level;
 import p2p.components.Database;
 import p2p.components.common.Credentials;
 import p2p.components.common.Pair;
+import p2p.components.events.DatabaseEvent;
+import p2p.components.events.Events;
+import p2p.components.metrics.Histogram;
+import p2p.components.metrics.MetricsRegistry;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -22,6 +26,13 @@ import p2p.utilities.LoggerManager;
  */
 class TrackerDatabase extends Database {
 
+	private static final Histogram add_download_latency = MetricsRegistry.getDefault()
+	        .getHistogram("database.add_download");
+	private static final Histogram get_user_latency		= MetricsRegistry.getDefault()
+	        .getHistogram("database.get_user");
+	private static final Histogram set_user_latency		= MetricsRegistry.getDefault()
+	        .getHistogram("database.set_user");
+
 	/**
 	 * Allocates a new TrackerDatabase object binded to the path's location. If
 	 * the database file does not exist it is going to be created automatically.
@@ -40,24 +51,36 @@ class TrackerDatabase extends Database {
 
 	public final boolean addDownload(final String username) {
 
-		if (!this.isCorrupted()) {
+		final DatabaseEvent event = Events.newDatabaseEvent();
+		event.begin();
+
+		final long start_time = System.nanoTime();
+
+		try {
+
+			if (!this.isCorrupted()) {
 
-			try (Connection connection = this.getConnection();
-			        PreparedStatement statement = connection.prepareStatement(
-			                "UPDATE `users` SET `count_downloads` = `count_downloads` + 1 WHERE `username` = ?")) {
+				try (Connection connection = this.getConnection();
+				        PreparedStatement statement = connection.prepareStatement(
+				                "UPDATE `users` SET `count_downloads` = `count_downloads` + 1 WHERE `username` = ?")) {
 
-				statement.setString(1, username);
+					statement.setString(1, username);
 
-				return statement.executeUpdate() >= 1;
+					return statement.executeUpdate() >= 1;
+
+				} catch (final SQLException ex) {
+					LoggerManager.tracedLog(Level.SEVERE,
+					        "An exception occurred while trying to update information about a user.", ex);
+				}
 
-			} catch (final SQLException ex) {
-				LoggerManager.tracedLog(Level.SEVERE,
-				        "An exception occurred while trying to update information about a user.", ex);
 			}
 
-		}
+			return false;
 
-		return false;
+		} finally {
+			TrackerDatabase.add_download_latency.recordSince(start_time);
+			event.complete("add_download", username);
+		}
 
 	}
 
@@ -92,51 +115,63 @@ class TrackerDatabase extends Database {
 	 */
 	public final Pair<Credentials, Integer> getUser(final String username) {
 
-		if (!this.isCorrupted()) {
+		final DatabaseEvent event = Events.newDatabaseEvent();
+		event.begin();
+
+		final long start_time = System.nanoTime();
 
-			try (Connection connection = this.getConnection();
-			        PreparedStatement statement = connection
-			                .prepareStatement("SELECT * FROM `users` WHERE `username` = ?")) {
+		try {
 
-				/*
-				 * TODO Check if setString() escapes parameters.
-				 */
-				statement.setString(1, username);
+			if (!this.isCorrupted()) {
 
-				try (ResultSet results = statement.executeQuery()) {
+				try (Connection connection = this.getConnection();
+				        PreparedStatement statement = connection
+				                .prepareStatement("SELECT * FROM `users` WHERE `username` = ?")) {
 
 					/*
-					 * Returns only the first occurrence. Should be only one if
-					 * the database is fixed.
+					 * TODO Check if setString() escapes parameters.
 					 */
+					statement.setString(1, username);
 
-					if (results.next()) {
-
-						final Credentials user_credentials = new Credentials(results.getString("username"),
-						        results.getString("password"));
-						final Integer count_downloads = new Integer(results.getInt("count_downloads"));
-
-						if (!results.next()) return new Pair<>(user_credentials, count_downloads);
+					try (ResultSet results = statement.executeQuery()) {
 
 						/*
-						 * If more results where found then the database should
-						 * be marked as corrupted.
+						 * Returns only the first occurrence. Should be only one
+						 * if the database is fixed.
 						 */
 
-						this.setAsCorrupted();
+						if (results.next()) {
+
+							final Credentials user_credentials = new Credentials(results.getString("username"),
+							        results.getString("password"));
+							final Integer count_downloads = new Integer(results.getInt("count_downloads"));
+
+							if (!results.next()) return new Pair<>(user_credentials, count_downloads);
+
+							/*
+							 * If more results where found then the database
+							 * should be marked as corrupted.
+							 */
+
+							this.setAsCorrupted();
+
+						}
 
 					}
 
+				} catch (final SQLException ex) {
+					LoggerManager.tracedLog(Level.WARNING,
+					        "An exception occurred while trying to get information about a user.", ex);
 				}
 
-			} catch (final SQLException ex) {
-				LoggerManager.tracedLog(Level.WARNING,
-				        "An exception occurred while trying to get information about a user.", ex);
 			}
 
-		}
+			return null;
 
-		return null;
+		} finally {
+			TrackerDatabase.get_user_latency.recordSince(start_time);
+			event.complete("get_user", username);
+		}
 
 	}
 
@@ -151,25 +186,37 @@ class TrackerDatabase extends Database {
 	 */
 	public final boolean setUser(final String username, final String password) {
 
-		if (!this.isCorrupted()) {
+		final DatabaseEvent event = Events.newDatabaseEvent();
+		event.begin();
+
+		final long start_time = System.nanoTime();
 
-			try (Connection connection = this.getConnection();
-			        PreparedStatement statement = connection.prepareStatement(
-			                "INSERT OR IGNORE INTO `users` (`username`, `password`, `count_downloads`) VALUES (?, ?, 0)")) {
+		try {
 
-				statement.setString(1, username);
-				statement.setString(2, password);
+			if (!this.isCorrupted()) {
 
-				return statement.executeUpdate() == 1;
+				try (Connection connection = this.getConnection();
+				        PreparedStatement statement = connection.prepareStatement(
+				                "INSERT OR IGNORE INTO `users` (`username`, `password`, `count_downloads`) VALUES (?, ?, 0)")) {
+
+					statement.setString(1, username);
+					statement.setString(2, password);
+
+					return statement.executeUpdate() == 1;
+
+				} catch (final SQLException ex) {
+					LoggerManager.tracedLog(Level.SEVERE,
+					        "An exception occurred while trying to store information about a user.", ex);
+				}
 
-			} catch (final SQLException ex) {
-				LoggerManager.tracedLog(Level.SEVERE,
-				        "An exception occurred while trying to store information about a user.", ex);
 			}
 
-		}
+			return false;
 
-		return false;
+		} finally {
+			TrackerDatabase.set_user_latency.recordSince(start_time);
+			event.complete("set_user", username);
+		}
 
 	}
 
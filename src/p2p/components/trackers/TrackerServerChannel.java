@@ -12,7 +12,7 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
-import p2p.components.Configuration;
+import p2p.components.ConfigurationSnapshot;
 import p2p.components.Hash;
 import p2p.components.common.Credentials;
 import p2p.components.common.FileDescription;
@@ -22,6 +22,9 @@ import p2p.components.communication.ServerChannel;
 import p2p.components.communication.messages.Message;
 import p2p.components.communication.messages.Reply;
 import p2p.components.communication.messages.Request;
+import p2p.components.events.EventContext;
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.metrics.Ranking;
 import p2p.utilities.LoggerManager;
 
 /**
@@ -68,10 +71,34 @@ public class TrackerServerChannel extends ServerChannel {
 	 */
 	public static final boolean PEER_SERVER_REMOTE_HOST_POLICY = false;
 
+	private static final Ranking searched_filenames = MetricsRegistry.getDefault().getRanking("search.filenames");
+
+	/**
+	 * @return The set of the file descriptions that a peer sent.
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	private static HashSet<FileDescription> getFileDescriptions(final Object data) throws ClassCastException {
+
+		final HashSet<?> unknown_set = HashSet.class.cast(data);
+
+		return new HashSet<>(
+		        unknown_set.parallelStream().map(x -> FileDescription.class.cast(x)).collect(Collectors.toSet()));
+	}
+
 	private final TrackerDatabase database;
 
 	private final SessionManager session_manager;
 
+	private final RequestScheduler scheduler;
+
+	private final RateLimiter rate_limiter;
+
+	private final ResumptionTokens resumption_tokens;
+
+	private UserStatus request_user_status = UserStatus.ABSENT;
+	private boolean	   holds_slot		   = false;
+
 	/**
 	 * Allocates a new TrackerServerChannel object.
 	 *
@@ -86,16 +113,42 @@ public class TrackerServerChannel extends ServerChannel {
 	 * @param session_manager
 	 *            The SessionManager object that is going to store information
 	 *            about the current session.
+	 * @param scheduler
+	 *            The RequestScheduler object that decides when the request of
+	 *            this channel is going to be processed.
+	 * @param rate_limiter
+	 *            The RateLimiter object that decides if the request of this
+	 *            channel is going to be processed at all.
+	 * @param resumption_tokens
+	 *            The ResumptionTokens object that issues and verifies the
+	 *            tokens that peers use to resume their sessions.
 	 * @throws IOException
 	 *             If an error occurs during the allocation of the
 	 *             {@link Socket} object.
 	 */
 	public TrackerServerChannel(final ThreadGroup group, final String name, final Socket socket,
-	        final TrackerDatabase database, final SessionManager session_manager) throws IOException {
+	        final TrackerDatabase database, final SessionManager session_manager, final RequestScheduler scheduler,
+	        final RateLimiter rate_limiter, final ResumptionTokens resumption_tokens) throws IOException {
 		super(group, name, socket);
 
 		this.database = database;
 		this.session_manager = session_manager;
+		this.scheduler = scheduler;
+		this.rate_limiter = rate_limiter;
+		this.resumption_tokens = resumption_tokens;
+
+	}
+
+	/**
+	 * Waits for the scheduler to assign a slot to the request, unless the
+	 * channel already holds one.
+	 */
+	private final void acquireSlot() throws InterruptedException {
+
+		if (this.holds_slot) return;
+
+		this.scheduler.acquire(this.request_user_status);
+		this.holds_slot = true;
 
 	}
 
@@ -105,8 +158,126 @@ public class TrackerServerChannel extends ServerChannel {
 
 			LoggerManager.tracedLog(this, Level.WARNING, String.format("Apply penalty to user <%s>.", username));
 
-			Thread.sleep(
-			        Configuration.getDefault().getInteger("peer_penalty", TrackerServerChannel.default_peer_penalty));
+			/*
+			 * A penalized user should not keep a slot just to sleep in it.
+			 */
+			this.releaseSlot();
+			Thread.sleep(ConfigurationSnapshot.getCurrent().getPeerPenalty());
+			this.acquireSlot();
+		}
+
+	}
+
+	/**
+	 * Checks that the user is registered and that the hashed value of the
+	 * provided password matches the stored password of the user. Registered
+	 * users are penalized before their password is checked, unless they are
+	 * seeders.
+	 *
+	 * @return True If the credentials are valid.
+	 */
+	private final boolean authenticate(final Credentials user_credentials) throws InterruptedException {
+
+		Credentials registered_user = null;
+
+		/*
+		 * Check if the user is registered is a synchronized block to avoid race
+		 * case with the other authentication methods and threads.
+		 */
+
+		synchronized (this.database) {
+
+			if (this.database.fix(this.database.getSchema())) {
+
+				final Pair<Credentials, Integer> pair = this.database.getUser(user_credentials.getUsername());
+
+				if (pair != null) {
+					registered_user = pair.getFirst();
+				}
+
+			}
+
+		}
+
+		if (registered_user == null) return false;
+
+		this.applyPenalty(user_credentials.getUsername());
+
+		return Hash.getSHA1(user_credentials.getPassword()).toString(16)
+		        .equalsIgnoreCase(registered_user.getPassword());
+
+	}
+
+	/**
+	 * Updates the address of a peer's server according to the address that the
+	 * request was received from and the current policy.
+	 *
+	 * @return The address that the peer's server is contacted at.
+	 */
+	private final InetSocketAddress getPeerServerAddress(final InetSocketAddress peer_server_socket_address) {
+
+		String peer_reveived_host = peer_server_socket_address.getAddress().getHostAddress();
+		final String peer_known_host = this.socket.getInetAddress().getHostAddress();
+
+		if (!peer_reveived_host.equals(peer_known_host)) {
+			if (!TrackerServerChannel.PEER_SERVER_REMOTE_HOST_POLICY) {
+				peer_reveived_host = peer_known_host;
+			}
+		}
+
+		return new InetSocketAddress(peer_reveived_host, peer_server_socket_address.getPort());
+
+	}
+
+	/**
+	 * Gives the slot of the request back to the scheduler, if the channel holds
+	 * one. Called before the channel blocks on the network or sleeps, so other
+	 * requests are processed in the meantime.
+	 */
+	private final void releaseSlot() {
+
+		if (!this.holds_slot) return;
+
+		this.holds_slot = false;
+		this.scheduler.release();
+
+	}
+
+	/**
+	 * Replaces the active session of the user, if any, with a session that
+	 * uses the provided address and shared files. The session that the
+	 * resumption token was issued for should still be resumable and its id is
+	 * kept unless it is in use.
+	 *
+	 * @return The id of the resumed session or null if it could not be added.
+	 */
+	private final Integer resumeSession(final String username, final Integer token_session_id,
+	        final InetSocketAddress peer_server_socket_address, final Set<FileDescription> peer_shared_files) {
+
+		synchronized (this.session_manager) {
+
+			if (!this.session_manager.isResumableSession(username, token_session_id.intValue())) return null;
+
+			final Integer active_session_id = this.session_manager.getSessionID(username);
+
+			if (active_session_id != null) {
+				this.session_manager.removeSession(active_session_id.intValue());
+			}
+
+			Integer session_id = token_session_id;
+
+			if (this.session_manager.isActiveSession(session_id.intValue())
+			        || this.session_manager.isSessionIDLocked(session_id.intValue())) {
+				session_id = this.session_manager.getGeneratedID();
+			}
+
+			if ((session_id != null) && !this.session_manager.addSession(session_id.intValue(), username,
+			        peer_server_socket_address, peer_shared_files)) {
+				session_id = null;
+			}
+
+			return session_id;
+
 		}
 
 	}
@@ -161,7 +332,8 @@ public class TrackerServerChannel extends ServerChannel {
 				this.out.writeObject(Reply.getSimpleSuccessMessage());
 
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format("The session with id <%d> downloaded file <%s> from user with username <%s>.",
+				        () -> String.format(
+				                "The session with id <%d> downloaded file <%s> from user with username <%s>.",
 				                session_id, filename, username));
 
 				return true;
@@ -178,6 +350,145 @@ public class TrackerServerChannel extends ServerChannel {
 		return false;
 	}
 
+	/**
+	 * Process an announcement of added or removed shared files. Only the
+	 * difference since the peer's last login or announcement is sent, and it
+	 * is applied to the session and the file index in place.
+	 *
+	 * @param request
+	 *            The request that should be processed. Should contain the
+	 *            session id of the peer and the descriptions of the added or
+	 *            removed files.
+	 * @return True If the announcement was applied successfully.
+	 * @throws IOException
+	 *             If an error occurs while sending or receiving data from the
+	 *             streams
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	protected boolean announce(final Request<?> request) throws IOException, ClassCastException {
+
+		final Pair<?, ?> data = Message.getData(request, Pair.class);
+		final Integer session_id = Integer.class.cast(data.getFirst());
+		final HashSet<FileDescription> files = TrackerServerChannel.getFileDescriptions(data.getSecond());
+		final boolean added = request.getType() == Request.Type.ANNOUNCE_ADD;
+
+		if ((session_id != null) && (this.getValidUser(session_id.intValue()) != null)) {
+
+			boolean session_updated;
+
+			synchronized (this.session_manager) {
+
+				session_updated = added ? this.session_manager.addFiles(session_id.intValue(), files)
+				        : this.session_manager.removeFiles(session_id.intValue(), files);
+
+			}
+
+			if (session_updated) {
+
+				this.out.writeObject(Reply.getSimpleSuccessMessage());
+
+				LoggerManager.tracedLog(this, Level.FINE,
+				        () -> String.format("The session with id <%d> %s %d shared files.", session_id,
+				                added ? "added" : "removed", new Integer(files.size())));
+
+				return true;
+
+			}
+
+		}
+
+		this.out.writeObject(Reply.getSimpleFailureMessage());
+
+		LoggerManager.tracedLog(this, Level.WARNING,
+		        String.format("The announcement of the session with id <%d> could not be applied.", session_id));
+
+		return false;
+
+	}
+
+	/**
+	 * Process a bound login request. The request carries the user's
+	 * credentials along with the address of the peer's server and its shared
+	 * files, which the peer prepared before sending it. So the session is
+	 * created as soon as the user is authenticated, in the same critical
+	 * section that generates its id, and the session id never has to be
+	 * locked while the tracker waits for the peer. The reply carries the
+	 * session id along with a token that the peer can use to resume the
+	 * session later.
+	 *
+	 * @param request
+	 *            The request that should be processed. Should contain the user
+	 *            credentials and the peer's server address and shared files.
+	 * @return True If the login request completed successfully.
+	 * @throws IOException
+	 *             If an error occurs while sending or receiving data from the
+	 *             streams
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	protected boolean boundLogin(final Request<?> request)
+	        throws IOException, ClassCastException, InterruptedException {
+
+		final Pair<?, ?> data = Message.getData(request, Pair.class);
+		final Credentials user_credentials = Credentials.class.cast(data.getFirst());
+		final Pair<?, ?> peer_description = Pair.class.cast(data.getSecond());
+
+		final String username = user_credentials.getUsername();
+
+		if (this.authenticate(user_credentials)) {
+
+			final InetSocketAddress peer_server_socket_address = this
+			        .getPeerServerAddress(InetSocketAddress.class.cast(peer_description.getFirst()));
+			final HashSet<FileDescription> peer_shared_files = TrackerServerChannel
+			        .getFileDescriptions(peer_description.getSecond());
+
+			Integer session_id = null;
+
+			synchronized (this.session_manager) {
+
+				if (!this.session_manager.isUserActive(username)) {
+
+					session_id = this.session_manager.getGeneratedID();
+
+					if ((session_id != null) && !this.session_manager.addSession(session_id.intValue(), username,
+					        peer_server_socket_address, peer_shared_files)) {
+						session_id = null;
+					}
+
+				}
+
+			}
+
+			if (session_id != null) {
+
+				this.out.writeObject(new Reply<>(Reply.Type.SUCCESS,
+				        new Pair<>(session_id, this.resumption_tokens.issue(username, session_id.intValue()))));
+
+				final Integer created_session_id = session_id;
+
+				EventContext.setSessionID(created_session_id);
+
+				LoggerManager.tracedLog(this, Level.FINE,
+				        () -> String.format(
+				                "A new session with id <%d> was created for the user with username <%s>.",
+				                created_session_id, username));
+
+				return true;
+
+			}
+
+		}
+
+		this.out.writeObject(Reply.getSimpleFailureMessage());
+
+		LoggerManager.tracedLog(this, Level.WARNING,
+		        String.format("The user with username <%s> tried to login but failed.", username));
+
+		return false;
+
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see p2p.components.communication.Channel#communicate()
@@ -188,43 +499,108 @@ public class TrackerServerChannel extends ServerChannel {
 		try {
 
 			final Request.Type request_type = request.getType();
+			final Integer session_id = this.getSessionID(request);
 
-			switch (request_type) {
-			case REGISTER:
+			EventContext.setSessionID(session_id);
 
-				this.register(request);
-				break;
+			/*
+			 * Reject the request cheaply, before any lookups take place, if the
+			 * sender exceeded its rate limit.
+			 */
+			final long retry_after = this.rate_limiter.tryAcquire(request_type, session_id,
+			        this.socket.getInetAddress().getHostAddress());
 
-			case LOGIN:
+			if (retry_after > 0) {
 
-				this.login(request);
-				break;
+				this.out.writeObject(Reply.getRetryFailureMessage(retry_after));
 
-			case SEARCH:
+				LoggerManager.tracedLog(this, Level.FINE,
+				        () -> String.format(
+				                "A request of type <%s> was rejected due to rate limiting (retry after %d ms).",
+				                request_type.name(), new Long(retry_after)));
 
-				this.search(request);
-				break;
+				return;
 
-			case ACKNOWLEDGE:
-				this.acknowledge(request);
-				break;
+			}
 
-			case LOGOUT:
+			/*
+			 * Introspection requests are answered without waiting for a slot,
+			 * so the tracker can be observed while it is overloaded.
+			 */
+			if (request_type == Request.Type.STATS) {
 
-				this.logout(request);
-				break;
+				this.sendStats();
+				return;
 
-			default:
+			}
 
-				/*
-				 * In the request's type is not supported do not reply. A valid
-				 * client should counter this case with a timeout. As far as the
-				 * server is concerned the communication ended.
-				 */
+			/*
+			 * Wait for the scheduler to assign a slot to the request. Seeders
+			 * are preferred under contention. The handlers only hold the slot
+			 * while they use the session manager or the database, and release
+			 * it whenever they wait for the peer, a probe or a penalty.
+			 */
+			this.request_user_status = this.getUserStatus(request);
+			this.acquireSlot();
+
+			try {
+
+				switch (request_type) {
+				case REGISTER:
+
+					this.register(request);
+					break;
+
+				case LOGIN:
+
+					this.login(request);
+					break;
+
+				case BOUND_LOGIN:
+
+					this.boundLogin(request);
+					break;
+
+				case SEARCH:
+
+					this.search(request);
+					break;
 
-				LoggerManager.tracedLog(this, Level.WARNING,
-				        String.format("Detected unsupported request type with name <%s>", request_type.name()));
+				case ACKNOWLEDGE:
+					this.acknowledge(request);
+					break;
 
+				case ANNOUNCE_ADD:
+				case ANNOUNCE_REMOVE:
+
+					this.announce(request);
+					break;
+
+				case RESUME:
+
+					this.resume(request);
+					break;
+
+				case LOGOUT:
+
+					this.logout(request);
+					break;
+
+				default:
+
+					/*
+					 * In the request's type is not supported do not reply. A
+					 * valid client should counter this case with a timeout. As
+					 * far as the server is concerned the communication ended.
+					 */
+
+					LoggerManager.tracedLog(this, Level.WARNING,
+					        String.format("Detected unsupported request type with name <%s>", request_type.name()));
+
+				}
+
+			} finally {
+				this.releaseSlot();
 			}
 
 		} catch (ClassCastException | ClassNotFoundException | InterruptedException ex) {
@@ -233,6 +609,71 @@ public class TrackerServerChannel extends ServerChannel {
 
 	}
 
+	/**
+	 * Extracts the session id of the sender from the request's data, if the
+	 * type of the request carries one.
+	 *
+	 * @param request
+	 *            The request to be checked.
+	 * @return The session id of the sender or null if the request does not
+	 *         carry one.
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	protected final Integer getSessionID(final Request<?> request) throws ClassCastException {
+
+		switch (request.getType()) {
+		case SEARCH:
+		case ACKNOWLEDGE:
+		case ANNOUNCE_ADD:
+		case ANNOUNCE_REMOVE:
+			return Integer.class.cast(Pair.class.cast(request.getData()).getFirst());
+
+		case LOGOUT:
+			return Message.getData(request, Integer.class);
+
+		default:
+			return null;
+		}
+
+	}
+
+	/**
+	 * Determines the status of the user that sent the request. Requests that
+	 * can not be associated with an active user, eg. registrations or
+	 * requests with an invalid session id, are considered to come from absent
+	 * users.
+	 *
+	 * @param request
+	 *            The request to be checked.
+	 * @return The status of the sender.
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	protected final UserStatus getUserStatus(final Request<?> request) throws ClassCastException {
+
+		String username = null;
+
+		if (request.getType() == Request.Type.LOGIN) {
+			username = Message.getData(request, Credentials.class).getUsername();
+		}
+		else if (request.getType() == Request.Type.BOUND_LOGIN) {
+			username = Credentials.class.cast(Message.getData(request, Pair.class).getFirst()).getUsername();
+		}
+		else {
+
+			final Integer session_id = this.getSessionID(request);
+
+			if (session_id != null) {
+				username = this.getValidUser(session_id.intValue());
+			}
+
+		}
+
+		return username == null ? UserStatus.ABSENT : this.getUserStatus(username);
+
+	}
+
 	/**
 	 * Check the session manager and the database to determine the status of the
 	 * specified user. A user is characterized as absent or present depending on
@@ -337,145 +778,105 @@ public class TrackerServerChannel extends ServerChannel {
 		final Credentials user_credentials = Message.getData(request, Credentials.class);
 
 		final String username = user_credentials.getUsername();
-		Credentials registered_user = null;
-
-		/*
-		 * Check if the user is registered is a synchronized block to avoid race
-		 * case with the other authentication methods and threads.
-		 */
-
-		synchronized (this.database) {
-
-			if (this.database.fix(this.database.getSchema())) {
 
-				final Pair<Credentials, Integer> pair = this.database.getUser(user_credentials.getUsername());
-
-				if (pair != null) {
-					registered_user = pair.getFirst();
-				}
-
-			}
-
-		}
+		if (this.authenticate(user_credentials)) {
 
-		if (registered_user != null) {
+			Integer session_id = null;
 
-			this.applyPenalty(username);
-
-			/*
-			 * Authenticate user.
-			 */
+			try {
 
-			if (Hash.getSHA1(user_credentials.getPassword()).toString(16)
-			        .equalsIgnoreCase(registered_user.getPassword())) {
+				/*
+				 * Get user's id if active or generate a new one.
+				 */
 
-				Integer session_id = null;
+				synchronized (this.session_manager) {
 
-				try {
+					session_id = this.session_manager.getSessionID(username);
 
-					/*
-					 * Get user's id if active or generate a new one.
-					 */
+					if (session_id == null) {
 
-					synchronized (this.session_manager) {
+						session_id = this.session_manager.getGeneratedID();
 
-						session_id = this.session_manager.getSessionID(username);
+						/*
+						 * Should lock the session id until peer description
+						 * is received or the login process fails.
+						 */
 
-						if (session_id == null) {
+						if (session_id != null) {
+							this.session_manager.lockSessionID(session_id.intValue());
+						}
 
-							session_id = this.session_manager.getGeneratedID();
+					}
 
-							/*
-							 * Should lock the session id until peer description
-							 * is received or the login process fails.
-							 */
+				}
 
-							if (session_id != null) {
-								this.session_manager.lockSessionID(session_id.intValue());
-							}
+				/*
+				 * Another check should be implemented here in case the
+				 * generator fails.
+				 */
 
-						}
+				if (session_id != null) {
 
-					}
+					this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, session_id));
 
 					/*
-					 * Another check should be implemented here in case the
-					 * generator fails.
+					 * Receive the peer's information.
 					 */
 
-					if (session_id != null) {
+					this.releaseSlot();
+					final Pair<?, ?> peer_description = Message.getData(this.in.readObject(), Pair.class);
+					this.acquireSlot();
+					final InetSocketAddress peer_server_socket_address = this
+					        .getPeerServerAddress(InetSocketAddress.class.cast(peer_description.getFirst()));
+					final HashSet<FileDescription> peer_shared_files = TrackerServerChannel
+					        .getFileDescriptions(peer_description.getSecond());
 
-						this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, session_id));
+					boolean session_added = false;
 
-						/*
-						 * Receive the peer's information.
-						 */
+					synchronized (this.session_manager) {
 
-						final Pair<?, ?> peer_description = Message.getData(this.in.readObject(), Pair.class);
-						final InetSocketAddress peer_server_socket_address = InetSocketAddress.class
-						        .cast(peer_description.getFirst());
-						final HashSet<?> unknown_set = HashSet.class.cast(peer_description.getSecond());
-						final HashSet<FileDescription> peer_shared_files = new HashSet<>(unknown_set.parallelStream()
-						        .map(x -> FileDescription.class.cast(x)).collect(Collectors.toSet()));
 						/*
-						 * Update the peer's host information according to known
-						 * data and current policy.
+						 * Unlock the session id and add the new session to
+						 * the manager.
 						 */
 
-						String peer_reveived_host = peer_server_socket_address.getAddress().getHostAddress();
-						final String peer_known_host = this.socket.getInetAddress().getHostAddress();
-
-						if (!peer_reveived_host.equals(peer_known_host)) {
-							if (!TrackerServerChannel.PEER_SERVER_REMOTE_HOST_POLICY) {
-								peer_reveived_host = peer_known_host;
-							}
-						}
-
-						boolean session_added = false;
-
-						synchronized (this.session_manager) {
-
-							/*
-							 * Unlock the session id and add the new session to
-							 * the manager.
-							 */
+						this.session_manager.unlockSessionID(session_id.intValue());
 
-							this.session_manager.unlockSessionID(session_id.intValue());
+						session_added = this.session_manager.addSession(session_id.intValue(), username,
+						        peer_server_socket_address, peer_shared_files);
 
-							session_added = this.session_manager.addSession(session_id.intValue(), username,
-							        new InetSocketAddress(peer_reveived_host, peer_server_socket_address.getPort()),
-							        peer_shared_files);
+					}
 
-						}
+					if (session_added) {
 
-						if (session_added) {
+						this.out.writeObject(Reply.getSimpleSuccessMessage());
 
-							this.out.writeObject(Reply.getSimpleSuccessMessage());
+						final Integer created_session_id = session_id;
 
-							LoggerManager.tracedLog(this, Level.FINE,
-							        String.format(
-							                "A new session with id <%d> was created for the user with username <%s>.",
-							                session_id, user_credentials.getUsername()));
+						EventContext.setSessionID(created_session_id);
 
-							return true;
+						LoggerManager.tracedLog(this, Level.FINE,
+						        () -> String.format(
+						                "A new session with id <%d> was created for the user with username <%s>.",
+						                created_session_id, user_credentials.getUsername()));
 
-						}
+						return true;
 
 					}
 
-				} finally {
+				}
 
-					if (session_id != null) {
+			} finally {
 
-						/*
-						 * Make sure to unlock the session id even if the
-						 * request fails.
-						 */
+				if (session_id != null) {
 
-						synchronized (this.session_manager) {
-							this.session_manager.unlockSessionID(session_id.intValue());
-						}
+					/*
+					 * Make sure to unlock the session id even if the
+					 * request fails.
+					 */
 
+					synchronized (this.session_manager) {
+						this.session_manager.unlockSessionID(session_id.intValue());
 					}
 
 				}
@@ -511,22 +912,30 @@ public class TrackerServerChannel extends ServerChannel {
 
 		final Integer session_id = Message.getData(request, Integer.class);
 
-		if ((session_id != null) && (this.getValidUser(session_id.intValue()) != null)) {
+		final String username = session_id == null ? null : this.getValidUser(session_id.intValue());
+
+		if (username != null) {
 
 			boolean session_removed;
 
+			/*
+			 * A session that was terminated on purpose is not retired and the
+			 * tokens issued for it can no longer resume it.
+			 */
 			synchronized (this.session_manager) {
 
-				session_removed = this.session_manager.removeSession(session_id.intValue());
+				session_removed = this.session_manager.removeSession(session_id.intValue(), false);
 
 			}
 
+			this.resumption_tokens.revoke(username, session_id.intValue());
+
 			if (session_removed) {
 
 				this.out.writeObject(Reply.getSimpleSuccessMessage());
 
 				LoggerManager.tracedLog(this, Level.FINE,
-				        String.format("The session with id <%d> was terminated by user's request.", session_id));
+				        () -> String.format("The session with id <%d> was terminated by user's request.", session_id));
 
 				return true;
 
@@ -583,7 +992,7 @@ public class TrackerServerChannel extends ServerChannel {
 
 			this.out.writeObject(Reply.getSimpleSuccessMessage());
 
-			LoggerManager.tracedLog(this, Level.FINE, String.format(
+			LoggerManager.tracedLog(this, Level.FINE, () -> String.format(
 			        "A new user with username <%s> was registered to the tracker.", user_credentials.getUsername()));
 
 		}
@@ -601,6 +1010,104 @@ public class TrackerServerChannel extends ServerChannel {
 
 	}
 
+	/**
+	 * Process a resume request. The request carries the token that was issued
+	 * on a previous login, the address of the peer's server and a digest of
+	 * its shared files. Since the token proves that the user was already
+	 * authenticated, neither the database is accessed nor the penalty is
+	 * applied. The token is accepted only if the session it was issued for is
+	 * still the active session of the user or the one it retired most
+	 * recently. The tracker asks for the shared files only if the digest does
+	 * not match the files it still knows for the user by replying without a
+	 * session id. Otherwise the session is resumed at once and the reply
+	 * carries the session id and a new token that expires along with the old
+	 * one.
+	 *
+	 * @param request
+	 *            The request that should be processed. Should contain the
+	 *            resumption token and the peer's server address and digest of
+	 *            its shared files.
+	 * @return True If the resume request completed successfully.
+	 * @throws IOException
+	 *             If an error occurs while sending or receiving data from the
+	 *             streams
+	 * @throws ClassCastException
+	 *             If a unexpected data type is received.
+	 */
+	protected boolean resume(final Request<?> request)
+	        throws IOException, ClassCastException, ClassNotFoundException, InterruptedException {
+
+		final Pair<?, ?> data = Message.getData(request, Pair.class);
+		final ResumptionTokens.Claims token_claims = this.resumption_tokens
+		        .verify(String.class.cast(data.getFirst()));
+		final Pair<?, ?> peer_description = Pair.class.cast(data.getSecond());
+
+		final String username = token_claims == null ? null : token_claims.getUsername();
+		boolean resumable = false;
+
+		if (token_claims != null) {
+
+			synchronized (this.session_manager) {
+				resumable = this.session_manager.isResumableSession(username, token_claims.getSessionID());
+			}
+
+		}
+
+		if (resumable) {
+
+			final InetSocketAddress peer_server_socket_address = this
+			        .getPeerServerAddress(InetSocketAddress.class.cast(peer_description.getFirst()));
+			final String peer_digest = String.class.cast(peer_description.getSecond());
+
+			Set<FileDescription> peer_shared_files;
+
+			synchronized (this.session_manager) {
+				peer_shared_files = this.session_manager.getKnownFiles(username);
+			}
+
+			if ((peer_shared_files == null) || !FileDescription.getDigest(peer_shared_files).equals(peer_digest)) {
+
+				this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, new Pair<Integer, String>(null, null)));
+
+				this.releaseSlot();
+				peer_shared_files = TrackerServerChannel
+				        .getFileDescriptions(Message.getData(this.in.readObject(), HashSet.class));
+				this.acquireSlot();
+
+				LoggerManager.tracedLog(this, Level.FINE,
+				        () -> String.format("The user with username <%s> resent its shared files.", username));
+
+			}
+
+			final Integer session_id = this.resumeSession(username, new Integer(token_claims.getSessionID()),
+			        peer_server_socket_address, peer_shared_files);
+
+			if (session_id != null) {
+
+				this.out.writeObject(new Reply<>(Reply.Type.SUCCESS, new Pair<>(session_id, this.resumption_tokens
+				        .issue(username, session_id.intValue(), token_claims.getExpirationTime()))));
+
+				EventContext.setSessionID(session_id);
+
+				LoggerManager.tracedLog(this, Level.FINE,
+				        () -> String.format("The session with id <%d> was resumed by the user with username <%s>.",
+				                session_id, username));
+
+				return true;
+
+			}
+
+		}
+
+		this.out.writeObject(Reply.getSimpleFailureMessage());
+
+		LoggerManager.tracedLog(this, Level.WARNING,
+		        String.format("The user with username <%s> tried to resume a session but failed.", username));
+
+		return false;
+
+	}
+
 	/**
 	 * Process a search request for the specified file. Before sending the
 	 * result back to the peer the tracker checks if the corresponding servers
@@ -641,10 +1148,21 @@ public class TrackerServerChannel extends ServerChannel {
 
 			if (username != null) {
 
+				TrackerServerChannel.searched_filenames.increment(filename);
+
+				/*
+				 * The probes only wait for the peers, so they do not need a
+				 * slot.
+				 */
+				this.releaseSlot();
+
 				final Set<InetSocketAddress> filtered_peers = Channel
 				        .getResponseTime(
 				                peers_list.parallelStream().map(y -> y.getSecond()).collect(Collectors.toSet()))
 				        .stream().map(x -> x.getFirst()).collect(Collectors.toSet());
+
+				this.acquireSlot();
+
 				peers_list = peers_list.stream().filter(x -> {
 					final boolean is_valid = filtered_peers.contains(x.getSecond());
 					if (!is_valid) {
@@ -662,7 +1180,7 @@ public class TrackerServerChannel extends ServerChannel {
 								this.session_manager.removeSession(invalid_session_id.intValue());
 
 								LoggerManager.tracedLog(Level.FINE,
-								        String.format(
+								        () -> String.format(
 								                "Removed user <%s> from the active user because of failure to reply to a check alive request.",
 								                x));
 							}
@@ -5,6 +5,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 
 import p2p.components.communication.ServerChannelManager;
+import p2p.components.metrics.MetricsRegistry;
 
 /**
  * A TrackerServerManager is a {@link ServerChannelManager} object that
@@ -16,7 +17,10 @@ import p2p.components.communication.ServerChannelManager;
 class TrackerServerManager extends ServerChannelManager<TrackerServerChannel> {
 
 	private final TrackerDatabase database;
-	private final SessionManager  session_manager = new SessionManager();
+	private final SessionManager   session_manager	 = new SessionManager();
+	private final RequestScheduler scheduler		 = new RequestScheduler();
+	private final RateLimiter	   rate_limiter		 = new RateLimiter();
+	private final ResumptionTokens resumption_tokens = new ResumptionTokens();
 
 	/**
 	 * Allocates a new TrackerServerManager object.
@@ -41,6 +45,15 @@ class TrackerServerManager extends ServerChannelManager<TrackerServerChannel> {
 
 		this.database = new TrackerDatabase(database_path);
 
+		MetricsRegistry.getDefault().setGauge(String.format("%s.active_sessions", name),
+		        () -> this.session_manager.getSessionCount());
+		MetricsRegistry.getDefault().setGauge(String.format("%s.indexed_filenames", name),
+		        () -> this.session_manager.getFilenameCount());
+		MetricsRegistry.getDefault().setGauge(String.format("%s.queued_requests", name),
+		        () -> this.scheduler.getQueuedRequests());
+		MetricsRegistry.getDefault().setGauge(String.format("%s.scheduler_slots_in_use", name),
+		        () -> this.scheduler.getSlotsInUse());
+
 	}
 
 	/**
@@ -65,6 +78,22 @@ class TrackerServerManager extends ServerChannelManager<TrackerServerChannel> {
 		this(group, name, 0, database_path);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see p2p.components.communication.ServerChannelManager#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		super.close();
+
+		MetricsRegistry.getDefault().removeGauge(String.format("%s.active_sessions", this.getName()));
+		MetricsRegistry.getDefault().removeGauge(String.format("%s.indexed_filenames", this.getName()));
+		MetricsRegistry.getDefault().removeGauge(String.format("%s.queued_requests", this.getName()));
+		MetricsRegistry.getDefault().removeGauge(String.format("%s.scheduler_slots_in_use", this.getName()));
+
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see p2p.components.communication.ServerChannelManager#
@@ -75,7 +104,8 @@ class TrackerServerManager extends ServerChannelManager<TrackerServerChannel> {
 	protected TrackerServerChannel newServerChannel(final ThreadGroup group, final String name, final Socket socket)
 	        throws IOException {
 
-		return new TrackerServerChannel(group, name, socket, this.database, this.session_manager);
+		return new TrackerServerChannel(group, name, socket, this.database, this.session_manager, this.scheduler,
+		        this.rate_limiter, this.resumption_tokens);
 	}
 
 }
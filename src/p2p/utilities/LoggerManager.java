@@ -1,16 +1,311 @@
 package p2p.utilities;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 /**
  * A LoggerManager object provides easy-accessed methods to document a methods
- * log request.
+ * log request. By default the entries are handed over to a single background
+ * writer through a lock-free ring buffer, so the callers never block on the
+ * handlers of the loggers. If the buffer is full the entry is logged
+ * synchronously instead of being dropped.
  *
  * @author {@literal p3100161 <Joseph Sakos>}
  */
 public class LoggerManager {
 
+	/**
+	 * A LoggerManager#Caller object holds the description of the bottom frame
+	 * of a thread's stack, which never changes during the lifetime of the
+	 * thread, along with its associated logger.
+	 */
+	private static final class Caller {
+
+		private final String class_name;
+		private final String method_name;
+		private final Logger logger;
+
+		private Caller(final StackTraceElement element) {
+
+			this.class_name = element.getClassName();
+			this.method_name = element.getMethodName();
+
+			final int package_index = this.class_name.lastIndexOf('.');
+
+			this.logger = Logger.getLogger(package_index < 0 ? "" : this.class_name.substring(0, package_index));
+		}
+
+	}
+
+	/**
+	 * A LoggerManager#RingBuffer object is a bounded multiple producers single
+	 * consumer queue. Every slot carries a sequence number that indicates if it
+	 * is free to be written by a producer or ready to be read by the consumer.
+	 */
+	private static final class RingBuffer {
+
+		private final int mask;
+
+		private final AtomicReferenceArray<LogRecord> records;
+		private final AtomicLongArray				  sequences;
+
+		private final AtomicLong tail = new AtomicLong();
+		private volatile long	 head = 0;
+
+		private RingBuffer(final int capacity) {
+
+			this.mask = capacity - 1;
+			this.records = new AtomicReferenceArray<>(capacity);
+			this.sequences = new AtomicLongArray(capacity);
+
+			for (int i = 0; i < capacity; i++) {
+				this.sequences.set(i, i);
+			}
+
+		}
+
+		private boolean isEmpty() {
+
+			return this.head == this.tail.get();
+		}
+
+		/**
+		 * Should only be called by the single consumer.
+		 *
+		 * @return The next record or null if the buffer is empty.
+		 */
+		private LogRecord poll() {
+
+			final long position = this.head;
+			final int index = (int) (position & this.mask);
+
+			if (this.sequences.get(index) != (position + 1)) return null;
+
+			final LogRecord record = this.records.getAndSet(index, null);
+
+			this.sequences.set(index, position + this.mask + 1);
+			this.head = position + 1;
+
+			return record;
+
+		}
+
+		/**
+		 * @return True If the record was added or false if the buffer is full.
+		 */
+		private boolean offer(final LogRecord record) {
+
+			while (true) {
+
+				final long position = this.tail.get();
+				final int index = (int) (position & this.mask);
+				final long sequence = this.sequences.get(index);
+
+				if (sequence == position) {
+
+					if (this.tail.compareAndSet(position, position + 1)) {
+
+						this.records.set(index, record);
+						this.sequences.set(index, position + 1);
+
+						return true;
+
+					}
+
+				}
+				else if (sequence < position) return false;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * A LoggerManager#Writer object hands the buffered records over to their
+	 * loggers.
+	 */
+	private static final class Writer extends Thread {
+
+		private volatile boolean waiting = false;
+
+		private Writer() {
+			super("LoggerManager.Writer");
+
+			this.setDaemon(true);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+
+			while (true) {
+
+				if (LoggerManager.drain() == 0) {
+
+					/*
+					 * Check once more after announcing the wait, since a
+					 * producer only wakes up a waiting writer. The timeout
+					 * covers any wake up that could still be missed.
+					 */
+					this.waiting = true;
+
+					if (LoggerManager.buffer.isEmpty()) {
+						LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+					}
+
+					this.waiting = false;
+
+				}
+
+			}
+
+		}
+
+		private void wakeUp() {
+
+			if (this.waiting) {
+				LockSupport.unpark(this);
+			}
+
+		}
+
+	}
+
+	/**
+	 * The capacity of the ring buffer. Should be a power of two.
+	 */
+	private static final int buffer_capacity = 8192;
+
+	private static final RingBuffer buffer = new RingBuffer(LoggerManager.buffer_capacity);
+	private static final Writer		writer = new Writer();
+
+	private static final ThreadLocal<Caller> callers = new ThreadLocal<Caller>() {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.ThreadLocal#initialValue()
+		 */
+		@Override
+		protected Caller initialValue() {
+
+			final StackTraceElement[] stack_trace = Thread.currentThread().getStackTrace();
+			return new Caller(stack_trace[stack_trace.length - 1]);
+		}
+
+	};
+
+	private static final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<>();
+
+	private static final LongAdder logged_entries	   = new LongAdder();
+	private static final LongAdder synchronous_entries = new LongAdder();
+	private static final LongAdder logging_time		   = new LongAdder();
+
+	private static volatile boolean asynchronous = true;
+
+	static {
+
+		LoggerManager.writer.start();
+
+		/*
+		 * Write any remaining entries before the virtual machine exits.
+		 */
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> LoggerManager.flush(), "LoggerManager.Flusher"));
+
+	}
+
+	/**
+	 * Blocks until every entry that was logged before the call has been handed
+	 * over to its logger.
+	 */
+	public static void flush() {
+
+		final long tail = LoggerManager.buffer.tail.get();
+
+		while (LoggerManager.buffer.head < tail) {
+
+			LoggerManager.writer.wakeUp();
+			Thread.yield();
+
+		}
+
+	}
+
+	/**
+	 * @return The total number of entries that were logged.
+	 */
+	public static long getLoggedEntries() {
+
+		return LoggerManager.logged_entries.sum();
+	}
+
+	/**
+	 * @return The total amount of nanoseconds the callers spent on logging.
+	 */
+	public static long getLoggingTime() {
+
+		return LoggerManager.logging_time.sum();
+	}
+
+	/**
+	 * @return The total number of entries that were logged synchronously.
+	 */
+	public static long getSynchronousEntries() {
+
+		return LoggerManager.synchronous_entries.sum();
+	}
+
+	/**
+	 * @return True If the entries are logged by the background writer.
+	 */
+	public static boolean isAsynchronous() {
+
+		return LoggerManager.asynchronous;
+	}
+
+	/**
+	 * Checks if an entry of the specified level would be logged by the logger
+	 * of the calling thread.
+	 *
+	 * @param level
+	 *            The level of severity of the log's entry.
+	 * @return True If the entry would be logged.
+	 */
+	public static boolean isLoggable(final Level level) {
+
+		return LoggerManager.callers.get().logger.isLoggable(level);
+	}
+
+	/**
+	 * Selects if the entries are going to be logged by the background writer or
+	 * by the calling threads. Switching to synchronous logging flushes the
+	 * buffered entries first.
+	 *
+	 * @param asynchronous
+	 *            True for asynchronous logging.
+	 */
+	public static void setAsynchronous(final boolean asynchronous) {
+
+		LoggerManager.asynchronous = asynchronous;
+
+		if (!asynchronous) {
+			LoggerManager.flush();
+		}
+
+	}
+
 	/**
 	 * Logs the specified message by determining at runtime the caller's
 	 * description and associated logger.
@@ -41,6 +336,20 @@ public class LoggerManager {
 		LoggerManager.tracedLog(null, level, message, exception);
 	}
 
+	/**
+	 * Logs the message provided by the supplier, which is called only if the
+	 * level is enabled.
+	 *
+	 * @param level
+	 *            The level of severity of the log's entry.
+	 * @param message_supplier
+	 *            Provides the message body of the log's entry.
+	 */
+	public static void tracedLog(final Level level, final Supplier<String> message_supplier) {
+
+		LoggerManager.tracedLog(null, level, message_supplier, null);
+	}
+
 	/**
 	 * Logs the specified message by determining at runtime the caller's
 	 * description and associated logger.
@@ -70,39 +379,103 @@ public class LoggerManager {
 	 * @param exception
 	 *            The associated {@link Throwable} if one exists.
 	 */
-	public static synchronized void tracedLog(final Thread thread, final Level level, final String message,
+	public static void tracedLog(final Thread thread, final Level level, final String message,
 	        final Throwable exception) {
 
-		final int trace_index = 0;
-		final StackTraceElement[] stack_trace = Thread.currentThread().getStackTrace();
-		final StackTraceElement selected_element = stack_trace[stack_trace.length - 1 - trace_index];
+		final long start_time = System.nanoTime();
+		final Caller caller = LoggerManager.callers.get();
 
-		String caller_class_name = selected_element.getClassName();
-		final String caller_name = selected_element.getMethodName();
+		if (caller.logger.isLoggable(level)) {
+			LoggerManager.log(caller, thread, level, message, exception, start_time);
+		}
 
-		try {
+	}
 
-			Class<?> caller_class = Class.forName(caller_class_name);
+	/**
+	 * Logs the message provided by the supplier, which is called only if the
+	 * level is enabled.
+	 *
+	 * @param thread
+	 *            The thread were the log happens.
+	 * @param level
+	 *            The level of severity of the log's entry.
+	 * @param message_supplier
+	 *            Provides the message body of the log's entry.
+	 */
+	public static void tracedLog(final Thread thread, final Level level, final Supplier<String> message_supplier) {
 
-			final String caller_package_name = caller_class.getPackage().getName();
+		LoggerManager.tracedLog(thread, level, message_supplier, null);
+	}
 
-			if (thread != null) {
-				caller_class = thread.getClass();
-				caller_class_name = String.format("%s (%s)", caller_class.getName(), thread.getName());
-			}
+	/**
+	 * Logs the message provided by the supplier and the associated exception if
+	 * on exists. The supplier is called only if the level is enabled.
+	 *
+	 * @param thread
+	 *            The thread were the log happens.
+	 * @param level
+	 *            The level of severity of the log's entry.
+	 * @param message_supplier
+	 *            Provides the message body of the log's entry.
+	 * @param exception
+	 *            The associated {@link Throwable} if one exists.
+	 */
+	public static void tracedLog(final Thread thread, final Level level, final Supplier<String> message_supplier,
+	        final Throwable exception) {
 
-			if (exception != null) {
-				Logger.getLogger(caller_package_name).logp(level, caller_class_name, caller_name, message, exception);
-			}
-			else {
-				Logger.getLogger(caller_package_name).logp(level, caller_class_name, caller_name, message);
-			}
+		final long start_time = System.nanoTime();
+		final Caller caller = LoggerManager.callers.get();
+
+		if (caller.logger.isLoggable(level)) {
+			LoggerManager.log(caller, thread, level, message_supplier.get(), exception, start_time);
+		}
+
+	}
+
+	/**
+	 * Writes all the buffered records.
+	 *
+	 * @return The number of records that were written.
+	 */
+	private static int drain() {
+
+		int count = 0;
+
+		for (LogRecord record = LoggerManager.buffer.poll(); record != null; record = LoggerManager.buffer.poll()) {
+
+			LoggerManager.loggers.computeIfAbsent(record.getLoggerName(), x -> Logger.getLogger(x)).log(record);
+			count++;
 
-		} catch (final ClassNotFoundException ex) {
-			Logger.getLogger(LoggerManager.class.getPackage().getName()).log(Level.SEVERE,
-			        String.format("Logging was not possible for class <%s>.", caller_class_name), ex);
 		}
 
+		return count;
+
+	}
+
+	private static void log(final Caller caller, final Thread thread, final Level level, final String message,
+	        final Throwable exception, final long start_time) {
+
+		final LogRecord record = new LogRecord(level, message);
+
+		record.setLoggerName(caller.logger.getName());
+		record.setSourceClassName(
+		        thread == null ? caller.class_name : thread.getClass().getName() + " (" + thread.getName() + ")");
+		record.setSourceMethodName(caller.method_name);
+		record.setThrown(exception);
+
+		if (LoggerManager.asynchronous && LoggerManager.buffer.offer(record)) {
+			LoggerManager.writer.wakeUp();
+		}
+		else {
+
+			caller.logger.log(record);
+			LoggerManager.synchronous_entries.increment();
+
+		}
+
+		LoggerManager.logged_entries.increment();
+		LoggerManager.logging_time.add(System.nanoTime() - start_time);
+
 	}
 
 }
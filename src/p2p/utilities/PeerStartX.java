@@ -1,8 +1,10 @@
 package p2p.utilities;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
@@ -59,6 +61,11 @@ public class PeerStartX extends StartX {
 		 * Indicates a command to print all the files in the shared directory.
 		 */
 		PRINT_SHARED_DIRECTORY("print directory"),
+		/**
+		 * Indicates a command to announce the changes of the shared directory
+		 * to the tracker.
+		 */
+		ANNOUNCE("announce"),
 		/**
 		 * Indicates a command to download the specified file.
 		 */
@@ -67,6 +74,14 @@ public class PeerStartX extends StartX {
 		 * Indicates a command to print current progress report,
 		 */
 		PROGRESS("progress"),
+		/**
+		 * Indicates a command to print the metrics once.
+		 */
+		STATS("stats"),
+		/**
+		 * Indicates a command to print the metrics until enter is pressed.
+		 */
+		TOP("top"),
 		/**
 		 * Indicates a command to exit the interface.
 		 */
@@ -119,10 +134,12 @@ public class PeerStartX extends StartX {
 	 */
 	public static void main(final String[] args) {
 
-		Configuration.setAsDefault(new Configuration("configuration.properties"));
-
 		final ThreadGroup peers = new ThreadGroup("Peers");
 
+		StartX.loadConfiguration(peers, StartX.default_configuration_path);
+		StartX.startMetricsExporter(peers);
+		StartX.startTracing("peer");
+
 		try (Scanner in_scanner = new Scanner(System.in); PrintWriter out_writer = new PrintWriter(System.out)) {
 
 			try (Peer peer = new Peer(peers, Peer.class.getSimpleName())) {
@@ -137,7 +154,8 @@ public class PeerStartX extends StartX {
 
 	}
 
-	private final Peer peer;
+	private final Peer	  peer;
+	private final TopView top_view;
 
 	/**
 	 * Allocates a new PeerStartX object.
@@ -156,6 +174,7 @@ public class PeerStartX extends StartX {
 		super(in, out);
 
 		this.peer = peer;
+		this.top_view = new TopView(peer.getName(), out);
 	}
 
 	/*
@@ -205,15 +224,33 @@ public class PeerStartX extends StartX {
 
 				case PRINT_FILES_LIST:
 
-					TestHelper
-					        .getDefaultSharedFiles(Paths.get(Configuration.getDefault().getString("sample_list_path",
-					                TestHelper.default_sample_list_path)))
-					        .forEach(x -> System.out.println(x.getName()));
+					/*
+					 * The files are printed relative to the list's directory,
+					 * the same way they are shared.
+					 */
+					final Path sample_list_path = Paths.get(Configuration.getDefault().getString("sample_list_path",
+					        TestHelper.default_sample_list_path));
+
+					TestHelper.getDefaultSharedFiles(sample_list_path)
+					        .forEach(x -> System.out.println(sample_list_path.getParent().relativize(x.toPath())
+					                .toString().replace(File.separatorChar, '/')));
 					break;
 
 				case PRINT_SHARED_DIRECTORY:
 
-					this.peer.getSharedFiles().forEach(x -> System.out.println(x.getName()));
+					this.peer.getSharedFileDescriptions().stream().map(x -> x.getFilename()).sorted()
+					        .forEach(x -> System.out.println(x));
+					break;
+
+				case ANNOUNCE:
+
+					if (this.peer.announceSharedFiles()) {
+						System.out.println("The shared files were announced.");
+					}
+					else {
+						System.out.println("The announcement failed.");
+					}
+
 					break;
 
 				case DOWNLOAD:
@@ -268,6 +305,16 @@ public class PeerStartX extends StartX {
 
 					break;
 
+				case STATS:
+
+					this.top_view.print();
+					break;
+
+				case TOP:
+
+					this.top_view.show(this.in, TopView.default_refresh_interval);
+					break;
+
 				case HELP:
 
 					Stream.of(Command.values()).forEach(x -> System.out.println(x.getText()));
@@ -1,7 +1,15 @@
 package p2p.utilities;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.logging.Level;
+
+import p2p.components.Configuration;
+import p2p.components.ConfigurationWatcher;
+import p2p.components.metrics.MetricsExporter;
+import p2p.components.tracing.Tracer;
 
 /**
  * A StartX object acts as an interface that provides input to and reads output
@@ -11,6 +19,98 @@ import java.util.Scanner;
  */
 public abstract class StartX {
 
+	/**
+	 * The default path of the configuration file.
+	 */
+	public static final String default_configuration_path = "configuration.properties";
+
+	/**
+	 * Loads the configuration file, sets it as the default configuration and
+	 * starts watching it for changes.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that the watcher is going to
+	 *            belong to.
+	 * @param path
+	 *            The path of the configuration file.
+	 * @return The started {@link ConfigurationWatcher} object or null if the
+	 *         file can not be watched.
+	 */
+	public static ConfigurationWatcher loadConfiguration(final ThreadGroup group, final String path) {
+
+		Configuration.setAsDefault(new Configuration(path));
+
+		try {
+
+			final ConfigurationWatcher configuration_watcher = new ConfigurationWatcher(group,
+			        ConfigurationWatcher.class.getSimpleName(), path);
+			configuration_watcher.start();
+
+			return configuration_watcher;
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING,
+			        String.format("The configuration file <%s> can not be watched for changes.", path), ex);
+
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Starts exporting the metrics periodically, if an export path is
+	 * specified in the default configuration.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that the exporter is going to
+	 *            belong to.
+	 * @return The started {@link MetricsExporter} object or null if the
+	 *         metrics are not exported.
+	 */
+	public static MetricsExporter startMetricsExporter(final ThreadGroup group) {
+
+		final MetricsExporter metrics_exporter = MetricsExporter.newDefault(group);
+
+		if (metrics_exporter != null) {
+			metrics_exporter.start();
+		}
+
+		return metrics_exporter;
+
+	}
+
+	/**
+	 * Opens the trace file, if a path is specified in the default
+	 * configuration, so that the spans of the process are written to it.
+	 *
+	 * @param process
+	 *            The name of the process that is written with every span.
+	 * @return If tracing was enabled.
+	 */
+	public static boolean startTracing(final String process) {
+
+		final String path = Configuration.getDefault().getString("trace_path");
+
+		if ((path == null) || path.trim().isEmpty()) return false;
+
+		try {
+
+			Tracer.open(Paths.get(path.trim()), process);
+
+			return true;
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(Level.WARNING, String.format("The trace file <%s> can not be opened.", path), ex);
+
+		}
+
+		return false;
+
+	}
+
 	/**
 	 * The {@link Scanner} object that is used when input is required.
 	 */
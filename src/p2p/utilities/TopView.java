@@ -0,0 +1,213 @@
+package p2p.utilities;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+import p2p.components.metrics.MetricsRegistry;
+import p2p.components.metrics.MetricsSnapshot;
+import p2p.components.metrics.MetricsSnapshot.Summary;
+
+/**
+ * A TopView object prints the metrics of a tracker or a peer in a compact
+ * table. Every view compares the new {@link MetricsSnapshot} with the one it
+ * printed last, so the rates refer to the interval between the two. The
+ * snapshots are taken from the {@link MetricsRegistry}, locally or through a
+ * STATS request, so printing a view never has to inspect the running threads.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class TopView {
+
+	/**
+	 * The default interval in milliseconds between two refreshes of the view.
+	 */
+	public static final int default_refresh_interval = 1000;
+
+	/**
+	 * Moves the cursor to the top left corner and clears the screen.
+	 */
+	private static final String clear_screen = "\u001B[H\u001B[2J";
+
+	private static final String histogram_format = "  %-40s %10s %10s %10s %10s %10s%n";
+	private static final String value_format	 = "  %-40s %10s %10s%n";
+
+	/**
+	 * @return The duration in hours, minutes and seconds.
+	 */
+	private static String formatDuration(final long duration) {
+
+		final long seconds = duration / 1000;
+
+		return String.format("%d:%02d:%02d", new Long(seconds / 3600), new Long((seconds / 60) % 60),
+		        new Long(seconds % 60));
+	}
+
+	/**
+	 * @return The row of the histogram.
+	 */
+	private static String formatSummary(final String name, final Summary summary, final double rate) {
+
+		return String.format(TopView.histogram_format, name, String.format("%.1f", new Double(rate)),
+		        new Long(summary.getP50()), new Long(summary.getP90()), new Long(summary.getP99()),
+		        new Long(summary.getMax()));
+	}
+
+	private final String					title;
+	private final Supplier<MetricsSnapshot>	source;
+	private final PrintWriter				out;
+
+	private MetricsSnapshot previous = null;
+
+	/**
+	 * Allocates a new TopView object that prints the default registry.
+	 *
+	 * @param title
+	 *            The title of the view.
+	 * @param out
+	 *            The {@link PrintWriter} object that the view is printed to.
+	 */
+	public TopView(final String title, final PrintWriter out) {
+		this(title, () -> MetricsRegistry.getDefault().getSnapshot(), out);
+	}
+
+	/**
+	 * Allocates a new TopView object.
+	 *
+	 * @param title
+	 *            The title of the view.
+	 * @param source
+	 *            Provides the snapshots to be printed. May return null if the
+	 *            metrics are not available.
+	 * @param out
+	 *            The {@link PrintWriter} object that the view is printed to.
+	 */
+	public TopView(final String title, final Supplier<MetricsSnapshot> source, final PrintWriter out) {
+
+		this.title = title;
+		this.source = source;
+		this.out = out;
+
+	}
+
+	/**
+	 * Takes a new snapshot and prints it once.
+	 */
+	public synchronized void print() {
+
+		final MetricsSnapshot current = this.source.get();
+
+		if (current == null) {
+
+			this.out.println("The metrics are not available.");
+			this.out.flush();
+			return;
+
+		}
+
+		final MetricsSnapshot last = this.previous;
+		final long interval = last == null ? current.getUptime() : current.getTimestamp() - last.getTimestamp();
+
+		this.out.println(String.format("%s - uptime %s, interval %.1f s", this.title,
+		        TopView.formatDuration(current.getUptime()), new Double(interval / 1000.0)));
+
+		/*
+		 * Throughput over all request types and transferred bytes.
+		 */
+		final double request_rate = current.getHistograms().keySet().stream().filter(x -> x.startsWith("server."))
+		        .mapToDouble(x -> current.getRate(x, last)).sum();
+		final long in_flight = current.getGauges().entrySet().stream()
+		        .filter(x -> x.getKey().endsWith(".active_servers")).mapToLong(x -> x.getValue().longValue()).sum();
+		final double byte_rate = current.getCounters().keySet().stream().filter(x -> x.endsWith("_bytes"))
+		        .mapToDouble(x -> current.getRate(x, last)).sum();
+
+		this.out.println(String.format("Throughput: %.1f requests/s, %d in flight, %.1f KiB/s",
+		        new Double(request_rate), new Long(in_flight), new Double(byte_rate / 1024)));
+
+		this.out.println();
+		this.out.print(String.format(TopView.value_format, "Gauge", "value", ""));
+		current.getGauges().forEach((x, y) -> this.out.print(String.format(TopView.value_format, x, y, "")));
+
+		this.out.println();
+		this.out.print(String.format(TopView.value_format, "Counter", "value", "rate/s"));
+		current.getCounters().forEach((x, y) -> this.out.print(String.format(TopView.value_format, x, y,
+		        String.format("%.1f", new Double(current.getRate(x, last))))));
+
+		this.out.println();
+		this.out.print(String.format(TopView.histogram_format, "Latency (us)", "rate/s", "p50", "p90", "p99", "max"));
+		current.getHistograms()
+		        .forEach((x, y) -> this.out.print(TopView.formatSummary(x, y, current.getRate(x, last))));
+
+		for (final String ranking : current.getRankings()) {
+
+			final Map<String, Long> top = current.getRanking(ranking);
+
+			this.out.println();
+			this.out.print(String.format(TopView.value_format, String.format("Top %s", ranking), "amount", ""));
+			top.forEach((x, y) -> this.out.print(String.format(TopView.value_format, x, y, "")));
+
+		}
+
+		this.out.flush();
+
+		this.previous = current;
+
+	}
+
+	/**
+	 * Refreshes the view in place until a line is entered.
+	 *
+	 * @param in
+	 *            The {@link Scanner} object that the line is read from.
+	 * @param refresh_interval
+	 *            The interval in milliseconds between two refreshes.
+	 */
+	public void show(final Scanner in, final int refresh_interval) {
+
+		final Thread refresher = new Thread(() -> {
+
+			try {
+
+				while (!Thread.currentThread().isInterrupted()) {
+
+					synchronized (this) {
+						this.out.print(TopView.clear_screen);
+						this.print();
+						this.out.println();
+						this.out.println("Press enter to return.");
+						this.out.flush();
+					}
+
+					Thread.sleep(Math.max(1, refresh_interval));
+
+				}
+
+			} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+				// Stop refreshing.
+			}
+
+		}, TopView.class.getSimpleName());
+
+		refresher.setDaemon(true);
+		refresher.start();
+
+		try {
+
+			in.nextLine();
+
+		} finally {
+
+			refresher.interrupt();
+
+			try {
+				refresher.join();
+			} catch (@SuppressWarnings("unused") final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+
+		}
+
+	}
+
+}
@@ -33,6 +33,14 @@ public class TrackerStartX extends StartX {
 		 * Indicates a command to stop the server.
 		 */
 		STOP("stop"),
+		/**
+		 * Indicates a command to print the metrics once.
+		 */
+		STATS("stats"),
+		/**
+		 * Indicates a command to print the metrics until enter is pressed.
+		 */
+		TOP("top"),
 		/**
 		 * Indicates a command to print the available command of the interface.
 		 */
@@ -87,6 +95,10 @@ public class TrackerStartX extends StartX {
 
 		final ThreadGroup trackers = new ThreadGroup("Trackers");
 
+		StartX.loadConfiguration(trackers, StartX.default_configuration_path);
+		StartX.startMetricsExporter(trackers);
+		StartX.startTracing("tracker");
+
 		try (Scanner in_scanner = new Scanner(System.in); PrintWriter out_writer = new PrintWriter(System.out)) {
 
 			try (Tracker tracker = new Tracker(trackers, Tracker.class.getSimpleName())) {
@@ -102,6 +114,7 @@ public class TrackerStartX extends StartX {
 	}
 
 	private final Tracker tracker;
+	private final TopView top_view;
 
 	/**
 	 * Allocates a new TrackerStartX object.
@@ -120,6 +133,7 @@ public class TrackerStartX extends StartX {
 		super(in, out);
 
 		this.tracker = tracker;
+		this.top_view = new TopView(tracker.getName(), out);
 	}
 
 	/*
@@ -173,6 +187,16 @@ public class TrackerStartX extends StartX {
 
 					break;
 
+				case STATS:
+
+					this.top_view.print();
+					break;
+
+				case TOP:
+
+					this.top_view.show(this.in, TopView.default_refresh_interval);
+					break;
+
 				case HELP:
 
 					Stream.of(Command.values()).forEach(x -> System.out.println(x.getText()));
@@ -0,0 +1,777 @@
+package p2p.utilities.testing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import p2p.components.Configuration;
+import p2p.components.common.Credentials;
+import p2p.components.common.FileDescription;
+import p2p.components.common.Pair;
+import p2p.components.communication.ClientChannel;
+import p2p.components.communication.CloseableThread;
+import p2p.components.communication.messages.Message;
+import p2p.components.communication.messages.Reply;
+import p2p.components.communication.messages.Request;
+import p2p.components.exceptions.FailedRequestException;
+import p2p.components.metrics.Histogram;
+import p2p.components.peers.Peer;
+import p2p.components.peers.PeerAcknowledgeClient;
+import p2p.components.peers.PeerRegistrationClient;
+import p2p.components.peers.PeerServerManager;
+import p2p.components.peers.SearchClient;
+import p2p.components.peers.SharedDirectoryIndex;
+import p2p.utilities.LoggerManager;
+import p2p.utilities.common.Instructable;
+
+/**
+ * A LoadGenerator object simulates a large number of lightweight peers against
+ * a single tracker. A virtual peer is only a set of credentials and shared
+ * file descriptions, it has no thread and no server of its own, all of them
+ * advertise a single responder that answers the check alive requests of the
+ * tracker. The peers arrive as a Poisson process, log in, registering first if
+ * needed, send a number of requests chosen from a weighted mix with
+ * exponentially distributed think times and finally log out.
+ * <p>
+ * The requests are executed by a fixed pool of threads and their latency is
+ * measured from the moment they were scheduled, so the time a request waited
+ * for a free thread of the generator is included and an overloaded tracker
+ * can not hide its queueing delay. The throughput and the latency percentiles
+ * of every operation are written as a JSON report that can be compared across
+ * runs.
+ *
+ * @author {@literal p3100161 <Joseph Sakos>}
+ */
+public class LoadGenerator extends CloseableThread {
+
+	/**
+	 * An Operation enumeration indicates the requests that a virtual peer can
+	 * send to the tracker.
+	 *
+	 * @author {@literal p3100161 <Joseph Sakos>}
+	 */
+	public enum Operation implements Instructable {
+
+		/**
+		 * Registers the user of the peer.
+		 */
+		REGISTER("register"),
+		/**
+		 * Logs the peer in and sends its shared files.
+		 */
+		LOGIN("login"),
+		/**
+		 * Searches for a file of the catalog.
+		 */
+		SEARCH("search"),
+		/**
+		 * Acknowledges a download from a peer returned by the last search.
+		 */
+		ACKNOWLEDGE("acknowledge"),
+		/**
+		 * Logs the peer out.
+		 */
+		LOGOUT("logout");
+
+		/**
+		 * Searches the enumeration for an Operation object that can be
+		 * associated with the given text.
+		 *
+		 * @param text
+		 *            The text associated with the requested operation.
+		 * @return The Operation object that can be associated with the given
+		 *         text.
+		 * @throws NoSuchElementException
+		 *             If no Operation object can be associated with the given
+		 *             text.
+		 */
+		public static Operation find(final String text) throws NoSuchElementException {
+
+			return Instructable.find(Operation.class, text);
+		}
+
+		private final String text;
+
+		private Operation(final String text) {
+
+			this.text = text;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.utilities.common.Instructable#getText()
+		 */
+		@Override
+		public String getText() {
+
+			return this.text;
+		}
+
+	}
+
+	/**
+	 * A LoadGenerator#LoginClient object logs a virtual peer in, sending the
+	 * address of the responder as the address of the peer's server. Either
+	 * with a single bound login request or with the two phases of a login
+	 * request.
+	 */
+	private static final class LoginClient extends ClientChannel {
+
+		private final VirtualPeer		peer;
+		private final InetSocketAddress	responder_address;
+		private final boolean			bound_login;
+
+		LoginClient(final ThreadGroup group, final String name, final InetSocketAddress socket_address,
+		        final VirtualPeer peer, final InetSocketAddress responder_address, final boolean bound_login)
+		        throws IOException {
+			super(group, name, socket_address);
+
+			this.peer = peer;
+			this.responder_address = responder_address;
+			this.bound_login = bound_login;
+
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.communication.Channel#communicate()
+		 */
+		@Override
+		protected void communicate() throws IOException, InterruptedException {
+
+			if (this.bound_login) {
+				this.out.writeObject(new Request<>(Request.Type.BOUND_LOGIN,
+				        new Pair<>(this.peer.credentials, new Pair<>(this.responder_address, this.peer.files))));
+			}
+			else {
+				this.out.writeObject(new Request<>(Request.Type.LOGIN, this.peer.credentials));
+			}
+
+			try {
+
+				/*
+				 * A bound login is answered with the session id and a
+				 * resumption token that virtual peers do not use.
+				 */
+				final Integer session_id = this.bound_login
+				        ? Integer.class.cast(Reply.getValidatedData(this.in.readObject(), Pair.class).getFirst())
+				        : Reply.getValidatedData(this.in.readObject(), Integer.class);
+				if (session_id == null) throw new FailedRequestException();
+
+				if (!this.bound_login) {
+
+					this.out.writeObject(new Message<>(new Pair<>(this.responder_address, this.peer.files)));
+
+					Reply.getValidatedData(this.in.readObject(), Boolean.class);
+
+				}
+
+				this.peer.session_id = session_id;
+				this.status = Status.SUCCESSFULL;
+
+			} catch (ClassCastException | ClassNotFoundException ex) {
+				throw new IOException(ex);
+			} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+				this.status = Status.FAILED;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * A LoadGenerator#LogoutClient object logs a virtual peer out.
+	 */
+	private static final class LogoutClient extends ClientChannel {
+
+		private final VirtualPeer peer;
+
+		LogoutClient(final ThreadGroup group, final String name, final InetSocketAddress socket_address,
+		        final VirtualPeer peer) throws IOException {
+			super(group, name, socket_address);
+
+			this.peer = peer;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see p2p.components.communication.Channel#communicate()
+		 */
+		@Override
+		protected void communicate() throws IOException, InterruptedException {
+
+			this.out.writeObject(new Request<>(Request.Type.LOGOUT, this.peer.session_id));
+
+			try {
+
+				Reply.getValidatedData(this.in.readObject(), Boolean.class);
+
+				this.peer.session_id = null;
+				this.status = Status.SUCCESSFULL;
+
+			} catch (ClassCastException | ClassNotFoundException ex) {
+				throw new IOException(ex);
+			} catch (@SuppressWarnings("unused") final FailedRequestException ex) {
+
+				this.status = Status.FAILED;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * A LoadGenerator#Statistics object keeps the measurements of an
+	 * operation.
+	 */
+	private static final class Statistics {
+
+		private final Histogram	 latencies = new Histogram();
+		private final AtomicLong failures  = new AtomicLong();
+
+	}
+
+	/**
+	 * A LoadGenerator#VirtualPeer object keeps the state of a simulated peer.
+	 * Its steps never overlap, so the state needs no synchronization beyond
+	 * the ordering provided by the executor.
+	 */
+	private static final class VirtualPeer {
+
+		private final String					name;
+		private final Credentials				credentials;
+		private final HashSet<FileDescription>	files;
+
+		private volatile Integer									session_id			 = null;
+		private volatile String										last_search_filename = null;
+		private volatile List<Pair<String, InetSocketAddress>>	last_search			 = null;
+		private volatile int										requests			 = 0;
+		private volatile boolean									registration		 = false;
+
+		VirtualPeer(final String name, final Credentials credentials, final HashSet<FileDescription> files) {
+
+			this.name = name;
+			this.credentials = credentials;
+			this.files = files;
+
+		}
+
+	}
+
+	/**
+	 * @return A random exponentially distributed delay in nanoseconds with
+	 *         the specified mean.
+	 */
+	private static long getExponentialDelay(final double mean_nanoseconds) {
+
+		return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean_nanoseconds);
+	}
+
+	/**
+	 * @return The weights of the operations parsed from text such as
+	 *         <i>search:80,acknowledge:20</i>. Unknown operations are ignored.
+	 */
+	private static EnumMap<Operation, Integer> parseMix(final String text) {
+
+		final EnumMap<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+		for (final String entry : text.split(",")) {
+
+			final String[] parts = entry.split(":");
+
+			try {
+
+				final Operation operation = Operation.find(parts[0].trim());
+				final int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+
+				if (weight > 0) {
+					mix.put(operation, new Integer(weight));
+				}
+
+			} catch (NoSuchElementException | NumberFormatException ex) {
+
+				LoggerManager.tracedLog(Level.WARNING,
+				        String.format("The entry <%s> of the load mix was ignored.", entry), ex);
+
+			}
+
+		}
+
+		if (mix.isEmpty()) {
+			mix.put(Operation.SEARCH, new Integer(1));
+		}
+
+		return mix;
+
+	}
+
+	private final ThreadGroup clients_group	  = CloseableThread.newThreadGroup(this, "Clients");
+	private final ThreadGroup responder_group = CloseableThread.newThreadGroup(this, "Responder");
+
+	private final InetSocketAddress	tracker_address;
+	private final String			shared_directory;
+	/**
+	 * Indicates if the peers log in with a single bound login request.
+	 */
+	private final boolean			bound_login;
+
+	/**
+	 * The number of virtual peers that arrive during the test.
+	 */
+	private final int							peers;
+	/**
+	 * The mean number of peers that arrive per second.
+	 */
+	private final double						arrival_rate;
+	/**
+	 * The number of threads that execute the requests.
+	 */
+	private final int							threads;
+	/**
+	 * The number of requests, besides the login and the logout, that every
+	 * peer sends.
+	 */
+	private final int							requests_per_session;
+	/**
+	 * The mean time in milliseconds between two requests of a peer.
+	 */
+	private final int							think_time;
+	/**
+	 * The weights of the operations that the requests are chosen from.
+	 */
+	private final EnumMap<Operation, Integer>	mix;
+	private final int							mix_total;
+	/**
+	 * The number of files that every peer shares.
+	 */
+	private final int							files_per_peer;
+	/**
+	 * The number of distinct files that the peers share and search.
+	 */
+	private final int							catalog_size;
+	private final String						report_path;
+
+	private final EnumMap<Operation, Statistics> statistics = new EnumMap<>(Operation.class);
+
+	private volatile InetSocketAddress	responder_address;
+	private ScheduledThreadPoolExecutor	executor;
+	private CountDownLatch				completed_sessions;
+
+	/**
+	 * Allocates a new LoadGenerator object.
+	 *
+	 * @param group
+	 *            The {@link ThreadGroup} object that this generator belongs
+	 *            to.
+	 * @param name
+	 *            The name of this generator.
+	 * @param configuration
+	 *            The configuration of the test.
+	 * @param tracker_address
+	 *            The socket address of the tracker under test.
+	 */
+	public LoadGenerator(final ThreadGroup group, final String name, final Configuration configuration,
+	        final InetSocketAddress tracker_address) {
+		super(group, name);
+
+		this.tracker_address = tracker_address;
+		this.shared_directory = configuration.getString("shared_directory_path", "shared/peers");
+		this.bound_login = !Peer.two_phase_login_mode.equalsIgnoreCase(configuration
+		        .getString("login_mode", Configuration.getDefault().getString("login_mode", Peer.bound_login_mode))
+		        .trim());
+		this.peers = Math.max(1, configuration.getInteger("load_peers", 10000));
+		this.arrival_rate = Math.max(1, configuration.getInteger("load_arrival_rate", 200));
+		this.threads = Math.max(1, configuration.getInteger("load_threads", 64));
+		this.requests_per_session = Math.max(0, configuration.getInteger("load_requests_per_session", 10));
+		this.think_time = Math.max(0, configuration.getInteger("load_think_time", 500));
+		this.mix = LoadGenerator.parseMix(configuration.getString("load_mix", "search:80,acknowledge:20"));
+		this.mix_total = this.mix.values().stream().mapToInt(x -> x.intValue()).sum();
+		this.files_per_peer = Math.max(1, configuration.getInteger("load_files_per_peer", 25));
+		this.catalog_size = Math.max(this.files_per_peer, configuration.getInteger("load_catalog_size", 10000));
+		this.report_path = configuration.getString("load_report_path", "load_report.json");
+
+		for (final Operation operation : Operation.values()) {
+			this.statistics.put(operation, new Statistics());
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+
+		CloseableThread.interrupt(this.clients_group);
+		CloseableThread.interrupt(this.responder_group);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Thread#run()
+	 */
+	@Override
+	public void run() {
+
+		final File responder_directory = new File(this.shared_directory, String.format("%s_responder", this.getName()));
+		responder_directory.mkdirs();
+
+		try (SharedDirectoryIndex responder_index = new SharedDirectoryIndex(this.responder_group,
+		        String.format("%s.ResponderIndex", this.getName()), responder_directory.getPath());
+		        PeerServerManager responder = new PeerServerManager(this.responder_group,
+		                String.format("%s.Responder", this.getName()), responder_index)) {
+
+			responder_index.start();
+			responder.start();
+
+			this.responder_address = new InetSocketAddress(this.tracker_address.getAddress(),
+			        responder.getSocketAddress().getPort());
+
+			this.executor = new ScheduledThreadPoolExecutor(this.threads);
+			this.completed_sessions = new CountDownLatch(this.peers);
+
+			LoggerManager.tracedLog(this, Level.INFO,
+			        String.format("Starting %d virtual peers at %.1f arrivals/s on %d threads.",
+			                new Integer(this.peers), new Double(this.arrival_rate), new Integer(this.threads)));
+
+			final long start_time = System.nanoTime();
+			final long start_timestamp = System.currentTimeMillis();
+			long arrival_time = start_time;
+
+			for (int i = 0; i < this.peers; i++) {
+
+				arrival_time += LoadGenerator.getExponentialDelay(1e9 / this.arrival_rate);
+
+				final int index = i;
+				final long intended_time = arrival_time;
+
+				/*
+				 * The peers are created as they arrive, so a large population
+				 * is never held in memory at once.
+				 */
+				this.executor.schedule(() -> this.step(this.newVirtualPeer(index), Operation.LOGIN, intended_time),
+				        intended_time - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+			}
+
+			while (!this.completed_sessions.await(10, TimeUnit.SECONDS)) {
+
+				LoggerManager.tracedLog(this, Level.INFO,
+				        String.format("%d from %d virtual peers have finished.",
+				                new Long(this.peers - this.completed_sessions.getCount()), new Integer(this.peers)));
+
+			}
+
+			final long elapsed_time = System.nanoTime() - start_time;
+
+			this.writeReport(start_timestamp, elapsed_time);
+
+		} catch (final IOException ex) {
+			LoggerManager.tracedLog(this, Level.SEVERE, "An IOException occurred during the load test.", ex);
+		} catch (final InterruptedException ex) {
+			LoggerManager.tracedLog(this, Level.WARNING, "The load test was interrupted.", ex);
+		} finally {
+
+			try {
+
+				this.close();
+
+			} catch (final IOException ex) {
+				LoggerManager.tracedLog(this, Level.WARNING, "The load generator could not be terminated properly.",
+				        ex);
+			}
+
+		}
+
+	}
+
+	/**
+	 * @return The operation of the next request of the peer.
+	 */
+	private Operation getNextOperation(final VirtualPeer peer) {
+
+		if (peer.requests >= this.requests_per_session) return Operation.LOGOUT;
+
+		int choice = ThreadLocalRandom.current().nextInt(this.mix_total);
+
+		for (final Map.Entry<Operation, Integer> entry : this.mix.entrySet()) {
+
+			choice -= entry.getValue().intValue();
+
+			if (choice < 0) return entry.getKey();
+
+		}
+
+		return Operation.SEARCH;
+
+	}
+
+	/**
+	 * @return The filename of a file of the catalog, the lower indices being
+	 *         the most popular.
+	 */
+	private String getFilename(final Random random) {
+
+		final double x = random.nextDouble();
+
+		return String.format("load-file-%06d.bin", new Integer((int) (this.catalog_size * x * x * x)));
+	}
+
+	/**
+	 * @return A new virtual peer with deterministic credentials and files.
+	 */
+	private VirtualPeer newVirtualPeer(final int index) {
+
+		final Random random = new Random(index);
+		final HashSet<FileDescription> files = new HashSet<>();
+
+		while (files.size() < this.files_per_peer) {
+			files.add(new FileDescription(this.getFilename(random), 0));
+		}
+
+		return new VirtualPeer(String.format("%s.Peer-%d", this.getName(), new Integer(index)),
+		        new Credentials(String.format("load-user-%d", new Integer(index)), "load-password"), files);
+
+	}
+
+	/**
+	 * Sends a single request of the peer.
+	 *
+	 * @return True If the request completed successfully.
+	 * @throws IOException
+	 *             If the connection to the tracker failed.
+	 */
+	private boolean perform(final VirtualPeer peer, final Operation operation) throws IOException {
+
+		final String name = String.format("%s.%s", peer.name, operation.getText());
+
+		switch (operation) {
+		case REGISTER:
+			try (PeerRegistrationClient client = new PeerRegistrationClient(this.clients_group, name,
+			        this.tracker_address, peer.credentials)) {
+
+				client.run();
+				return client.getStatus() == ClientChannel.Status.SUCCESSFULL;
+
+			}
+
+		case LOGIN:
+			try (LoginClient client = new LoginClient(this.clients_group, name, this.tracker_address, peer,
+			        this.responder_address, this.bound_login)) {
+
+				client.run();
+				return client.getStatus() == ClientChannel.Status.SUCCESSFULL;
+
+			}
+
+		case SEARCH:
+
+			final String filename = this.getFilename(ThreadLocalRandom.current());
+
+			try (SearchClient client = new SearchClient(this.clients_group, name, this.tracker_address,
+			        peer.session_id.intValue(), filename)) {
+
+				client.run();
+				peer.last_search_filename = filename;
+				peer.last_search = client.getPeerList();
+				return client.getStatus() == ClientChannel.Status.SUCCESSFULL;
+
+			}
+
+		case ACKNOWLEDGE:
+
+			/*
+			 * Acknowledge the download of the file that was searched for,
+			 * which the uploader is known to share.
+			 */
+			final List<Pair<String, InetSocketAddress>> last_search = peer.last_search;
+			final Pair<String, InetSocketAddress> uploader = last_search
+			        .get(ThreadLocalRandom.current().nextInt(last_search.size()));
+
+			try (PeerAcknowledgeClient client = new PeerAcknowledgeClient(this.clients_group, name,
+			        this.tracker_address, peer.session_id.intValue(), uploader.getFirst(),
+			        peer.last_search_filename)) {
+
+				client.run();
+				return client.getStatus() == ClientChannel.Status.SUCCESSFULL;
+
+			}
+
+		case LOGOUT:
+			try (LogoutClient client = new LogoutClient(this.clients_group, name, this.tracker_address, peer)) {
+
+				client.run();
+				return client.getStatus() == ClientChannel.Status.SUCCESSFULL;
+
+			}
+
+		default:
+			return false;
+		}
+
+	}
+
+	/**
+	 * Executes a step of the peer's session and schedules the next one.
+	 */
+	private void step(final VirtualPeer peer, final Operation requested_operation, final long intended_time) {
+
+		/*
+		 * An acknowledgement needs a search result to pick the uploader from.
+		 */
+		final List<Pair<String, InetSocketAddress>> last_search = peer.last_search;
+		final Operation operation = (requested_operation == Operation.ACKNOWLEDGE)
+		        && ((last_search == null) || last_search.isEmpty()) ? Operation.SEARCH : requested_operation;
+
+		final Statistics operation_statistics = this.statistics.get(operation);
+		boolean successful = false;
+
+		try {
+
+			successful = this.perform(peer, operation);
+
+		} catch (final IOException ex) {
+
+			LoggerManager.tracedLog(this, Level.FINE,
+			        String.format("The %s request of <%s> failed.", operation.getText(), peer.name), ex);
+
+		} finally {
+
+			operation_statistics.latencies.recordSince(intended_time);
+
+			if (!successful) {
+				operation_statistics.failures.incrementAndGet();
+			}
+
+		}
+
+		final Operation next_operation;
+
+		switch (operation) {
+		case LOGIN:
+			/*
+			 * A peer that could not log in registers once and tries again,
+			 * otherwise it leaves.
+			 */
+			next_operation = successful ? this.getNextOperation(peer)
+			        : peer.registration ? null : Operation.REGISTER;
+			break;
+
+		case REGISTER:
+			peer.registration = true;
+			next_operation = successful ? Operation.LOGIN : null;
+			break;
+
+		case LOGOUT:
+			next_operation = null;
+			break;
+
+		default:
+			peer.requests++;
+			next_operation = this.getNextOperation(peer);
+		}
+
+		if ((next_operation == null) || this.executor.isShutdown()) {
+
+			this.completed_sessions.countDown();
+			return;
+
+		}
+
+		/*
+		 * The registration and the login that follows it are sent
+		 * immediately, the other requests after a think time.
+		 */
+		final long delay = (operation == Operation.REGISTER) || (next_operation == Operation.REGISTER) ? 0
+		        : LoadGenerator.getExponentialDelay(this.think_time * 1e6);
+		final long next_intended_time = System.nanoTime() + delay;
+
+		this.executor.schedule(() -> this.step(peer, next_operation, next_intended_time), delay,
+		        TimeUnit.NANOSECONDS);
+
+	}
+
+	/**
+	 * Logs a summary of the measurements and writes them to the report.
+	 */
+	private void writeReport(final long start_timestamp, final long elapsed_time) throws IOException {
+
+		final double seconds = Math.max(1, elapsed_time) / 1e9;
+		final StringBuilder builder = new StringBuilder();
+
+		builder.append(String.format("{%n"));
+		builder.append(String.format(Locale.ROOT, "  \"timestamp\": %d,%n", new Long(start_timestamp)));
+		builder.append(String.format(Locale.ROOT, "  \"duration_seconds\": %.3f,%n", new Double(seconds)));
+		builder.append(String.format(Locale.ROOT, "  \"peers\": %d,%n", new Integer(this.peers)));
+		builder.append(String.format(Locale.ROOT, "  \"arrival_rate\": %.1f,%n", new Double(this.arrival_rate)));
+		builder.append(String.format(Locale.ROOT, "  \"threads\": %d,%n", new Integer(this.threads)));
+		builder.append(String.format(Locale.ROOT, "  \"requests_per_session\": %d,%n",
+		        new Integer(this.requests_per_session)));
+		builder.append(String.format(Locale.ROOT, "  \"think_time_ms\": %d,%n", new Integer(this.think_time)));
+		builder.append(String.format(Locale.ROOT, "  \"mix\": \"%s\",%n",
+		        this.mix.entrySet().stream().map(x -> String.format("%s:%d", x.getKey().getText(), x.getValue()))
+		                .reduce((x, y) -> String.format("%s,%s", x, y)).orElse("")));
+		builder.append(String.format("  \"operations\": {%n"));
+
+		String separator = "";
+
+		for (final Map.Entry<Operation, Statistics> entry : this.statistics.entrySet()) {
+
+			final Histogram latencies = entry.getValue().latencies;
+			final long count = latencies.getCount();
+			final long failures = entry.getValue().failures.get();
+
+			builder.append(separator);
+			builder.append(String.format(Locale.ROOT,
+			        "    \"%s\": {\"count\": %d, \"failures\": %d, \"throughput\": %.3f, "
+			                + "\"latency_us\": {\"mean\": %.1f, \"p50\": %d, \"p95\": %d, \"p99\": %d, "
+			                + "\"p999\": %d, \"max\": %d}}",
+			        entry.getKey().getText(), new Long(count), new Long(failures), new Double(count / seconds),
+			        new Double(latencies.getMean()), new Long(latencies.getPercentile(50)),
+			        new Long(latencies.getPercentile(95)), new Long(latencies.getPercentile(99)),
+			        new Long(latencies.getPercentile(99.9)), new Long(latencies.getMax())));
+			separator = String.format(",%n");
+
+			LoggerManager.tracedLog(this, Level.INFO,
+			        String.format("%s: %d requests (%d failed), %.1f/s, p50 %d us, p99 %d us, p999 %d us.",
+			                entry.getKey().getText(), new Long(count), new Long(failures),
+			                new Double(count / seconds), new Long(latencies.getPercentile(50)),
+			                new Long(latencies.getPercentile(99)), new Long(latencies.getPercentile(99.9))));
+
+		}
+
+		builder.append(String.format("%n  }%n}%n"));
+
+		Files.write(Paths.get(this.report_path), builder.toString().getBytes(StandardCharsets.UTF_8));
+
+		LoggerManager.tracedLog(this, Level.INFO, String.format("The load report was written to <%s>.",
+		        Paths.get(this.report_path).toAbsolutePath()));
+
+	}
+
+}
@@ -19,6 +19,8 @@ import java.util.stream.Collectors;
 import p2p.components.Configuration;
 import p2p.components.common.Credentials;
 import p2p.components.communication.CloseableThread;
+import p2p.components.communication.transport.EmulatedTransport;
+import p2p.components.communication.transport.Transport;
 import p2p.components.peers.Peer;
 import p2p.components.trackers.Tracker;
 import p2p.utilities.LoggerManager;
@@ -422,12 +424,17 @@ public class PeerTester extends CloseableThread {
 	 * Starts the execution of the tracker.
 	 *
 	 * @param args
-	 *            The console arguments.
+	 *            The console arguments, optionally the path of a test
+	 *            configuration that replaces the configured one.
 	 */
 	public static void main(final String[] args) {
 
 		Configuration.setAsDefault(new Configuration("configuration.properties"));
 
+		if (args.length > 0) {
+			Configuration.getDefault().setProperty("test_configuration", args[0]);
+		}
+
 		/*
 		 * Create a new ThreadGroup to add tests and execute them.
 		 */
@@ -496,6 +503,12 @@ public class PeerTester extends CloseableThread {
 	 */
 	private final String behavior_mode;
 
+	/**
+	 * Indicates if the entries of the log are going to be written by a
+	 * background writer. Can be either one of <asynchronous, synchronous>
+	 */
+	private final String logging_mode;
+
 	/**
 	 * Indicate if the shared files are going to be deleted automatically after
 	 * the test.
@@ -508,6 +521,19 @@ public class PeerTester extends CloseableThread {
 
 	private final String database_path;
 
+	/**
+	 * Indicates the kind of test. Can be either one of <peers, load>, the
+	 * first runs full peers that download files from each other and the
+	 * second simulates lightweight peers through a {@link LoadGenerator}.
+	 */
+	private final String test_mode;
+
+	/**
+	 * Indicates the transport of the channels of the test. Can be either one
+	 * of <socket, loopback>.
+	 */
+	private final String transport;
+
 	/**
 	 * Allocates a new PeerTester object.
 	 *
@@ -532,7 +558,11 @@ public class PeerTester extends CloseableThread {
 		this.databases_directory = this.configuration.getString("database_directory", "databases");
 		this.shared_directory = this.configuration.getString("shared_directory_path", "shared/peers");
 		this.behavior_mode = this.configuration.getString("behavior_mode", "all");
+		this.logging_mode = this.configuration.getString("logging_mode", "asynchronous");
 		this.delete_shared_files = this.configuration.getBoolean("delete_shared_files", false);
+		this.test_mode = this.configuration.getString("test_mode", "peers");
+		this.transport = this.configuration.getString("transport",
+		        Configuration.getDefault().getString("transport", Transport.socket_transport));
 
 		final File database_directory_file = new File(this.databases_directory);
 		if (database_directory_file.exists()) {
@@ -568,12 +598,39 @@ public class PeerTester extends CloseableThread {
 	@Override
 	public void run() {
 
+		LoggerManager.setAsynchronous(!this.logging_mode.equalsIgnoreCase("synchronous"));
+
+		/*
+		 * The loopback transport keeps the tracker and the peers of the test
+		 * in memory, so large swarms do not exhaust the ports and the file
+		 * descriptors of the system. The links of the tracker and the peers
+		 * are emulated if the configuration selects a WAN scenario.
+		 */
+		Transport.setDefault(EmulatedTransport.newScenario(this.configuration, Transport.newTransport(this.transport)));
+
+		final long start_time = System.currentTimeMillis();
+		final long start_logged_entries = LoggerManager.getLoggedEntries();
+		final long start_synchronous_entries = LoggerManager.getSynchronousEntries();
+		final long start_logging_time = LoggerManager.getLoggingTime();
+
 		try (Tracker tracker = new Tracker(this.trackers_group, String.format("%s.Tracker", this.getName()))) {
 
 			if (tracker.startManager(0, this.database_path)) {
 
 				final InetSocketAddress tracker_socket_address = tracker.getServerAddress();
-				if (tracker_socket_address != null) {
+				if ((tracker_socket_address != null) && this.test_mode.equalsIgnoreCase("load")) {
+
+					try (LoadGenerator generator = new LoadGenerator(this.peers_group,
+					        String.format("%s.LoadGenerator", this.getName()), this.configuration,
+					        tracker_socket_address)) {
+
+						generator.start();
+						generator.join();
+
+					}
+
+				}
+				else if (tracker_socket_address != null) {
 
 					final ArrayDeque<TestablePeer> peers = new ArrayDeque<>();
 
@@ -679,6 +736,24 @@ public class PeerTester extends CloseableThread {
 					        String.format("The following files have been downloaded: %s", downloaded_files.stream()
 					                .map(x -> x.getAbsolutePath()).collect(Collectors.toList()).toString()));
 
+					/*
+					 * Report the cost of logging under the load of the test.
+					 */
+					final long elapsed_time = Math.max(1, System.currentTimeMillis() - start_time);
+					final long logged_entries = LoggerManager.getLoggedEntries() - start_logged_entries;
+					final long synchronous_entries = LoggerManager.getSynchronousEntries() - start_synchronous_entries;
+					final long logging_time = LoggerManager.getLoggingTime() - start_logging_time;
+
+					LoggerManager.tracedLog(this, Level.INFO,
+					        String.format(
+					                "%d entries were logged %s in %d ms (%.1f entries/s, %d written synchronously, "
+					                        + "%.1f us per entry on the caller).",
+					                new Long(logged_entries),
+					                LoggerManager.isAsynchronous() ? "asynchronously" : "synchronously",
+					                new Long(elapsed_time), new Double((logged_entries * 1000.0) / elapsed_time),
+					                new Long(synchronous_entries),
+					                new Double(logged_entries == 0 ? 0 : (logging_time / 1000.0) / logged_entries)));
+
 					/*
 					 * Delete all shared files.
 					 */